@@ -0,0 +1,106 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a test matrix file in the binary format of {@link BinaryTestMatrixArtifact}
+ * with loading the same matrix as JSON, with a specification requiring a share of the tests. A
+ * new loader is used for each invocation, because a loader skips matrices with an already loaded
+ * audit version.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BinaryFileProctorLoaderBenchmark {
+    @Param({"1000", "10000"})
+    int numTests;
+
+    /** percentage of tests required by the specification, the others are unreferenced */
+    @Param({"100", "10"})
+    int requiredPercent;
+
+    @Param({"0", "20"})
+    int payloadSize;
+
+    private ProctorSpecification specification;
+    private File jsonFile;
+    private File binaryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        final TestMatrixArtifact matrix =
+                SyntheticTestMatrix.generate(numTests, RuleComplexity.SIMPLE, 0, payloadSize);
+        // the first tests, so that no required test depends on an unreferenced test
+        final Map<String, ConsumableTestDefinition> requiredTests = new LinkedHashMap<>();
+        for (final Map.Entry<String, ConsumableTestDefinition> entry :
+                matrix.getTests().entrySet()) {
+            if (requiredTests.size() >= (numTests * requiredPercent) / 100) {
+                break;
+            }
+            requiredTests.put(entry.getKey(), entry.getValue());
+        }
+        final TestMatrixArtifact requiredMatrix = new TestMatrixArtifact();
+        requiredMatrix.setAudit(matrix.getAudit());
+        requiredMatrix.setTests(requiredTests);
+        specification = SyntheticTestMatrix.specification(requiredMatrix);
+
+        jsonFile = File.createTempFile("proctor-benchmark", ".json");
+        Files.write(
+                jsonFile.toPath(),
+                SyntheticTestMatrix.toJson(matrix).getBytes(StandardCharsets.UTF_8));
+        binaryFile = File.createTempFile("proctor-benchmark", ".bin");
+        try (OutputStream output =
+                new BufferedOutputStream(Files.newOutputStream(binaryFile.toPath()))) {
+            BinaryTestMatrixArtifact.write(matrix, output);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jsonFile.toPath());
+        Files.deleteIfExists(binaryFile.toPath());
+    }
+
+    @Benchmark
+    public Proctor loadJsonFile() throws Exception {
+        return checkLoaded(
+                new FileProctorLoader(specification, jsonFile, RuleEvaluator.FUNCTION_MAPPER)
+                        .doLoad());
+    }
+
+    @Benchmark
+    public Proctor loadBinaryFile() throws Exception {
+        return checkLoaded(
+                new BinaryFileProctorLoader(
+                                specification, binaryFile, RuleEvaluator.FUNCTION_MAPPER)
+                        .doLoad());
+    }
+
+    private static Proctor checkLoaded(final Proctor proctor) {
+        if (proctor == null) {
+            throw new IllegalStateException("Failed to load synthetic test matrix");
+        }
+        return proctor;
+    }
+}
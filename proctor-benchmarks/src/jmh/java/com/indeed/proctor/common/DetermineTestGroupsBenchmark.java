@@ -0,0 +1,71 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import com.indeed.proctor.common.model.TestType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Proctor#determineTestGroups(Identifiers, Map, ForceGroupsOptions,
+ * java.util.Collection)}, the per-request hot path of all consumers. With {@link
+ * RuleComplexity#NONE} only bucket hashing and result construction are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DetermineTestGroupsBenchmark {
+    private static final int NUM_IDENTIFIERS = 1024;
+
+    @Param({"100", "1000", "10000"})
+    int numTests;
+
+    @Param({"NONE", "SIMPLE", "COMPLEX"})
+    RuleComplexity ruleComplexity;
+
+    @Param({"0", "3"})
+    int dependencyDepth;
+
+    @Param({"false", "true"})
+    boolean compactResults;
+
+    private Proctor proctor;
+    private Map<String, Object> context;
+    private Identifiers[] identifiers;
+
+    @Setup
+    public void setUp() {
+        proctor =
+                SyntheticTestMatrix.construct(
+                        SyntheticTestMatrix.generate(numTests, ruleComplexity, dependencyDepth, 0),
+                        compactResults);
+        context = SyntheticTestMatrix.context();
+        // different identifiers per invocation, so that all buckets are chosen
+        final Random random = new Random(42);
+        identifiers = new Identifiers[NUM_IDENTIFIERS];
+        for (int i = 0; i < NUM_IDENTIFIERS; i++) {
+            identifiers[i] =
+                    new Identifiers(TestType.ANONYMOUS_USER, Long.toHexString(random.nextLong()));
+        }
+    }
+
+    @Benchmark
+    public ProctorResult determineTestGroups() {
+        return proctor.determineTestGroups(
+                identifiers[ThreadLocalRandom.current().nextInt(NUM_IDENTIFIERS)],
+                context,
+                ForceGroupsOptions.empty(),
+                Collections.emptyList());
+    }
+}
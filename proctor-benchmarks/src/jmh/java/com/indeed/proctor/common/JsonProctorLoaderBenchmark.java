@@ -0,0 +1,58 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a test matrix from JSON: parsing, verification against a specification
+ * requiring all tests, and construction of the {@link Proctor}. A new loader is used for each
+ * invocation, because a loader skips matrices with an already loaded audit version.
+ */
+@State(Scope.Benchmark)
+public class JsonProctorLoaderBenchmark {
+    @Param({"100", "1000", "10000"})
+    int numTests;
+
+    @Param({"SIMPLE", "COMPLEX"})
+    RuleComplexity ruleComplexity;
+
+    @Param({"0", "3"})
+    int dependencyDepth;
+
+    @Param({"0", "20"})
+    int payloadSize;
+
+    private ProctorSpecification specification;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        final TestMatrixArtifact matrix =
+                SyntheticTestMatrix.generate(
+                        numTests, ruleComplexity, dependencyDepth, payloadSize);
+        specification = SyntheticTestMatrix.specification(matrix);
+        json = SyntheticTestMatrix.toJson(matrix);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Proctor doLoad() throws Exception {
+        final Proctor proctor =
+                new StringProctorLoader(specification, "benchmark", json).doLoad();
+        if (proctor == null) {
+            throw new IllegalStateException("Failed to load synthetic test matrix");
+        }
+        return proctor;
+    }
+}
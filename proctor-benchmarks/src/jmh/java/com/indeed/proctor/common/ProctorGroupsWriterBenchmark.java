@@ -0,0 +1,70 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import com.indeed.proctor.common.model.TestType;
+import com.indeed.proctor.consumer.ProctorGroupsWriter;
+import com.indeed.proctor.consumer.logging.TestGroupFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the logged groups string of a request with {@link
+ * ProctorGroupsWriter#writeGroupsAsString(ProctorResult, String...)}, using both legacy formatters
+ * like most consumers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProctorGroupsWriterBenchmark {
+    private static final int NUM_RESULTS = 64;
+
+    @Param({"100", "1000", "10000"})
+    int numTests;
+
+    @Param({"false", "true"})
+    boolean compactResults;
+
+    private ProctorGroupsWriter writer;
+    private ProctorResult[] results;
+
+    @Setup
+    public void setUp() {
+        writer =
+                new ProctorGroupsWriter.Builder(
+                                TestGroupFormatter.WITHOUT_ALLOC_ID,
+                                TestGroupFormatter.WITH_ALLOC_ID)
+                        .build();
+        final Proctor proctor =
+                SyntheticTestMatrix.construct(
+                        SyntheticTestMatrix.generate(numTests, RuleComplexity.NONE, 0, 0),
+                        compactResults);
+        final Random random = new Random(42);
+        results = new ProctorResult[NUM_RESULTS];
+        for (int i = 0; i < NUM_RESULTS; i++) {
+            results[i] =
+                    proctor.determineTestGroups(
+                            new Identifiers(
+                                    TestType.ANONYMOUS_USER, Long.toHexString(random.nextLong())),
+                            SyntheticTestMatrix.context(),
+                            ForceGroupsOptions.empty(),
+                            Collections.emptyList());
+        }
+    }
+
+    @Benchmark
+    public String writeGroupsAsString() {
+        return writer.writeGroupsAsString(
+                results[ThreadLocalRandom.current().nextInt(NUM_RESULTS)]);
+    }
+}
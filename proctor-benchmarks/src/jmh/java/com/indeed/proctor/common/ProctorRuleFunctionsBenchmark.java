@@ -0,0 +1,75 @@
+package com.indeed.proctor.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.indeed.util.core.ReleaseVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.el.ValueExpression;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures compiled rules calling proctor:matches and proctor:versionInRange, which reuse compiled
+ * patterns and parsed versions of {@link ProctorRuleFunctions}, and as baseline the same work
+ * without reuse, as done before for each evaluation of a rule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProctorRuleFunctionsBenchmark {
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (X11; Linux x86_64) Gecko/20100101 Firefox/91.0";
+    private static final String USER_AGENT_REGEX = ".*(Firefox|Chrome)/\\d+\\.\\d+.*";
+    private static final String APP_VERSION = "1.2.3.4";
+
+    private RuleEvaluator ruleEvaluator;
+    private CompiledRule matchesRule;
+    private CompiledRule versionInRangeRule;
+    private Map<String, ValueExpression> context;
+
+    @Setup
+    public void setUp() {
+        ruleEvaluator = RuleEvaluator.createDefaultRuleEvaluator(Collections.emptyMap());
+        matchesRule =
+                ruleEvaluator.compileBooleanRule(
+                        "${proctor:matches(userAgent, '.*(Firefox|Chrome)/\\\\d+\\\\.\\\\d+.*')}");
+        versionInRangeRule =
+                ruleEvaluator.compileBooleanRule(
+                        "${proctor:versionInRange(proctor:version(appVersion),"
+                                + " '1.2.0.0', '1.3.0.0')}");
+        context =
+                ProctorUtils.convertToValueExpressionMap(
+                        RuleEvaluator.EXPRESSION_FACTORY,
+                        ImmutableMap.of("userAgent", USER_AGENT, "appVersion", APP_VERSION));
+    }
+
+    @Benchmark
+    public boolean matchesRule() {
+        return ruleEvaluator.evaluateCompiledBooleanRule(matchesRule, context);
+    }
+
+    @Benchmark
+    public boolean versionInRangeRule() {
+        return ruleEvaluator.evaluateCompiledBooleanRule(versionInRangeRule, context);
+    }
+
+    @Benchmark
+    public boolean matchesWithoutCache() {
+        return USER_AGENT.matches(USER_AGENT_REGEX);
+    }
+
+    @Benchmark
+    public boolean versionInRangeWithoutCache() {
+        return ProctorRuleFunctions.inRange(
+                ReleaseVersion.fromString(APP_VERSION),
+                ReleaseVersion.fromString("1.2.0.0"),
+                ReleaseVersion.fromString("1.3.0.0"));
+    }
+}
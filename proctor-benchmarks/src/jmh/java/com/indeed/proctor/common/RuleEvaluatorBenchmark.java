@@ -0,0 +1,53 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.el.ValueExpression;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating a rule from its String, as done by {@link
+ * RuleEvaluator#evaluateBooleanRuleWithValueExpr(String, Map)}, with evaluating a rule compiled
+ * once, as done by {@link Proctor} for each request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RuleEvaluatorBenchmark {
+    @Param({"SIMPLE", "COMPLEX"})
+    RuleComplexity ruleComplexity;
+
+    private RuleEvaluator ruleEvaluator;
+    private String rule;
+    private CompiledRule compiledRule;
+    private Map<String, ValueExpression> context;
+
+    @Setup
+    public void setUp() {
+        ruleEvaluator = RuleEvaluator.createDefaultRuleEvaluator(SyntheticTestMatrix.CONSTANTS);
+        rule = ruleComplexity.getTestRule();
+        compiledRule = ruleEvaluator.compileBooleanRule(rule);
+        context =
+                ProctorUtils.convertToValueExpressionMap(
+                        RuleEvaluator.EXPRESSION_FACTORY, SyntheticTestMatrix.context());
+    }
+
+    @Benchmark
+    public boolean evaluateBooleanRuleWithValueExpr() {
+        return ruleEvaluator.evaluateBooleanRuleWithValueExpr(rule, context);
+    }
+
+    @Benchmark
+    public boolean evaluateCompiledBooleanRule() {
+        return ruleEvaluator.evaluateCompiledBooleanRule(compiledRule, context);
+    }
+}
@@ -0,0 +1,215 @@
+package com.indeed.proctor.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.indeed.proctor.common.dynamic.DynamicFilters;
+import com.indeed.proctor.common.model.Allocation;
+import com.indeed.proctor.common.model.Audit;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.model.Payload;
+import com.indeed.proctor.common.model.Range;
+import com.indeed.proctor.common.model.TestBucket;
+import com.indeed.proctor.common.model.TestDefinition;
+import com.indeed.proctor.common.model.TestDependency;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import com.indeed.proctor.common.model.TestType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates test matrices of a given size and shape for benchmarks, so that results of different
+ * runs and branches are comparable.
+ *
+ * <p>All tests are USER tests with an inactive, a control and an active bucket. Context variables
+ * used by rules are described by {@link #PROVIDED_CONTEXT}, and {@link #context()} returns a
+ * request context matching most rules.
+ */
+final class SyntheticTestMatrix {
+    static final Map<String, String> PROVIDED_CONTEXT =
+            ImmutableMap.of(
+                    "country", "String",
+                    "lang", "String",
+                    "userAgent", "String",
+                    "loggedIn", "boolean",
+                    "visits", "int");
+
+    /** test constants of all tests */
+    static final Map<String, Object> CONSTANTS =
+            ImmutableMap.of("COUNTRIES", ImmutableList.of("US", "CA", "GB", "DE", "JP"));
+
+    enum RuleComplexity {
+        /** no test or allocation rules, only bucket hashing is measured */
+        NONE(null, null),
+        /** single comparisons, like most rules in practice */
+        SIMPLE("${country == 'US'}", "${lang == 'en'}"),
+        /** function calls, test constants and several variables */
+        COMPLEX(
+                "${proctor:contains(COUNTRIES, country)"
+                        + " && fn:startsWith(fn:toLowerCase(userAgent), 'mozilla')"
+                        + " && (loggedIn || visits > 3)}",
+                "${fn:endsWith(lang, 'n') || visits >= 10}");
+
+        @Nullable private final String testRule;
+        @Nullable private final String allocationRule;
+
+        RuleComplexity(@Nullable final String testRule, @Nullable final String allocationRule) {
+            this.testRule = testRule;
+            this.allocationRule = allocationRule;
+        }
+
+        @Nullable
+        String getTestRule() {
+            return testRule;
+        }
+    }
+
+    private SyntheticTestMatrix() {}
+
+    /**
+     * @param numTests number of tests in the matrix, named test0, test1, ...
+     * @param ruleComplexity rules of all tests and of their first allocation
+     * @param dependencyDepth length of dependency chains, 0 for no dependencies. Each test depends
+     *     on the active bucket of the previous test unless it starts a new chain.
+     * @param payloadSize number of strings in the payload of each bucket, 0 for no payloads
+     */
+    @Nonnull
+    static TestMatrixArtifact generate(
+            final int numTests,
+            @Nonnull final RuleComplexity ruleComplexity,
+            final int dependencyDepth,
+            final int payloadSize) {
+        final Map<String, ConsumableTestDefinition> tests = new LinkedHashMap<>();
+        for (int i = 0; i < numTests; i++) {
+            final String testName = testName(i);
+            final boolean startsChain = (i % (dependencyDepth + 1)) == 0;
+            final TestDependency dependsOn =
+                    startsChain ? null : new TestDependency(testName(i - 1), 1);
+            tests.put(
+                    testName,
+                    ConsumableTestDefinition.fromTestDefinition(
+                            TestDefinition.builder()
+                                    .setVersion(Integer.toString(i))
+                                    .setTestType(TestType.ANONYMOUS_USER)
+                                    .setSalt(testName)
+                                    .setRule(ruleComplexity.testRule)
+                                    .setConstants(CONSTANTS)
+                                    .setBuckets(buckets(testName, payloadSize))
+                                    .setAllocations(allocations(ruleComplexity))
+                                    .setDependsOn(dependsOn)
+                                    .build()));
+        }
+
+        final Audit audit = new Audit();
+        audit.setVersion("1");
+        audit.setUpdated(0);
+        audit.setUpdatedBy("benchmark");
+
+        final TestMatrixArtifact matrix = new TestMatrixArtifact();
+        matrix.setAudit(audit);
+        matrix.setTests(tests);
+        return matrix;
+    }
+
+    /** @return a specification requiring all tests of the matrix */
+    @Nonnull
+    static ProctorSpecification specification(@Nonnull final TestMatrixArtifact matrix) {
+        final Map<String, TestSpecification> tests = new LinkedHashMap<>();
+        for (final Map.Entry<String, ConsumableTestDefinition> entry :
+                matrix.getTests().entrySet()) {
+            final TestSpecification testSpecification = new TestSpecification();
+            testSpecification.setFallbackValue(-1);
+            final Map<String, Integer> buckets = new LinkedHashMap<>();
+            for (final TestBucket bucket : entry.getValue().getBuckets()) {
+                buckets.put(bucket.getName(), bucket.getValue());
+            }
+            testSpecification.setBuckets(buckets);
+            if (entry.getValue().getBuckets().get(0).getPayload() != null) {
+                final PayloadSpecification payloadSpecification = new PayloadSpecification();
+                payloadSpecification.setType(PayloadType.STRING_ARRAY.payloadTypeName);
+                testSpecification.setPayload(payloadSpecification);
+            }
+            tests.put(entry.getKey(), testSpecification);
+        }
+        return new ProctorSpecification(PROVIDED_CONTEXT, tests, new DynamicFilters());
+    }
+
+    @Nonnull
+    static String toJson(@Nonnull final TestMatrixArtifact matrix) {
+        final StringWriter writer = new StringWriter();
+        try {
+            ProctorUtils.serializeArtifact(writer, matrix);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    @Nonnull
+    static Proctor construct(
+            @Nonnull final TestMatrixArtifact matrix, final boolean compactResults) {
+        return Proctor.construct(
+                matrix,
+                ProctorLoadResult.emptyResult(),
+                RuleEvaluator.FUNCTION_MAPPER,
+                new IdentifierValidator.Noop(),
+                null,
+                compactResults);
+    }
+
+    /** @return a request context in which SIMPLE and COMPLEX rules are true */
+    @Nonnull
+    static Map<String, Object> context() {
+        return ImmutableMap.of(
+                "country", "US",
+                "lang", "en",
+                "userAgent", "Mozilla/5.0 (X11; Linux x86_64) Gecko/20100101 Firefox/91.0",
+                "loggedIn", true,
+                "visits", 7);
+    }
+
+    @Nonnull
+    private static String testName(final int index) {
+        return "test" + index;
+    }
+
+    @Nonnull
+    private static List<TestBucket> buckets(@Nonnull final String testName, final int payloadSize) {
+        return ImmutableList.of(
+                new TestBucket("inactive", -1, "inactive", payload(testName, -1, payloadSize)),
+                new TestBucket("control", 0, "control", payload(testName, 0, payloadSize)),
+                new TestBucket("active", 1, "active", payload(testName, 1, payloadSize)));
+    }
+
+    @Nullable
+    private static Payload payload(
+            @Nonnull final String testName, final int bucketValue, final int payloadSize) {
+        if (payloadSize == 0) {
+            return null;
+        }
+        final String[] values = new String[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            values[i] = testName + '-' + bucketValue + '-' + i;
+        }
+        return new Payload(values);
+    }
+
+    @Nonnull
+    private static List<Allocation> allocations(@Nonnull final RuleComplexity ruleComplexity) {
+        final List<Range> ranges =
+                ImmutableList.of(new Range(-1, 0), new Range(0, 0.5), new Range(1, 0.5));
+        if (ruleComplexity.allocationRule == null) {
+            return ImmutableList.of(new Allocation(null, ranges, "#A1"));
+        }
+        return ImmutableList.of(
+                new Allocation(ruleComplexity.allocationRule, ranges, "#A1"),
+                new Allocation(null, Collections.singletonList(new Range(0, 1)), "#B1"));
+    }
+}
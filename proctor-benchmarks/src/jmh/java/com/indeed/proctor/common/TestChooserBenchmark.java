@@ -0,0 +1,166 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.model.TestType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.el.ValueExpression;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures choosing a bucket for a test without rules: hashing of identifiers by {@link
+ * StandardTestChooser}, and the random source of {@link RandomTestChooser} in a single thread and
+ * in as many threads as there are cores, to show contention. {@link RandomTestMatrix} chooses for
+ * all tests of a matrix of RANDOM tests per invocation, as a request does, where contention is
+ * spread over the generators of all tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TestChooserBenchmark {
+    private static final int NUM_IDENTIFIERS = 1024;
+    private static final Map<String, ValueExpression> EMPTY_CONTEXT = Collections.emptyMap();
+
+    private StandardTestChooser standardTestChooser;
+    private RandomTestChooser randomTestChooser;
+    private RandomTestChooser seededRandomTestChooser;
+    private String[] identifiers;
+
+    @Setup
+    public void setUp() {
+        final ConsumableTestDefinition testDefinition =
+                SyntheticTestMatrix.generate(1, RuleComplexity.NONE, 0, 0).getTests().get("test0");
+        standardTestChooser =
+                new StandardTestChooser(
+                        RuleEvaluator.EXPRESSION_FACTORY,
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        "test0",
+                        testDefinition);
+        randomTestChooser =
+                new RandomTestChooser(
+                        RuleEvaluator.EXPRESSION_FACTORY,
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        "test0",
+                        testDefinition);
+        seededRandomTestChooser =
+                new RandomTestChooser(
+                        42,
+                        RuleEvaluator.EXPRESSION_FACTORY,
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        "test0",
+                        testDefinition);
+        final Random random = new Random(42);
+        identifiers = new String[NUM_IDENTIFIERS];
+        for (int i = 0; i < NUM_IDENTIFIERS; i++) {
+            identifiers[i] = Long.toHexString(random.nextLong());
+        }
+    }
+
+    @Benchmark
+    public TestChooser.Result standardTestChooser() {
+        return chooseStandard();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TestChooser.Result standardTestChooserConcurrently() {
+        return chooseStandard();
+    }
+
+    @Benchmark
+    public TestChooser.Result randomTestChooser() {
+        return randomTestChooser.chooseInternal(null, EMPTY_CONTEXT, Collections.emptyMap());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TestChooser.Result randomTestChooserConcurrently() {
+        return randomTestChooser.chooseInternal(null, EMPTY_CONTEXT, Collections.emptyMap());
+    }
+
+    /** baseline with one generator shared by all threads */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TestChooser.Result seededRandomTestChooserConcurrently() {
+        return seededRandomTestChooser.chooseInternal(null, EMPTY_CONTEXT, Collections.emptyMap());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void randomTestMatrixConcurrently(
+            final RandomTestMatrix matrix, final Blackhole blackhole) {
+        chooseAll(matrix.randomTestChoosers, blackhole);
+    }
+
+    /** baseline with one generator per test shared by all threads */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void seededRandomTestMatrixConcurrently(
+            final RandomTestMatrix matrix, final Blackhole blackhole) {
+        chooseAll(matrix.seededRandomTestChoosers, blackhole);
+    }
+
+    private static void chooseAll(final RandomTestChooser[] choosers, final Blackhole blackhole) {
+        for (final RandomTestChooser chooser : choosers) {
+            blackhole.consume(chooser.chooseInternal(null, EMPTY_CONTEXT, Collections.emptyMap()));
+        }
+    }
+
+    private TestChooser.Result chooseStandard() {
+        return standardTestChooser.chooseInternal(
+                identifiers[ThreadLocalRandom.current().nextInt(NUM_IDENTIFIERS)],
+                EMPTY_CONTEXT,
+                Collections.emptyMap());
+    }
+
+    /** choosers for all tests of a matrix of RANDOM tests */
+    @State(Scope.Benchmark)
+    public static class RandomTestMatrix {
+        @Param({"10", "100", "1000"})
+        int numTests;
+
+        private RandomTestChooser[] randomTestChoosers;
+        private RandomTestChooser[] seededRandomTestChoosers;
+
+        @Setup
+        public void setUp() {
+            final Map<String, ConsumableTestDefinition> tests =
+                    SyntheticTestMatrix.generate(numTests, RuleComplexity.NONE, 0, 0).getTests();
+            randomTestChoosers = new RandomTestChooser[tests.size()];
+            seededRandomTestChoosers = new RandomTestChooser[tests.size()];
+            int i = 0;
+            for (final Map.Entry<String, ConsumableTestDefinition> entry : tests.entrySet()) {
+                final ConsumableTestDefinition testDefinition = entry.getValue();
+                testDefinition.setTestType(TestType.RANDOM);
+                randomTestChoosers[i] =
+                        new RandomTestChooser(
+                                RuleEvaluator.EXPRESSION_FACTORY,
+                                RuleEvaluator.FUNCTION_MAPPER,
+                                entry.getKey(),
+                                testDefinition);
+                seededRandomTestChoosers[i] =
+                        new RandomTestChooser(
+                                i,
+                                RuleEvaluator.EXPRESSION_FACTORY,
+                                RuleEvaluator.FUNCTION_MAPPER,
+                                entry.getKey(),
+                                testDefinition);
+                i++;
+            }
+        }
+    }
+}
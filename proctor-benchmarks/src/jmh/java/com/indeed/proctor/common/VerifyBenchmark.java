@@ -0,0 +1,65 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.SyntheticTestMatrix.RuleComplexity;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures verification of a test matrix against a specification requiring all tests, as done on
+ * each reload, with rules evaluated against the provided context. Compares verifying tests
+ * serially and in parallel.
+ */
+@State(Scope.Benchmark)
+public class VerifyBenchmark {
+    @Param({"1000", "10000"})
+    int numTests;
+
+    @Param({"SIMPLE", "COMPLEX"})
+    RuleComplexity ruleComplexity;
+
+    @Param({"true", "false"})
+    boolean parallel;
+
+    private TestMatrixArtifact matrix;
+    private ProctorSpecification specification;
+    private ProvidedContext providedContext;
+
+    @Setup
+    public void setUp() {
+        matrix = SyntheticTestMatrix.generate(numTests, ruleComplexity, 0, 0);
+        specification = SyntheticTestMatrix.specification(matrix);
+        providedContext =
+                ProctorUtils.convertContextToTestableMap(specification.getProvidedContext());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ProctorLoadResult verify() {
+        final ProctorLoadResult result =
+                ProctorUtils.verify(
+                        matrix,
+                        "benchmark",
+                        specification.getTests(),
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        providedContext,
+                        Collections.emptySet(),
+                        Collections.emptySet(),
+                        null,
+                        parallel ? 1 : Integer.MAX_VALUE);
+        if (result.hasInvalidTests()) {
+            throw new IllegalStateException("Failed to verify synthetic test matrix");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package com.indeed.proctor.store;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures concurrent edits of distinct tests through {@link
+ * GitProctorCore#doInWorkingDirectory(ChangeMetadata, String, FileBasedProctorStore.ProctorUpdater)}
+ * against a local bare repository as remote, each edit committed and pushed separately or in
+ * groups. One operation is a round of all concurrent edits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GitProctorCoreCommitBenchmark {
+    private static final String TEST_DEFINITIONS_DIRECTORY = "matrices/test-definitions";
+    private static final int NUM_TESTS = 100;
+
+    @Param({"1", "8", "32"})
+    int concurrentEdits;
+
+    /** 0 commits and pushes each edit while holding the lock of the working directory */
+    @Param({"0", "20"})
+    long groupCommitWindowMillis;
+
+    private File tempDir;
+    private GitProctorCore core;
+    private ExecutorService executor;
+    private int round;
+
+    @Setup
+    public void setUp() throws Exception {
+        tempDir = Files.createTempDirectory("git-commit-benchmark").toFile();
+        final File remoteDir = new File(tempDir, "remote.git");
+        Git.init().setBare(true).setDirectory(remoteDir).call().close();
+        final String gitUrl = remoteDir.toURI().toString();
+
+        final File seedDir = new File(tempDir, "seed");
+        try (Git seed = Git.cloneRepository().setURI(gitUrl).setDirectory(seedDir).call()) {
+            for (int i = 0; i < NUM_TESTS; i++) {
+                writeDefinition(seedDir, i, 0);
+            }
+            seed.add().addFilepattern(".").call();
+            seed.commit().setMessage("Add tests").call();
+            seed.push().call();
+        }
+
+        final File workingDir = new File(tempDir, "workspace");
+        workingDir.mkdirs();
+        core =
+                new GitProctorCore(
+                        gitUrl,
+                        "username",
+                        "password",
+                        TEST_DEFINITIONS_DIRECTORY,
+                        new GitWorkspaceProviderImpl(workingDir));
+        core.setGroupCommitWindowMillis(groupCommitWindowMillis);
+        executor = Executors.newFixedThreadPool(concurrentEdits);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        core.close();
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Benchmark
+    public int editConcurrently() throws Exception {
+        final int value = ++round;
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrentEdits; i++) {
+            final int testIndex = i % NUM_TESTS;
+            futures.add(
+                    executor.submit(
+                            () -> {
+                                core.doInWorkingDirectory(
+                                        new ChangeMetadata(
+                                                "username",
+                                                "password",
+                                                "author",
+                                                Instant.now(),
+                                                "edit test" + testIndex),
+                                        core.getAddTestRevision(),
+                                        (rcsClient, workingDir) -> {
+                                            rcsClient.add(
+                                                    writeDefinition(workingDir, testIndex, value));
+                                            return true;
+                                        });
+                                return null;
+                            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        return value;
+    }
+
+    private static File writeDefinition(final File rootDir, final int testIndex, final int value)
+            throws IOException {
+        final File testDirectory =
+                new File(rootDir, TEST_DEFINITIONS_DIRECTORY + "/test" + testIndex);
+        testDirectory.mkdirs();
+        final File definition = new File(testDirectory, "definition.json");
+        Files.write(
+                definition.toPath(),
+                ("{\"version\":" + value + "}").getBytes(StandardCharsets.UTF_8));
+        return definition;
+    }
+}
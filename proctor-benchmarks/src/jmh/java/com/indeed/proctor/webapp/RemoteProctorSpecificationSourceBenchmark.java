@@ -0,0 +1,147 @@
+package com.indeed.proctor.webapp;
+
+import com.indeed.proctor.store.ProctorReader;
+import com.indeed.proctor.webapp.db.Environment;
+import com.indeed.proctor.webapp.model.ProctorClientApplication;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a refresh of specifications of all environments by {@link
+ * RemoteProctorSpecificationSource#load()}, with app instances served by a local stub http server
+ * adding a fixed latency to each response. The first instance of a share of app versions responds
+ * slowly, to compare failing over after the http timeout with hedged requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RemoteProctorSpecificationSourceBenchmark {
+    private static final int INSTANCES_PER_APP_VERSION = 3;
+    private static final int LATENCY_MILLIS = 5;
+    private static final int SLOW_LATENCY_MILLIS = 2000;
+    private static final int HTTP_TIMEOUT_MILLIS = 1000;
+
+    private static final byte[] EXPORTED_VARIABLES =
+            ("specification-spec.json={\"providedContext\"\\:{\"country\"\\:\"String\"},"
+                            + "\"tests\"\\:{\"example_tst\"\\:{\"fallbackValue\"\\:-1,"
+                            + "\"buckets\"\\:{\"inactive\"\\:-1,\"control\"\\:0,\"test\"\\:1}}}}\n")
+                    .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_FOUND = "not found".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"100", "1000"})
+    int numAppVersions;
+
+    /** percentage of app versions whose first instance responds slower than the http timeout */
+    @Param({"0", "10"})
+    int slowPercent;
+
+    /** a hedge delay above the http timeout only requests another instance after a failure */
+    @Param({"50", "10000"})
+    int hedgeDelayMillis;
+
+    @Param({"10", "50"})
+    int executorThreads;
+
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private RemoteProctorSpecificationSource source;
+
+    @Setup
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+        server.createContext("/", RemoteProctorSpecificationSourceBenchmark::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        final String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        final List<ProctorClientApplication> clients = new ArrayList<>();
+        final int numSlowAppVersions = (numAppVersions * slowPercent) / 100;
+        for (int i = 0; i < numAppVersions; i++) {
+            for (int j = 0; j < INSTANCES_PER_APP_VERSION; j++) {
+                final String path =
+                        ((i < numSlowAppVersions) && (j == 0) ? "/slow/" : "/fast/") + i + "/" + j;
+                clients.add(
+                        new ProctorClientApplication(
+                                "app" + i, baseUrl + path, baseUrl + path, new Date(), "1"));
+            }
+        }
+
+        source =
+                new RemoteProctorSpecificationSource(
+                        HTTP_TIMEOUT_MILLIS,
+                        executorThreads,
+                        hedgeDelayMillis,
+                        new ProctorClientSource() {
+                            @Override
+                            public List<ProctorClientApplication> loadClients(
+                                    final Environment environment) {
+                                return Collections.unmodifiableList(clients);
+                            }
+
+                            @Override
+                            public void probe(final Environment environment) {}
+                        },
+                        emptyReader(),
+                        emptyReader(),
+                        emptyReader());
+    }
+
+    @TearDown
+    public void tearDown() {
+        source.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean load() {
+        return source.load();
+    }
+
+    private static void handle(final HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        try {
+            Thread.sleep(path.startsWith("/slow/") ? SLOW_LATENCY_MILLIS : LATENCY_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final boolean isVarExport = path.endsWith("/private/v");
+        final byte[] body = isVarExport ? EXPORTED_VARIABLES : NOT_FOUND;
+        exchange.sendResponseHeaders(isVarExport ? 200 : 404, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /** a store without test matrix, e.g. null for the current test matrix */
+    private static ProctorReader emptyReader() {
+        return (ProctorReader)
+                Proxy.newProxyInstance(
+                        ProctorReader.class.getClassLoader(),
+                        new Class<?>[] {ProctorReader.class},
+                        (proxy, method, args) -> null);
+    }
+}
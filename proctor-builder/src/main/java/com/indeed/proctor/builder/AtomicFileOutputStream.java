@@ -0,0 +1,64 @@
+package com.indeed.proctor.builder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes to a temporary file in the directory of the target file, and replaces the target file by
+ * an atomic move on {@link #commit()}. Loaders memory mapping the target file never see a
+ * truncated or partially written file. Closing without a commit deletes the temporary file.
+ */
+class AtomicFileOutputStream extends FilterOutputStream {
+    private final Path target;
+    private final Path tempFile;
+    private boolean committed;
+
+    AtomicFileOutputStream(final File target) throws IOException {
+        this(target.getAbsoluteFile().toPath(), createTempFile(target.getAbsoluteFile()));
+    }
+
+    private AtomicFileOutputStream(final Path target, final Path tempFile) throws IOException {
+        super(new BufferedOutputStream(Files.newOutputStream(tempFile)));
+        this.target = target;
+        this.tempFile = tempFile;
+    }
+
+    private static Path createTempFile(final File target) throws IOException {
+        return Files.createTempFile(
+                target.getParentFile().toPath(), "." + target.getName() + ".", ".tmp");
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        // FilterOutputStream writes byte by byte
+        out.write(b, off, len);
+    }
+
+    /** closes the temporary file and moves it to the target file */
+    void commit() throws IOException {
+        out.close();
+        Files.move(
+                tempFile,
+                target,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Writer;
 
@@ -44,6 +45,16 @@ public class GitLocalProctorBuilder extends ProctorBuilder {
         super(proctorReader, outputSink, author, version);
     }
 
+    public GitLocalProctorBuilder(
+            final ProctorReader proctorReader,
+            final String testDefinitionsDirectory,
+            final Writer outputSink,
+            final OutputStream binaryOutputSink,
+            final String author,
+            final String version) {
+        super(proctorReader, outputSink, binaryOutputSink, author, version);
+    }
+
     private static class GitLocalProctorBuilderArgs extends ProctorBuilderArgs {
         private String inputGitUrl;
         private String branchName;
@@ -145,15 +156,26 @@ public class GitLocalProctorBuilder extends ProctorBuilder {
             outputDir.mkdirs();
             File matrixFile = new File(outputDir, arguments.getFilename());
             matrixFile.createNewFile();
-            new GitLocalProctorBuilder(
-                            proctor,
-                            arguments.getTestDefinitionsDirectory(),
-                            "-".equals(arguments.getOutputdir())
-                                    ? new PrintWriter(System.out)
-                                    : new FileWriter(matrixFile),
-                            arguments.getAuthor(),
-                            arguments.getVersion())
-                    .execute();
+            try (AtomicFileOutputStream binaryOutputSink =
+                    ("-".equals(arguments.getOutputdir())
+                                    || (arguments.getBinaryFilename() == null))
+                            ? null
+                            : new AtomicFileOutputStream(
+                                    new File(outputDir, arguments.getBinaryFilename()))) {
+                new GitLocalProctorBuilder(
+                                proctor,
+                                arguments.getTestDefinitionsDirectory(),
+                                "-".equals(arguments.getOutputdir())
+                                        ? new PrintWriter(System.out)
+                                        : new FileWriter(matrixFile),
+                                binaryOutputSink,
+                                arguments.getAuthor(),
+                                arguments.getVersion())
+                        .execute();
+                if (binaryOutputSink != null) {
+                    binaryOutputSink.commit();
+                }
+            }
         } catch (Exception e) {
             LOGGER.error(
                     "Failed to generates proctor artifact from " + arguments.getInputGitUrl(), e);
@@ -53,6 +53,21 @@ public class LocalProctorBuilder extends ProctorBuilder {
                 version);
     }
 
+    public LocalProctorBuilder(
+            final File inputDir,
+            final String testDefinitionsDirectory,
+            final Writer outputSink,
+            final OutputStream binaryOutputSink,
+            final String author,
+            final String version) {
+        super(
+                new LocalDirectoryStore(inputDir, testDefinitionsDirectory),
+                outputSink,
+                binaryOutputSink,
+                author,
+                version);
+    }
+
     public LocalProctorBuilder(
             final File inputDir,
             final Writer outputSink,
@@ -112,7 +127,13 @@ public class LocalProctorBuilder extends ProctorBuilder {
         final LocalProctorBuilderArgs arguments = new LocalProctorBuilderArgs();
         arguments.parse(args);
 
-        try {
+        try (AtomicFileOutputStream binaryOutputSink =
+                ("-".equals(arguments.getOutputdir()) || (arguments.getBinaryFilename() == null))
+                        ? null
+                        : new AtomicFileOutputStream(
+                                new File(
+                                        arguments.getOutputdir(),
+                                        arguments.getBinaryFilename()))) {
             new LocalProctorBuilder(
                             new File(arguments.getInputdir()),
                             arguments.getTestDefinitionsDirectory(),
@@ -122,9 +143,13 @@ public class LocalProctorBuilder extends ProctorBuilder {
                                             new File(
                                                     arguments.getOutputdir(),
                                                     arguments.getFilename())),
+                            binaryOutputSink,
                             arguments.getAuthor(),
                             arguments.getVersion())
                     .execute();
+            if (binaryOutputSink != null) {
+                binaryOutputSink.commit();
+            }
         } catch (final Exception e) {
             LOGGER.error("Failed to generates proctor artifact from " + arguments.getInputdir(), e);
             System.exit(1);
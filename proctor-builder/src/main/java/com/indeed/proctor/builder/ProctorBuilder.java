@@ -7,6 +7,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 
 public class ProctorBuilder {
@@ -15,6 +16,7 @@ public class ProctorBuilder {
 
     private final ProctorReader proctorReader;
     private final Writer outputSink;
+    private final OutputStream binaryOutputSink;
     private final String author;
     private String version;
 
@@ -32,13 +34,28 @@ public class ProctorBuilder {
             final Writer outputSink,
             final String author,
             final String version) {
+        this(proctorReader, outputSink, null, author, version);
+    }
+
+    /**
+     * @param binaryOutputSink if not null, the test matrix is also written there in the binary
+     *     format of {@link com.indeed.proctor.common.BinaryTestMatrixArtifact}
+     */
+    public ProctorBuilder(
+            final ProctorReader proctorReader,
+            final Writer outputSink,
+            final OutputStream binaryOutputSink,
+            final String author,
+            final String version) {
         this.proctorReader = proctorReader;
         this.outputSink = outputSink;
+        this.binaryOutputSink = binaryOutputSink;
         this.author = author;
         this.version = version;
     }
 
     public void execute() throws StoreException, IOException, IncompatibleTestMatrixException {
-        ProctorBuilderUtils.generateArtifact(proctorReader, outputSink, author, version);
+        ProctorBuilderUtils.generateArtifact(
+                proctorReader, outputSink, binaryOutputSink, author, version);
     }
 }
@@ -14,6 +14,7 @@ class ProctorBuilderArgs {
 
     private String outputdir;
     private String filename;
+    private String binaryFilename = null;
 
     // Artifact overrides
     private String author = null;
@@ -36,6 +37,13 @@ class ProctorBuilderArgs {
                         .withArgName("filename")
                         .withDescription("The filename to use. default=proctor-tests-matrix.json")
                         .create("f"));
+        options.addOption(
+                OptionBuilder.hasArg(true)
+                        .withLongOpt("binary-filename")
+                        .withArgName("binary filename")
+                        .withDescription(
+                                "If set, also write the matrix in binary format to this filename")
+                        .create("B"));
 
         options.addOption(
                 OptionBuilder.hasArg(true)
@@ -69,6 +77,9 @@ class ProctorBuilderArgs {
     protected void extract(final CommandLine results) {
         this.outputdir = results.getOptionValue("output", "-");
         this.filename = results.getOptionValue("filename", "proctor-tests-matrix.json");
+        if (results.hasOption("binary-filename")) {
+            this.binaryFilename = results.getOptionValue("binary-filename");
+        }
 
         if (results.hasOption("author")) {
             this.author = results.getOptionValue("author");
@@ -92,6 +103,11 @@ class ProctorBuilderArgs {
         return filename;
     }
 
+    /** @return null if no binary matrix should be written */
+    public String getBinaryFilename() {
+        return binaryFilename;
+    }
+
     public String getAuthor() {
         return author;
     }
@@ -3,6 +3,7 @@ package com.indeed.proctor.builder;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.base.Strings;
+import com.indeed.proctor.common.BinaryTestMatrixArtifact;
 import com.indeed.proctor.common.IncompatibleTestMatrixException;
 import com.indeed.proctor.common.ProctorUtils;
 import com.indeed.proctor.common.Serializers;
@@ -14,6 +15,7 @@ import com.indeed.proctor.store.StoreException;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Map;
 
@@ -31,6 +33,20 @@ class ProctorBuilderUtils {
             final String authorOverride,
             final String versionOverride)
             throws IOException, IncompatibleTestMatrixException, StoreException {
+        generateArtifact(proctorPersister, outputSink, null, authorOverride, versionOverride);
+    }
+
+    /**
+     * @param binaryOutputSink if not null, the artifact is also written there in the format of
+     *     {@link BinaryTestMatrixArtifact}
+     */
+    static void generateArtifact(
+            final ProctorReader proctorPersister,
+            final Writer outputSink,
+            final OutputStream binaryOutputSink,
+            final String authorOverride,
+            final String versionOverride)
+            throws IOException, IncompatibleTestMatrixException, StoreException {
         final TestMatrixVersion currentTestMatrix = proctorPersister.getCurrentTestMatrix();
         if (currentTestMatrix == null) {
             throw new RuntimeException(
@@ -59,5 +75,8 @@ class ProctorBuilderUtils {
                     td.getKey(), matrixSource, td.getValue());
         }
         OBJECT_WRITER.writeValue(outputSink, artifact);
+        if (binaryOutputSink != null) {
+            BinaryTestMatrixArtifact.write(artifact, binaryOutputSink);
+        }
     }
 }
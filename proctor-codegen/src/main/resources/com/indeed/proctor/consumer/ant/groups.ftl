@@ -127,16 +127,16 @@ public class ${mainClassName} extends AbstractGroups {
     <#if testDef.buckets?has_content>
     @Nonnull
     public ${testDef.javaClassName} get${testDef.javaClassName}() {
-        for (final ${testDef.javaClassName} bucket : ${testDef.javaClassName}.values()) {
-            final String testName = Test.${testDef.enumName}.getName();
-            if (isBucketActive(testName, bucket.getValue(), ${testDef.defaultValue})) {
-                return bucket;
-            }
+        switch (getValue(${testEnumName}.${testDef.enumName})) {
+            <#list testDef.buckets as bucket>
+            case ${bucket.value?c}:
+                return ${testDef.javaClassName}.${bucket.enumName};
+            </#list>
+            default:
+                // Safe to throw NPE here because the code generator ensures that the default value
+                //  is a valid bucket in the test.
+                throw new NullPointerException("No fallback bucket found for '${testDef.name}'");
         }
-
-        // Safe to throw NPE here because the code generator ensures that the default value
-        //  is a valid bucket in the test.
-        throw new NullPointerException("No fallback bucket found for '${testDef.name}'");
     }
     </#if>
 
@@ -149,13 +149,13 @@ public class ${mainClassName} extends AbstractGroups {
     }
 
     public int get${testDef.javaClassName}Value() {
-        return getValue(${testEnumName}.${testDef.enumName}.getName(), ${testEnumName}.${testDef.enumName}.getFallbackValue());
+        return getValue(${testEnumName}.${testDef.enumName});
     }
 
     <#if (testDef.payloadJavaClass)??>
     <#if (testDef.isMap)??>
     public @Nullable ${mainClassName}Payload.${testDef.name?cap_first} get${testDef.javaClassName}Payload() {
-        final Payload payload = getPayload(${testEnumName}.${testDef.enumName}.getName(), ${testEnumName}.${testDef.enumName}.getFallbackValue());
+        final Payload payload = getPayload(${testEnumName}.${testDef.enumName});
         if (payload == null || payload.equals(Payload.EMPTY_PAYLOAD)) {
             return null;
         }
@@ -173,7 +173,7 @@ public class ${mainClassName} extends AbstractGroups {
     </#if>
     <#else>
     public @Nullable ${testDef.payloadJavaClass} get${testDef.javaClassName}Payload() {
-        final Payload payload = getPayload(${testEnumName}.${testDef.enumName}.getName(), ${testEnumName}.${testDef.enumName}.getFallbackValue());
+        final Payload payload = getPayload(${testEnumName}.${testDef.enumName});
         return payload.${testDef.payloadAccessorName}();
     }
 
@@ -193,7 +193,7 @@ public class ${mainClassName} extends AbstractGroups {
 
     <#if (testDef.isJson)??>
     public @Nullable <T> T get${testDef.javaClassName}Payload(final Class<T> payloadType) {
-        final Payload payload = getPayload(${testEnumName}.${testDef.enumName}.getName(), ${testEnumName}.${testDef.enumName}.getFallbackValue());
+        final Payload payload = getPayload(${testEnumName}.${testDef.enumName});
 
         if (payload == null) {
             return null;
@@ -217,9 +217,7 @@ public class ${mainClassName} extends AbstractGroups {
 
 <#list testDef.buckets as bucket>
     public boolean is${testDef.javaClassName}${bucket.javaClassName}() {
-        final String testName = Test.${testDef.enumName}.getName();
-        final int bucketValue = ${testDef.javaClassName}.${bucket.enumName}.getValue();
-        return isBucketActive(testName, bucketValue, ${testDef.defaultValue});
+        return getValue(${testEnumName}.${testDef.enumName}) == ${bucket.value?c};
     }
 <#if bucket_has_next || testDef_has_next>
 
@@ -47,11 +47,14 @@ public abstract class AbstractJsonProctorLoader extends AbstractProctorLoader {
      * definition fields }, "test2": { ... }, ... } }. The value for "tests" includes all of proctor
      * tests, so it is very huge. In order to avoid big memory footprints, this method only loads
      * referenced tests, which are determined by requiredTests and dynamicFilters, by iterating over
-     * entries under the value for "tests".
+     * entries under the value for "tests". Definitions of tests that cannot be referenced by their
+     * name are skipped without being deserialized.
      *
      * @param reader
      * @return TestMatrixArtifact with referenced test definitions only
      * @throws IOException
+     * @throws TestMatrixOutdatedException if the audit version is the one of the currently loaded
+     *     test matrix, without parsing the following test definitions
      */
     @CheckForNull
     protected TestMatrixArtifact loadJsonTestMatrix(@Nonnull final Reader reader)
@@ -76,8 +79,18 @@ public abstract class AbstractJsonProctorLoader extends AbstractProctorLoader {
                                 Preconditions.checkState(
                                         parser.currentToken() == JsonToken.START_OBJECT);
 
-                                testMatrixArtifact.setAudit(
-                                        OBJECT_MAPPER.readValue(parser, Audit.class));
+                                final Audit audit = OBJECT_MAPPER.readValue(parser, Audit.class);
+                                // "audit" is serialized before "tests", so for an unchanged
+                                // matrix no test definition is deserialized
+                                if (isLastAuditVersion(audit.getVersion())) {
+                                    throw new TestMatrixOutdatedException(
+                                            "Test matrix audit version "
+                                                    + audit.getVersion()
+                                                    + " from "
+                                                    + getSource()
+                                                    + " is already loaded");
+                                }
+                                testMatrixArtifact.setAudit(audit);
                                 break;
 
                             case TEST_MATRIX_ARTIFACT_JSON_KEY_TESTS:
@@ -124,6 +137,12 @@ public abstract class AbstractJsonProctorLoader extends AbstractProctorLoader {
         JsonParserUtils.consumeJson(
                 jsonParser,
                 (testName, parser) -> {
+                    if (!isTestNameReferenced(testName)) {
+                        // neither required nor matched by name, skip without deserializing
+                        parser.skipChildren();
+                        return;
+                    }
+
                     final ConsumableTestDefinition testDefinition =
                             OBJECT_MAPPER.readValue(jsonParser, ConsumableTestDefinition.class);
 
@@ -134,20 +153,4 @@ public abstract class AbstractJsonProctorLoader extends AbstractProctorLoader {
 
         return tests;
     }
-
-    protected boolean isTestReferenced(
-            final String testName, final ConsumableTestDefinition testDefinition) {
-        // check required tests
-        if (Preconditions.checkNotNull(requiredTests).containsKey(testName)) {
-            return true;
-        }
-
-        // skip null test definition
-        if (testDefinition == null) {
-            return false;
-        }
-
-        // check dynamic filters
-        return dynamicFilters.matches(testName, testDefinition);
-    }
 }
@@ -4,8 +4,11 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 import com.indeed.proctor.common.dynamic.DynamicFilters;
 import com.indeed.proctor.common.model.Audit;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
 import com.indeed.proctor.common.model.TestMatrixArtifact;
 import com.indeed.util.core.DataLoadingTimerTask;
 import com.indeed.util.varexport.Export;
@@ -21,6 +24,7 @@ import javax.el.FunctionMapper;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,11 +35,20 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
     private static final Logger LOGGER = LogManager.getLogger(AbstractProctorLoader.class);
     protected static final VarExporter VAR_EXPORTER =
             VarExporter.forNamespace(AbstractProctorLoader.class.getSimpleName()).includeInGlobal();
+    /** bound of verification results kept, a few per required or dynamic test */
+    private static final long VERIFICATION_CACHE_SIZE = 10_000;
 
     @Nullable protected final Map<String, TestSpecification> requiredTests;
     @Nullable private Proctor current = null;
     @Nullable private Audit lastAudit = null;
     @Nullable private String lastLoadErrorMessage = "load never attempted";
+    /** the Proctor last constructed by doLoad, to reuse the setup of unchanged tests */
+    @Nullable private Proctor lastConstructed = null;
+    /** fingerprints of the valid tests of lastConstructed, as loaded before consolidation */
+    @Nonnull private Map<String, HashCode> lastConstructedFingerprints = Collections.emptyMap();
+    /** results of verifying tests changed since lastConstructed, e.g. invalid or reverted tests */
+    private final VerificationCache verificationCache =
+            new VerificationCache(VERIFICATION_CACHE_SIZE);
     private Set<String> loggedDynamicTests;
 
     @Nonnull private final FunctionMapper functionMapper;
@@ -153,9 +166,40 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
             return null;
         }
 
+        // check before verifying, which compiles and evaluates all rules
+        final Audit newAudit = testMatrix.getAudit();
+        if (lastAudit != null) {
+            final Audit audit = Preconditions.checkNotNull(newAudit, "Missing audit");
+            if (isLastAuditVersion(audit.getVersion())) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(
+                            "Not reloading "
+                                    + getSource()
+                                    + " test matrix definition because audit is unchanged: "
+                                    + lastAudit.getVersion()
+                                    + " @ "
+                                    + lastAudit.getUpdated()
+                                    + " by "
+                                    + lastAudit.getUpdatedBy());
+                }
+
+                return null;
+            }
+        }
+
         final Set<String> dynamicTests =
                 dynamicFilters.determineTests(testMatrix.getTests(), requiredTests.keySet());
         exportDynamicTests(dynamicTests);
+        // before consolidation, which modifies test definitions
+        final Map<String, HashCode> fingerprints =
+                fingerprintTestDefinitions(
+                        testMatrix.getTests(), Sets.union(requiredTests.keySet(), dynamicTests));
+        final Set<String> unchangedTests = new HashSet<>();
+        for (final Map.Entry<String, HashCode> entry : fingerprints.entrySet()) {
+            if (entry.getValue().equals(lastConstructedFingerprints.get(entry.getKey()))) {
+                unchangedTests.add(entry.getKey());
+            }
+        }
         // modify testMatrix
         final ProctorLoadResult loadResult =
                 ProctorUtils.verifyAndConsolidate(
@@ -164,7 +208,9 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
                         requiredTests,
                         functionMapper,
                         providedContext,
-                        dynamicTests);
+                        dynamicTests,
+                        unchangedTests,
+                        verificationCache);
 
         loadResult
                 .getTestErrorMap()
@@ -186,25 +232,10 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
                                                 testName)));
         loadResult.getDynamicTestErrorMap().forEach(this::logDynamicTests);
 
-        final Audit newAudit = testMatrix.getAudit();
-        if (lastAudit != null) {
-            final Audit audit = Preconditions.checkNotNull(newAudit, "Missing audit");
-            if (lastAudit.getVersion().equals(audit.getVersion())) {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug(
-                            "Not reloading "
-                                    + getSource()
-                                    + " test matrix definition because audit is unchanged: "
-                                    + lastAudit.getVersion()
-                                    + " @ "
-                                    + lastAudit.getUpdated()
-                                    + " by "
-                                    + lastAudit.getUpdatedBy());
-                }
-
-                return null;
-            }
-        }
+        // an unchanged test may still be rejected, e.g. by a dependency on an invalid test,
+        // so consolidation replaced or removed its definition and the previous setup is stale
+        unchangedTests.removeAll(loadResult.getTestsWithErrors());
+        unchangedTests.removeAll(loadResult.getDynamicTestWithErrors());
 
         final Proctor proctor =
                 Proctor.construct(
@@ -212,13 +243,37 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
                         loadResult,
                         functionMapper,
                         identifierValidator,
-                        getProctorResultReporter());
+                        getProctorResultReporter(),
+                        useCompactProctorResults(),
+                        lastConstructed,
+                        unchangedTests);
+        fingerprints.keySet().removeAll(loadResult.getTestsWithErrors());
+        fingerprints.keySet().removeAll(loadResult.getDynamicTestWithErrors());
+        lastConstructed = proctor;
+        lastConstructedFingerprints = fingerprints;
         //  kind of lame to modify lastAudit here but current in load(), but the interface is a
         // little constraining
         setLastAudit(newAudit);
         return proctor;
     }
 
+    @Nonnull
+    private static Map<String, HashCode> fingerprintTestDefinitions(
+            @Nonnull final Map<String, ConsumableTestDefinition> tests,
+            @Nonnull final Set<String> testNames) {
+        final Map<String, HashCode> fingerprints = new HashMap<>();
+        for (final String testName : testNames) {
+            final ConsumableTestDefinition testDefinition = tests.get(testName);
+            if (testDefinition != null) {
+                final HashCode fingerprint = ProctorUtils.fingerprint(testDefinition);
+                if (fingerprint != null) {
+                    fingerprints.put(testName, fingerprint);
+                }
+            }
+        }
+        return fingerprints;
+    }
+
     /**
      * user can override this function to provide a Proctor Result Reporter for monitoring
      * determining Groups of proctor tests
@@ -229,6 +284,17 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
         return null;
     }
 
+    /**
+     * user can override this function to let loaded Proctor instances create compact results,
+     * storing buckets and allocations in arrays indexed by test instead of TreeMaps. This reduces
+     * allocations per request, but the maps of results only accept loaded tests as keys.
+     *
+     * @return true to create compact results
+     */
+    protected boolean useCompactProctorResults() {
+        return false;
+    }
+
     @VisibleForTesting
     protected void logDynamicTests(final String testName, final Exception exception) {
         if (!loggedDynamicTests.contains(testName)) {
@@ -258,6 +324,41 @@ public abstract class AbstractProctorLoader extends DataLoadingTimerTask
         return lastAudit;
     }
 
+    /**
+     * Allows subclasses to stop loading a test matrix early, by throwing {@link
+     * TestMatrixOutdatedException} when this returns true for its audit version.
+     *
+     * @return true if the version is the audit version of the currently loaded test matrix
+     */
+    protected boolean isLastAuditVersion(@Nullable final String auditVersion) {
+        return (lastAudit != null) && lastAudit.getVersion().equals(auditVersion);
+    }
+
+    /**
+     * @return false if the test is not referenced whatever its definition, so the definition does
+     *     not need to be read. Tests matching dynamic filters on the definition need to be read.
+     */
+    protected boolean isTestNameReferenced(final String testName) {
+        return Preconditions.checkNotNull(requiredTests).containsKey(testName)
+                || dynamicFilters.mayMatchTestName(testName);
+    }
+
+    protected boolean isTestReferenced(
+            final String testName, final ConsumableTestDefinition testDefinition) {
+        // check required tests
+        if (Preconditions.checkNotNull(requiredTests).containsKey(testName)) {
+            return true;
+        }
+
+        // skip null test definition
+        if (testDefinition == null) {
+            return false;
+        }
+
+        // check dynamic filters
+        return dynamicFilters.matches(testName, testDefinition);
+    }
+
     @VisibleForTesting
     void setLastAudit(final Audit newAudit) {
         lastAudit = newAudit;
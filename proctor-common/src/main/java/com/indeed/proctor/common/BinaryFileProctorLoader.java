@@ -0,0 +1,86 @@
+package com.indeed.proctor.common;
+
+import com.indeed.proctor.common.model.Audit;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.el.FunctionMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Support class for loading a test matrix artifact from a file in the format of {@link
+ * BinaryTestMatrixArtifact}, e.g. written by proctor-builder next to the JSON artifact.
+ *
+ * <p>The file is memory-mapped, and only the definitions of referenced tests are deserialized,
+ * instead of parsing the whole matrix like {@link FileProctorLoader}.
+ */
+public class BinaryFileProctorLoader extends AbstractProctorLoader {
+    @Nonnull private final File inputFile;
+
+    public BinaryFileProctorLoader(
+            @Nonnull final ProctorSpecification specification,
+            @Nonnull final String inputFile,
+            @Nonnull final FunctionMapper functionMapper) {
+        this(specification, new File(inputFile), functionMapper);
+    }
+
+    public BinaryFileProctorLoader(
+            @Nonnull final ProctorSpecification specification,
+            @Nonnull final File inputFile,
+            @Nonnull final FunctionMapper functionMapper) {
+        super(BinaryFileProctorLoader.class, specification, functionMapper);
+        this.inputFile = inputFile;
+    }
+
+    @Nonnull
+    @Override
+    protected String getSource() {
+        return inputFile.getAbsolutePath();
+    }
+
+    @CheckForNull
+    @Override
+    protected TestMatrixArtifact loadTestMatrix()
+            throws IOException, MissingTestMatrixException, TestMatrixOutdatedException {
+        if (!inputFile.exists()) {
+            throw new MissingTestMatrixException("File " + inputFile + " does not exist");
+        }
+        if (!inputFile.canRead()) {
+            throw new MissingTestMatrixException("Cannot read input file " + inputFile);
+        }
+        final BinaryTestMatrixArtifact binaryArtifact = BinaryTestMatrixArtifact.map(inputFile);
+
+        final Audit audit = binaryArtifact.getAudit();
+        if (isLastAuditVersion(audit.getVersion())) {
+            throw new TestMatrixOutdatedException(
+                    "Test matrix audit version "
+                            + audit.getVersion()
+                            + " from "
+                            + getSource()
+                            + " is already loaded");
+        }
+
+        // use HashMap instead of ImmutableMap.Builder because null might be put
+        final Map<String, ConsumableTestDefinition> tests = new HashMap<>();
+        for (final String testName : binaryArtifact.getTestNames()) {
+            if (!isTestNameReferenced(testName)) {
+                continue;
+            }
+            final ConsumableTestDefinition testDefinition =
+                    binaryArtifact.getTestDefinition(testName);
+            if (isTestReferenced(testName, testDefinition)) {
+                tests.put(testName, testDefinition);
+            }
+        }
+
+        final TestMatrixArtifact testMatrix = new TestMatrixArtifact();
+        testMatrix.setAudit(audit);
+        testMatrix.setTests(tests);
+        return testMatrix;
+    }
+}
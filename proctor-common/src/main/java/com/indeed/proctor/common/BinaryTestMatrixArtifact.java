@@ -0,0 +1,231 @@
+package com.indeed.proctor.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.indeed.proctor.common.model.Audit;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Test matrix artifact in a binary format with a table of contents, so that single test
+ * definitions can be read without parsing the whole matrix, e.g. from a memory-mapped file.
+ *
+ * <p>Layout, all integers big-endian:
+ *
+ * <pre>
+ * int     magic "PTMX"
+ * int     format version
+ * int     length of audit, followed by the audit as UTF-8 JSON
+ * int     number of tests, followed by the table of contents sorted by test name:
+ *   int   length of test name, followed by the test name in UTF-8
+ *   int   offset of the definition, relative to the end of the table of contents
+ *   int   length of the definition, -1 for a null definition
+ * the definitions as UTF-8 JSON, as in the JSON test matrix artifact
+ * </pre>
+ *
+ * <p>Instances only read the header and the table of contents on creation, test definitions are
+ * deserialized on each call of {@link #getTestDefinition(String)}. Instances are immutable and
+ * safe to share between threads.
+ */
+public final class BinaryTestMatrixArtifact {
+    private static final int MAGIC = 0x50544d58;
+    private static final int FORMAT_VERSION = 1;
+    private static final int NULL_DEFINITION_LENGTH = -1;
+
+    private static final ObjectMapper OBJECT_MAPPER = Serializers.lenient();
+
+    @Nonnull private final ByteBuffer buffer;
+    @Nonnull private final Audit audit;
+    /** test name to position and length of the definition in buffer */
+    @Nonnull private final Map<String, int[]> definitionPositions;
+
+    private BinaryTestMatrixArtifact(
+            @Nonnull final ByteBuffer buffer,
+            @Nonnull final Audit audit,
+            @Nonnull final Map<String, int[]> definitionPositions) {
+        this.buffer = buffer;
+        this.audit = audit;
+        this.definitionPositions = definitionPositions;
+    }
+
+    /**
+     * Reads the header and table of contents of a binary test matrix, without reading test
+     * definitions. The buffer must not be modified afterwards.
+     *
+     * @throws IOException if the buffer does not contain a binary test matrix
+     */
+    @Nonnull
+    public static BinaryTestMatrixArtifact wrap(@Nonnull final ByteBuffer buffer)
+            throws IOException {
+        final ByteBuffer header = buffer.duplicate();
+        try {
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a binary test matrix");
+            }
+            final int formatVersion = header.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary test matrix version " + formatVersion);
+            }
+            final int auditLength = header.getInt();
+            final Audit audit =
+                    OBJECT_MAPPER.readValue(
+                            new ByteBufferBackedInputStream(slice(header, auditLength)),
+                            Audit.class);
+            header.position(header.position() + auditLength);
+
+            final int numTests = header.getInt();
+            final List<String> testNames = new ArrayList<>(numTests);
+            final List<int[]> positions = new ArrayList<>(numTests);
+            for (int i = 0; i < numTests; i++) {
+                final byte[] testName = new byte[header.getInt()];
+                header.get(testName);
+                testNames.add(new String(testName, StandardCharsets.UTF_8));
+                positions.add(new int[] {header.getInt(), header.getInt()});
+            }
+
+            final int definitionsStart = header.position();
+            final Map<String, int[]> definitionPositions = new HashMap<>(2 * numTests);
+            for (int i = 0; i < numTests; i++) {
+                final int[] position = positions.get(i);
+                final long end = (long) definitionsStart + position[0] + Math.max(position[1], 0);
+                if ((position[0] < 0) || (end > buffer.limit())) {
+                    throw new IOException(
+                            "Definition of " + testNames.get(i) + " exceeds the test matrix");
+                }
+                position[0] += definitionsStart;
+                definitionPositions.put(testNames.get(i), position);
+            }
+            return new BinaryTestMatrixArtifact(buffer, audit, definitionPositions);
+        } catch (final BufferUnderflowException
+                | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new IOException("Truncated binary test matrix", e);
+        }
+    }
+
+    /**
+     * Memory-maps a binary test matrix file and reads its header and table of contents. Test
+     * definitions are read from the mapping when requested.
+     */
+    @Nonnull
+    public static BinaryTestMatrixArtifact map(@Nonnull final File file) throws IOException {
+        // the mapping stays valid after closing the channel
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Writes the test matrix in the binary format, test definitions are serialized as JSON */
+    public static void write(
+            @Nonnull final TestMatrixArtifact artifact, @Nonnull final OutputStream outputStream)
+            throws IOException {
+        final Map<String, byte[]> definitions = new TreeMap<>();
+        for (final Map.Entry<String, ConsumableTestDefinition> entry :
+                artifact.getTests().entrySet()) {
+            definitions.put(
+                    entry.getKey(),
+                    (entry.getValue() == null)
+                            ? null
+                            : OBJECT_MAPPER.writeValueAsBytes(entry.getValue()));
+        }
+
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        final byte[] audit = OBJECT_MAPPER.writeValueAsBytes(artifact.getAudit());
+        output.writeInt(audit.length);
+        output.write(audit);
+
+        output.writeInt(definitions.size());
+        int offset = 0;
+        for (final Map.Entry<String, byte[]> entry : definitions.entrySet()) {
+            final byte[] testName = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            output.writeInt(testName.length);
+            output.write(testName);
+            output.writeInt(offset);
+            if (entry.getValue() == null) {
+                output.writeInt(NULL_DEFINITION_LENGTH);
+            } else {
+                output.writeInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+        }
+        for (final byte[] definition : definitions.values()) {
+            if (definition != null) {
+                output.write(definition);
+            }
+        }
+        output.flush();
+    }
+
+    @Nonnull
+    public Audit getAudit() {
+        return audit;
+    }
+
+    /** @return names of all tests in the matrix, including tests with null definitions */
+    @Nonnull
+    public Set<String> getTestNames() {
+        return Collections.unmodifiableSet(definitionPositions.keySet());
+    }
+
+    /**
+     * Deserializes the definition of a single test, a new instance on each call
+     *
+     * @return null if the test is not in the matrix or its definition is null
+     */
+    @CheckForNull
+    public ConsumableTestDefinition getTestDefinition(@Nonnull final String testName)
+            throws IOException {
+        final int[] position = definitionPositions.get(testName);
+        if ((position == null) || (position[1] == NULL_DEFINITION_LENGTH)) {
+            return null;
+        }
+        final ByteBuffer definition = buffer.duplicate();
+        definition.position(position[0]);
+        return OBJECT_MAPPER.readValue(
+                new ByteBufferBackedInputStream(slice(definition, position[1])),
+                ConsumableTestDefinition.class);
+    }
+
+    /** Deserializes all test definitions, e.g. to compare with a JSON test matrix */
+    @Nonnull
+    public TestMatrixArtifact toTestMatrixArtifact() throws IOException {
+        final Map<String, ConsumableTestDefinition> tests = new LinkedHashMap<>();
+        for (final String testName : new TreeMap<>(definitionPositions).keySet()) {
+            tests.put(testName, getTestDefinition(testName));
+        }
+        final TestMatrixArtifact artifact = new TestMatrixArtifact();
+        artifact.setAudit(audit);
+        artifact.setTests(tests);
+        return artifact;
+    }
+
+    /** @return a view of length bytes from the position of buffer, buffer is not modified */
+    @Nonnull
+    private static ByteBuffer slice(@Nonnull final ByteBuffer buffer, final int length) {
+        final ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        return slice;
+    }
+}
@@ -0,0 +1,51 @@
+package com.indeed.proctor.common;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.el.ValueExpression;
+
+/**
+ * A boolean rule parsed once by {@link RuleEvaluator#compileBooleanRule(String)}, so that it can be
+ * evaluated for each request without parsing it again.
+ *
+ * <p>Immutable and safe to share between threads.
+ */
+public final class CompiledRule {
+    @Nullable private final String rule;
+    @Nullable private final Boolean constantResult;
+    @Nullable private final ValueExpression valueExpression;
+
+    CompiledRule(
+            @Nullable final String rule,
+            @Nullable final Boolean constantResult,
+            @Nullable final ValueExpression valueExpression) {
+        this.rule = rule;
+        this.constantResult = constantResult;
+        this.valueExpression = valueExpression;
+    }
+
+    @CheckForNull
+    public String getRule() {
+        return rule;
+    }
+
+    /** @return result of a rule that does not depend on the context, or null */
+    @CheckForNull
+    Boolean getConstantResult() {
+        return constantResult;
+    }
+
+    /**
+     * @return parsed expression, or null if the rule is constant or could not be parsed. Rules that
+     *     cannot be parsed are evaluated as plain strings, to report errors the usual way.
+     */
+    @CheckForNull
+    ValueExpression getValueExpression() {
+        return valueExpression;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(rule);
+    }
+}
@@ -1,9 +1,11 @@
 package com.indeed.proctor.common;
 
+import com.indeed.proctor.common.model.Audit;
 import com.indeed.proctor.common.model.TestMatrixArtifact;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.el.FunctionMapper;
 import java.io.File;
 import java.io.FileReader;
@@ -13,11 +15,21 @@ import java.io.Reader;
 /**
  * Support class for loading a test matrix artifact from a JSON file
  *
+ * <p>The file is not read again while its modification time and length are the same as when the
+ * currently loaded test matrix was read from it.
+ *
  * @author ketan
  */
 public class FileProctorLoader extends AbstractJsonProctorLoader {
     @Nonnull private final File inputFile;
 
+    /** modification time and length of the file when it was last parsed */
+    private long lastParsedModified = -1;
+
+    private long lastParsedLength = -1;
+    /** audit version of the file when it was last parsed */
+    @Nullable private String lastParsedAuditVersion;
+
     public FileProctorLoader(
             @Nonnull final ProctorSpecification specification,
             @Nonnull final String inputFile,
@@ -49,7 +61,35 @@ public class FileProctorLoader extends AbstractJsonProctorLoader {
         if (!inputFile.canRead()) {
             throw new MissingTestMatrixException("Cannot read input file " + inputFile);
         }
+        final long modified = inputFile.lastModified();
+        final long length = inputFile.length();
+        if ((modified == lastParsedModified)
+                && (length == lastParsedLength)
+                && isLastAuditVersion(lastParsedAuditVersion)) {
+            throw new TestMatrixOutdatedException(
+                    "File " + inputFile + " is unchanged since it was last loaded");
+        }
         final Reader reader = new FileReader(inputFile);
-        return loadJsonTestMatrix(reader);
+        final TestMatrixArtifact testMatrix;
+        try {
+            testMatrix = loadJsonTestMatrix(reader);
+        } catch (final TestMatrixOutdatedException e) {
+            // the audit version of the file is the one of the loaded test matrix
+            final Audit lastAudit = getLastAudit();
+            rememberParsedFile(
+                    modified, length, (lastAudit == null) ? null : lastAudit.getVersion());
+            throw e;
+        }
+        if ((testMatrix != null) && (testMatrix.getAudit() != null)) {
+            rememberParsedFile(modified, length, testMatrix.getAudit().getVersion());
+        }
+        return testMatrix;
+    }
+
+    private void rememberParsedFile(
+            final long modified, final long length, @Nullable final String auditVersion) {
+        lastParsedModified = modified;
+        lastParsedLength = length;
+        lastParsedAuditVersion = auditVersion;
     }
 }
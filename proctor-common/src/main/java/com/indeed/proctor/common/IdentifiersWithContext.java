@@ -0,0 +1,58 @@
+package com.indeed.proctor.common;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Input of a single request for {@link Proctor#determineTestGroupsInBatch(java.util.List,
+ * ForceGroupsOptions, java.util.Collection, java.util.concurrent.Executor)}
+ */
+public class IdentifiersWithContext {
+    @Nonnull private final Identifiers identifiers;
+    @Nonnull private final Map<String, Object> context;
+
+    public IdentifiersWithContext(
+            @Nonnull final Identifiers identifiers, @Nonnull final Map<String, Object> context) {
+        this.identifiers = identifiers;
+        this.context = context;
+    }
+
+    public static IdentifiersWithContext of(
+            @Nonnull final Identifiers identifiers, @Nonnull final Map<String, Object> context) {
+        return new IdentifiersWithContext(identifiers, context);
+    }
+
+    @Nonnull
+    public Identifiers getIdentifiers() {
+        return identifiers;
+    }
+
+    /** variables describing the context of the request, supplied to the rules of all tests */
+    @Nonnull
+    public Map<String, Object> getContext() {
+        return context;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IdentifiersWithContext that = (IdentifiersWithContext) o;
+        return identifiers.equals(that.identifiers) && context.equals(that.context);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(identifiers, context);
+    }
+
+    @Override
+    public String toString() {
+        return "IdentifiersWithContext{identifiers=" + identifiers + ", context=" + context + '}';
+    }
+}
@@ -18,10 +18,11 @@ class JsonParserUtils {
      * @param consumer: consumer taking two arguments: json key and the current jsonParser. The
      *     consumer must only parse and finishes to parse the corresponding value.
      * @throws IOException
+     * @throws E if thrown by the consumer, ending the iteration
      */
-    static void consumeJson(
-            @Nonnull final JsonParser jsonParser, final PartialJsonConsumer consumer)
-            throws IOException {
+    static <E extends Exception> void consumeJson(
+            @Nonnull final JsonParser jsonParser, final PartialJsonConsumer<E> consumer)
+            throws IOException, E {
         // The current position of jsonParser must be "{".
         Preconditions.checkState(jsonParser.currentToken() == JsonToken.START_OBJECT);
 
@@ -40,7 +41,8 @@ class JsonParserUtils {
         }
     }
 
-    interface PartialJsonConsumer {
-        void accept(String key, JsonParser jsonParser) throws IOException;
+    /** @param <E> checked exception the consumer may throw in addition to IOException */
+    interface PartialJsonConsumer<E extends Exception> {
+        void accept(String key, JsonParser jsonParser) throws IOException, E;
     }
 }
@@ -0,0 +1,199 @@
+package com.indeed.proctor.common;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Maps;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * SortedMap from test name to value for a fixed set of test names, storing values in an array
+ * indexed by the ordinal of the test name instead of allocating tree nodes.
+ *
+ * <p>Used by {@link Proctor} for compact results: the test names are known per Proctor instance, so
+ * each request only allocates one array per map. Lookups by key are a hash lookup of the ordinal,
+ * iteration is in natural order of the test names like {@link TreeMap}.
+ *
+ * <p>Only keys of the given {@link Keys} can be added, and null values are not supported. {@link
+ * #subMap}, {@link #headMap} and {@link #tailMap} return copies instead of views, those are not
+ * used for proctor results. Not thread-safe.
+ */
+final class OrdinalSortedMap<V> extends AbstractMap<String, V> implements SortedMap<String, V> {
+    @Nonnull private final Keys keys;
+    @Nonnull private final Object[] values;
+    private int size;
+
+    OrdinalSortedMap(@Nonnull final Keys keys) {
+        this.keys = keys;
+        this.values = new Object[keys.names.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @CheckForNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final Integer ordinal = keys.ordinals.get(key);
+        return (ordinal == null) ? null : (V) values[ordinal];
+    }
+
+    @CheckForNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(final String key, final V value) {
+        if (value == null) {
+            throw new NullPointerException("Null value for key " + key);
+        }
+        final Integer ordinal = keys.ordinals.get(key);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("Unknown key " + key);
+        }
+        final V previous = (V) values[ordinal];
+        if (previous == null) {
+            size++;
+        }
+        values[ordinal] = value;
+        return previous;
+    }
+
+    @CheckForNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        final Integer ordinal = keys.ordinals.get(key);
+        if (ordinal == null) {
+            return null;
+        }
+        final V previous = (V) values[ordinal];
+        if (previous != null) {
+            size--;
+            values[ordinal] = null;
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new AbstractIterator<Entry<String, V>>() {
+                    private int position = 0;
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    protected Entry<String, V> computeNext() {
+                        while (position < keys.sortedOrdinals.length) {
+                            final int ordinal = keys.sortedOrdinals[position++];
+                            final Object value = values[ordinal];
+                            if (value != null) {
+                                return Maps.immutableEntry(keys.names[ordinal], (V) value);
+                            }
+                        }
+                        return endOfData();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /** @return null, keys are in natural order */
+    @CheckForNull
+    @Override
+    public Comparator<? super String> comparator() {
+        return null;
+    }
+
+    @Override
+    public String firstKey() {
+        for (final int ordinal : keys.sortedOrdinals) {
+            if (values[ordinal] != null) {
+                return keys.names[ordinal];
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public String lastKey() {
+        for (int i = keys.sortedOrdinals.length - 1; i >= 0; i--) {
+            final int ordinal = keys.sortedOrdinals[i];
+            if (values[ordinal] != null) {
+                return keys.names[ordinal];
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Nonnull
+    @Override
+    public SortedMap<String, V> subMap(final String fromKey, final String toKey) {
+        return new TreeMap<>(this).subMap(fromKey, toKey);
+    }
+
+    @Nonnull
+    @Override
+    public SortedMap<String, V> headMap(final String toKey) {
+        return new TreeMap<>(this).headMap(toKey);
+    }
+
+    @Nonnull
+    @Override
+    public SortedMap<String, V> tailMap(final String fromKey) {
+        return new TreeMap<>(this).tailMap(fromKey);
+    }
+
+    /** The possible keys and their ordinals, shared by all maps of a Proctor instance */
+    static final class Keys {
+        @Nonnull private final String[] names;
+        @Nonnull private final Map<String, Integer> ordinals;
+        /** ordinals in natural order of the names */
+        @Nonnull private final int[] sortedOrdinals;
+
+        /**
+         * @param names the possible keys, the ordinal of a key is its index
+         * @param ordinals maps each name to its index in names
+         */
+        Keys(@Nonnull final List<String> names, @Nonnull final Map<String, Integer> ordinals) {
+            this.names = names.toArray(new String[0]);
+            this.ordinals = ordinals;
+            this.sortedOrdinals =
+                    ordinals.entrySet().stream()
+                            .sorted(Entry.comparingByKey())
+                            .mapToInt(Entry::getValue)
+                            .toArray();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.indeed.proctor.common.model.Allocation;
 import com.indeed.proctor.common.model.Audit;
@@ -25,6 +26,8 @@ import javax.el.ValueExpression;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -37,8 +40,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.indeed.proctor.common.ProctorUtils.UNITLESS_ALLOCATION_IDENTIFIER;
 
@@ -91,41 +98,85 @@ public class Proctor {
             @Nonnull final FunctionMapper functionMapper,
             @Nonnull final IdentifierValidator identifierValidator,
             @Nullable final ProctorResultReporter resultReporter) {
+        return construct(
+                matrix, loadResult, functionMapper, identifierValidator, resultReporter, false);
+    }
+
+    /**
+     * Factory method to do the setup and transformation of inputs
+     *
+     * @param matrix a {@link TestMatrixArtifact} loaded by ProctorLoader
+     * @param loadResult a {@link ProctorLoadResult} which contains result of validation of test
+     *     definition
+     * @param functionMapper a given el {@link FunctionMapper}
+     * @param compactResults if true, buckets and allocations of each {@link ProctorResult} are
+     *     stored in arrays indexed by test instead of TreeMaps, to reduce allocations per request.
+     *     The maps of such results only accept the tests of this Proctor as keys.
+     * @return constructed Proctor object
+     */
+    @Nonnull
+    public static Proctor construct(
+            @Nonnull final TestMatrixArtifact matrix,
+            @Nonnull final ProctorLoadResult loadResult,
+            @Nonnull final FunctionMapper functionMapper,
+            @Nonnull final IdentifierValidator identifierValidator,
+            @Nullable final ProctorResultReporter resultReporter,
+            final boolean compactResults) {
+        return construct(
+                matrix,
+                loadResult,
+                functionMapper,
+                identifierValidator,
+                resultReporter,
+                compactResults,
+                null,
+                Collections.emptySet());
+    }
+
+    /**
+     * Factory method to do the setup and transformation of inputs, reusing the setup of tests that
+     * did not change since a previous Proctor was constructed. Parsing rules and computing bucket
+     * ranges is only done for new and changed tests.
+     *
+     * @param matrix a {@link TestMatrixArtifact} loaded by ProctorLoader
+     * @param loadResult a {@link ProctorLoadResult} which contains result of validation of test
+     *     definition
+     * @param functionMapper a given el {@link FunctionMapper}, must be the one used to construct
+     *     the previous Proctor
+     * @param identifierValidator must be the one used to construct the previous Proctor
+     * @param compactResults see {@link #construct(TestMatrixArtifact, ProctorLoadResult,
+     *     FunctionMapper, IdentifierValidator, ProctorResultReporter, boolean)}
+     * @param previous a Proctor constructed before, or null
+     * @param unchangedTests tests with the same definition in matrix as in previous
+     * @return constructed Proctor object
+     */
+    @Nonnull
+    public static Proctor construct(
+            @Nonnull final TestMatrixArtifact matrix,
+            @Nonnull final ProctorLoadResult loadResult,
+            @Nonnull final FunctionMapper functionMapper,
+            @Nonnull final IdentifierValidator identifierValidator,
+            @Nullable final ProctorResultReporter resultReporter,
+            final boolean compactResults,
+            @Nullable final Proctor previous,
+            @Nonnull final Set<String> unchangedTests) {
         final Map<String, TestChooser<?>> testChoosers = Maps.newLinkedHashMap();
-        final Map<String, String> versions = Maps.newLinkedHashMap();
 
         for (final Entry<String, ConsumableTestDefinition> entry : matrix.getTests().entrySet()) {
             final String testName = entry.getKey();
-            final ConsumableTestDefinition testDefinition = entry.getValue();
-            final TestType testType = testDefinition.getTestType();
-            final TestChooser<?> testChooser;
-            if (TestType.RANDOM.equals(testType)) {
-                testChooser =
-                        new RandomTestChooser(
-                                RuleEvaluator.EXPRESSION_FACTORY,
-                                functionMapper,
-                                testName,
-                                testDefinition);
+            @Nullable
+            final TestChooser<?> previousTestChooser =
+                    ((previous != null) && unchangedTests.contains(testName))
+                            ? previous.testChoosers.get(testName)
+                            : null;
+            if (previousTestChooser != null) {
+                testChoosers.put(testName, previousTestChooser);
             } else {
-                if (testDefinition.getEnableUnitlessAllocations()) {
-                    testChooser =
-                            new UnitlessTestChooser(
-                                    RuleEvaluator.EXPRESSION_FACTORY,
-                                    functionMapper,
-                                    testName,
-                                    testDefinition,
-                                    identifierValidator);
-                } else {
-                    testChooser =
-                            new StandardTestChooser(
-                                    RuleEvaluator.EXPRESSION_FACTORY,
-                                    functionMapper,
-                                    testName,
-                                    testDefinition);
-                }
+                testChoosers.put(
+                        testName,
+                        createTestChooser(
+                                testName, entry.getValue(), functionMapper, identifierValidator));
             }
-            testChoosers.put(testName, testChooser);
-            versions.put(testName, testDefinition.getVersion());
         }
 
         final List<String> testEvaluationOrder =
@@ -137,7 +188,30 @@ public class Proctor {
                 testChoosers,
                 testEvaluationOrder,
                 identifierValidator,
-                resultReporter);
+                resultReporter,
+                compactResults);
+    }
+
+    @Nonnull
+    private static TestChooser<?> createTestChooser(
+            @Nonnull final String testName,
+            @Nonnull final ConsumableTestDefinition testDefinition,
+            @Nonnull final FunctionMapper functionMapper,
+            @Nonnull final IdentifierValidator identifierValidator) {
+        if (TestType.RANDOM.equals(testDefinition.getTestType())) {
+            return new RandomTestChooser(
+                    RuleEvaluator.EXPRESSION_FACTORY, functionMapper, testName, testDefinition);
+        }
+        if (testDefinition.getEnableUnitlessAllocations()) {
+            return new UnitlessTestChooser(
+                    RuleEvaluator.EXPRESSION_FACTORY,
+                    functionMapper,
+                    testName,
+                    testDefinition,
+                    identifierValidator);
+        }
+        return new StandardTestChooser(
+                RuleEvaluator.EXPRESSION_FACTORY, functionMapper, testName, testDefinition);
     }
 
     @Nonnull
@@ -167,6 +241,8 @@ public class Proctor {
     }
 
     static final long INT_RANGE = (long) Integer.MAX_VALUE - (long) Integer.MIN_VALUE;
+    /** number of inputs of a batch evaluated in one task of an executor */
+    private static final int BATCH_CHUNK_SIZE = 256;
     private static final String INCOGNITO_CONTEXT_VARIABLE = "isIncognitoUser";
     private final TestMatrixArtifact matrix;
     private final ProctorLoadResult loadResult;
@@ -177,6 +253,9 @@ public class Proctor {
 
     private final List<String> testEvaluationOrder;
     private final Map<String, Integer> evaluationOrderMap;
+    /** keys of the maps of compact results, null if results use TreeMaps */
+    @Nullable private final OrdinalSortedMap.Keys compactResultKeys;
+
     @Nullable private final ProctorResultReporter resultReporter;
 
     @VisibleForTesting
@@ -187,6 +266,25 @@ public class Proctor {
             @Nonnull final List<String> testEvaluationOrder,
             @Nonnull final IdentifierValidator identifierValidator,
             @Nullable final ProctorResultReporter resultReporter) {
+        this(
+                matrix,
+                loadResult,
+                testChoosers,
+                testEvaluationOrder,
+                identifierValidator,
+                resultReporter,
+                false);
+    }
+
+    @VisibleForTesting
+    Proctor(
+            @Nonnull final TestMatrixArtifact matrix,
+            @Nonnull final ProctorLoadResult loadResult,
+            @Nonnull final Map<String, TestChooser<?>> testChoosers,
+            @Nonnull final List<String> testEvaluationOrder,
+            @Nonnull final IdentifierValidator identifierValidator,
+            @Nullable final ProctorResultReporter resultReporter,
+            final boolean compactResults) {
         this.matrix = matrix;
         this.loadResult = loadResult;
         this.testChoosers = testChoosers;
@@ -199,6 +297,10 @@ public class Proctor {
                 IntStream.range(0, testEvaluationOrder.size())
                         .boxed()
                         .collect(Collectors.toMap(testEvaluationOrder::get, index -> index));
+        this.compactResultKeys =
+                compactResults
+                        ? new OrdinalSortedMap.Keys(testEvaluationOrder, evaluationOrderMap)
+                        : null;
 
         VarExporter.forNamespace(Proctor.class.getSimpleName()).includeInGlobal().export(this, "");
         VarExporter.forNamespace(DetailedExport.class.getSimpleName())
@@ -312,31 +414,129 @@ public class Proctor {
             @Nonnull final Map<String, Object> inputContext,
             @Nonnull final ForceGroupsOptions forceGroupsOptions,
             @Nonnull final Collection<String> testNameFilter) {
-        final boolean determineAllTests = testNameFilter.isEmpty();
+        return determineTestGroups(
+                identifiers,
+                inputContext,
+                forceGroupsOptions,
+                createEvaluationPlan(testNameFilter));
+    }
+
+    /**
+     * Determines test groups for many identifiers and contexts against this Proctor instance, e.g.
+     * to re-bucket users for analysis. Each result is the same as returned by {@link
+     * #determineTestGroups(Identifiers, Map, ForceGroupsOptions, Collection)}, but the test name
+     * filter and the evaluation order are resolved only once for the whole batch.
+     *
+     * @param inputs identifiers and context of each request
+     * @param forceGroupsOptions applied to all inputs
+     * @param testNameFilter Only evaluates and returns the tests named in this collection. If
+     *     empty, no filter is applied.
+     * @param executor if not null, inputs are evaluated in chunks on this executor, otherwise in
+     *     the calling thread
+     * @return results in the order of the inputs
+     */
+    @Nonnull
+    public List<ProctorResult> determineTestGroupsInBatch(
+            @Nonnull final List<IdentifiersWithContext> inputs,
+            @Nonnull final ForceGroupsOptions forceGroupsOptions,
+            @Nonnull final Collection<String> testNameFilter,
+            @Nullable final Executor executor) {
+        final EvaluationPlan plan = createEvaluationPlan(testNameFilter);
+        final ProctorResult[] results = new ProctorResult[inputs.size()];
+        if (executor == null) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = determineTestGroups(inputs.get(i), forceGroupsOptions, plan);
+            }
+            return Arrays.asList(results);
+        }
+
+        final List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < results.length; chunkStart += BATCH_CHUNK_SIZE) {
+            final int start = chunkStart;
+            final int end = Math.min(start + BATCH_CHUNK_SIZE, results.length);
+            chunks.add(
+                    CompletableFuture.runAsync(
+                            () -> {
+                                for (int i = start; i < end; i++) {
+                                    results[i] =
+                                            determineTestGroups(
+                                                    inputs.get(i), forceGroupsOptions, plan);
+                                }
+                            },
+                            executor));
+        }
+        try {
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } catch (final CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Lazily determines test groups for a stream of identifiers and contexts, see {@link
+     * #determineTestGroupsInBatch(List, ForceGroupsOptions, Collection, Executor)}. Useful for
+     * inputs too large to hold in memory at once.
+     *
+     * @return results in the order of the inputs
+     */
+    @Nonnull
+    public Stream<ProctorResult> determineTestGroupsInBatch(
+            @Nonnull final Stream<IdentifiersWithContext> inputs,
+            @Nonnull final ForceGroupsOptions forceGroupsOptions,
+            @Nonnull final Collection<String> testNameFilter) {
+        final EvaluationPlan plan = createEvaluationPlan(testNameFilter);
+        return inputs.map(input -> determineTestGroups(input, forceGroupsOptions, plan));
+    }
+
+    @Nonnull
+    private ProctorResult determineTestGroups(
+            @Nonnull final IdentifiersWithContext input,
+            @Nonnull final ForceGroupsOptions forceGroupsOptions,
+            @Nonnull final EvaluationPlan plan) {
+        return determineTestGroups(
+                input.getIdentifiers(), input.getContext(), forceGroupsOptions, plan);
+    }
+
+    /** resolves the tests to evaluate for a test name filter, independent of any request */
+    @Nonnull
+    private EvaluationPlan createEvaluationPlan(@Nonnull final Collection<String> testNameFilter) {
+        if (testNameFilter.isEmpty()) {
+            return new EvaluationPlan(testEvaluationOrder, null);
+        }
         final Set<String> testNameFilterSet =
                 testNameFilter.stream()
                         .filter(testChoosers::containsKey)
                         .collect(Collectors.toSet());
+        // Following code runs in a function of the number of transitive dependencies
+        // instead of the number of all loaded tests.
+        final Set<String> transitiveDependencies =
+                TestDependencies.computeTransitiveDependencies(testDefinitions, testNameFilterSet);
+        final List<String> filteredEvaluationOrder =
+                transitiveDependencies.stream()
+                        .sorted(Comparator.comparing(evaluationOrderMap::get))
+                        .collect(Collectors.toList());
+        return new EvaluationPlan(filteredEvaluationOrder, testNameFilterSet);
+    }
 
+    @Nonnull
+    private ProctorResult determineTestGroups(
+            @Nonnull final Identifiers identifiers,
+            @Nonnull final Map<String, Object> inputContext,
+            @Nonnull final ForceGroupsOptions forceGroupsOptions,
+            @Nonnull final EvaluationPlan plan) {
         // ProctorResult requires SortedMap internally, avoid copy overhead
         // use mutable map for legacy reasons, inside this codebase should not be modified after
         // this method
-        final SortedMap<String, TestBucket> testGroups = new TreeMap<>();
-        final SortedMap<String, Allocation> testAllocations = new TreeMap<>();
-
-        final List<String> filteredEvaluationOrder;
-        if (determineAllTests) {
-            filteredEvaluationOrder = testEvaluationOrder;
+        final SortedMap<String, TestBucket> testGroups;
+        final SortedMap<String, Allocation> testAllocations;
+        if (compactResultKeys != null) {
+            testGroups = new OrdinalSortedMap<>(compactResultKeys);
+            testAllocations = new OrdinalSortedMap<>(compactResultKeys);
         } else {
-            // Following code runs in a function of the number of transitive dependencies
-            // instead of the number of all loaded tests.
-            final Set<String> transitiveDependencies =
-                    TestDependencies.computeTransitiveDependencies(
-                            testDefinitions, testNameFilterSet);
-            filteredEvaluationOrder =
-                    transitiveDependencies.stream()
-                            .sorted(Comparator.comparing(evaluationOrderMap::get))
-                            .collect(Collectors.toList());
+            testGroups = new TreeMap<>();
+            testAllocations = new TreeMap<>();
         }
 
         final Set<TestType> testTypesWithInvalidIdentifier = new HashSet<>();
@@ -360,11 +560,12 @@ public class Proctor {
         final Map<String, ValueExpression> localContext =
                 ProctorUtils.convertToValueExpressionMap(
                         RuleEvaluator.EXPRESSION_FACTORY, inputContext);
+        final boolean incognitoEnabled = isIncognitoEnabled(inputContext);
         final Map<TestType, Integer> invalidIdentifierCount = new HashMap<>();
-        for (final String testName : filteredEvaluationOrder) {
+        for (final String testName : plan.evaluationOrder) {
             final TestChooser<?> testChooser = testChoosers.get(testName);
             final String identifier;
-            if (isIncognitoEnabled(inputContext)
+            if (incognitoEnabled
                     && !testChooser.getTestDefinition().getEvaluateForIncognitoUsers()) {
                 continue;
             }
@@ -406,9 +607,9 @@ public class Proctor {
             }
         }
 
-        if (!determineAllTests) {
-            for (final String testName : filteredEvaluationOrder) {
-                if (!testNameFilterSet.contains(testName)) {
+        if (plan.testNameFilter != null) {
+            for (final String testName : plan.evaluationOrder) {
+                if (!plan.testNameFilter.contains(testName)) {
                     testGroups.remove(testName);
                     testAllocations.remove(testName);
                 }
@@ -509,6 +710,20 @@ public class Proctor {
         OBJECT_WRITER.writeValue(writer, filtered);
     }
 
+    /** Tests to evaluate for a test name filter, shared by all requests using that filter */
+    private static class EvaluationPlan {
+        @Nonnull private final List<String> evaluationOrder;
+        /** tests to return, or null to return all evaluated tests */
+        @Nullable private final Set<String> testNameFilter;
+
+        private EvaluationPlan(
+                @Nonnull final List<String> evaluationOrder,
+                @Nullable final Set<String> testNameFilter) {
+            this.evaluationOrder = evaluationOrder;
+            this.testNameFilter = testNameFilter;
+        }
+    }
+
     private boolean isIncognitoEnabled(@Nonnull final Map<String, Object> inputContext) {
         return Optional.ofNullable(inputContext.get(INCOGNITO_CONTEXT_VARIABLE))
                 .map(Object::toString)
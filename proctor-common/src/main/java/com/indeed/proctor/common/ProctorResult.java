@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -44,7 +45,8 @@ public class ProctorResult {
 
     private final Map<String, Object> inputContext;
 
-    private final HashSet<String> hasLoggedTests;
+    /** allocated on first use, most results are never marked */
+    @Nullable private Set<String> hasLoggedTests;
 
     /**
      * Create a ProctorResult with copies of the provided collections
@@ -146,7 +148,6 @@ public class ProctorResult {
         this.testDefinitions = testDefinitions;
         this.identifiers = identifiers;
         this.inputContext = inputContext;
-        this.hasLoggedTests = new HashSet<>();
     }
 
     /**
@@ -199,6 +200,9 @@ public class ProctorResult {
     }
 
     public boolean markTestAsLogged(final String test) {
-        return this.hasLoggedTests.add(test);
+        if (hasLoggedTests == null) {
+            hasLoggedTests = new HashSet<>();
+        }
+        return hasLoggedTests.add(test);
     }
 }
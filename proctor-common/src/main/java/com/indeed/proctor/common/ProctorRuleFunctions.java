@@ -1,8 +1,15 @@
 package com.indeed.proctor.common;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.indeed.util.core.ReleaseVersion;
+import com.indeed.util.varexport.Export;
+import com.indeed.util.varexport.VarExporter;
 
 import java.util.Collection;
+import java.util.regex.Pattern;
 
 /**
  * Library of functions to make available to EL rules
@@ -11,6 +18,23 @@ import java.util.Collection;
  */
 @SuppressWarnings("UnusedDeclaration")
 public class ProctorRuleFunctions {
+    /**
+     * Bound of the caches of compiled patterns and parsed versions. Arguments are mostly constants
+     * of rules, so this is only reached with many distinct values from the request context.
+     */
+    private static final int MAX_CACHE_SIZE = 10_000;
+
+    private static final Cache<String, Pattern> PATTERN_CACHE =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHE_SIZE).recordStats().build();
+    private static final Cache<String, ReleaseVersion> VERSION_CACHE =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHE_SIZE).recordStats().build();
+
+    static {
+        VarExporter.forNamespace(ProctorRuleFunctions.class.getSimpleName())
+                .includeInGlobal()
+                .export(new CacheExport(), "");
+    }
+
     public static boolean contains(final Collection c, final Object element) {
         if (isIntegerNumber(element)) {
             // This special treatment is required because the type of constant variable
@@ -54,7 +78,7 @@ public class ProctorRuleFunctions {
     }
 
     public static boolean matches(final String value, final String regex) {
-        return value.matches(regex);
+        return compile(regex).matcher(value).matches();
     }
 
     public static long now() {
@@ -62,7 +86,7 @@ public class ProctorRuleFunctions {
     }
 
     public static ReleaseVersion version(final String versionString) {
-        return ReleaseVersion.fromString(versionString);
+        return parseVersion(versionString);
     }
 
     public static <T extends Comparable<T>> boolean inRange(
@@ -72,12 +96,71 @@ public class ProctorRuleFunctions {
 
     public static boolean versionInRange(
             final ReleaseVersion version, final String startInclusive, final String endExclusive) {
-        final ReleaseVersion start = ReleaseVersion.fromString(startInclusive);
-        final ReleaseVersion end = ReleaseVersion.fromString(endExclusive);
+        final ReleaseVersion start = parseVersion(startInclusive);
+        final ReleaseVersion end = parseVersion(endExclusive);
         if (end.getMatchPrecision() != ReleaseVersion.MatchPrecision.BUILD) {
             throw new IllegalStateException(
                     "Cannot use wildcard as open upper bound of range: " + endExclusive);
         }
         return inRange(version, start, end);
     }
+
+    /** Same as {@link Pattern#compile(String)}, reusing patterns compiled before */
+    private static Pattern compile(final String regex) {
+        // not Cache.get(key, loader), which would wrap PatternSyntaxException
+        final Pattern cached = PATTERN_CACHE.getIfPresent(regex);
+        if (cached != null) {
+            return cached;
+        }
+        final Pattern pattern = Pattern.compile(regex);
+        PATTERN_CACHE.put(regex, pattern);
+        return pattern;
+    }
+
+    /** Same as {@link ReleaseVersion#fromString(String)}, reusing versions parsed before */
+    private static ReleaseVersion parseVersion(final String versionString) {
+        if (versionString == null) {
+            // not a valid cache key, keep the behavior for null
+            return ReleaseVersion.fromString(null);
+        }
+        final ReleaseVersion cached = VERSION_CACHE.getIfPresent(versionString);
+        if (cached != null) {
+            return cached;
+        }
+        final ReleaseVersion version = ReleaseVersion.fromString(versionString);
+        VERSION_CACHE.put(versionString, version);
+        return version;
+    }
+
+    @VisibleForTesting
+    static CacheStats getPatternCacheStats() {
+        return PATTERN_CACHE.stats();
+    }
+
+    @VisibleForTesting
+    static CacheStats getVersionCacheStats() {
+        return VERSION_CACHE.stats();
+    }
+
+    private static class CacheExport {
+        @Export(name = "pattern-cache-hits", doc = "Compiled patterns reused by proctor:matches")
+        public long getPatternCacheHits() {
+            return PATTERN_CACHE.stats().hitCount();
+        }
+
+        @Export(name = "pattern-cache-misses", doc = "Patterns compiled by proctor:matches")
+        public long getPatternCacheMisses() {
+            return PATTERN_CACHE.stats().missCount();
+        }
+
+        @Export(name = "version-cache-hits", doc = "Parsed release versions reused by rules")
+        public long getVersionCacheHits() {
+            return VERSION_CACHE.stats().hitCount();
+        }
+
+        @Export(name = "version-cache-misses", doc = "Release versions parsed by rules")
+        public long getVersionCacheMisses() {
+            return VERSION_CACHE.stats().missCount();
+        }
+    }
 }
@@ -1,15 +1,20 @@
 package com.indeed.proctor.common;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.indeed.proctor.common.el.MulticontextReadOnlyVariableMapper;
 import com.indeed.proctor.common.model.Allocation;
 import com.indeed.proctor.common.model.Audit;
@@ -55,6 +60,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.joining;
 
@@ -65,11 +71,19 @@ public abstract class ProctorUtils {
     private static final ObjectWriter OBJECT_WRITER =
             OBJECT_MAPPER_NON_AUTOCLOSE.writerWithDefaultPrettyPrinter();
     private static final ObjectMapper OBJECT_MAPPER = Serializers.lenient();
+    private static final ObjectMapper FINGERPRINT_OBJECT_MAPPER =
+            Serializers.lenient().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
     private static final Logger LOGGER = LogManager.getLogger(ProctorUtils.class);
     private static final SpecificationGenerator SPECIFICATION_GENERATOR =
             new SpecificationGenerator();
     public static final String UNITLESS_ALLOCATION_IDENTIFIER = "missingExperimentalUnit";
 
+    /**
+     * minimum number of tests to verify their definitions in parallel, below which the overhead of
+     * splitting the work outweighs the gain
+     */
+    private static final int PARALLEL_VERIFICATION_MIN_TESTS = 64;
+
     public static MessageDigest createMessageDigest() {
         try {
             return MessageDigest.getInstance("MD5");
@@ -78,6 +92,21 @@ public abstract class ProctorUtils {
         }
     }
 
+    /**
+     * @return a hash of the json representation of the test definition, equal for definitions
+     *     with equal content, or null if it cannot be serialized
+     */
+    @CheckForNull
+    static HashCode fingerprint(@Nonnull final ConsumableTestDefinition testDefinition) {
+        try {
+            return Hashing.murmur3_128()
+                    .hashBytes(FINGERPRINT_OBJECT_MAPPER.writeValueAsBytes(testDefinition));
+        } catch (final JsonProcessingException e) {
+            LOGGER.debug("Unable to serialize test definition", e);
+            return null;
+        }
+    }
+
     @Nonnull
     public static Map<String, ValueExpression> convertToValueExpressionMap(
             @Nonnull final ExpressionFactory expressionFactory,
@@ -274,6 +303,55 @@ public abstract class ProctorUtils {
             @Nonnull final FunctionMapper functionMapper,
             final ProvidedContext providedContext,
             @Nonnull final Set<String> dynamicTests) {
+        return verifyAndConsolidate(
+                testMatrix,
+                matrixSource,
+                requiredTests,
+                functionMapper,
+                providedContext,
+                dynamicTests,
+                Collections.emptySet());
+    }
+
+    /**
+     * @param testMatrix will be modified by removing unused tests and adding missing tests
+     * @param verifiedTests tests known to be valid, see {@link #verify(TestMatrixArtifact, String,
+     *     Map, FunctionMapper, ProvidedContext, Set, Set)}
+     */
+    public static ProctorLoadResult verifyAndConsolidate(
+            @Nonnull final TestMatrixArtifact testMatrix,
+            final String matrixSource,
+            @Nonnull final Map<String, TestSpecification> requiredTests,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nonnull final Set<String> dynamicTests,
+            @Nonnull final Set<String> verifiedTests) {
+        return verifyAndConsolidate(
+                testMatrix,
+                matrixSource,
+                requiredTests,
+                functionMapper,
+                providedContext,
+                dynamicTests,
+                verifiedTests,
+                null);
+    }
+
+    /**
+     * @param testMatrix will be modified by removing unused tests and adding missing tests
+     * @param verificationCache results of previous verifications, see {@link
+     *     #verify(TestMatrixArtifact, String, Map, FunctionMapper, ProvidedContext, Set, Set,
+     *     VerificationCache)}
+     */
+    public static ProctorLoadResult verifyAndConsolidate(
+            @Nonnull final TestMatrixArtifact testMatrix,
+            final String matrixSource,
+            @Nonnull final Map<String, TestSpecification> requiredTests,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nonnull final Set<String> dynamicTests,
+            @Nonnull final Set<String> verifiedTests,
+            @Nullable final VerificationCache verificationCache) {
         final ProctorLoadResult result =
                 verify(
                         testMatrix,
@@ -281,7 +359,9 @@ public abstract class ProctorUtils {
                         requiredTests,
                         functionMapper,
                         providedContext,
-                        dynamicTests);
+                        dynamicTests,
+                        verifiedTests,
+                        verificationCache);
 
         final Map<String, ConsumableTestDefinition> definedTests = testMatrix.getTests();
         // Remove any invalid tests so that any required ones will be replaced with default values
@@ -404,6 +484,87 @@ public abstract class ProctorUtils {
             @Nonnull final FunctionMapper functionMapper,
             final ProvidedContext providedContext,
             @Nonnull final Set<String> dynamicTests) {
+        return verify(
+                testMatrix,
+                matrixSource,
+                requiredTests,
+                functionMapper,
+                providedContext,
+                dynamicTests,
+                Collections.emptySet());
+    }
+
+    /**
+     * Same as {@link #verify(TestMatrixArtifact, String, Map, FunctionMapper, ProvidedContext,
+     * Set)}, but skips verifying the definitions of the given tests. Dependencies of all tests are
+     * still validated.
+     *
+     * @param verifiedTests tests whose definitions are known to be valid for the same
+     *     specification, function mapper and provided context, e.g. because they are unchanged
+     *     since a previous verification.
+     */
+    public static ProctorLoadResult verify(
+            @Nonnull final TestMatrixArtifact testMatrix,
+            final String matrixSource,
+            @Nonnull final Map<String, TestSpecification> requiredTests,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nonnull final Set<String> dynamicTests,
+            @Nonnull final Set<String> verifiedTests) {
+        return verify(
+                testMatrix,
+                matrixSource,
+                requiredTests,
+                functionMapper,
+                providedContext,
+                dynamicTests,
+                verifiedTests,
+                null);
+    }
+
+    /**
+     * Same as {@link #verify(TestMatrixArtifact, String, Map, FunctionMapper, ProvidedContext, Set,
+     * Set)}, but reuses results of verifying tests of which the definition and the specification
+     * are unchanged since a previous verification with the cache.
+     *
+     * @param verificationCache results of previous verifications, or null to verify all tests
+     */
+    public static ProctorLoadResult verify(
+            @Nonnull final TestMatrixArtifact testMatrix,
+            final String matrixSource,
+            @Nonnull final Map<String, TestSpecification> requiredTests,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nonnull final Set<String> dynamicTests,
+            @Nonnull final Set<String> verifiedTests,
+            @Nullable final VerificationCache verificationCache) {
+        return verify(
+                testMatrix,
+                matrixSource,
+                requiredTests,
+                functionMapper,
+                providedContext,
+                dynamicTests,
+                verifiedTests,
+                verificationCache,
+                PARALLEL_VERIFICATION_MIN_TESTS);
+    }
+
+    /**
+     * @param parallelMinTests minimum number of tests to verify to verify them in parallel in the
+     *     common fork join pool
+     */
+    @VisibleForTesting
+    static ProctorLoadResult verify(
+            @Nonnull final TestMatrixArtifact testMatrix,
+            final String matrixSource,
+            @Nonnull final Map<String, TestSpecification> requiredTests,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nonnull final Set<String> dynamicTests,
+            @Nonnull final Set<String> verifiedTests,
+            @Nullable final VerificationCache verificationCache,
+            final int parallelMinTests) {
         final ProctorLoadResult.Builder resultBuilder = ProctorLoadResult.newBuilder();
 
         final Set<String> testsToLoad = Sets.union(requiredTests.keySet(), dynamicTests);
@@ -412,39 +573,57 @@ public abstract class ProctorUtils {
         final Set<String> missingTests = new HashSet<>();
         final Set<String> incompatibleTests = new HashSet<>();
 
+        // definitions are verified independently of each other, possibly in parallel
+        final List<String> testsToVerify =
+                testsToLoad.stream()
+                        .filter(definedTests::containsKey)
+                        // unchanged since verified before
+                        .filter(testName -> !verifiedTests.contains(testName))
+                        .collect(Collectors.toList());
+        final Stream<String> verifyingTests =
+                (testsToVerify.size() >= parallelMinTests)
+                        ? testsToVerify.parallelStream()
+                        : testsToVerify.stream();
+        // errors in the order of tests, null for valid tests
+        final List<IncompatibleTestMatrixException> verificationErrors =
+                verifyingTests
+                        .map(
+                                testName ->
+                                        verifyTestOrGetError(
+                                                testName,
+                                                definedTests.get(testName),
+                                                requiredTests.get(testName),
+                                                matrixSource,
+                                                functionMapper,
+                                                providedContext,
+                                                verificationCache))
+                        .collect(Collectors.toList());
+
+        // results are recorded in the order of tests regardless of parallel verification
+        int verifiedIndex = 0;
         for (final String testName : testsToLoad) {
             if (!definedTests.containsKey(testName)) {
                 // required by specification but missing in test matrix
                 resultBuilder.recordMissing(testName);
                 missingTests.add(testName);
-            } else if (requiredTests.containsKey(testName)) {
+                continue;
+            }
+            if (verifiedTests.contains(testName)) {
+                continue;
+            }
+            final IncompatibleTestMatrixException error =
+                    verificationErrors.get(verifiedIndex++);
+            if (error == null) {
+                continue;
+            }
+            if (requiredTests.containsKey(testName)) {
                 // required by specification
-                try {
-                    verifyRequiredTest(
-                            testName,
-                            definedTests.get(testName),
-                            requiredTests.get(testName),
-                            matrixSource,
-                            functionMapper,
-                            providedContext);
-                } catch (final IncompatibleTestMatrixException e) {
-                    resultBuilder.recordError(testName, e);
-                    incompatibleTests.add(testName);
-                }
-            } else if (dynamicTests.contains(testName)) {
+                resultBuilder.recordError(testName, error);
+            } else {
                 // resolved by dynamic filter
-                try {
-                    verifyDynamicTest(
-                            testName,
-                            definedTests.get(testName),
-                            matrixSource,
-                            functionMapper,
-                            providedContext);
-                } catch (final IncompatibleTestMatrixException e) {
-                    resultBuilder.recordIncompatibleDynamicTest(testName, e);
-                    incompatibleTests.add(testName);
-                }
+                resultBuilder.recordIncompatibleDynamicTest(testName, error);
             }
+            incompatibleTests.add(testName);
         }
 
         final Map<String, String> errorReasonsOfTestsByDependency =
@@ -474,6 +653,58 @@ public abstract class ProctorUtils {
         return resultBuilder.build();
     }
 
+    /**
+     * Verifies a test required by a specification if the specification is given, otherwise as a
+     * dynamic test, unless the result is known by the cache
+     *
+     * @return the error of the verification, or null if the test is valid
+     */
+    @CheckForNull
+    private static IncompatibleTestMatrixException verifyTestOrGetError(
+            @Nonnull final String testName,
+            @Nonnull final ConsumableTestDefinition testDefinition,
+            @Nullable final TestSpecification testSpecification,
+            @Nonnull final String matrixSource,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nullable final VerificationCache verificationCache) {
+        if (verificationCache != null) {
+            return verificationCache.getOrVerify(
+                    testName,
+                    testDefinition,
+                    testSpecification,
+                    matrixSource,
+                    functionMapper,
+                    providedContext,
+                    () ->
+                            verifyTestOrGetError(
+                                    testName,
+                                    testDefinition,
+                                    testSpecification,
+                                    matrixSource,
+                                    functionMapper,
+                                    providedContext,
+                                    null));
+        }
+        try {
+            if (testSpecification != null) {
+                verifyRequiredTest(
+                        testName,
+                        testDefinition,
+                        testSpecification,
+                        matrixSource,
+                        functionMapper,
+                        providedContext);
+            } else {
+                verifyDynamicTest(
+                        testName, testDefinition, matrixSource, functionMapper, providedContext);
+            }
+            return null;
+        } catch (final IncompatibleTestMatrixException e) {
+            return e;
+        }
+    }
+
     /**
      * Verifies that a single required test is valid against {@link TestSpecification} and {@link
      * FunctionMapper} and {@link ProvidedContext}.
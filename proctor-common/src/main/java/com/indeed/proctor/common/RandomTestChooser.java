@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
 
 /**
  * Embodies the logic for a single purely random test, including applicability rule and
@@ -29,7 +31,8 @@ import java.util.Set;
  */
 @VisibleForTesting
 class RandomTestChooser implements TestChooser<Void> {
-    @Nonnull private final Random random;
+    /** returns uniformly distributed values in [0, 1) */
+    @Nonnull private final DoubleSupplier random;
     @Nonnull private final TestRangeSelector testRangeSelector;
     @Nonnull private final List<Allocation> allocations;
 
@@ -38,19 +41,43 @@ class RandomTestChooser implements TestChooser<Void> {
             final FunctionMapper functionMapper,
             final String testName,
             @Nonnull final ConsumableTestDefinition testDefinition) {
-        this(System.nanoTime(), expressionFactory, functionMapper, testName, testDefinition);
+        // per-thread generator, not contended by concurrent requests
+        this(
+                () -> ThreadLocalRandom.current().nextDouble(),
+                expressionFactory,
+                functionMapper,
+                testName,
+                testDefinition);
     }
 
+    /**
+     * Creates a chooser with reproducible results, only intended for tests. All threads share one
+     * generator, so it is contended when used concurrently.
+     */
     public RandomTestChooser(
             final long seed,
             final ExpressionFactory expressionFactory,
             final FunctionMapper functionMapper,
             final String testName,
             @Nonnull final ConsumableTestDefinition testDefinition) {
+        this(
+                new Random(seed)::nextDouble,
+                expressionFactory,
+                functionMapper,
+                testName,
+                testDefinition);
+    }
+
+    private RandomTestChooser(
+            @Nonnull final DoubleSupplier random,
+            final ExpressionFactory expressionFactory,
+            final FunctionMapper functionMapper,
+            final String testName,
+            @Nonnull final ConsumableTestDefinition testDefinition) {
         testRangeSelector =
                 new TestRangeSelector(expressionFactory, functionMapper, testName, testDefinition);
         allocations = testDefinition.getAllocations();
-        random = new Random(seed);
+        this.random = random;
     }
 
     @Nonnull
@@ -141,7 +168,7 @@ class RandomTestChooser implements TestChooser<Void> {
         final Allocation allocation = allocations.get(matchingRuleIndex);
         final List<Range> ranges = allocation.getRanges();
 
-        final double nextDouble = random.nextDouble();
+        final double nextDouble = random.getAsDouble();
         double current = 0;
 
         for (final Range range : ranges) {
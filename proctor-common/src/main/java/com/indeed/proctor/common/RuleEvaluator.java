@@ -1,5 +1,6 @@
 package com.indeed.proctor.common;
 
+import com.indeed.proctor.common.el.DeferredVariableMapper;
 import com.indeed.proctor.common.el.LibraryFunctionMapperBuilder;
 import com.indeed.proctor.common.el.MulticontextReadOnlyVariableMapper;
 import org.apache.commons.lang3.ClassUtils;
@@ -10,10 +11,12 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.el.ArrayELResolver;
 import javax.el.BeanELResolver;
 import javax.el.CompositeELResolver;
 import javax.el.ELContext;
+import javax.el.ELException;
 import javax.el.ELResolver;
 import javax.el.ExpressionFactory;
 import javax.el.FunctionMapper;
@@ -144,6 +147,72 @@ public class RuleEvaluator {
         final ELContext elContext = createElContext(localContext);
         final ValueExpression ve =
                 expressionFactory.createValueExpression(elContext, rule, boolean.class);
+        return evaluateBooleanValueExpression(rule, elContext, ve);
+    }
+
+    /**
+     * Parses the rule once, so that it can be evaluated for many requests with {@link
+     * #evaluateCompiledBooleanRule(CompiledRule, Map)}. Test constants are bound at parse time,
+     * all other variables are looked up in the local context given at evaluation time.
+     *
+     * <p>Rules that cannot be parsed do not fail here, they fail on evaluation like with {@link
+     * #evaluateBooleanRuleWithValueExpr(String, Map)}.
+     */
+    @Nonnull
+    public CompiledRule compileBooleanRule(@Nullable final String rule) {
+        if (StringUtils.isBlank(rule)) {
+            return new CompiledRule(rule, true, null);
+        }
+        if (!rule.startsWith("${") || !rule.endsWith("}")) {
+            // invalid, evaluation logs the error
+            return new CompiledRule(rule, null, null);
+        }
+        final ProctorUtils.ElExpressionClassification ec =
+                ProctorUtils.clasifyElExpression(rule, true);
+        if (ec == ProctorUtils.ElExpressionClassification.EMPTY
+                || ec == ProctorUtils.ElExpressionClassification.CONSTANT_TRUE) {
+            return new CompiledRule(rule, true, null);
+        }
+        if (ec == ProctorUtils.ElExpressionClassification.CONSTANT_FALSE) {
+            return new CompiledRule(rule, false, null);
+        }
+
+        final ELContext compilationContext =
+                createELContext(new DeferredVariableMapper(testConstants));
+        try {
+            return new CompiledRule(
+                    rule,
+                    null,
+                    expressionFactory.createValueExpression(
+                            compilationContext, rule, boolean.class));
+        } catch (final ELException e) {
+            // syntax errors or unknown functions, evaluation reports the error
+            return new CompiledRule(rule, null, null);
+        }
+    }
+
+    /**
+     * Evaluates a rule compiled by {@link #compileBooleanRule(String)} of this instance, with the
+     * same semantics as {@link #evaluateBooleanRuleWithValueExpr(String, Map)}.
+     */
+    public boolean evaluateCompiledBooleanRule(
+            @Nonnull final CompiledRule compiledRule,
+            @Nonnull final Map<String, ValueExpression> localContext)
+            throws IllegalArgumentException {
+        final Boolean constantResult = compiledRule.getConstantResult();
+        if (constantResult != null) {
+            return constantResult;
+        }
+        final ValueExpression ve = compiledRule.getValueExpression();
+        if (ve == null) {
+            return evaluateBooleanRuleWithValueExpr(compiledRule.getRule(), localContext);
+        }
+        return evaluateBooleanValueExpression(
+                compiledRule.getRule(), createElContext(localContext), ve);
+    }
+
+    private static boolean evaluateBooleanValueExpression(
+            final String rule, final ELContext elContext, final ValueExpression ve) {
         checkRuleIsBooleanType(rule, elContext, ve);
 
         final Object result = ve.getValue(elContext);
@@ -0,0 +1,113 @@
+package com.indeed.proctor.common;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+/**
+ * Computes the bucket hash used by {@link StandardTestChooser}, i.e. bytes 12 to 15 of
+ * MD5(UTF-8(salt) + UTF-8(identifier)) as a big-endian int.
+ *
+ * <p>The salt is fed once per thread into a digest, which is cloned for each call instead of
+ * looking up a new {@link MessageDigest} and hashing the salt again. The identifier is encoded
+ * into a per-thread buffer, and the digest is written into a per-thread array.
+ *
+ * <p>Safe to share between threads.
+ */
+final class SaltedMd5 {
+    private static final int DIGEST_LENGTH = 16;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    @Nonnull private final byte[] salt;
+
+    /** digests of each thread after feeding the salt, never updated after */
+    @Nonnull private final ThreadLocal<MessageDigest> saltedDigests;
+
+    SaltedMd5(@Nonnull final String salt) {
+        this.salt = salt.getBytes(StandardCharsets.UTF_8);
+        saltedDigests = ThreadLocal.withInitial(this::newSaltedDigest);
+    }
+
+    int hash(@Nonnull final String identifier) {
+        final Buffers buffers = BUFFERS.get();
+        buffers.encode(identifier);
+        final MessageDigest md = cloneSaltedDigest();
+        md.update(buffers.identifier, 0, buffers.identifierLength);
+        final byte[] digest = buffers.digest;
+        try {
+            md.digest(digest, 0, DIGEST_LENGTH);
+        } catch (final DigestException e) {
+            throw new IllegalStateException("Unable to compute MD5 digest", e);
+        }
+        final int offset = 12;
+        return (0xff & digest[offset + 0]) << 24
+                | (0xff & digest[offset + 1]) << 16
+                | (0xff & digest[offset + 2]) << 8
+                | (0xff & digest[offset + 3]);
+    }
+
+    @Nonnull
+    private MessageDigest newSaltedDigest() {
+        final MessageDigest md = ProctorUtils.createMessageDigest();
+        md.update(salt);
+        return md;
+    }
+
+    @Nonnull
+    private MessageDigest cloneSaltedDigest() {
+        try {
+            return (MessageDigest) saltedDigests.get().clone();
+        } catch (final CloneNotSupportedException e) {
+            // not expected from JDK providers of MD5
+            return newSaltedDigest();
+        }
+    }
+
+    /** Per-thread scratch space, reused across calls */
+    private static final class Buffers {
+        private final byte[] digest = new byte[DIGEST_LENGTH];
+        private byte[] identifier = new byte[64];
+        private int identifierLength;
+
+        /**
+         * Encodes the identifier as UTF-8 like {@link String#getBytes(java.nio.charset.Charset)},
+         * replacing unpaired surrogates with '?'
+         */
+        private void encode(@Nonnull final String value) {
+            final int maxLength = 3 * value.length();
+            if (identifier.length < maxLength) {
+                identifier = new byte[Math.max(maxLength, 2 * identifier.length)];
+            }
+            final byte[] bytes = identifier;
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c)
+                            && (i + 1 < value.length())
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                        bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                        bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                        bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                    } else {
+                        bytes[length++] = '?';
+                    }
+                } else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            identifierLength = length;
+        }
+    }
+}
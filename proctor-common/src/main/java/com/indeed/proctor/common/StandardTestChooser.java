@@ -1,7 +1,6 @@
 package com.indeed.proctor.common;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
@@ -19,7 +18,6 @@ import javax.el.ValueExpression;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.security.MessageDigest;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -235,32 +233,17 @@ class StandardTestChooser implements TestChooser<String> {
 
     /** @author matts */
     private abstract static class AbstractMD5Hasher implements Hasher {
-        private final byte[] bytes;
+        @Nonnull private final SaltedMd5 saltedMd5;
 
         public AbstractMD5Hasher(final String salt) {
-            this.bytes = salt.getBytes(Charsets.UTF_8);
+            this.saltedMd5 = new SaltedMd5(salt);
         }
 
         @Override
         public int hash(@Nonnull final String identifier) {
-            final MessageDigest md = ProctorUtils.createMessageDigest();
-
-            md.update(bytes);
-            md.update(identifier.getBytes(Charsets.UTF_8));
-
-            final byte[] digest = md.digest();
-
-            return convertToInt(digest);
-        }
-
-        private static int convertToInt(final byte[] digest) {
-            final int offset =
-                    12; //  arbitrary choice; changing this would reshuffle all groups just like
+            //  bytes 12 to 15 of the digest; changing this would reshuffle all groups just like
             // changing the salt
-            return (0xff & digest[offset + 0]) << 24
-                    | (0xff & digest[offset + 1]) << 16
-                    | (0xff & digest[offset + 2]) << 8
-                    | (0xff & digest[offset + 3]);
+            return saltedMd5.hash(identifier);
         }
     }
 
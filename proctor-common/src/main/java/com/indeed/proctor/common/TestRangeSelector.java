@@ -22,7 +22,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.Function;
+import java.util.function.IntPredicate;
 
 /**
  * This is perhaps not the greatest abstraction the world has seen; is meant to consolidate common
@@ -36,6 +36,8 @@ public class TestRangeSelector {
     @Nonnull private final String testName;
     @Nonnull private final ConsumableTestDefinition testDefinition;
     @Nonnull private final String[] rules;
+    @Nullable private final CompiledRule compiledTestRule;
+    @Nonnull private final CompiledRule[] compiledRules;
     @Nonnull private final TestBucket[][] rangeToBucket;
     private final RuleEvaluator ruleEvaluator;
 
@@ -64,12 +66,19 @@ public class TestRangeSelector {
             bucketValueToTest.put(testBucket.getValue(), testBucket);
         }
 
+        // rules are parsed once here instead of on each evaluation
+        final String testRule = testDefinition.getRule();
+        this.compiledTestRule =
+                (testRule == null) ? null : ruleEvaluator.compileBooleanRule(testRule);
+
         final List<Allocation> allocations = testDefinition.getAllocations();
         this.rangeToBucket = new TestBucket[allocations.size()][];
         this.rules = new String[allocations.size()];
+        this.compiledRules = new CompiledRule[allocations.size()];
         for (int i = 0; i < allocations.size(); i++) {
             final Allocation allocation = allocations.get(i);
             rules[i] = allocation.getRule();
+            compiledRules[i] = ruleEvaluator.compileBooleanRule(rules[i]);
             final List<Range> ranges = allocation.getRanges();
             this.rangeToBucket[i] = new TestBucket[ranges.size()];
             for (int j = 0; j < ranges.size(); j++) {
@@ -88,22 +97,15 @@ public class TestRangeSelector {
             @Nonnull final Map<String, Object> values,
             @Nonnull final Map<String, TestBucket> testGroups,
             @Nullable final String identifier) {
-        return findMatchingRuleInternal(
-                rule -> ruleEvaluator.evaluateBooleanRule(rule, values), testGroups, identifier);
-    }
-
-    public int findMatchingRuleWithValueExpr(
-            @Nonnull final Map<String, ValueExpression> localContext,
-            @Nonnull final Map<String, TestBucket> testGroups,
-            @Nullable final String identifier) {
-        return findMatchingRuleInternal(
-                rule -> ruleEvaluator.evaluateBooleanRuleWithValueExpr(rule, localContext),
+        return findMatchingRuleWithValueExpr(
+                ProctorUtils.convertToValueExpressionMap(
+                        ruleEvaluator.expressionFactory, values),
                 testGroups,
                 identifier);
     }
 
-    private int findMatchingRuleInternal(
-            final Function<String, Boolean> evaluator,
+    public int findMatchingRuleWithValueExpr(
+            @Nonnull final Map<String, ValueExpression> localContext,
             @Nonnull final Map<String, TestBucket> testGroups,
             @Nullable final String identifier) {
         final TestDependency dependsOn = testDefinition.getDependsOn();
@@ -114,15 +116,18 @@ public class TestRangeSelector {
             }
         }
 
-        @Nullable final String rule = testDefinition.getRule();
         try {
-            if (rule != null) {
-                if (!evaluator.apply(rule)) {
+            if (compiledTestRule != null) {
+                if (!ruleEvaluator.evaluateCompiledBooleanRule(compiledTestRule, localContext)) {
                     return -1;
                 }
             }
 
-            return getMatchingAllocation(evaluator, identifier);
+            return getMatchingAllocation(
+                    index ->
+                            ruleEvaluator.evaluateCompiledBooleanRule(
+                                    compiledRules[index], localContext),
+                    identifier);
         } catch (final RuntimeException e) {
             LOGGER.error(
                     "Failed to evaluate test rules; ",
@@ -130,16 +135,20 @@ public class TestRangeSelector {
                             e,
                             String.format(
                                     "Error evaluating rule '%s' for test '%s': '%s'. Failing evaluation and continuing.",
-                                    rule, testName, e.getMessage())));
+                                    testDefinition.getRule(), testName, e.getMessage())));
         }
 
         return -1;
     }
 
+    /**
+     * @param isMatchingAllocation evaluates the rule of the allocation with the given index
+     * @return index of the first matching allocation, or -1
+     */
     protected int getMatchingAllocation(
-            final Function<String, Boolean> evaluator, @Nullable final String identifier) {
+            final IntPredicate isMatchingAllocation, @Nullable final String identifier) {
         for (int i = 0; i < rules.length; i++) {
-            if (evaluator.apply(rules[i])) {
+            if (isMatchingAllocation.test(i)) {
                 return i;
             }
         }
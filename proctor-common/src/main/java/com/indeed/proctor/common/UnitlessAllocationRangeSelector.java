@@ -6,7 +6,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.el.ExpressionFactory;
 import javax.el.FunctionMapper;
-import java.util.function.Function;
+import java.util.function.IntPredicate;
 
 public class UnitlessAllocationRangeSelector extends TestRangeSelector {
     @Nonnull private final IdentifierValidator identifierValidator;
@@ -32,11 +32,11 @@ public class UnitlessAllocationRangeSelector extends TestRangeSelector {
 
     @Override
     protected int getMatchingAllocation(
-            final Function<String, Boolean> evaluator, @Nullable final String identifier) {
+            final IntPredicate isMatchingAllocation, @Nullable final String identifier) {
         final String[] rules = getRules();
         for (int i = 0; i < rules.length; i++) {
             final String rule = rules[i];
-            if (isValidAllocation(identifier, rule) && evaluator.apply(rule)) {
+            if (isValidAllocation(identifier, rule) && isMatchingAllocation.test(i)) {
                 return i;
             }
         }
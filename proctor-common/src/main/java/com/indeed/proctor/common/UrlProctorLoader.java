@@ -1,25 +1,40 @@
 package com.indeed.proctor.common;
 
+import com.indeed.proctor.common.model.Audit;
 import com.indeed.proctor.common.model.TestMatrixArtifact;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.el.FunctionMapper;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 
 /**
  * Support class for loading a test matrix artifact from a URL-based JSON file
  *
+ * <p>For http urls, the matrix is requested conditionally using the ETag and Last-Modified headers
+ * of the response the currently loaded test matrix was read from, so an unchanged matrix is not
+ * downloaded again.
+ *
  * @author jack
  */
 public class UrlProctorLoader extends AbstractJsonProctorLoader {
     @Nonnull private final URL inputURL;
 
+    /** ETag and Last-Modified headers of the last parsed http response, for conditional requests */
+    @Nullable private String lastResponseETag;
+
+    @Nullable private String lastResponseLastModified;
+    /** audit version of the last parsed response */
+    @Nullable private String lastResponseAuditVersion;
+
     public UrlProctorLoader(
             @Nonnull final ProctorSpecification specification, @Nonnull final String inputUrl)
             throws MalformedURLException {
@@ -56,8 +71,47 @@ public class UrlProctorLoader extends AbstractJsonProctorLoader {
     @CheckForNull
     @Override
     protected TestMatrixArtifact loadTestMatrix() throws IOException, TestMatrixOutdatedException {
-        try (Reader reader = new BufferedReader(new InputStreamReader(inputURL.openStream()))) {
-            return loadJsonTestMatrix(reader);
+        final URLConnection connection = inputURL.openConnection();
+        if ((connection instanceof HttpURLConnection)
+                && isLastAuditVersion(lastResponseAuditVersion)) {
+            if (lastResponseETag != null) {
+                connection.setRequestProperty("If-None-Match", lastResponseETag);
+            }
+            if (lastResponseLastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", lastResponseLastModified);
+            }
+            final HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                httpConnection.disconnect();
+                throw new TestMatrixOutdatedException(
+                        inputURL + " is not modified since it was last loaded");
+            }
+        }
+        final String eTag = connection.getHeaderField("ETag");
+        final String lastModified = connection.getHeaderField("Last-Modified");
+        final TestMatrixArtifact testMatrix;
+        try (Reader reader =
+                new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            testMatrix = loadJsonTestMatrix(reader);
+        } catch (final TestMatrixOutdatedException e) {
+            // the audit version of the response is the one of the loaded test matrix
+            final Audit lastAudit = getLastAudit();
+            rememberResponse(
+                    eTag, lastModified, (lastAudit == null) ? null : lastAudit.getVersion());
+            throw e;
         }
+        if ((testMatrix != null) && (testMatrix.getAudit() != null)) {
+            rememberResponse(eTag, lastModified, testMatrix.getAudit().getVersion());
+        }
+        return testMatrix;
+    }
+
+    private void rememberResponse(
+            @Nullable final String eTag,
+            @Nullable final String lastModified,
+            @Nullable final String auditVersion) {
+        lastResponseETag = eTag;
+        lastResponseLastModified = lastModified;
+        lastResponseAuditVersion = auditVersion;
     }
 }
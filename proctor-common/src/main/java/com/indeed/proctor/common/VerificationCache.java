@@ -0,0 +1,215 @@
+package com.indeed.proctor.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.util.varexport.Export;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.el.FunctionMapper;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes results of verifying single tests, so that verifying a test of which the definition is
+ * unchanged against the same specification, function mapper and provided context returns the
+ * previous result without compiling and evaluating its rules again.
+ *
+ * <p>Definitions and specifications are identified by hashes of their content. Function mappers
+ * and provided contexts are identified by identity because values of a context don't implement
+ * equality, so callers should reuse the same instances across verifications.
+ *
+ * <p>Error messages mention the source of the test matrix, so a failure is only reused for the same
+ * source while a success is reused for any source.
+ */
+public class VerificationCache {
+    private static final Logger LOGGER = LogManager.getLogger(VerificationCache.class);
+    private static final ObjectMapper FINGERPRINT_OBJECT_MAPPER =
+            Serializers.lenient().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    /** default bound of the number of verification results */
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    private final Cache<Key, Result> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerificationCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /** @param maximumSize maximum number of verification results to keep */
+    public VerificationCache(final long maximumSize) {
+        results = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * @param testSpecification specification of a required test, or null for a dynamic test
+     * @param verifier verifies the test and returns the error, or null if the test is valid
+     * @return the error of the verification, or null if the test is valid
+     */
+    @CheckForNull
+    IncompatibleTestMatrixException getOrVerify(
+            @Nonnull final String testName,
+            @Nonnull final ConsumableTestDefinition testDefinition,
+            @Nullable final TestSpecification testSpecification,
+            @Nonnull final String matrixSource,
+            @Nonnull final FunctionMapper functionMapper,
+            final ProvidedContext providedContext,
+            @Nonnull final Supplier<IncompatibleTestMatrixException> verifier) {
+        final HashCode definitionHash = ProctorUtils.fingerprint(testDefinition);
+        final HashCode specificationHash =
+                (testSpecification == null) ? null : fingerprint(testSpecification);
+        if ((definitionHash == null)
+                || ((testSpecification != null) && (specificationHash == null))) {
+            misses.increment();
+            return verifier.get();
+        }
+
+        final Key key =
+                new Key(
+                        testName,
+                        definitionHash,
+                        specificationHash,
+                        functionMapper,
+                        providedContext);
+        final Result cached = results.getIfPresent(key);
+        if ((cached != null) && cached.isFor(matrixSource)) {
+            hits.increment();
+            return cached.error;
+        }
+        misses.increment();
+        final IncompatibleTestMatrixException error = verifier.get();
+        results.put(key, (error == null) ? Result.VALID : new Result(matrixSource, error));
+        return error;
+    }
+
+    /** Discards all verification results */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    @Export(
+            name = "verification-cache-hit-rate",
+            doc = "Ratio of verifications of tests answered by a previous result")
+    public double getHitRate() {
+        final long hitCount = hits.sum();
+        final long total = hitCount + misses.sum();
+        return (total == 0) ? 1.0 : ((double) hitCount / total);
+    }
+
+    @Export(
+            name = "verification-cache-hits",
+            doc = "Number of verifications of tests answered by a previous result")
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Export(
+            name = "verification-cache-misses",
+            doc = "Number of verifications of tests compiling and evaluating rules")
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Export(
+            name = "verification-cache-evictions",
+            doc = "Number of verification results evicted from the cache")
+    public long getEvictions() {
+        return results.stats().evictionCount();
+    }
+
+    @Export(name = "verification-cache-size", doc = "Number of verification results kept")
+    public long getSize() {
+        return results.size();
+    }
+
+    @CheckForNull
+    private static HashCode fingerprint(@Nonnull final TestSpecification testSpecification) {
+        try {
+            return Hashing.murmur3_128()
+                    .hashBytes(FINGERPRINT_OBJECT_MAPPER.writeValueAsBytes(testSpecification));
+        } catch (final JsonProcessingException e) {
+            LOGGER.debug("Unable to serialize test specification", e);
+            return null;
+        }
+    }
+
+    private static class Key {
+        private final String testName;
+        private final HashCode definitionHash;
+        /** null for dynamic tests */
+        @Nullable private final HashCode specificationHash;
+        private final FunctionMapper functionMapper;
+        private final ProvidedContext providedContext;
+
+        private Key(
+                final String testName,
+                final HashCode definitionHash,
+                @Nullable final HashCode specificationHash,
+                final FunctionMapper functionMapper,
+                final ProvidedContext providedContext) {
+            this.testName = testName;
+            this.definitionHash = definitionHash;
+            this.specificationHash = specificationHash;
+            this.functionMapper = functionMapper;
+            this.providedContext = providedContext;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return testName.equals(key.testName)
+                    && definitionHash.equals(key.definitionHash)
+                    && Objects.equals(specificationHash, key.specificationHash)
+                    && (functionMapper == key.functionMapper)
+                    && (providedContext == key.providedContext);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    testName,
+                    definitionHash,
+                    specificationHash,
+                    System.identityHashCode(functionMapper),
+                    System.identityHashCode(providedContext));
+        }
+    }
+
+    private static class Result {
+        private static final Result VALID = new Result(null, null);
+
+        /** source of the test matrix mentioned in the error, null for a valid test */
+        @Nullable private final String matrixSource;
+
+        @Nullable private final IncompatibleTestMatrixException error;
+
+        private Result(
+                @Nullable final String matrixSource,
+                @Nullable final IncompatibleTestMatrixException error) {
+            this.matrixSource = matrixSource;
+            this.error = error;
+        }
+
+        private boolean isFor(final String matrixSource) {
+            return (error == null) || Objects.equals(this.matrixSource, matrixSource);
+        }
+    }
+}
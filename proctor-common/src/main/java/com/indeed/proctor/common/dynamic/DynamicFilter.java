@@ -19,4 +19,15 @@ public interface DynamicFilter {
      * @return true if the testname or the definition match the filter
      */
     boolean matches(@Nullable final String testName, final ConsumableTestDefinition testDefinition);
+
+    /**
+     * Allows loaders to skip reading the definitions of tests that cannot match, for filters
+     * depending only on the test name.
+     *
+     * @return false if no test with this name matches, whatever its definition. true if {@link
+     *     #matches} needs to be called with the definition to decide.
+     */
+    default boolean mayMatchTestName(@Nullable final String testName) {
+        return true;
+    }
 }
@@ -77,6 +77,15 @@ public class DynamicFilters implements JsonSerializable {
         return filters.stream().anyMatch(filter -> filter.matches(testName, testDefinition));
     }
 
+    /**
+     * @return false if no filter matches a test with this name, whatever its definition, so the
+     *     definition does not need to be read
+     * @see DynamicFilter#mayMatchTestName(String)
+     */
+    public final boolean mayMatchTestName(@Nullable final String testName) {
+        return filters.stream().anyMatch(filter -> filter.mayMatchTestName(testName));
+    }
+
     /** @return unmodifiable view of underlying dynamic filters */
     public Collection<DynamicFilter> asCollection() {
         return Collections.unmodifiableCollection(filters);
@@ -46,11 +46,16 @@ public class TestNamePatternFilter implements DynamicFilter {
     @Override
     public boolean matches(
             @Nullable final String testName, final ConsumableTestDefinition testDefinition) {
-        boolean isMatched = !Strings.isNullOrEmpty(testName) && pattern.matcher(testName).matches();
+        boolean isMatched = mayMatchTestName(testName);
         testDefinition.setDynamic(isMatched);
         return isMatched;
     }
 
+    @Override
+    public boolean mayMatchTestName(@Nullable final String testName) {
+        return !Strings.isNullOrEmpty(testName) && pattern.matcher(testName).matches();
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -37,11 +37,16 @@ public class TestNamePrefixFilter implements DynamicFilter {
     @Override
     public boolean matches(
             @Nullable final String testName, final ConsumableTestDefinition testDefinition) {
-        boolean isMatched = !Strings.isNullOrEmpty(testName) && testName.startsWith(prefix);
+        boolean isMatched = mayMatchTestName(testName);
         testDefinition.setDynamic(isMatched);
         return isMatched;
     }
 
+    @Override
+    public boolean mayMatchTestName(@Nullable final String testName) {
+        return !Strings.isNullOrEmpty(testName) && testName.startsWith(prefix);
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
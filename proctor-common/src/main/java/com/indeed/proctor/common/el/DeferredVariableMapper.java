@@ -0,0 +1,117 @@
+package com.indeed.proctor.common.el;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.el.ELContext;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+import java.util.Map;
+
+/**
+ * Variable mapper to be used while parsing an expression that is evaluated many times.
+ *
+ * <p>The expression language captures variables when an expression is created, so a {@link
+ * ValueExpression} created with a request's variables cannot be reused for the next request. This
+ * mapper binds the given constants at parse time, and binds every other variable to a placeholder
+ * that looks up the actual value in the {@link VariableMapper} of the {@link ELContext} passed at
+ * evaluation time.
+ */
+public class DeferredVariableMapper extends VariableMapper {
+    @Nonnull private final Map<String, ValueExpression> constants;
+
+    public DeferredVariableMapper(@Nonnull final Map<String, ValueExpression> constants) {
+        this.constants = constants;
+    }
+
+    @Nonnull
+    @Override
+    public ValueExpression resolveVariable(final String name) {
+        final ValueExpression constant = constants.get(name);
+        if (constant != null) {
+            return constant;
+        }
+        return new DeferredVariableExpression(name);
+    }
+
+    @Nonnull
+    @Override
+    public ValueExpression setVariable(final String name, final ValueExpression expression) {
+        throw new IllegalStateException("Setting variables is not allowed");
+    }
+
+    /** Placeholder for a variable that is resolved on each evaluation */
+    private static class DeferredVariableExpression extends ValueExpression {
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull private final String name;
+
+        private DeferredVariableExpression(@Nonnull final String name) {
+            this.name = name;
+        }
+
+        @Nonnull
+        private ValueExpression resolve(@Nonnull final ELContext context) {
+            final VariableMapper variableMapper = context.getVariableMapper();
+            @Nullable
+            final ValueExpression expression =
+                    (variableMapper == null) ? null : variableMapper.resolveVariable(name);
+            if (expression == null) {
+                throw new PropertyNotFoundException("Cannot resolve variable '" + name + "'");
+            }
+            return expression;
+        }
+
+        @Override
+        public Object getValue(final ELContext context) {
+            return resolve(context).getValue(context);
+        }
+
+        @Override
+        public void setValue(final ELContext context, final Object value) {
+            throw new PropertyNotWritableException("Variable '" + name + "' is read only");
+        }
+
+        @Override
+        public boolean isReadOnly(final ELContext context) {
+            return true;
+        }
+
+        @Override
+        public Class<?> getType(final ELContext context) {
+            return resolve(context).getType(context);
+        }
+
+        @Override
+        public Class<?> getExpectedType() {
+            return Object.class;
+        }
+
+        @Override
+        public String getExpressionString() {
+            return name;
+        }
+
+        @Override
+        public boolean isLiteralText() {
+            return false;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return name.equals(((DeferredVariableExpression) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import com.indeed.proctor.common.model.Audit;
 import com.indeed.proctor.common.model.ConsumableTestDefinition;
 import com.indeed.proctor.common.model.Range;
 import com.indeed.proctor.common.model.TestBucket;
+import com.indeed.proctor.common.model.TestDependency;
 import com.indeed.proctor.common.model.TestMatrixArtifact;
 import com.indeed.proctor.common.model.TestType;
 import com.indeed.util.core.DataLoadTimer;
@@ -20,6 +21,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import static java.util.Collections.singleton;
@@ -214,6 +216,125 @@ public class AbstractProctorLoaderTest {
                 .containsOnlyKeys(requiredTestname, dynamicAddedTestname);
     }
 
+    @Test
+    public void testDoLoadReusesUnchangedTests() throws IOException {
+        final String unchangedTestname = "unchanged";
+        final String changedTestname = "changed";
+        final Map<String, TestSpecification> tests =
+                ImmutableMap.of(
+                        unchangedTestname, new TestSpecification(),
+                        changedTestname, new TestSpecification());
+        final ProctorSpecification proctorSpecification =
+                new ProctorSpecification(Collections.emptyMap(), tests, new DynamicFilters());
+        final int[] loadCount = {0};
+        final TestProctorLoader loader =
+                new TestProctorLoader(dataLoaderTimerMock, proctorSpecification) {
+                    @Nullable
+                    @Override
+                    TestMatrixArtifact loadTestMatrix() {
+                        loadCount[0]++;
+                        final Audit audit = new Audit();
+                        audit.setVersion(Integer.toString(loadCount[0]));
+                        final ConsumableTestDefinition changedDefinition =
+                                createStubDefinition();
+                        changedDefinition.setSalt("&changed" + loadCount[0]);
+                        final TestMatrixArtifact matrix = new TestMatrixArtifact();
+                        matrix.setAudit(audit);
+                        matrix.setTests(
+                                new HashMap<>(
+                                        ImmutableMap.of(
+                                                unchangedTestname, createStubDefinition(),
+                                                changedTestname, changedDefinition)));
+                        return matrix;
+                    }
+                };
+
+        final Map<String, ConsumableTestDefinition> firstDefinitions =
+                loader.doLoad()
+                        .determineTestGroups(
+                                Identifiers.of(TestType.ANONYMOUS_USER, "foo"),
+                                Collections.emptyMap(),
+                                Collections.emptyMap())
+                        .getTestDefinitions();
+        final Map<String, ConsumableTestDefinition> secondDefinitions =
+                loader.doLoad()
+                        .determineTestGroups(
+                                Identifiers.of(TestType.ANONYMOUS_USER, "foo"),
+                                Collections.emptyMap(),
+                                Collections.emptyMap())
+                        .getTestDefinitions();
+
+        assertThat(secondDefinitions.get(unchangedTestname))
+                .isSameAs(firstDefinitions.get(unchangedTestname));
+        assertThat(secondDefinitions.get(changedTestname))
+                .isNotSameAs(firstDefinitions.get(changedTestname));
+        assertThat(secondDefinitions.get(changedTestname).getSalt()).isEqualTo("&changed2");
+    }
+
+    @Test
+    public void testDoLoadDoesNotReuseUnchangedTestsWithInvalidDependency() throws IOException {
+        final String parentTestname = "parent";
+        final String dependentTestname = "dependent";
+        final Map<String, TestSpecification> tests =
+                ImmutableMap.of(
+                        parentTestname, new TestSpecification(),
+                        dependentTestname, new TestSpecification());
+        final ProctorSpecification proctorSpecification =
+                new ProctorSpecification(Collections.emptyMap(), tests, new DynamicFilters());
+        final int[] loadCount = {0};
+        final TestProctorLoader loader =
+                new TestProctorLoader(dataLoaderTimerMock, proctorSpecification) {
+                    @Nullable
+                    @Override
+                    TestMatrixArtifact loadTestMatrix() {
+                        loadCount[0]++;
+                        final Audit audit = new Audit();
+                        audit.setVersion(Integer.toString(loadCount[0]));
+                        final ConsumableTestDefinition dependentDefinition =
+                                createStubDefinition();
+                        dependentDefinition.setSalt("&dependent");
+                        dependentDefinition.setDependsOn(new TestDependency(parentTestname, 1));
+                        final Map<String, ConsumableTestDefinition> definitions = new HashMap<>();
+                        definitions.put(dependentTestname, dependentDefinition);
+                        if (loadCount[0] == 1) {
+                            // the parent is deleted on the second load
+                            final ConsumableTestDefinition parentDefinition =
+                                    createStubDefinition();
+                            parentDefinition.setSalt("&parent");
+                            parentDefinition.setBuckets(
+                                    ImmutableList.of(
+                                            new TestBucket("inactive", -1, ""),
+                                            new TestBucket("active", 1, "")));
+                            parentDefinition.setAllocations(
+                                    ImmutableList.of(
+                                            new Allocation(
+                                                    "", ImmutableList.of(new Range(1, 1.0)))));
+                            definitions.put(parentTestname, parentDefinition);
+                        }
+                        final TestMatrixArtifact matrix = new TestMatrixArtifact();
+                        matrix.setAudit(audit);
+                        matrix.setTests(definitions);
+                        return matrix;
+                    }
+                };
+
+        final Proctor firstProctor = loader.doLoad();
+        assertThat(firstProctor.getLoadResult().getTestsWithErrors()).isEmpty();
+        final Proctor secondProctor = loader.doLoad();
+        assertThat(secondProctor.getLoadResult().getTestsWithErrors())
+                .containsExactly(dependentTestname);
+
+        final ProctorResult result =
+                secondProctor.determineTestGroups(
+                        Identifiers.of(TestType.ANONYMOUS_USER, "foo"),
+                        Collections.emptyMap(),
+                        Collections.emptyMap());
+        // fallback definition of consolidation instead of the previous one
+        assertThat(result.getTestDefinitions().get(dependentTestname).getVersion())
+                .isEqualTo("default");
+        assertThat(result.getBuckets().get(dependentTestname).getValue()).isEqualTo(-1);
+    }
+
     @Test
     public void testLogDynamicTests() {
         final TestProctorLoader loader = new TestProctorLoader(dataLoaderTimerMock);
@@ -2,6 +2,7 @@ package com.indeed.proctor.common;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.indeed.proctor.common.el.DeferredVariableMapper;
 import com.indeed.proctor.common.el.LibraryFunctionMapperBuilder;
 import com.indeed.proctor.common.el.MulticontextReadOnlyVariableMapper;
 import org.apache.el.ExpressionFactoryImpl;
@@ -17,6 +18,7 @@ import javax.el.ListELResolver;
 import javax.el.MapELResolver;
 import javax.el.ValueExpression;
 import javax.el.VariableMapper;
+import java.util.Collections;
 import java.util.Map;
 
 public class BenchmarkEl {
@@ -65,29 +67,7 @@ public class BenchmarkEl {
         final int iterations = 100 * 1000;
         long elapsed = -System.currentTimeMillis();
         for (int i = 0; i < iterations; i++) {
-            final Map<String, ValueExpression> localContext =
-                    ProctorUtils.convertToValueExpressionMap(expressionFactory, values);
-            final VariableMapper variableMapper =
-                    new MulticontextReadOnlyVariableMapper(localContext);
-
-            final ELContext elContext =
-                    new ELContext() {
-                        @Override
-                        public ELResolver getELResolver() {
-                            return elResolver;
-                        }
-
-                        @Override
-                        public FunctionMapper getFunctionMapper() {
-                            return functionMapper;
-                        }
-
-                        @Override
-                        public VariableMapper getVariableMapper() {
-                            return variableMapper;
-                        }
-                    };
-
+            final ELContext elContext = createElContext(elResolver, functionMapper, values);
             for (int j = 0; j < expressions.length; j++) {
                 final ValueExpression ve =
                         expressionFactory.createValueExpression(
@@ -99,10 +79,71 @@ public class BenchmarkEl {
             }
         }
         elapsed += System.currentTimeMillis();
+        printElapsed("parsed per evaluation", iterations * expressions.length, elapsed);
+
+        // parse once with deferred variables, as done by RuleEvaluator.compileBooleanRule
+        final ELContext compilationContext =
+                createElContext(
+                        elResolver,
+                        functionMapper,
+                        new DeferredVariableMapper(Collections.emptyMap()));
+        final ValueExpression[] compiled = new ValueExpression[expressions.length];
+        for (int j = 0; j < expressions.length; j++) {
+            compiled[j] =
+                    expressionFactory.createValueExpression(
+                            compilationContext, expressions[j], Object.class);
+        }
+        elapsed = -System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            final ELContext elContext = createElContext(elResolver, functionMapper, values);
+            for (int j = 0; j < compiled.length; j++) {
+                final Object result = compiled[j].getValue(elContext);
+                if (i % 10000 == 0) {
+                    System.out.println(result);
+                }
+            }
+        }
+        elapsed += System.currentTimeMillis();
+        printElapsed("precompiled", iterations * expressions.length, elapsed);
+    }
+
+    private static ELContext createElContext(
+            final ELResolver elResolver,
+            final FunctionMapper functionMapper,
+            final Map<String, Object> values) {
+        final Map<String, ValueExpression> localContext =
+                ProctorUtils.convertToValueExpressionMap(RuleEvaluator.EXPRESSION_FACTORY, values);
+        return createElContext(
+                elResolver, functionMapper, new MulticontextReadOnlyVariableMapper(localContext));
+    }
+
+    private static ELContext createElContext(
+            final ELResolver elResolver,
+            final FunctionMapper functionMapper,
+            final VariableMapper variableMapper) {
+        return new ELContext() {
+            @Override
+            public ELResolver getELResolver() {
+                return elResolver;
+            }
+
+            @Override
+            public FunctionMapper getFunctionMapper() {
+                return functionMapper;
+            }
+
+            @Override
+            public VariableMapper getVariableMapper() {
+                return variableMapper;
+            }
+        };
+    }
 
-        final int total = iterations * expressions.length;
+    private static void printElapsed(final String name, final int total, final long elapsed) {
         System.out.println(
-                total
+                name
+                        + ": "
+                        + total
                         + " expressions in "
                         + elapsed
                         + " ms (average "
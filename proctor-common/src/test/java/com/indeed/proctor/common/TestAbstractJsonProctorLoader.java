@@ -16,12 +16,14 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.offset;
 
 public class TestAbstractJsonProctorLoader {
@@ -145,6 +147,43 @@ public class TestAbstractJsonProctorLoader {
                 .containsExactlyInAnyOrder("sometst", "meta_tags_tst");
     }
 
+    @Test
+    public void testLoadJsonTestMatrixSkipsUnreferencedTests()
+            throws IOException, TestMatrixOutdatedException {
+        proctorLoader =
+                new ExampleJsonProctorLoader(
+                        ImmutableSet.of("required_tst"), Collections.emptySet());
+
+        // unreferenced definitions are skipped without deserializing, so errors are not noticed
+        final String json =
+                "{\"audit\": {\"version\": \"1\", \"updated\": 0, \"updatedBy\": \"a\"},"
+                        + " \"tests\": {"
+                        + " \"unreferenced_tst\": {\"allocations\": \"invalid\"},"
+                        + " \"required_tst\": {\"testType\": \"USER\", \"salt\": \"required_tst\"}"
+                        + "}}";
+        final TestMatrixArtifact testMatrixArtifact =
+                proctorLoader.loadJsonTestMatrix(new StringReader(json));
+
+        assertThat(testMatrixArtifact.getTests().keySet()).containsExactly("required_tst");
+        assertThat(testMatrixArtifact.getTests().get("required_tst").getSalt())
+                .isEqualTo("required_tst");
+    }
+
+    @Test
+    public void testLoadJsonTestMatrixWithLoadedAuditVersion()
+            throws IOException, MissingTestMatrixException {
+        proctorLoader =
+                new ExampleJsonProctorLoader(TESTS_IN_EXAMPLE_TEST_MATRIX, Collections.emptySet());
+        assertThat(proctorLoader.doLoad()).isNotNull();
+        assertThat(proctorLoader.getLastAudit().getVersion()).isEqualTo("1524");
+
+        final String path = getClass().getResource("example-test-matrix.json").getPath();
+        final Reader reader = new FileReader(new File(path));
+        assertThatThrownBy(() -> proctorLoader.loadJsonTestMatrix(reader))
+                .isInstanceOf(TestMatrixOutdatedException.class);
+        assertThat(proctorLoader.doLoad()).isNull();
+    }
+
     class ExampleJsonProctorLoader extends AbstractJsonProctorLoader {
         public ExampleJsonProctorLoader(
                 final Set<String> requiredTests, final Set<String> metaTags) {
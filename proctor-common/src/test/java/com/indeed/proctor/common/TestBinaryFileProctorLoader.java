@@ -0,0 +1,59 @@
+package com.indeed.proctor.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.indeed.proctor.common.dynamic.DynamicFilters;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestBinaryFileProctorLoader {
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testLoadReferencedTests() throws Exception {
+        final File file = temporaryFolder.newFile("test-matrix.bin");
+        try (InputStream input = getClass().getResourceAsStream("example-test-matrix.json");
+                OutputStream output = new FileOutputStream(file)) {
+            BinaryTestMatrixArtifact.write(
+                    Serializers.lenient().readValue(input, TestMatrixArtifact.class), output);
+        }
+        final ProctorSpecification specification =
+                new ProctorSpecification(
+                        Collections.emptyMap(),
+                        ImmutableMap.of(
+                                "exampletst", new TestSpecification(),
+                                "sometst", new TestSpecification()),
+                        new DynamicFilters());
+        final BinaryFileProctorLoader loader =
+                new BinaryFileProctorLoader(specification, file, RuleEvaluator.FUNCTION_MAPPER);
+
+        final Proctor proctor = loader.doLoad();
+        assertThat(proctor).isNotNull();
+        assertThat(proctor.getTestNames()).containsExactlyInAnyOrder("exampletst", "sometst");
+        assertThat(proctor.getTestDefinition("exampletst").getBuckets()).hasSize(2);
+        assertThat(loader.getLastAudit().getVersion()).isEqualTo("1524");
+
+        // same audit version, test definitions are not read
+        assertThat(loader.doLoad()).isNull();
+    }
+
+    @Test
+    public void testMissingFile() {
+        final BinaryFileProctorLoader loader =
+                new BinaryFileProctorLoader(
+                        new ProctorSpecification(),
+                        new File(temporaryFolder.getRoot(), "missing.bin"),
+                        RuleEvaluator.FUNCTION_MAPPER);
+        assertThatThrownBy(loader::doLoad).isInstanceOf(MissingTestMatrixException.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.indeed.proctor.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestBinaryTestMatrixArtifact {
+    private static final ObjectMapper OBJECT_MAPPER = Serializers.lenient();
+
+    @Test
+    public void testRoundTripIsEquivalentToJson() throws IOException {
+        final TestMatrixArtifact jsonArtifact = readExampleTestMatrix();
+        final BinaryTestMatrixArtifact binaryArtifact =
+                BinaryTestMatrixArtifact.wrap(ByteBuffer.wrap(toBytes(jsonArtifact)));
+
+        assertThat(OBJECT_MAPPER.writeValueAsString(binaryArtifact.getAudit()))
+                .isEqualTo(OBJECT_MAPPER.writeValueAsString(jsonArtifact.getAudit()));
+        assertThat(binaryArtifact.getTestNames())
+                .containsExactlyInAnyOrderElementsOf(jsonArtifact.getTests().keySet());
+        for (final Map.Entry<String, ConsumableTestDefinition> entry :
+                jsonArtifact.getTests().entrySet()) {
+            assertThat(
+                            OBJECT_MAPPER.writeValueAsString(
+                                    binaryArtifact.getTestDefinition(entry.getKey())))
+                    .as(entry.getKey())
+                    .isEqualTo(OBJECT_MAPPER.writeValueAsString(entry.getValue()));
+        }
+        assertThat(binaryArtifact.getTestDefinition("null_tst")).isNull();
+        assertThat(binaryArtifact.getTestDefinition("unknown_tst")).isNull();
+
+        final TestMatrixArtifact roundTripArtifact = binaryArtifact.toTestMatrixArtifact();
+        assertThat(OBJECT_MAPPER.readTree(OBJECT_MAPPER.writeValueAsString(roundTripArtifact)))
+                .isEqualTo(OBJECT_MAPPER.readTree(OBJECT_MAPPER.writeValueAsString(jsonArtifact)));
+    }
+
+    @Test
+    public void testInvalidData() throws IOException {
+        final byte[] bytes = toBytes(readExampleTestMatrix());
+
+        final byte[] json = "{\"audit\": {}}".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> BinaryTestMatrixArtifact.wrap(ByteBuffer.wrap(json)))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Not a binary test matrix");
+        assertThatThrownBy(
+                        () ->
+                                BinaryTestMatrixArtifact.wrap(
+                                        ByteBuffer.wrap(Arrays.copyOf(bytes, 100))))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(
+                        () ->
+                                BinaryTestMatrixArtifact.wrap(
+                                        ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))))
+                .isInstanceOf(IOException.class);
+    }
+
+    private TestMatrixArtifact readExampleTestMatrix() throws IOException {
+        try (InputStream input = getClass().getResourceAsStream("example-test-matrix.json")) {
+            return OBJECT_MAPPER.readValue(input, TestMatrixArtifact.class);
+        }
+    }
+
+    private static byte[] toBytes(final TestMatrixArtifact artifact) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryTestMatrixArtifact.write(artifact, output);
+        return output.toByteArray();
+    }
+}
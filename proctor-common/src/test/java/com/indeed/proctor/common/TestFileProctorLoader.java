@@ -0,0 +1,64 @@
+package com.indeed.proctor.common;
+
+import com.google.common.base.Strings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestFileProctorLoader {
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testUnchangedFileIsNotParsed() throws Exception {
+        final File file = temporaryFolder.newFile("test-matrix.json");
+        try (InputStream input = getClass().getResourceAsStream("example-test-matrix.json")) {
+            Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        final FileProctorLoader loader =
+                new FileProctorLoader(
+                        new ProctorSpecification(), file, RuleEvaluator.FUNCTION_MAPPER);
+
+        assertThat(loader.doLoad()).isNotNull();
+        assertThat(loader.getLastAudit().getVersion()).isEqualTo("1524");
+        assertThat(loader.doLoad()).isNull();
+
+        // same modification time and length, the content is not read
+        final long modified = file.lastModified();
+        final String invalidJson = Strings.repeat(" ", (int) file.length());
+        Files.write(file.toPath(), invalidJson.getBytes(StandardCharsets.UTF_8));
+        assertThat(file.setLastModified(modified)).isTrue();
+        assertThat(loader.doLoad()).isNull();
+
+        assertThat(file.setLastModified(modified + 10000)).isTrue();
+        assertThatThrownBy(loader::doLoad).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testChangedFileWithSameAuditVersion() throws Exception {
+        final File file = temporaryFolder.newFile("test-matrix.json");
+        try (InputStream input = getClass().getResourceAsStream("example-test-matrix.json")) {
+            Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        final FileProctorLoader loader =
+                new FileProctorLoader(
+                        new ProctorSpecification(), file, RuleEvaluator.FUNCTION_MAPPER);
+        assertThat(loader.doLoad()).isNotNull();
+
+        // the audit is parsed, but not the tests following it
+        Files.write(
+                file.toPath(),
+                ("{\"audit\": {\"version\": \"1524\", \"updated\": 0},"
+                                + " \"tests\": invalid")
+                        .getBytes(StandardCharsets.UTF_8));
+        assertThat(loader.doLoad()).isNull();
+    }
+}
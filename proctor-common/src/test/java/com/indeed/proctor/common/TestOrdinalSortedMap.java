@@ -0,0 +1,87 @@
+package com.indeed.proctor.common;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestOrdinalSortedMap {
+
+    private static final List<String> NAMES = ImmutableList.of("d", "b", "e", "a", "c");
+    private static final OrdinalSortedMap.Keys KEYS =
+            new OrdinalSortedMap.Keys(
+                    NAMES,
+                    IntStream.range(0, NAMES.size())
+                            .boxed()
+                            .collect(Collectors.toMap(NAMES::get, index -> index)));
+
+    @Test
+    public void testEmpty() {
+        final SortedMap<String, Integer> map = new OrdinalSortedMap<>(KEYS);
+        assertThat(map).isEmpty();
+        assertThat(map).isEqualTo(new TreeMap<>());
+        assertThat(map.get("a")).isNull();
+        assertThat(map.get("unknown")).isNull();
+        assertThat(map.get(null)).isNull();
+        assertThat(map.containsKey("a")).isFalse();
+        assertThatThrownBy(map::firstKey).isInstanceOf(java.util.NoSuchElementException.class);
+        assertThatThrownBy(map::lastKey).isInstanceOf(java.util.NoSuchElementException.class);
+    }
+
+    @Test
+    public void testSameAsTreeMap() {
+        final SortedMap<String, Integer> map = new OrdinalSortedMap<>(KEYS);
+        final SortedMap<String, Integer> expected = new TreeMap<>();
+        for (final String name : ImmutableList.of("e", "b", "c")) {
+            assertThat(map.put(name, name.hashCode())).isNull();
+            expected.put(name, name.hashCode());
+        }
+        assertThat(map.put("b", 42)).isEqualTo("b".hashCode());
+        expected.put("b", 42);
+
+        assertThat(map).isEqualTo(expected);
+        assertThat(expected).isEqualTo(map);
+        assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(map.toString()).isEqualTo(expected.toString());
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.keySet()).containsExactly("b", "c", "e");
+        assertThat(map.values()).containsExactly(42, "c".hashCode(), "e".hashCode());
+        assertThat(map.firstKey()).isEqualTo("b");
+        assertThat(map.lastKey()).isEqualTo("e");
+        assertThat(map.containsKey("c")).isTrue();
+        assertThat(map.containsKey("d")).isFalse();
+        assertThat(map.headMap("c")).isEqualTo(expected.headMap("c"));
+        assertThat(map.tailMap("c")).isEqualTo(expected.tailMap("c"));
+        assertThat(map.subMap("a", "d")).isEqualTo(expected.subMap("a", "d"));
+    }
+
+    @Test
+    public void testRemove() {
+        final Map<String, Integer> map = new OrdinalSortedMap<>(KEYS);
+        map.put("a", 1);
+        map.put("d", 4);
+        assertThat(map.remove("a")).isEqualTo(1);
+        assertThat(map.remove("a")).isNull();
+        assertThat(map.remove("unknown")).isNull();
+        assertThat(map).containsOnlyKeys("d").hasSize(1);
+        map.clear();
+        assertThat(map).isEmpty();
+    }
+
+    @Test
+    public void testUnsupportedPuts() {
+        final Map<String, Integer> map = new OrdinalSortedMap<>(KEYS);
+        assertThatThrownBy(() -> map.put("unknown", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> map.put("a", null)).isInstanceOf(NullPointerException.class);
+        assertThat(map).isEmpty();
+    }
+}
@@ -21,6 +21,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
@@ -395,6 +400,156 @@ public class TestProctor {
                 .containsEntry("Y", testDefinitionY); // keeping Y for backward compatibility
     }
 
+    @Test
+    public void testDetermineTestGroupsInBatch() {
+        final TestBucket controlBucket = new TestBucket("control", 0, "");
+        final TestBucket activeBucket = new TestBucket("active", 1, "");
+        final Allocation allocation =
+                new Allocation(
+                        "${country == 'US'}",
+                        ImmutableList.of(new Range(0, 0.5), new Range(1, 0.5)));
+
+        final Map<String, ConsumableTestDefinition> tests = new HashMap<>();
+        for (final String testName : ImmutableList.of("X", "Y", "Z")) {
+            tests.put(
+                    testName,
+                    ConsumableTestDefinition.fromTestDefinition(
+                            TestDefinition.builder()
+                                    .setSalt("&" + testName)
+                                    .setTestType(TestType.ANONYMOUS_USER)
+                                    .addBuckets(controlBucket, activeBucket)
+                                    .addAllocations(allocation)
+                                    .build()));
+        }
+        final TestMatrixArtifact matrix = new TestMatrixArtifact();
+        matrix.setTests(tests);
+        matrix.setAudit(new Audit());
+
+        final Proctor proctor =
+                Proctor.construct(
+                        matrix,
+                        ProctorLoadResult.emptyResult(),
+                        RuleEvaluator.defaultFunctionMapperBuilder().build());
+
+        final List<IdentifiersWithContext> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(
+                    IdentifiersWithContext.of(
+                            Identifiers.of(TestType.ANONYMOUS_USER, "cookie" + i),
+                            ImmutableMap.of("country", (i % 3 == 0) ? "JP" : "US")));
+        }
+        final List<String> testNameFilter = ImmutableList.of("X", "Z");
+
+        final List<ProctorResult> expected = new ArrayList<>();
+        for (final IdentifiersWithContext input : inputs) {
+            expected.add(
+                    proctor.determineTestGroups(
+                            input.getIdentifiers(),
+                            input.getContext(),
+                            ForceGroupsOptions.empty(),
+                            testNameFilter));
+        }
+
+        final List<ProctorResult> sequential =
+                proctor.determineTestGroupsInBatch(
+                        inputs, ForceGroupsOptions.empty(), testNameFilter, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<ProctorResult> parallel;
+        try {
+            parallel =
+                    proctor.determineTestGroupsInBatch(
+                            inputs, ForceGroupsOptions.empty(), testNameFilter, executor);
+        } finally {
+            executor.shutdown();
+        }
+        final List<ProctorResult> streamed =
+                proctor.determineTestGroupsInBatch(
+                                inputs.stream(), ForceGroupsOptions.empty(), testNameFilter)
+                        .collect(Collectors.toList());
+
+        for (final List<ProctorResult> results : ImmutableList.of(sequential, parallel, streamed)) {
+            assertThat(results).hasSize(inputs.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                assertThat(results.get(i).getIdentifiers())
+                        .isEqualTo(inputs.get(i).getIdentifiers());
+                assertThat(results.get(i).getBuckets()).isEqualTo(expected.get(i).getBuckets());
+                assertThat(results.get(i).getAllocations())
+                        .isEqualTo(expected.get(i).getAllocations());
+            }
+        }
+        assertThat(sequential.get(0).getBuckets()).isEmpty();
+        assertThat(sequential.get(1).getBuckets()).containsOnlyKeys("X", "Z");
+    }
+
+    @Test
+    public void testDetermineTestGroupsWithCompactResults() {
+        final TestBucket controlBucket = new TestBucket("control", 0, "");
+        final TestBucket activeBucket = new TestBucket("active", 1, "");
+        final Allocation allocation =
+                new Allocation(
+                        "${country == 'US'}",
+                        ImmutableList.of(new Range(0, 0.5), new Range(1, 0.5)));
+
+        final Map<String, ConsumableTestDefinition> tests = new HashMap<>();
+        for (final String testName : ImmutableList.of("Z", "Y", "X", "W")) {
+            final TestDefinition.Builder builder =
+                    TestDefinition.builder()
+                            .setSalt("&" + testName)
+                            .setTestType(TestType.ANONYMOUS_USER)
+                            .addBuckets(controlBucket, activeBucket)
+                            .addAllocations(allocation);
+            if ("X".equals(testName)) {
+                builder.setDependsOn(new TestDependency("Z", 1));
+            }
+            tests.put(testName, ConsumableTestDefinition.fromTestDefinition(builder.build()));
+        }
+        final TestMatrixArtifact matrix = new TestMatrixArtifact();
+        matrix.setTests(tests);
+        matrix.setAudit(new Audit());
+
+        final Proctor proctor =
+                Proctor.construct(
+                        matrix,
+                        ProctorLoadResult.emptyResult(),
+                        RuleEvaluator.defaultFunctionMapperBuilder().build());
+        final Proctor compactProctor =
+                Proctor.construct(
+                        matrix,
+                        ProctorLoadResult.emptyResult(),
+                        RuleEvaluator.defaultFunctionMapperBuilder().build(),
+                        new IdentifierValidator.Noop(),
+                        null,
+                        true);
+
+        for (final List<String> testNameFilter :
+                ImmutableList.<List<String>>of(
+                        ImmutableList.of(), ImmutableList.of("X", "W"), ImmutableList.of("Y"))) {
+            for (int i = 0; i < 100; i++) {
+                final Identifiers identifiers =
+                        Identifiers.of(TestType.ANONYMOUS_USER, "cookie" + i);
+                final Map<String, Object> context =
+                        ImmutableMap.of("country", (i % 3 == 0) ? "JP" : "US");
+                final ProctorResult expected =
+                        proctor.determineTestGroups(
+                                identifiers, context, ForceGroupsOptions.empty(), testNameFilter);
+                final ProctorResult actual =
+                        compactProctor.determineTestGroups(
+                                identifiers, context, ForceGroupsOptions.empty(), testNameFilter);
+
+                assertThat(actual.getBuckets())
+                        .isInstanceOf(SortedMap.class)
+                        .isEqualTo(expected.getBuckets());
+                assertThat(actual.getBuckets().keySet())
+                        .containsExactlyElementsOf(expected.getBuckets().keySet());
+                assertThat(actual.getAllocations())
+                        .isInstanceOf(SortedMap.class)
+                        .isEqualTo(expected.getAllocations());
+                assertThat(ProctorResult.unmodifiableView(actual).getBuckets())
+                        .isEqualTo(expected.getBuckets());
+            }
+        }
+    }
+
     @Test
     public void testDetermineTestGroupsWithInvalidIdentifier() {
         final TestBucket inactivetestBucket = new TestBucket("inactive", -1, "");
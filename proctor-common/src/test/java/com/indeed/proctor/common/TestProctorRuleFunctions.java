@@ -1,10 +1,14 @@
 package com.indeed.proctor.common;
 
+import com.indeed.util.core.ReleaseVersion;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.regex.PatternSyntaxException;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -24,4 +28,30 @@ public class TestProctorRuleFunctions {
         assertFalse(ProctorRuleFunctions.contains(Arrays.asList(1, 2, 3), null));
         assertFalse(ProctorRuleFunctions.contains(Collections.emptyList(), 1));
     }
+
+    @Test
+    public void testMatchesReusesPatterns() {
+        final long hits = ProctorRuleFunctions.getPatternCacheStats().hitCount();
+        assertTrue(ProctorRuleFunctions.matches("Mozilla/5.0 Firefox/91.0", ".*Firefox/\\d+.*"));
+        assertFalse(ProctorRuleFunctions.matches("Mozilla/5.0 Chrome/91.0", ".*Firefox/\\d+.*"));
+        // whole value must match, like String.matches
+        assertFalse(ProctorRuleFunctions.matches("Mozilla/5.0 Firefox/91.0", "Firefox"));
+        assertThat(ProctorRuleFunctions.getPatternCacheStats().hitCount()).isGreaterThan(hits);
+
+        assertThatThrownBy(() -> ProctorRuleFunctions.matches("a", "("))
+                .isInstanceOf(PatternSyntaxException.class);
+    }
+
+    @Test
+    public void testVersionInRangeReusesVersions() {
+        final ReleaseVersion version = ProctorRuleFunctions.version("1.2.3.4");
+        final long hits = ProctorRuleFunctions.getVersionCacheStats().hitCount();
+        assertTrue(ProctorRuleFunctions.versionInRange(version, "1.2.0.0", "1.3.0.0"));
+        assertFalse(ProctorRuleFunctions.versionInRange(version, "1.2.0.0", "1.2.3.4"));
+        assertThat(ProctorRuleFunctions.version("1.2.3.4")).isSameAs(version);
+        assertThat(ProctorRuleFunctions.getVersionCacheStats().hitCount()).isGreaterThan(hits);
+
+        assertThatThrownBy(() -> ProctorRuleFunctions.versionInRange(version, "1.2.0.0", "1.3.x"))
+                .isInstanceOf(IllegalStateException.class);
+    }
 }
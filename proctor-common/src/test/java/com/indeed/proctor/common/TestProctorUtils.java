@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -2295,6 +2296,170 @@ public class TestProctorUtils {
                 matrix.getTests().get(TEST_A).getTestType());
     }
 
+    @Test
+    public void testVerifyShouldSkipVerifiedTests() {
+        final ConsumableTestDefinition definition =
+                constructDefinition(
+                        fromCompactBucketFormat("inactive:-1,control:0,test:1"),
+                        singletonList(
+                                new Allocation(
+                                        "${unknownField==\"abc\"}",
+                                        singletonList(new Range(1, 1.0)))));
+        final Map<String, ConsumableTestDefinition> tests =
+                ImmutableMap.of(
+                        TEST_A, definition,
+                        TEST_B, definition);
+        final TestMatrixArtifact matrix = constructArtifact(tests);
+
+        final ProctorLoadResult proctorLoadResult =
+                ProctorUtils.verify(
+                        matrix,
+                        "",
+                        ImmutableMap.of(TEST_A, new TestSpecification()),
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        EMPTY_CONTEXT,
+                        ImmutableSet.of(TEST_B),
+                        ImmutableSet.of(TEST_A, TEST_B));
+
+        assertThat(proctorLoadResult.getTestsWithErrors()).isEmpty();
+        assertThat(proctorLoadResult.getDynamicTestWithErrors()).isEmpty();
+        assertThat(proctorLoadResult.getMissingTests()).isEmpty();
+    }
+
+    @Test
+    public void testVerifyInParallelSameAsSerially() {
+        final List<TestBucket> buckets = fromCompactBucketFormat("inactive:-1,control:0,test:1");
+        final Map<String, ConsumableTestDefinition> tests = new LinkedHashMap<>();
+        final Map<String, TestSpecification> requiredTests = new LinkedHashMap<>();
+        final Set<String> dynamicTests = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            final String testName = "tst" + i;
+            if (i % 5 == 0) {
+                // allocations do not add up to 1
+                tests.put(
+                        testName,
+                        constructDefinition(buckets, fromCompactAllocationFormat("-1:0.5")));
+            } else if (i % 7 != 0) {
+                tests.put(
+                        testName,
+                        constructDefinition(buckets, fromCompactAllocationFormat("0:0.5,1:0.5")));
+            } // else missing in the matrix
+            if (i % 2 == 0) {
+                requiredTests.put(testName, transformTestBuckets(buckets));
+            } else {
+                dynamicTests.add(testName);
+            }
+        }
+        final TestMatrixArtifact matrix = constructArtifact(tests);
+
+        final ProctorLoadResult serialResult =
+                ProctorUtils.verify(
+                        matrix,
+                        "",
+                        requiredTests,
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        EMPTY_CONTEXT,
+                        dynamicTests,
+                        ImmutableSet.of("tst1", "tst10"),
+                        null,
+                        Integer.MAX_VALUE);
+        final ProctorLoadResult parallelResult =
+                ProctorUtils.verify(
+                        matrix,
+                        "",
+                        requiredTests,
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        EMPTY_CONTEXT,
+                        dynamicTests,
+                        ImmutableSet.of("tst1", "tst10"),
+                        null,
+                        1);
+
+        assertThat(serialResult.getTestsWithErrors())
+                .contains("tst0", "tst20")
+                .doesNotContain("tst2", "tst10", "tst14");
+        assertThat(serialResult.getDynamicTestWithErrors())
+                .contains("tst5", "tst15")
+                .doesNotContain("tst1", "tst3", "tst7");
+        assertThat(serialResult.getMissingTests()).contains("tst7", "tst14").hasSize(23);
+        assertThat(parallelResult.getTestsWithErrors())
+                .containsExactlyElementsOf(serialResult.getTestsWithErrors());
+        assertThat(parallelResult.getDynamicTestWithErrors())
+                .containsExactlyElementsOf(serialResult.getDynamicTestWithErrors());
+        assertThat(parallelResult.getMissingTests())
+                .containsExactlyElementsOf(serialResult.getMissingTests());
+    }
+
+    @Test
+    public void testVerifyWithVerificationCache() {
+        final List<TestBucket> buckets = fromCompactBucketFormat("inactive:-1,control:0,test:1");
+        final Map<String, ConsumableTestDefinition> tests = new HashMap<>();
+        tests.put(TEST_A, constructDefinition(buckets, fromCompactAllocationFormat("0:0.5,1:0.5")));
+        // refers to unknown bucket
+        tests.put(TEST_B, constructDefinition(buckets, fromCompactAllocationFormat("5:1.0")));
+        tests.put(TEST_C, constructDefinition(buckets, fromCompactAllocationFormat("1:1.0")));
+        final Map<String, TestSpecification> requiredTests =
+                ImmutableMap.of(
+                        TEST_A, transformTestBuckets(buckets), TEST_B, new TestSpecification());
+        final Set<String> dynamicTests = Collections.singleton(TEST_C);
+        final VerificationCache cache = new VerificationCache();
+
+        final ProctorLoadResult first =
+                verifyWithCache(constructArtifact(tests), "r1", requiredTests, dynamicTests, cache);
+        assertThat(first.getTestsWithErrors()).containsExactly(TEST_B);
+        assertThat(cache.getHits()).isEqualTo(0);
+        assertThat(cache.getMisses()).isEqualTo(3);
+
+        // equal definitions and specifications reuse the results
+        final ProctorLoadResult second =
+                verifyWithCache(constructArtifact(tests), "r1", requiredTests, dynamicTests, cache);
+        assertThat(second.getTestsWithErrors()).containsExactly(TEST_B);
+        assertThat(second.getTestErrorMap().get(TEST_B))
+                .isSameAs(first.getTestErrorMap().get(TEST_B));
+        assertThat(cache.getHits()).isEqualTo(3);
+        assertThat(cache.getMisses()).isEqualTo(3);
+
+        // a failure mentions the matrix source, so is verified again for another source
+        tests.put(TEST_C, constructDefinition(buckets, fromCompactAllocationFormat("0:1.0")));
+        final ProctorLoadResult third =
+                verifyWithCache(constructArtifact(tests), "r2", requiredTests, dynamicTests, cache);
+        assertThat(third.getTestsWithErrors()).containsExactly(TEST_B);
+        assertThat(third.getTestErrorMap().get(TEST_B)).hasMessageContaining("from r2");
+        assertThat(third.getDynamicTestWithErrors()).isEmpty();
+        assertThat(cache.getHits()).isEqualTo(4);
+        assertThat(cache.getMisses()).isEqualTo(5);
+
+        // another provided context is verified again
+        ProctorUtils.verify(
+                constructArtifact(tests),
+                "r2",
+                requiredTests,
+                RuleEvaluator.FUNCTION_MAPPER,
+                ProvidedContext.forValueExpressionMap(emptyMap(), emptySet()),
+                dynamicTests,
+                emptySet(),
+                cache);
+        assertThat(cache.getHits()).isEqualTo(4);
+        assertThat(cache.getMisses()).isEqualTo(8);
+    }
+
+    private static ProctorLoadResult verifyWithCache(
+            final TestMatrixArtifact matrix,
+            final String matrixSource,
+            final Map<String, TestSpecification> requiredTests,
+            final Set<String> dynamicTests,
+            final VerificationCache cache) {
+        return ProctorUtils.verify(
+                matrix,
+                matrixSource,
+                requiredTests,
+                RuleEvaluator.FUNCTION_MAPPER,
+                EMPTY_CONTEXT,
+                dynamicTests,
+                emptySet(),
+                cache);
+    }
+
     @Test
     public void testVerifyAndConsolidateShouldNotRemovePayloadOfDynamicTests() {
         final Map<String, ConsumableTestDefinition> tests = new HashMap<>();
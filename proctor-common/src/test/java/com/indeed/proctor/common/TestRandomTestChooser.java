@@ -12,9 +12,14 @@ import org.junit.Test;
 import javax.el.ExpressionFactory;
 import javax.el.FunctionMapper;
 import javax.el.ValueExpression;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -108,12 +113,96 @@ public class TestRandomTestChooser {
         assertTrue(found[2] < 400);
     }
 
+    @Test
+    public void testSeededChoicesAreReproducible() {
+        final List<Range> ranges = Lists.newArrayList(new Range(0, 0.5), new Range(1, 0.5));
+        final List<TestBucket> buckets =
+                Lists.newArrayList(
+                        new TestBucket("control", 0, "zoot", null),
+                        new TestBucket("test", 1, "zoot", null));
+        final ConsumableTestDefinition testDefinition = createTestDefinition(ranges, buckets);
+        final RandomTestChooser first =
+                new RandomTestChooser(
+                        42,
+                        new ExpressionFactoryImpl(),
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        "testName",
+                        testDefinition);
+        final RandomTestChooser second =
+                new RandomTestChooser(
+                        42,
+                        new ExpressionFactoryImpl(),
+                        RuleEvaluator.FUNCTION_MAPPER,
+                        "testName",
+                        testDefinition);
+
+        final Map<String, ValueExpression> localContext = Collections.emptyMap();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(
+                    first.chooseInternal(null, localContext, Collections.emptyMap())
+                            .getTestBucket(),
+                    second.chooseInternal(null, localContext, Collections.emptyMap())
+                            .getTestBucket());
+        }
+    }
+
+    @Test
+    public void test5050PercentConcurrently() throws Exception {
+        final List<Range> ranges = Lists.newArrayList(new Range(0, 0.5), new Range(1, 1.0));
+        final List<TestBucket> buckets =
+                Lists.newArrayList(
+                        new TestBucket("control", 0, "zoot", null),
+                        new TestBucket("test", 1, "zoot", null));
+
+        final RandomTestChooser rtc = initializeRandomTestChooser(ranges, buckets);
+
+        final AtomicIntegerArray found = new AtomicIntegerArray(2);
+        final Map<String, ValueExpression> localContext = Collections.emptyMap();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    for (int i = 0; i < 1000; i++) {
+                                        final TestChooser.Result chosen =
+                                                rtc.chooseInternal(
+                                                        null,
+                                                        localContext,
+                                                        Collections.emptyMap());
+                                        found.incrementAndGet(chosen.getTestBucket().getValue());
+                                    }
+                                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4000, found.get(0) + found.get(1));
+        assertTrue(found.get(0) > 1700);
+        assertTrue(found.get(1) > 1700);
+    }
+
     static RandomTestChooser initializeRandomTestChooser(
             final List<Range> ranges, final List<TestBucket> buckets) {
         final ExpressionFactory expressionFactory = new ExpressionFactoryImpl();
 
         final FunctionMapper functionMapper = RuleEvaluator.FUNCTION_MAPPER;
 
+        final ConsumableTestDefinition testDefinition = createTestDefinition(ranges, buckets);
+
+        final RandomTestChooser rtc =
+                new RandomTestChooser(
+                        expressionFactory, functionMapper, "testName", testDefinition);
+        return rtc;
+    }
+
+    private static ConsumableTestDefinition createTestDefinition(
+            final List<Range> ranges, final List<TestBucket> buckets) {
         final ConsumableTestDefinition testDefinition = new ConsumableTestDefinition();
         testDefinition.setConstants(Collections.emptyMap());
 
@@ -123,10 +212,6 @@ public class TestRandomTestChooser {
         final List<Allocation> allocations = Lists.newArrayList();
         allocations.add(new Allocation("${}", ranges, "#A1"));
         testDefinition.setAllocations(allocations);
-
-        final RandomTestChooser rtc =
-                new RandomTestChooser(
-                        expressionFactory, functionMapper, "testName", testDefinition);
-        return rtc;
+        return testDefinition;
     }
 }
@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.el.ELException;
+import javax.el.ValueExpression;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -565,4 +566,87 @@ public class TestRuleEvaluator {
         assertThat(ruleEvaluator.evaluateRule("${true}", emptyMap(), String.class))
                 .isEqualTo("true");
     }
+
+    @Test
+    public void testCompiledRuleIsEvaluatedWithLocalContextOfEachCall() {
+        final CompiledRule compiledRule =
+                ruleEvaluator.compileBooleanRule(
+                        "${proctor:contains(LANGUAGES_ENABLED, lang) && country == 'US'}");
+        assertTrue(
+                ruleEvaluator.evaluateCompiledBooleanRule(
+                        compiledRule,
+                        toLocalContext(ImmutableMap.of("lang", "en", "country", "US"))));
+        assertFalse(
+                ruleEvaluator.evaluateCompiledBooleanRule(
+                        compiledRule,
+                        toLocalContext(ImmutableMap.of("lang", "it", "country", "US"))));
+        assertFalse(
+                ruleEvaluator.evaluateCompiledBooleanRule(
+                        compiledRule,
+                        toLocalContext(ImmutableMap.of("lang", "en", "country", "JP"))));
+    }
+
+    @Test
+    public void testCompiledRuleConstantsTakePrecedence() {
+        final CompiledRule compiledRule =
+                ruleEvaluator.compileBooleanRule("${LANGUAGES_ENABLED[0] == 'en'}");
+        assertTrue(
+                ruleEvaluator.evaluateCompiledBooleanRule(
+                        compiledRule,
+                        toLocalContext(singletonMap("LANGUAGES_ENABLED", Arrays.asList("fr")))));
+    }
+
+    @Test
+    public void testCompiledRuleSameResultsAsUncompiled() {
+        final Map<String, Object> values = ImmutableMap.of("lang", "en", "context", new Temp());
+        for (final String rule :
+                ImmutableList.of(
+                        "",
+                        "${}",
+                        "${true}",
+                        "${FALSE}",
+                        "${null}",
+                        "${lang == 'en'}",
+                        "${!(lang == 'fr')}",
+                        "${context.valid && fn:startsWith(lang, 'e')}",
+                        "true",
+                        " ${true} ")) {
+            assertThat(
+                            ruleEvaluator.evaluateCompiledBooleanRule(
+                                    ruleEvaluator.compileBooleanRule(rule),
+                                    toLocalContext(values)))
+                    .as(rule)
+                    .isEqualTo(ruleEvaluator.evaluateBooleanRule(rule, values));
+        }
+    }
+
+    @Test
+    public void testCompiledRuleErrorsOnEvaluation() {
+        // unknown functions and non-boolean rules fail on evaluation, not on compilation
+        final CompiledRule unknownFunction =
+                ruleEvaluator.compileBooleanRule("${proctor:noSuchFunction(lang)}");
+        assertThatThrownBy(
+                        () ->
+                                ruleEvaluator.evaluateCompiledBooleanRule(
+                                        unknownFunction,
+                                        toLocalContext(singletonMap("lang", "en"))))
+                .isInstanceOf(ELException.class);
+
+        final CompiledRule nonBoolean = ruleEvaluator.compileBooleanRule("${'tr'}${'ue'}");
+        assertThatThrownBy(
+                        () -> ruleEvaluator.evaluateCompiledBooleanRule(nonBoolean, emptyMap()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Received non-boolean return value");
+
+        final CompiledRule missingVariable = ruleEvaluator.compileBooleanRule("${lang == 'en'}");
+        assertThatThrownBy(
+                        () ->
+                                ruleEvaluator.evaluateCompiledBooleanRule(
+                                        missingVariable, emptyMap()))
+                .isInstanceOf(ELException.class);
+    }
+
+    private static Map<String, ValueExpression> toLocalContext(final Map<String, Object> values) {
+        return ProctorUtils.convertToValueExpressionMap(RuleEvaluator.EXPRESSION_FACTORY, values);
+    }
 }
@@ -0,0 +1,95 @@
+package com.indeed.proctor.common;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestSaltedMd5 {
+
+    @Test
+    public void testGoldenValues() {
+        assertThat(new SaltedMd5("testName|testName").hash("12345")).isEqualTo(1930455870);
+        assertThat(new SaltedMd5("&shared_salt").hash("abcdef0123456789"))
+                .isEqualTo(1952255003);
+        assertThat(new SaltedMd5("example_tst|example_tst").hash("")).isEqualTo(-2105390464);
+        // salt longer than one MD5 block
+        assertThat(new SaltedMd5("&" + Strings.repeat("x", 70)).hash("user@example.com"))
+                .isEqualTo(-43277639);
+        assertThat(
+                        new SaltedMd5("unicode_tst|unicode_tst")
+                                .hash("Veröffentlicht 日本語 😀"))
+                .isEqualTo(-155556294);
+    }
+
+    @Test
+    public void testSameAsMessageDigestForRandomCorpus() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            final String salt = randomString(random, 150);
+            final String identifier = randomString(random, 200);
+            assertThat(new SaltedMd5(salt).hash(identifier))
+                    .as("salt '%s', identifier '%s'", salt, identifier)
+                    .isEqualTo(hashWithMessageDigest(salt, identifier));
+        }
+    }
+
+    @Test
+    public void testSameAsMessageDigestAroundBlockBoundaries() {
+        for (int saltLength = 0; saltLength <= 130; saltLength++) {
+            final String salt = Strings.repeat("s", saltLength);
+            final SaltedMd5 saltedMd5 = new SaltedMd5(salt);
+            for (int identifierLength = 0; identifierLength <= 130; identifierLength++) {
+                final String identifier = Strings.repeat("i", identifierLength);
+                assertThat(saltedMd5.hash(identifier))
+                        .as("salt length %d, identifier length %d", saltLength, identifierLength)
+                        .isEqualTo(hashWithMessageDigest(salt, identifier));
+            }
+        }
+    }
+
+    @Test
+    public void testUnpairedSurrogates() {
+        for (final String identifier :
+                new String[] {"\ud83d", "\ude00", "a\ud83db", "\ude00\ud83d", "\ud83d😀"}) {
+            assertThat(new SaltedMd5("salt").hash(identifier))
+                    .isEqualTo(hashWithMessageDigest("salt", identifier));
+        }
+    }
+
+    private static String randomString(final Random random, final int maxLength) {
+        final int length = random.nextInt(maxLength + 1);
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            final int kind = random.nextInt(10);
+            if (kind < 5) {
+                sb.append((char) (' ' + random.nextInt(95)));
+            } else if (kind < 7) {
+                sb.append((char) (0x80 + random.nextInt(0x780)));
+            } else if (kind < 9) {
+                sb.append((char) (0x800 + random.nextInt(0xf000)));
+            } else {
+                // includes paired and unpaired surrogates
+                sb.append((char) (Character.MIN_SURROGATE + random.nextInt(0x800)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /** the original implementation of StandardTestChooser */
+    private static int hashWithMessageDigest(final String salt, final String identifier) {
+        final MessageDigest md = ProctorUtils.createMessageDigest();
+        md.update(salt.getBytes(StandardCharsets.UTF_8));
+        md.update(identifier.getBytes(StandardCharsets.UTF_8));
+        final byte[] digest = md.digest();
+        final int offset = 12;
+        return (0xff & digest[offset + 0]) << 24
+                | (0xff & digest[offset + 1]) << 16
+                | (0xff & digest[offset + 2]) << 8
+                | (0xff & digest[offset + 3]);
+    }
+}
@@ -173,9 +173,10 @@ public class TestStandardTestChooser {
         testDefinition.setBuckets(Collections.<TestBucket>emptyList());
 
         final RuleEvaluator ruleEvaluator = EasyMock.createMock(RuleEvaluator.class);
+        expectCompileBooleanRule(ruleEvaluator);
         EasyMock.expect(
-                        ruleEvaluator.evaluateBooleanRuleWithValueExpr(
-                                EasyMock.<String>anyObject(),
+                        ruleEvaluator.evaluateCompiledBooleanRule(
+                                EasyMock.<CompiledRule>anyObject(),
                                 EasyMock.<Map<String, ValueExpression>>anyObject()))
                 // throw an unexpected type of runtime exception
                 .andThrow(new RuntimeException() {})
@@ -366,9 +367,10 @@ public class TestStandardTestChooser {
 
     private RuleEvaluator newRuleEvaluator(final boolean result) {
         final RuleEvaluator ruleEvaluator = EasyMock.createMock(RuleEvaluator.class);
+        expectCompileBooleanRule(ruleEvaluator);
         EasyMock.expect(
-                        ruleEvaluator.evaluateBooleanRuleWithValueExpr(
-                                EasyMock.<String>anyObject(),
+                        ruleEvaluator.evaluateCompiledBooleanRule(
+                                EasyMock.<CompiledRule>anyObject(),
                                 EasyMock.<Map<String, ValueExpression>>anyObject()))
                 .andReturn(result)
                 .anyTimes();
@@ -376,6 +378,12 @@ public class TestStandardTestChooser {
         return ruleEvaluator;
     }
 
+    private static void expectCompileBooleanRule(final RuleEvaluator ruleEvaluator) {
+        EasyMock.expect(ruleEvaluator.compileBooleanRule(EasyMock.<String>anyObject()))
+                .andReturn(new CompiledRule(null, null, null))
+                .anyTimes();
+    }
+
     private void exerciseChooser(final StandardTestChooser rtc) {
         final int num = 10000000;
 
@@ -100,6 +100,30 @@ public class TestDynamicFilters {
         assertThat(filters2.matches("any", constructTestDefinition(TestType.RANDOM))).isFalse();
     }
 
+    @Test
+    public void testMayMatchTestName() {
+        assertThat(new DynamicFilters().mayMatchTestName("abc_def")).isFalse();
+
+        final DynamicFilters nameFilters =
+                new DynamicFilters(
+                        ImmutableList.of(
+                                new TestNamePrefixFilter("abc_"),
+                                new TestNamePatternFilter("def_[0-9]+")));
+        assertThat(nameFilters.mayMatchTestName("abc_def")).isTrue();
+        assertThat(nameFilters.mayMatchTestName("def_123")).isTrue();
+        assertThat(nameFilters.mayMatchTestName("def_abc")).isFalse();
+        assertThat(nameFilters.mayMatchTestName("")).isFalse();
+        assertThat(nameFilters.mayMatchTestName(null)).isFalse();
+
+        // filters on the definition need to see all definitions
+        final DynamicFilters definitionFilters =
+                new DynamicFilters(
+                        ImmutableList.of(
+                                new TestNamePrefixFilter("abc_"),
+                                new TestTypeFilter(TestType.RANDOM)));
+        assertThat(definitionFilters.mayMatchTestName("def_abc")).isTrue();
+    }
+
     private ConsumableTestDefinition constructTestDefinition(final TestType testType) {
         final ConsumableTestDefinition testDefinition = new ConsumableTestDefinition();
         testDefinition.setTestType(testType);
@@ -39,6 +39,15 @@ import java.util.stream.Collectors;
  */
 public abstract class AbstractGroups {
     private static final Logger LOGGER = LogManager.getLogger(AbstractGroups.class);
+    /** number of constants of test enums, to size slots of resolved tests */
+    private static final ClassValue<Integer> NUM_TESTS =
+            new ClassValue<Integer>() {
+                @Override
+                protected Integer computeValue(final Class<?> testEnum) {
+                    return testEnum.getEnumConstants().length;
+                }
+            };
+
     private final ProctorResult proctorResult;
 
     // Option using injected Observer
@@ -46,6 +55,9 @@ public abstract class AbstractGroups {
 
     @CheckForNull private final ExposureLogger exposureLogger;
 
+    /** tests resolved by generated code, per test enum class used, created on use */
+    @CheckForNull private ResolvedTests resolvedTests;
+
     /** A character to separate groups in logging output. */
     protected static final char GROUPS_SEPARATOR = ',';
     /**
@@ -118,11 +130,12 @@ public abstract class AbstractGroups {
 
     /**
      * @return true if testname exists and resolved bucket has given value
-     * @deprecated Use/Override {@link #isBucketActive(String, int, int)} instead
+     * @deprecated Use {@link #getValue(String, int)} instead
      */
     @Deprecated
-    // used from generated code
-    protected boolean isBucketActive(final String testName, final int value) {
+    // used from code generated by older versions. final as overrides would not apply to generated
+    // methods, override overrideDeterminedBucketValue() instead
+    protected final boolean isBucketActive(final String testName, final int value) {
         // using getActiveBucket to allow overrides
         return getActiveBucket(testName)
                 .filter(testBucket -> value == testBucket.getValue())
@@ -132,9 +145,13 @@ public abstract class AbstractGroups {
     /**
      * @return true if testname exists and resolved bucket has given value, else if value equals
      *     defaultValue
+     * @deprecated generated code no longer calls this, and it is final so that overrides, which
+     *     would not apply to generated methods, fail to compile. Override {@link
+     *     #overrideDeterminedBucketValue(String, TestBucket)} instead
      */
-    // used from generated code
-    protected boolean isBucketActive(
+    @Deprecated
+    // used from code generated by older versions
+    protected final boolean isBucketActive(
             final String testName, final int value, final int defaultValue) {
         return value == getValue(testName, defaultValue);
     }
@@ -178,6 +195,89 @@ public abstract class AbstractGroups {
         return bucketOpt;
     }
 
+    /**
+     * Same as {@link #getValue(String, int)} with the name and fallback value of the test, but
+     * resolved only once per instance, so the test is looked up and marked as used once however
+     * often generated methods are called.
+     */
+    // used from generated code
+    protected final <E extends Enum<E> & Test> int getValue(@Nonnull final E test) {
+        return resolve(test).value;
+    }
+
+    /**
+     * Same as {@link #getPayload(String, int)} with the name and fallback value of the test, but
+     * resolved only once per instance like {@link #getValue(Enum)}.
+     */
+    @Nonnull
+    // used from generated code
+    protected final <E extends Enum<E> & Test> Payload getPayload(@Nonnull final E test) {
+        return resolve(test).payload;
+    }
+
+    @Nonnull
+    private <E extends Enum<E> & Test> ResolvedTest resolve(@Nonnull final E test) {
+        final Class<E> testEnum = test.getDeclaringClass();
+        ResolvedTests resolvedOfEnum = resolvedTests;
+        while ((resolvedOfEnum != null) && (resolvedOfEnum.testEnum != testEnum)) {
+            resolvedOfEnum = resolvedOfEnum.next;
+        }
+        if (resolvedOfEnum == null) {
+            // generated code uses a single test enum, so this is usually created once
+            resolvedOfEnum = new ResolvedTests(testEnum, resolvedTests);
+            resolvedTests = resolvedOfEnum;
+        }
+        final ResolvedTest[] resolved = resolvedOfEnum.tests;
+        final int ordinal = test.ordinal();
+        ResolvedTest resolvedTest = resolved[ordinal];
+        if (resolvedTest == null) {
+            final String testName = test.getName();
+            // marks usage, and allows overrides of getValue
+            final int value = getValue(testName, test.getFallbackValue());
+            // same as getPayload(testName, fallbackValue), without marking usage again
+            final Optional<TestBucket> activeBucket = getActiveBucketWithoutMarkingUsage(testName);
+            final TestBucket bucket =
+                    activeBucket.isPresent()
+                            ? activeBucket.get()
+                            : getTestBucketWithValue(testName, test.getFallbackValue());
+            final Payload payload =
+                    Optional.ofNullable(bucket)
+                            .map(TestBucket::getPayload)
+                            .orElse(Payload.EMPTY_PAYLOAD);
+            resolvedTest = new ResolvedTest(value, payload);
+            resolved[ordinal] = resolvedTest;
+        }
+        return resolvedTest;
+    }
+
+    /**
+     * tests of a test enum indexed by ordinal, linked to those of other test enums. Slots may be
+     * resolved twice by concurrent threads, which gives the same results.
+     */
+    private static final class ResolvedTests {
+        @Nonnull private final Class<?> testEnum;
+        @Nonnull private final ResolvedTest[] tests;
+        @Nullable private final ResolvedTests next;
+
+        private ResolvedTests(
+                @Nonnull final Class<?> testEnum, @Nullable final ResolvedTests next) {
+            this.testEnum = testEnum;
+            this.tests = new ResolvedTest[NUM_TESTS.get(testEnum)];
+            this.next = next;
+        }
+    }
+
+    /** immutable, so it can be shared between threads without synchronization */
+    private static final class ResolvedTest {
+        private final int value;
+        @Nonnull private final Payload payload;
+
+        private ResolvedTest(final int value, @Nonnull final Payload payload) {
+            this.value = value;
+            this.payload = payload;
+        }
+    }
+
     /**
      * mark tests to additionally be included in getAsUsedTestsProctorResult(), even when no
      * corresponding method has been called. for usecases where exposure happens without calls to
@@ -243,10 +343,14 @@ public abstract class AbstractGroups {
      * If Matrix has a testbucket for this testname, return its payload (or empty). If matrix does
      * not have such a testbucket, looks up different bucket in the testdefinition and return it's
      * payload
+     *
+     * <p>final as generated code resolves payloads with {@link #getPayload(Enum)}, override
+     * overrideDeterminedBucketValue() to change payloads of generated methods.
      */
     @Nonnull
-    // used from generated code
-    protected Payload getPayload(final String testName, @Nonnull final Bucket<?> fallbackBucket) {
+    // used from code generated by older versions
+    protected final Payload getPayload(
+            final String testName, @Nonnull final Bucket<?> fallbackBucket) {
         return getPayload(testName, fallbackBucket.getValue());
     }
 
@@ -9,10 +9,14 @@ import com.indeed.proctor.common.model.Payload;
 import com.indeed.proctor.consumer.ProctorGroupStubber.FakeTest;
 import com.indeed.proctor.consumer.logging.TestGroupFormatter;
 import com.indeed.proctor.consumer.logging.TestMarkingObserver;
+import com.indeed.proctor.consumer.logging.TestUsageObserver;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 import static com.indeed.proctor.consumer.ProctorGroupStubber.CONTROL_BUCKET_WITH_PAYLOAD;
 import static com.indeed.proctor.consumer.ProctorGroupStubber.FALLBACK_BUCKET;
@@ -153,6 +157,79 @@ public class TestAbstractGroups {
         assertThat(emptyGroup.getPayload("notexist")).isEqualTo(Payload.EMPTY_PAYLOAD);
     }
 
+    @Test
+    public void testGetValueAndPayloadOfTestEnum() {
+        assertThat(sampleGroups.getValue(CONTROL_SELECTED_TEST)).isEqualTo(0);
+        assertThat(sampleGroups.getValue(GROUP1_SELECTED_TEST)).isEqualTo(1);
+        assertThat(sampleGroups.getValue(INACTIVE_SELECTED_TEST)).isEqualTo(-1);
+        assertThat(sampleGroups.getPayload(GROUP1_SELECTED_TEST))
+                .isEqualTo(GROUP_1_BUCKET_WITH_PAYLOAD.getPayload());
+        assertThat(sampleGroups.getPayload(INACTIVE_SELECTED_TEST))
+                .isEqualTo(Payload.EMPTY_PAYLOAD);
+
+        // using fallback value
+        assertThat(emptyGroup.getValue(CONTROL_SELECTED_TEST))
+                .isEqualTo(CONTROL_SELECTED_TEST.getFallbackValue());
+        assertThat(emptyGroup.getPayload(CONTROL_SELECTED_TEST)).isEqualTo(Payload.EMPTY_PAYLOAD);
+    }
+
+    @Test
+    public void testGetValueOfMultipleTestEnums() {
+        assertThat(sampleGroups.getValue(CONTROL_SELECTED_TEST)).isEqualTo(0);
+        // same ordinals as tests of the other enum
+        assertThat(sampleGroups.getValue(OtherTest.MISSING_TEST)).isEqualTo(42);
+        assertThat(sampleGroups.getValue(OtherTest.GROUP1_SELECTED_TEST)).isEqualTo(1);
+        assertThat(sampleGroups.getValue(CONTROL_SELECTED_TEST)).isEqualTo(0);
+    }
+
+    private enum OtherTest implements com.indeed.proctor.consumer.Test {
+        MISSING_TEST("missingtst", 42),
+        GROUP1_SELECTED_TEST(ProctorGroupStubber.StubTest.GROUP1_SELECTED_TEST.getName(), -1);
+
+        private final String name;
+        private final int fallbackValue;
+
+        OtherTest(final String name, final int fallbackValue) {
+            this.name = name;
+            this.fallbackValue = fallbackValue;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getFallbackValue() {
+            return fallbackValue;
+        }
+    }
+
+    @Test
+    public void testGetValueOfTestEnumMarksUsageOnce() {
+        final List<String> markedTests = new ArrayList<>();
+        final AbstractGroups groups =
+                new AbstractGroups(
+                        proctorResult,
+                        new TestUsageObserver() {
+                            @Override
+                            public void markUsedForToggling(final Collection<String> testNames) {
+                                markedTests.addAll(testNames);
+                            }
+
+                            @Override
+                            public void markUsedForToggling(final String testName) {
+                                markedTests.add(testName);
+                            }
+                        }) {};
+
+        assertThat(groups.getValue(GROUP1_SELECTED_TEST)).isEqualTo(1);
+        assertThat(groups.getValue(GROUP1_SELECTED_TEST)).isEqualTo(1);
+        assertThat(groups.getPayload(GROUP1_SELECTED_TEST))
+                .isEqualTo(GROUP_1_BUCKET_WITH_PAYLOAD.getPayload());
+        assertThat(markedTests).containsExactly(GROUP1_SELECTED_TEST.getName());
+    }
+
     @Test
     public void testIsEmpty() {
         assertThat(emptyGroup.isEmpty()).isTrue();
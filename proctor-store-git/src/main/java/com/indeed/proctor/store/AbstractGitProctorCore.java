@@ -0,0 +1,294 @@
+package com.indeed.proctor.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.indeed.proctor.common.Serializers;
+import com.indeed.util.varexport.Export;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import static com.indeed.proctor.store.GitProctorUtils.determineAuthorId;
+
+/**
+ * Reads test definitions from the object database of a git repository. Subclasses define how the
+ * repository is cloned, refreshed and written to.
+ */
+public abstract class AbstractGitProctorCore implements FileBasedPersisterCore {
+    private static final ObjectMapper OBJECT_MAPPER = Serializers.lenient();
+    private static final long FILE_CONTENTS_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    protected final String testDefinitionsDirectory;
+
+    /**
+     * parsed contents of blobs by blob id and class, bounded by the total size of the blobs as
+     * parsed contents are roughly proportional to them
+     */
+    private final Cache<BlobKey, CachedFileContents> fileContentsCache =
+            CacheBuilder.newBuilder()
+                    .maximumWeight(FILE_CONTENTS_CACHE_MAX_BYTES)
+                    .weigher((BlobKey key, CachedFileContents value) -> value.size)
+                    .recordStats()
+                    .build();
+
+    AbstractGitProctorCore(final String testDefinitionsDirectory) {
+        this.testDefinitionsDirectory = testDefinitionsDirectory;
+    }
+
+    abstract Git getGit();
+
+    String getRefName() {
+        return Constants.HEAD;
+    }
+
+    /** Discards local changes not pushed to the remote repository */
+    abstract void undoLocalChanges();
+
+    abstract void initializeRepository(boolean cleanInitialization);
+
+    public abstract void checkoutBranch(String branchName);
+
+    public abstract void refresh();
+
+    @Override
+    @Nullable
+    public <C> C getFileContents(
+            final Class<C> c,
+            final String[] path,
+            @Nullable final C defaultValue,
+            final String revision)
+            throws StoreException.ReadException, JsonProcessingException {
+        try {
+            if (!ObjectId.isId(revision)) {
+                throw new StoreException.ReadException("Malformed id " + revision);
+            }
+            final ObjectId blobOrCommitId = ObjectId.fromString(revision);
+            final Repository repository = getGit().getRepository();
+
+            final ObjectLoader loader = repository.open(blobOrCommitId);
+
+            if (loader.getType() == Constants.OBJ_COMMIT) {
+                // look up the file at this revision
+                final RevCommit commit = RevCommit.parse(loader.getCachedBytes());
+
+                final String joinedPath = String.join("/", path);
+                // walks only into trees on the path instead of all files of the commit
+                try (final TreeWalk treeWalk =
+                        TreeWalk.forPath(repository, joinedPath, commit.getTree())) {
+                    if (treeWalk == null) {
+                        // it did not find expected file `joinPath` so return default value
+                        return defaultValue;
+                    }
+                    return getFileContents(c, treeWalk.getObjectId(0));
+                }
+            } else if (loader.getType() == Constants.OBJ_BLOB) {
+                return getFileContents(c, blobOrCommitId, loader);
+            } else {
+                throw new StoreException.ReadException(
+                        "Invalid Object Type " + loader.getType() + " for id " + revision);
+            }
+        } catch (final IOException e) {
+            throw new StoreException.ReadException(e);
+        }
+    }
+
+    private <C> C getFileContents(final Class<C> c, final ObjectId blobId) throws IOException {
+        return getFileContents(c, blobId, null);
+    }
+
+    /**
+     * Parses contents of a blob, or reuses contents parsed before as blobs never change for an id
+     *
+     * @param loader loader of the blob if already opened
+     */
+    private <C> C getFileContents(
+            final Class<C> c, final ObjectId blobId, @Nullable final ObjectLoader loader)
+            throws IOException {
+        final BlobKey key = new BlobKey(blobId, c);
+        final CachedFileContents cached = fileContentsCache.getIfPresent(key);
+        if (cached != null) {
+            return c.cast(cached.contents);
+        }
+        final byte[] bytes =
+                ((loader == null) ? getGit().getRepository().open(blobId) : loader).getBytes();
+        final C contents = OBJECT_MAPPER.readValue(bytes, c);
+        if (contents != null) {
+            fileContentsCache.put(key, new CachedFileContents(contents, bytes.length));
+        }
+        return contents;
+    }
+
+    @Export(
+            name = "file-contents-cache-hit-rate",
+            doc = "Ratio of reads of files in git answered by parsed contents of the same blob")
+    public double getFileContentsCacheHitRate() {
+        return fileContentsCache.stats().hitRate();
+    }
+
+    @Export(name = "file-contents-cache-hits", doc = "Number of reads of files in git from cache")
+    public long getFileContentsCacheHits() {
+        return fileContentsCache.stats().hitCount();
+    }
+
+    @Export(
+            name = "file-contents-cache-misses",
+            doc = "Number of reads of files in git parsing a blob")
+    public long getFileContentsCacheMisses() {
+        return fileContentsCache.stats().missCount();
+    }
+
+    @Export(
+            name = "file-contents-cache-evictions",
+            doc = "Number of parsed contents evicted from the cache")
+    public long getFileContentsCacheEvictions() {
+        return fileContentsCache.stats().evictionCount();
+    }
+
+    @Override
+    public TestVersionResult determineVersions(final String fetchRevision)
+            throws StoreException.ReadException {
+        try {
+            final RevWalk walk = new RevWalk(getGit().getRepository());
+            final ObjectId commitId = ObjectId.fromString(fetchRevision);
+            final RevCommit headTree = walk.parseCommit(commitId);
+            final RevTree tree = headTree.getTree();
+
+            // now use a TreeWalk to iterate over all files in the Tree recursively
+            // you can set Filters to narrow down the results if needed
+            final TreeWalk treeWalk = new TreeWalk(getGit().getRepository());
+            treeWalk.addTree(tree);
+            treeWalk.setFilter(
+                    AndTreeFilter.create(
+                            PathFilter.create(testDefinitionsDirectory),
+                            PathSuffixFilter.create("definition.json")));
+            treeWalk.setRecursive(true);
+
+            final List<TestVersionResult.Test> tests = Lists.newArrayList();
+            while (treeWalk.next()) {
+                final ObjectId id = treeWalk.getObjectId(0);
+                // final RevTree revTree = walk.lookupTree(id);
+
+                final String path = treeWalk.getPathString();
+                final String[] pieces = path.split("/");
+                final String testname = pieces[pieces.length - 2]; // tree / parent directory name
+
+                // testname, blobid pair
+                // note this is the blobid hash - not a commit hash
+                // RevTree.id and RevBlob.id
+                tests.add(new TestVersionResult.Test(testname, id.name()));
+            }
+
+            walk.dispose();
+            return new TestVersionResult(
+                    tests,
+                    new Date(
+                            Long.valueOf(headTree.getCommitTime())
+                                    * 1000 /* convert seconds to milliseconds */),
+                    determineAuthorId(headTree),
+                    headTree.toObjectId().getName(),
+                    headTree.getFullMessage());
+        } catch (final IOException e) {
+            throw new StoreException.ReadException(e);
+        }
+    }
+
+    /** revisions of tests are blob ids */
+    @Override
+    public boolean hasContentAddressedRevisions() {
+        return true;
+    }
+
+    @Override
+    public String getAddTestRevision() {
+        return ObjectId.zeroId().name();
+    }
+
+    /**
+     * jgit doesn't throw an exception for certain kinds of push failures - explicitly check the
+     * result
+     *
+     * @throws IllegalStateException if any ref was not updated
+     */
+    static void checkPushResults(final Iterable<PushResult> pushResults) {
+        for (final PushResult pushResult : pushResults) {
+            for (final RemoteRefUpdate remoteRefUpdate : pushResult.getRemoteUpdates()) {
+                switch (remoteRefUpdate.getStatus()) {
+                    case OK:
+                        continue;
+                    case REJECTED_NONFASTFORWARD:
+                        throw new IllegalStateException(
+                                "Non-fast-forward push - there have likely been other commits made since starting. Confirm the latest state and try again.");
+                    default:
+                        final String message;
+                        if (StringUtils.isNotEmpty(remoteRefUpdate.getMessage())) {
+                            message = remoteRefUpdate.getMessage();
+                        } else {
+                            message =
+                                    "Non-success push status: "
+                                            + remoteRefUpdate.getStatus().toString();
+                        }
+                        throw new IllegalStateException(message);
+                }
+            }
+        }
+    }
+
+    private static class BlobKey {
+        private final ObjectId blobId;
+        private final Class<?> c;
+
+        private BlobKey(final ObjectId blobId, final Class<?> c) {
+            this.blobId = blobId.copy();
+            this.c = c;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BlobKey blobKey = (BlobKey) o;
+            return blobId.equals(blobKey.blobId) && c.equals(blobKey.c);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(blobId, c);
+        }
+    }
+
+    private static class CachedFileContents {
+        private final Object contents;
+        /** size of the blob in bytes */
+        private final int size;
+
+        private CachedFileContents(final Object contents, final int size) {
+            this.contents = contents;
+            this.size = size;
+        }
+    }
+}
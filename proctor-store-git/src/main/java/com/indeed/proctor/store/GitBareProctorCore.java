@@ -0,0 +1,512 @@
+package com.indeed.proctor.store;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TextProgressMonitor;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Core keeping a bare clone of the remote repository, without working directory. Changes are
+ * committed by building trees and commits in the object database, writing only blobs of changed
+ * files and trees on their paths. Only files of the changed test are written to a temporary
+ * directory for the updater.
+ */
+public class GitBareProctorCore extends AbstractGitProctorCore {
+    private static final Logger LOGGER = LogManager.getLogger(GitBareProctorCore.class);
+    private static final TextProgressMonitor PROGRESS_MONITOR =
+            new TextProgressMonitor(new LoggerPrintWriter(LOGGER, Level.DEBUG));
+    private static final long GC_INTERVAL_IN_HOURS = 24;
+    private static final AtomicInteger INITIAL_DELAY_SCHEDULE = new AtomicInteger();
+    private static final int DEFAULT_LOCK_TIMEOUT_SECONDS = 90;
+
+    private final String username;
+    private final String gitUrl;
+    @Nullable private final String branchName;
+    private final File repositoryDirectory;
+    private final UsernamePasswordCredentialsProvider user;
+    private final GitAPIExceptionWrapper gitAPIExceptionWrapper;
+    private final ScheduledExecutorService gcExecutor;
+
+    private final int pullPushTimeoutSeconds;
+    private final int cloneTimeoutSeconds;
+
+    /** serializes updates of refs, while objects are read without lock */
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile Git git;
+
+    public GitBareProctorCore(
+            final String gitUrl,
+            final String username,
+            final String password,
+            final String testDefinitionsDirectory,
+            final File repositoryDirectory) {
+        this(
+                gitUrl,
+                username,
+                password,
+                testDefinitionsDirectory,
+                repositoryDirectory,
+                GitProctorUtils.DEFAULT_GIT_PULL_PUSH_TIMEOUT_SECONDS,
+                GitProctorUtils.DEFAULT_GIT_CLONE_TIMEOUT_SECONDS,
+                null);
+    }
+
+    /**
+     * clones from the git URL to a local bare repository, or fetches into it if it exists
+     *
+     * @param gitUrl remote git url from which to clone
+     * @param username
+     * @param password
+     * @param testDefinitionsDirectory typically matrices/test-definitions
+     * @param repositoryDirectory where the local bare copy will be cloned to (unless exists)
+     * @param pullPushTimeoutSeconds
+     * @param cloneTimeoutSeconds
+     * @param branchName
+     */
+    public GitBareProctorCore(
+            final String gitUrl,
+            final String username,
+            final String password,
+            final String testDefinitionsDirectory,
+            final File repositoryDirectory,
+            final int pullPushTimeoutSeconds,
+            final int cloneTimeoutSeconds,
+            @Nullable final String branchName) {
+        super(testDefinitionsDirectory);
+        this.gitUrl = gitUrl;
+        this.username = username;
+        this.repositoryDirectory =
+                Preconditions.checkNotNull(
+                        repositoryDirectory, "Repository directory should not be null");
+        user = new UsernamePasswordCredentialsProvider(username, password);
+        this.pullPushTimeoutSeconds = pullPushTimeoutSeconds;
+        this.cloneTimeoutSeconds = cloneTimeoutSeconds;
+        this.branchName = branchName;
+        gitAPIExceptionWrapper = new GitAPIExceptionWrapper();
+        gitAPIExceptionWrapper.setGitUrl(gitUrl);
+        initializeRepository(false);
+        gcExecutor = Executors.newSingleThreadScheduledExecutor();
+        gcExecutor.scheduleAtFixedRate(
+                this::gc,
+                // when multiple stores are used, schedule GC with 1 hour difference to reduce
+                // memory usage
+                GC_INTERVAL_IN_HOURS + INITIAL_DELAY_SCHEDULE.getAndIncrement(),
+                GC_INTERVAL_IN_HOURS,
+                TimeUnit.HOURS);
+    }
+
+    private Git cloneRepository() throws GitAPIException {
+        final CloneCommand cloneCommand =
+                Git.cloneRepository()
+                        .setURI(gitUrl)
+                        .setDirectory(repositoryDirectory)
+                        .setBare(true)
+                        .setProgressMonitor(PROGRESS_MONITOR)
+                        .setCredentialsProvider(user)
+                        .setTimeout(cloneTimeoutSeconds);
+
+        if (StringUtils.isNotEmpty(branchName)) {
+            final String refBranchName = Constants.R_HEADS + branchName;
+            cloneCommand
+                    .setBranchesToClone(ImmutableSet.of(refBranchName))
+                    .setBranch(refBranchName);
+        }
+
+        return cloneCommand.call();
+    }
+
+    /**
+     * Opens the bare repository, or clones it again if it does not exist or can't be opened. A
+     * bare repository has no local changes to clean up, so clean initialization is not needed.
+     *
+     * @throws IllegalStateException if there is no repository yet and cloning failed
+     */
+    @Override
+    void initializeRepository(final boolean cleanInitialization) {
+        LOGGER.info(
+                "Initializing bare repository "
+                        + gitUrl
+                        + " in "
+                        + repositoryDirectory.getAbsolutePath());
+        updateLock.lock();
+        try {
+            Git opened = null;
+            if (new File(repositoryDirectory, Constants.OBJECTS).isDirectory()) {
+                try {
+                    opened = Git.open(repositoryDirectory);
+                    fetch(opened);
+                } catch (final IOException | GitAPIException e) {
+                    LOGGER.error(
+                            "Could not update existing local repository, creating a new clone...",
+                            e);
+                    if (opened != null) {
+                        opened.close();
+                        opened = null;
+                    }
+                }
+            }
+            if (opened == null) {
+                LOGGER.info("Local repository not found, creating a new bare clone...");
+                FileUtils.deleteQuietly(repositoryDirectory);
+                opened = cloneRepository();
+            }
+            if (git != null) {
+                git.close();
+            }
+            git = opened;
+        } catch (final GitAPIException e) {
+            if (git == null) {
+                throw new IllegalStateException("Unable to clone git repository at " + gitUrl, e);
+            }
+            LOGGER.error(
+                    "Unable to clone git repository at " + gitUrl + ", keeping previous clone", e);
+            return;
+        } finally {
+            updateLock.unlock();
+        }
+
+        final StoredConfig config = git.getRepository().getConfig();
+        // this packs a single file. For yet unknown reasons, packing 2 files causes massive jgit
+        // push slowdown
+        config.setBoolean("pack", null, "singlePack", true);
+        try {
+            config.save();
+        } catch (final IOException e) {
+            LOGGER.error("Could not write config", e);
+        }
+    }
+
+    /** updates local branches to remote branches, as a bare clone maps refs/heads to refs/heads */
+    private void fetch(final Git git) throws GitAPIException {
+        final String branches =
+                Constants.R_HEADS + (StringUtils.isNotEmpty(branchName) ? branchName : "*");
+        git.fetch()
+                .setProgressMonitor(PROGRESS_MONITOR)
+                .setCredentialsProvider(user)
+                .setTimeout(pullPushTimeoutSeconds)
+                .setRefSpecs(new RefSpec("+" + branches + ":" + branches))
+                .call();
+    }
+
+    @Override
+    public void doInWorkingDirectory(
+            final ChangeMetadata changeMetadata,
+            final String previousVersion,
+            final FileBasedProctorStore.ProctorUpdater updater)
+            throws StoreException.TestUpdateException {
+        // the updater may touch any test, so all test definitions are written for it
+        commit(changeMetadata, testDefinitionsDirectory, updater);
+    }
+
+    @Override
+    public void doInWorkingDirectory(
+            final ChangeMetadata changeMetadata,
+            final String previousVersion,
+            final String testName,
+            final FileBasedProctorStore.ProctorUpdater updater)
+            throws StoreException.TestUpdateException {
+        commit(changeMetadata, testDefinitionsDirectory + "/" + testName, updater);
+    }
+
+    /**
+     * Fetches, runs the updater in a temporary directory holding files under the path, and pushes
+     * a commit of files it added or deleted on top of the fetched branch. Nothing needs to be
+     * undone on failure as the branch is only updated after a successful push.
+     */
+    private void commit(
+            final ChangeMetadata changeMetadata,
+            final String path,
+            final FileBasedProctorStore.ProctorUpdater updater)
+            throws StoreException.TestUpdateException {
+        try {
+            if (!updateLock.tryLock(DEFAULT_LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new StoreException.TestUpdateException(
+                        "Attempt to acquire lock on repository was timeout: "
+                                + DEFAULT_LOCK_TIMEOUT_SECONDS
+                                + "s. Maybe due to dead lock");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException.TestUpdateException("Interrupted while waiting for lock", e);
+        }
+        File scratchDirectory = null;
+        try {
+            fetch(git);
+            final Repository repository = git.getRepository();
+            final Ref head = repository.exactRef(Constants.HEAD);
+            final String branchRef = head.getTarget().getName();
+            final ObjectId parentId = head.getObjectId();
+            if (parentId == null) {
+                throw new IllegalStateException("Branch " + branchRef + " has no commit");
+            }
+
+            scratchDirectory = Files.createTempDirectory("proctor-git-change").toFile();
+            final ChangeRecorder recorder = new ChangeRecorder(scratchDirectory);
+            try (final ObjectReader reader = repository.newObjectReader();
+                    final RevWalk walk = new RevWalk(reader)) {
+                final RevCommit parent = walk.parseCommit(parentId);
+                writeFiles(reader, parent, path, scratchDirectory);
+                if (!updater.doInWorkingDirectory(recorder, scratchDirectory)) {
+                    return;
+                }
+                final ObjectId commitId = insertCommit(reader, parent, recorder, changeMetadata);
+                checkPushResults(
+                        git.push()
+                                .setProgressMonitor(PROGRESS_MONITOR)
+                                .setCredentialsProvider(user)
+                                .setTimeout(pullPushTimeoutSeconds)
+                                .setRefSpecs(new RefSpec(commitId.name() + ":" + branchRef))
+                                .call());
+
+                final RefUpdate refUpdate = repository.updateRef(branchRef);
+                refUpdate.setNewObjectId(commitId);
+                refUpdate.setExpectedOldObjectId(parentId);
+                refUpdate.setRefLogMessage("commit: " + changeMetadata.getComment(), false);
+                final RefUpdate.Result result = refUpdate.update(walk);
+                if (result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.NEW) {
+                    // the push succeeded, so the next fetch corrects the branch
+                    LOGGER.warn("Failed to update " + branchRef + " after push: " + result);
+                }
+            }
+        } catch (final GitAPIException e) {
+            throw gitAPIExceptionWrapper.wrapException(
+                    new StoreException.TestUpdateException(
+                            "Core: Unable to commit/push changes: " + e.getMessage(), e));
+        } catch (final IllegalStateException e) {
+            throw gitAPIExceptionWrapper.wrapException(
+                    new StoreException.TestUpdateException(
+                            "Core: Unable to push changes: " + e.getMessage(), e));
+        } catch (final Exception e) {
+            throw new StoreException.TestUpdateException(
+                    "Core: Unable to perform operation: " + e.getMessage(), e);
+        } finally {
+            updateLock.unlock();
+            if (scratchDirectory != null) {
+                FileUtils.deleteQuietly(scratchDirectory);
+            }
+        }
+    }
+
+    /** writes files of the commit under the path to the same relative path in the directory */
+    private static void writeFiles(
+            final ObjectReader reader,
+            final RevCommit commit,
+            final String path,
+            final File directory)
+            throws IOException {
+        try (final TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setFilter(PathFilter.create(path));
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                final File file = new File(directory, treeWalk.getPathString());
+                file.getParentFile().mkdirs();
+                try (final OutputStream out = Files.newOutputStream(file.toPath())) {
+                    reader.open(treeWalk.getObjectId(0)).copyTo(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the tree of the parent with recorded changes applied and inserts a commit of it.
+     * Only blobs of added files and trees on their paths are new objects.
+     */
+    private ObjectId insertCommit(
+            final ObjectReader reader,
+            final RevCommit parent,
+            final ChangeRecorder recorder,
+            final ChangeMetadata changeMetadata)
+            throws IOException {
+        final DirCache index = DirCache.newInCore();
+        final DirCacheBuilder builder = index.builder();
+        builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, parent.getTree());
+        builder.finish();
+
+        try (final ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            final DirCacheEditor editor = index.editor();
+            for (final String deletedPath : recorder.deletedPaths) {
+                editor.add(new DirCacheEditor.DeleteTree(deletedPath));
+            }
+            for (final String addedPath : recorder.addedPaths) {
+                final byte[] contents =
+                        Files.readAllBytes(new File(recorder.rootDirectory, addedPath).toPath());
+                final ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, contents);
+                editor.add(
+                        new DirCacheEditor.PathEdit(addedPath) {
+                            @Override
+                            public void apply(final DirCacheEntry entry) {
+                                entry.setFileMode(FileMode.REGULAR_FILE);
+                                entry.setObjectId(blobId);
+                            }
+                        });
+            }
+            editor.finish();
+
+            final CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(index.writeTree(inserter));
+            commit.setParentId(parent);
+            commit.setCommitter(
+                    new PersonIdent(
+                            username,
+                            username,
+                            Date.from(changeMetadata.getTimestamp()),
+                            TimeZone.getTimeZone("UTC")));
+            commit.setAuthor(
+                    new PersonIdent(
+                            changeMetadata.getAuthor(),
+                            changeMetadata.getAuthor(),
+                            Date.from(changeMetadata.getTimestamp()),
+                            TimeZone.getTimeZone("UTC")));
+            commit.setMessage(changeMetadata.getComment());
+            final ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+            return commitId;
+        }
+    }
+
+    /** records paths relative to the root directory that the updater adds or deletes */
+    private static class ChangeRecorder implements FileBasedProctorStore.RcsClient {
+        private final File rootDirectory;
+        private final Set<String> addedPaths = new LinkedHashSet<>();
+        private final Set<String> deletedPaths = new LinkedHashSet<>();
+
+        private ChangeRecorder(final File rootDirectory) {
+            this.rootDirectory = rootDirectory;
+        }
+
+        @Override
+        public void add(final File file) {
+            final String path = relativePath(file);
+            deletedPaths.remove(path);
+            addedPaths.add(path);
+        }
+
+        @Override
+        public void delete(final File testDefinitionDirectory) throws IOException {
+            final String path = relativePath(testDefinitionDirectory);
+            addedPaths.removeIf(added -> added.startsWith(path + "/"));
+            deletedPaths.add(path);
+            FileUtils.deleteDirectory(testDefinitionDirectory);
+        }
+
+        private String relativePath(final File file) {
+            return rootDirectory
+                    .toPath()
+                    .relativize(file.getAbsoluteFile().toPath())
+                    .toString()
+                    .replace(File.separatorChar, '/');
+        }
+
+        @Override
+        public String getRevisionControlType() {
+            return "git";
+        }
+    }
+
+    /** A bare repository has no local changes as commits are only kept after they are pushed */
+    @Override
+    void undoLocalChanges() {}
+
+    @Override
+    public void checkoutBranch(final String branchName) {
+        Preconditions.checkArgument(
+                StringUtils.isEmpty(this.branchName) || this.branchName.equals(branchName),
+                "Unable to checkout branch %s because this repository cloned only the branch %s",
+                branchName,
+                this.branchName);
+        updateLock.lock();
+        try {
+            final RefUpdate refUpdate = git.getRepository().updateRef(Constants.HEAD);
+            refUpdate.disableRefLog();
+            refUpdate.link(Constants.R_HEADS + branchName);
+        } catch (final IOException e) {
+            LOGGER.error("Unable to checkout branch " + branchName, e);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void refresh() {
+        updateLock.lock();
+        try {
+            LOGGER.debug("Started refresh with git fetch");
+            fetch(git);
+            LOGGER.debug("Finished refresh");
+        } catch (final Exception e) {
+            LOGGER.error("Error when refreshing git repository " + repositoryDirectory, e);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void gc() {
+        updateLock.lock();
+        try {
+            LOGGER.info("Start running `git gc` command to clean up git garbage");
+            final Properties call = git.gc().call();
+            LOGGER.info("`git gc` has been completed " + call.toString());
+        } catch (final GitAPIException e) {
+            LOGGER.error("Failed to run `git gc` command.", e);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    Git getGit() {
+        return git;
+    }
+
+    @Override
+    public void close() throws IOException {
+        gcExecutor.shutdownNow();
+        git.getRepository().close();
+    }
+}
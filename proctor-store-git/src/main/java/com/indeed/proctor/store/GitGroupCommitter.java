@@ -0,0 +1,181 @@
+package com.indeed.proctor.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects changes submitted by concurrent callers during a short window and hands them to a
+ * single batch update, so that the working directory is pulled and pushed once for all of them.
+ * Each caller blocks until its own change succeeded or failed.
+ */
+class GitGroupCommitter implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger(GitGroupCommitter.class);
+    private static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+    /** Applies a batch of changes, completing the result of each change */
+    interface BatchUpdater {
+        void update(List<PendingChange> changes) throws Exception;
+    }
+
+    static class PendingChange {
+        private final ChangeMetadata changeMetadata;
+        private final FileBasedProctorStore.ProctorUpdater updater;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingChange(
+                final ChangeMetadata changeMetadata,
+                final FileBasedProctorStore.ProctorUpdater updater) {
+            this.changeMetadata = changeMetadata;
+            this.updater = updater;
+        }
+
+        ChangeMetadata getChangeMetadata() {
+            return changeMetadata;
+        }
+
+        FileBasedProctorStore.ProctorUpdater getUpdater() {
+            return updater;
+        }
+
+        boolean isDone() {
+            return result.isDone();
+        }
+
+        void succeed() {
+            result.complete(null);
+        }
+
+        void fail(final StoreException.TestUpdateException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private final long windowMillis;
+    private final BatchUpdater batchUpdater;
+    /** single thread, so batches are applied one after another */
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    /** changes waiting for the next batch, guarded by lock */
+    private List<PendingChange> pendingChanges = new ArrayList<>();
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
+
+    GitGroupCommitter(final long windowMillis, final BatchUpdater batchUpdater) {
+        this.windowMillis = windowMillis;
+        this.batchUpdater = batchUpdater;
+        executor =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("proctor-git-group-commit-%d")
+                                .setDaemon(true)
+                                .build());
+    }
+
+    /**
+     * Queues a change for the next batch and waits for its result. The change may still be
+     * committed after the calling thread has been interrupted.
+     */
+    void commit(
+            final ChangeMetadata changeMetadata,
+            final FileBasedProctorStore.ProctorUpdater updater)
+            throws StoreException.TestUpdateException {
+        final PendingChange change = new PendingChange(changeMetadata, updater);
+        synchronized (lock) {
+            pendingChanges.add(change);
+            if (pendingChanges.size() == 1) {
+                // first change of a batch, later changes join it until the window elapses
+                try {
+                    executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+                } catch (final RejectedExecutionException e) {
+                    pendingChanges.remove(change);
+                    throw new StoreException.TestUpdateException(
+                            "Core: Unable to perform operation: store is closed", e);
+                }
+            }
+        }
+        try {
+            change.result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException.TestUpdateException(
+                    "Core: Interrupted while waiting for commit", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof StoreException.TestUpdateException) {
+                throw (StoreException.TestUpdateException) cause;
+            }
+            throw new StoreException.TestUpdateException(
+                    "Core: Unable to perform operation: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void flush() {
+        final List<PendingChange> batch;
+        synchronized (lock) {
+            batch = pendingChanges;
+            pendingChanges = new ArrayList<>();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchCount.incrementAndGet();
+        changeCount.addAndGet(batch.size());
+        LOGGER.debug("Committing a batch of " + batch.size() + " changes");
+        try {
+            batchUpdater.update(batch);
+        } catch (final Exception e) {
+            LOGGER.error("Failed to commit a batch of " + batch.size() + " changes", e);
+            failRemaining(batch, e);
+        } finally {
+            failRemaining(batch, new IllegalStateException("Change was not committed"));
+        }
+    }
+
+    private static void failRemaining(final List<PendingChange> batch, final Exception e) {
+        for (final PendingChange change : batch) {
+            if (!change.isDone()) {
+                change.fail(
+                        (e instanceof StoreException.TestUpdateException)
+                                ? (StoreException.TestUpdateException) e
+                                : new StoreException.TestUpdateException(
+                                        "Core: Unable to perform operation: " + e.getMessage(),
+                                        e));
+            }
+        }
+    }
+
+    long getBatchCount() {
+        return batchCount.get();
+    }
+
+    long getChangeCount() {
+        return changeCount.get();
+    }
+
+    /** Commits changes already queued and stops accepting new ones */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Timed out committing queued changes on close");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.indeed.proctor.store;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jgit.lib.ObjectId;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
+
+/**
+ * Histories of all tests at the last indexed head of a git repository, so that only commits added
+ * after that head need to be parsed. The index is persisted to a local file, to also skip parsing
+ * the whole history after a restart.
+ *
+ * <p>If the new head does not descend from the indexed head, e.g. after a force push or a branch
+ * switch, the whole history is parsed again.
+ */
+class GitHistoryIndex {
+    private static final Logger LOGGER = LogManager.getLogger(GitHistoryIndex.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /** name of the index file in the git directory of a repository */
+    static final String INDEX_FILENAME = "proctor-history-index.json";
+
+    @Nullable private final File indexFile;
+    @Nonnull private final String testDefinitionsDirectory;
+
+    private boolean loaded;
+    @CheckForNull private ObjectId indexedHead;
+    @Nonnull private Map<String, List<Revision>> histories = new HashMap<>();
+
+    /** @param indexFile where to persist the index, or null to keep it only in memory */
+    GitHistoryIndex(
+            @Nullable final File indexFile, @Nonnull final String testDefinitionsDirectory) {
+        this.indexFile = indexFile;
+        this.testDefinitionsDirectory = testDefinitionsDirectory;
+    }
+
+    /**
+     * @return a map of testnames and git commits making changes to given tests, a new copy on each
+     *     call
+     */
+    @Nonnull
+    synchronized Map<String, List<Revision>> getAllHistories(
+            @Nonnull final GitHistoryParser historyParser, @Nonnull final ObjectId head)
+            throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+
+        if (!head.equals(indexedHead)) {
+            if ((indexedHead != null) && historyParser.isAncestor(indexedHead, head)) {
+                merge(historyParser.parseFromHead(head, indexedHead));
+            } else {
+                histories = historyParser.parseFromHead(head);
+            }
+            indexedHead = head.copy();
+            save();
+        }
+
+        final Map<String, List<Revision>> result = newHashMapWithExpectedSize(histories.size());
+        for (final Map.Entry<String, List<Revision>> entry : histories.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return result;
+    }
+
+    /** merges histories of new commits into histories of their tests only */
+    private void merge(@Nonnull final Map<String, List<Revision>> newHistories) {
+        for (final Map.Entry<String, List<Revision>> entry : newHistories.entrySet()) {
+            final List<Revision> indexedHistory = histories.get(entry.getKey());
+            histories.put(
+                    entry.getKey(),
+                    (indexedHistory == null)
+                            ? entry.getValue()
+                            : mergeByDate(entry.getValue(), indexedHistory));
+        }
+    }
+
+    /**
+     * @param newHistory revisions sorted by date, newer first
+     * @param indexedHistory revisions sorted by date, newer first
+     * @return revisions of both sorted by date, revisions of the new history first for the same
+     *     date like sorting both with new revisions first, without duplicated revisions
+     */
+    @Nonnull
+    private static List<Revision> mergeByDate(
+            @Nonnull final List<Revision> newHistory,
+            @Nonnull final List<Revision> indexedHistory) {
+        final Set<String> newRevisions = new HashSet<>();
+        for (final Revision revision : newHistory) {
+            newRevisions.add(revision.getRevision());
+        }
+        final List<Revision> history = new ArrayList<>(newHistory.size() + indexedHistory.size());
+        int newIndex = 0;
+        int indexedIndex = 0;
+        while ((newIndex < newHistory.size()) || (indexedIndex < indexedHistory.size())) {
+            if ((indexedIndex < indexedHistory.size())
+                    && newRevisions.contains(indexedHistory.get(indexedIndex).getRevision())) {
+                indexedIndex++;
+            } else if ((indexedIndex >= indexedHistory.size())
+                    || ((newIndex < newHistory.size())
+                            && !newHistory
+                                    .get(newIndex)
+                                    .getDate()
+                                    .before(indexedHistory.get(indexedIndex).getDate()))) {
+                history.add(newHistory.get(newIndex++));
+            } else {
+                history.add(indexedHistory.get(indexedIndex++));
+            }
+        }
+        return history;
+    }
+
+    private void load() {
+        if ((indexFile == null) || !indexFile.isFile()) {
+            return;
+        }
+        try {
+            final IndexContent content = OBJECT_MAPPER.readValue(indexFile, IndexContent.class);
+            if (testDefinitionsDirectory.equals(content.getTestDefinitionsDirectory())
+                    && (content.getHistories() != null)) {
+                indexedHead = ObjectId.fromString(content.getHead());
+                histories = content.getHistories();
+            }
+        } catch (final IOException | RuntimeException e) {
+            // the history is parsed again
+            LOGGER.warn("Failed to read git history index " + indexFile, e);
+        }
+    }
+
+    private void save() {
+        if ((indexFile == null) || (indexedHead == null)) {
+            return;
+        }
+        try {
+            final File tempFile =
+                    File.createTempFile(INDEX_FILENAME, ".tmp", indexFile.getParentFile());
+            try {
+                OBJECT_MAPPER.writeValue(
+                        tempFile,
+                        new IndexContent(
+                                indexedHead.name(), testDefinitionsDirectory, histories));
+                Files.move(
+                        tempFile.toPath(),
+                        indexFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        } catch (final IOException e) {
+            // the index is still used in memory
+            LOGGER.warn("Failed to write git history index " + indexFile, e);
+        }
+    }
+
+    private static class IndexContent {
+        private final String head;
+        private final String testDefinitionsDirectory;
+        private final Map<String, List<Revision>> histories;
+
+        @JsonCreator
+        IndexContent(
+                @JsonProperty("head") final String head,
+                @JsonProperty("testDefinitionsDirectory") final String testDefinitionsDirectory,
+                @JsonProperty("histories") final Map<String, List<Revision>> histories) {
+            this.head = head;
+            this.testDefinitionsDirectory = testDefinitionsDirectory;
+            this.histories = histories;
+        }
+
+        public String getHead() {
+            return head;
+        }
+
+        public String getTestDefinitionsDirectory() {
+            return testDefinitionsDirectory;
+        }
+
+        public Map<String, List<Revision>> getHistories() {
+            return histories;
+        }
+    }
+}
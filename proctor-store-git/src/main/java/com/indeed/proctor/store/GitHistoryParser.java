@@ -4,12 +4,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -17,16 +17,15 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
@@ -44,8 +43,15 @@ class GitHistoryParser {
     private final DiffFormatter diffFormatter;
     private final Pattern testNamePattern;
 
-    private static final Cache<String, List<DiffEntry>> DIFF_ENTRIES_CACHE =
-            CacheBuilder.newBuilder().build();
+    /** bound of the number of paths in CHANGED_PATHS_CACHE */
+    private static final long MAX_CACHED_CHANGED_PATHS = 1_000_000;
+
+    /** changed paths of commits to their first parent, independent of the definition directory */
+    private static final Cache<String, List<String>> CHANGED_PATHS_CACHE =
+            CacheBuilder.newBuilder()
+                    .maximumWeight(MAX_CACHED_CHANGED_PATHS)
+                    .weigher((String commit, List<String> paths) -> paths.size() + 1)
+                    .build();
 
     private GitHistoryParser(
             final RevWalk revWalk,
@@ -58,55 +64,74 @@ class GitHistoryParser {
 
     /** @return a map of testnames and git commits making changes to given tests */
     Map<String, List<Revision>> parseFromHead(final ObjectId head) throws IOException {
+        return parseFromHead(head, null);
+    }
+
+    /**
+     * @param base if not null, commits reachable from base are skipped, e.g. because they are
+     *     already in a {@link GitHistoryIndex}
+     * @return a map of testnames and git commits reachable from head but not from base making
+     *     changes to given tests
+     */
+    Map<String, List<Revision>> parseFromHead(final ObjectId head, @Nullable final ObjectId base)
+            throws IOException {
         final Map<String, List<Revision>> histories =
-                newHashMapWithExpectedSize(EXPECTED_NUMBER_ACTIVE_TESTS);
-        final Set<ObjectId> visited = Sets.newHashSet();
-        final Queue<RevCommit> queue = new LinkedList<>();
-        queue.add(revWalk.parseCommit(head));
+                newHashMapWithExpectedSize(base == null ? EXPECTED_NUMBER_ACTIVE_TESTS : 16);
         final long start = System.currentTimeMillis();
-        while (!queue.isEmpty()) {
-            parseCommit(queue.poll(), histories, visited, queue);
+        revWalk.reset();
+        revWalk.markStart(revWalk.parseCommit(head));
+        if (base != null) {
+            revWalk.markUninteresting(revWalk.parseCommit(base));
+        }
+        int numCommits = 0;
+        for (final RevCommit commit : revWalk) {
+            parseCommit(commit, histories);
+            numCommits++;
         }
         final long middle = System.currentTimeMillis();
         sortByDate(histories);
         final long end = System.currentTimeMillis();
         LOGGER.info(
                 String.format(
-                        "Took %d ms to parse, %d ms to sort revisions in chronological order",
-                        middle - start, end - middle));
+                        "Took %d ms to parse %d commits, %d ms to sort revisions in chronological"
+                                + " order",
+                        middle - start, numCommits, end - middle));
         return histories;
     }
 
+    /** @return true if ancestor exists and is reachable from head */
+    boolean isAncestor(final ObjectId ancestor, final ObjectId head) throws IOException {
+        try {
+            return revWalk.isMergedInto(revWalk.parseCommit(ancestor), revWalk.parseCommit(head));
+        } catch (final MissingObjectException e) {
+            return false;
+        } finally {
+            revWalk.reset();
+        }
+    }
+
     /** @return a revision details for a single revision */
     @Nonnull
     RevisionDetails parseRevisionDetails(final ObjectId revisionId) throws IOException {
         final RevCommit commit = revWalk.parseCommit(revisionId);
+        revWalk.parseBody(commit);
         final Revision revision = createRevisionFromCommit(commit);
         final Set<String> modifiedTests = getModifiedTests(commit);
         return new RevisionDetails(revision, modifiedTests);
     }
 
     /** Add a commit to all histories of all tests modified by this commit */
-    private void parseCommit(
-            final RevCommit commit,
-            final Map<String, List<Revision>> histories,
-            final Set<ObjectId> visited,
-            final Queue<RevCommit> queue)
+    private void parseCommit(final RevCommit commit, final Map<String, List<Revision>> histories)
             throws IOException {
-        if (!visited.add(commit.getId())) {
+        final Set<String> modifiedTests = getModifiedTests(commit);
+        if (modifiedTests.isEmpty()) {
             return;
         }
-
-        final Set<String> modifiedTests = getModifiedTests(commit);
+        // walks with a base dispose the bodies of uninteresting commits, which this walk may revisit
+        revWalk.parseBody(commit);
+        final Revision revision = createRevisionFromCommit(commit);
         for (final String testName : modifiedTests) {
-            final List<Revision> history =
-                    histories.computeIfAbsent(testName, x -> new ArrayList<>());
-            history.add(createRevisionFromCommit(commit));
-        }
-
-        final RevCommit[] parents = commit.getParents();
-        for (final RevCommit parent : parents) {
-            queue.add(revWalk.parseCommit(parent.getId()));
+            histories.computeIfAbsent(testName, x -> new ArrayList<>()).add(revision);
         }
     }
 
@@ -116,12 +141,7 @@ class GitHistoryParser {
         if (parents.length == 1) { // merge commit if length > 1
             final RevCommit parent = revWalk.parseCommit(parents[0].getId());
             // get diff of this commit to its parent, as list of paths
-            final List<DiffEntry> diffs = getDiffEntries(commit, parent);
-            for (final DiffEntry diff : diffs) {
-                final String changePath =
-                        diff.getChangeType().equals(DiffEntry.ChangeType.DELETE)
-                                ? diff.getOldPath()
-                                : diff.getNewPath();
+            for (final String changePath : getChangedPaths(commit, parent)) {
                 final Matcher testNameMatcher = testNamePattern.matcher(changePath);
 
                 if (testNameMatcher.matches()) {
@@ -133,11 +153,23 @@ class GitHistoryParser {
         return result;
     }
 
-    private List<DiffEntry> getDiffEntries(final RevCommit commit, final RevCommit parent)
+    private List<String> getChangedPaths(final RevCommit commit, final RevCommit parent)
             throws IOException {
         try {
-            return DIFF_ENTRIES_CACHE.get(
-                    commit.getName(), () -> diffFormatter.scan(parent.getTree(), commit.getTree()));
+            return CHANGED_PATHS_CACHE.get(
+                    commit.getName(),
+                    () -> {
+                        final List<DiffEntry> diffs =
+                                diffFormatter.scan(parent.getTree(), commit.getTree());
+                        final List<String> paths = new ArrayList<>(diffs.size());
+                        for (final DiffEntry diff : diffs) {
+                            paths.add(
+                                    diff.getChangeType().equals(DiffEntry.ChangeType.DELETE)
+                                            ? diff.getOldPath()
+                                            : diff.getNewPath());
+                        }
+                        return paths;
+                    });
         } catch (final ExecutionException e) {
             Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
             throw Throwables.propagate(e.getCause());
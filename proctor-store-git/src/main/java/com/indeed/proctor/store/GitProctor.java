@@ -40,8 +40,10 @@ public class GitProctor extends FileBasedProctorStore {
                     metadata.json
     */
 
+    private final AbstractGitProctorCore gitCore;
     private final Git git;
     @Nullable private final String branchName;
+    private final GitHistoryIndex historyIndex;
 
     public GitProctor(
             final String gitPath,
@@ -90,9 +92,48 @@ public class GitProctor extends FileBasedProctorStore {
             final GitProctorCore core,
             final String testDefinitionsDirectory,
             @Nullable final String branchName) {
-        super(core, testDefinitionsDirectory);
+        this(core, testDefinitionsDirectory, branchName, 1);
+    }
+
+    /**
+     * @param core a core with a defined remote and defined local working directory
+     * @param testDefinitionsDirectory where test definitions are located inside the local git
+     *     repository
+     * @param branchName stay on this branch if not null, else default branch from remote
+     * @param loadingThreads number of threads to load test definitions of a test matrix
+     */
+    public GitProctor(
+            final GitProctorCore core,
+            final String testDefinitionsDirectory,
+            @Nullable final String branchName,
+            final int loadingThreads) {
+        this((AbstractGitProctorCore) core, testDefinitionsDirectory, branchName, loadingThreads);
+    }
+
+    /**
+     * @param core a core with a defined remote and local repository, e.g. {@link GitProctorCore}
+     *     with a working directory or {@link GitBareProctorCore} with a bare repository
+     * @param testDefinitionsDirectory where test definitions are located inside the local git
+     *     repository
+     * @param branchName stay on this branch if not null, else default branch from remote
+     * @param loadingThreads number of threads to load test definitions of a test matrix
+     */
+    public GitProctor(
+            final AbstractGitProctorCore core,
+            final String testDefinitionsDirectory,
+            @Nullable final String branchName,
+            final int loadingThreads) {
+        super(core, testDefinitionsDirectory, loadingThreads);
+        gitCore = core;
         git = core.getGit();
         this.branchName = branchName;
+        final File gitDirectory = git.getRepository().getDirectory();
+        historyIndex =
+                new GitHistoryIndex(
+                        (gitDirectory == null)
+                                ? null
+                                : new File(gitDirectory, GitHistoryIndex.INDEX_FILENAME),
+                        testDefinitionsDirectory);
         if (branchName != null) {
             checkoutBranch(branchName);
         }
@@ -100,7 +141,7 @@ public class GitProctor extends FileBasedProctorStore {
 
     @Override
     public void verifySetup() throws StoreException {
-        final String refName = getGitCore().getRefName();
+        final String refName = gitCore.getRefName();
         try {
             final ObjectId branchHead = git.getRepository().resolve(refName);
             if (branchHead == null) {
@@ -111,14 +152,19 @@ public class GitProctor extends FileBasedProctorStore {
         }
     }
 
+    /**
+     * @deprecated fails with ClassCastException for a store using another core, e.g. {@link
+     *     GitBareProctorCore}. Keep a reference to the core passed to the constructor instead
+     */
+    @Deprecated
     protected GitProctorCore getGitCore() {
         return (GitProctorCore) core;
     }
 
     @Override
     public boolean cleanUserWorkspace(final String username) {
-        getGitCore().undoLocalChanges();
-        getGitCore().initializeRepository(false);
+        gitCore.undoLocalChanges();
+        gitCore.initializeRepository(false);
         if (this.branchName != null) {
             checkoutBranch(this.branchName);
         }
@@ -129,7 +175,7 @@ public class GitProctor extends FileBasedProctorStore {
     @Override
     public String getLatestVersion() throws StoreException {
         try {
-            final Ref branch = git.getRepository().findRef(getGitCore().getRefName());
+            final Ref branch = git.getRepository().findRef(gitCore.getRefName());
             return branch.getObjectId().name();
         } catch (final IOException e) {
             throw new StoreException(e);
@@ -141,12 +187,12 @@ public class GitProctor extends FileBasedProctorStore {
     public List<Revision> getMatrixHistory(final int start, final int limit) throws StoreException {
         final LogCommand logCommand;
         try {
-            final ObjectId branchHead = git.getRepository().resolve(getGitCore().getRefName());
+            final ObjectId branchHead = git.getRepository().resolve(gitCore.getRefName());
             logCommand = git.log().add(branchHead).setSkip(start).setMaxCount(limit);
             return getHistoryFromLogCommand(logCommand);
         } catch (final IOException e) {
             throw new StoreException(
-                    "Could not get history for starting at " + getGitCore().getRefName(), e);
+                    "Could not get history for starting at " + gitCore.getRefName(), e);
         }
     }
 
@@ -191,7 +237,7 @@ public class GitProctor extends FileBasedProctorStore {
                     "Could not get history for "
                             + test
                             + " starting at "
-                            + getGitCore().getRefName(),
+                            + gitCore.getRefName(),
                     e);
         }
     }
@@ -240,9 +286,9 @@ public class GitProctor extends FileBasedProctorStore {
             final GitHistoryParser historyParser =
                     GitHistoryParser.fromRepository(
                             git.getRepository(), getTestDefinitionsDirectory());
-            return historyParser.parseFromHead(head);
+            return historyIndex.getAllHistories(historyParser, head);
         } catch (final IOException e) {
-            throw new StoreException("Could not get history " + getGitCore().getRefName(), e);
+            throw new StoreException("Could not get history " + gitCore.getRefName(), e);
         }
     }
 
@@ -269,12 +315,12 @@ public class GitProctor extends FileBasedProctorStore {
     }
 
     public void checkoutBranch(final String branchName) {
-        getGitCore().checkoutBranch(branchName);
+        gitCore.checkoutBranch(branchName);
     }
 
     @Override
     public void refresh() throws StoreException {
-        getGitCore().refresh();
+        gitCore.refresh();
     }
 
     @Override
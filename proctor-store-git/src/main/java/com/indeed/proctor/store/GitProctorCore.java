@@ -1,13 +1,11 @@
 package com.indeed.proctor.store;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.indeed.proctor.common.Serializers;
+import com.indeed.util.varexport.Export;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -24,20 +22,12 @@ import org.eclipse.jgit.api.errors.WrongRepositoryStateException;
 import org.eclipse.jgit.errors.NoWorkTreeException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.lib.TextProgressMonitor;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
-import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.PushResult;
-import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
-import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
-import org.eclipse.jgit.treewalk.filter.PathFilter;
-import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -56,9 +46,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.indeed.proctor.store.GitProctorUtils.determineAuthorId;
-
-public class GitProctorCore implements FileBasedPersisterCore {
+public class GitProctorCore extends AbstractGitProctorCore {
     private static final Logger LOGGER = LogManager.getLogger(GitProctorCore.class);
     private static final TextProgressMonitor PROGRESS_MONITOR =
             new TextProgressMonitor(new LoggerPrintWriter(LOGGER, Level.DEBUG));
@@ -68,11 +56,9 @@ public class GitProctorCore implements FileBasedPersisterCore {
 
     private final String username;
     private final String password;
-    private final String testDefinitionsDirectory;
 
     private Git git;
     private final String gitUrl;
-    private final String refName;
     @Nullable private final String branchName;
     private final GitWorkspaceProvider workspaceProvider;
     private final ScheduledExecutorService gcExecutor;
@@ -82,6 +68,9 @@ public class GitProctorCore implements FileBasedPersisterCore {
     private final int pullPushTimeoutSeconds;
     private final int cloneTimeoutSeconds;
 
+    /** queues concurrent changes to commit and push them together, null if disabled */
+    @Nullable private volatile GitGroupCommitter groupCommitter;
+
     public GitProctorCore(
             final String gitUrl,
             final String username,
@@ -201,15 +190,14 @@ public class GitProctorCore implements FileBasedPersisterCore {
             final int cloneTimeoutSeconds,
             final boolean cleanInitialization,
             @Nullable final String branchName) {
+        super(testDefinitionsDirectory);
         this.gitUrl = gitUrl;
-        this.refName = Constants.HEAD;
         this.workspaceProvider =
                 Preconditions.checkNotNull(
                         workspaceProvider, "GitWorkspaceProvider should not be null");
         this.username = username;
         this.password = password;
         user = new UsernamePasswordCredentialsProvider(username, password);
-        this.testDefinitionsDirectory = testDefinitionsDirectory;
         gcExecutor = Executors.newSingleThreadScheduledExecutor();
         this.pullPushTimeoutSeconds = pullPushTimeoutSeconds;
         this.cloneTimeoutSeconds = cloneTimeoutSeconds;
@@ -251,6 +239,7 @@ public class GitProctorCore implements FileBasedPersisterCore {
         return cloneCommand.call();
     }
 
+    @Override
     void initializeRepository(final boolean cleanInitialization) {
         final File workingDir = workspaceProvider.getRootDirectory();
         final File gitDirectory = new File(workingDir, ".git");
@@ -325,57 +314,41 @@ public class GitProctorCore implements FileBasedPersisterCore {
                 TimeUnit.HOURS);
     }
 
-    @Override
-    @Nullable
-    public <C> C getFileContents(
-            final Class<C> c,
-            final String[] path,
-            @Nullable final C defaultValue,
-            final String revision)
-            throws StoreException.ReadException, JsonProcessingException {
-        try {
-            if (!ObjectId.isId(revision)) {
-                throw new StoreException.ReadException("Malformed id " + revision);
-            }
-            final ObjectId blobOrCommitId = ObjectId.fromString(revision);
-
-            final ObjectLoader loader = git.getRepository().open(blobOrCommitId);
-
-            if (loader.getType() == Constants.OBJ_COMMIT) {
-                // look up the file at this revision
-                final RevCommit commit = RevCommit.parse(loader.getCachedBytes());
-
-                final TreeWalk treeWalk2 = new TreeWalk(git.getRepository());
-                treeWalk2.addTree(commit.getTree());
-                treeWalk2.setRecursive(true);
-                final String joinedPath = String.join("/", path);
-                treeWalk2.setFilter(PathFilter.create(joinedPath));
-
-                if (!treeWalk2.next()) {
-                    // it did not find expected file `joinPath` so return default value
-                    return defaultValue;
-                }
-                final ObjectId blobId = treeWalk2.getObjectId(0);
-                return getFileContents(c, blobId);
-            } else if (loader.getType() == Constants.OBJ_BLOB) {
-                return getFileContents(c, blobOrCommitId);
-            } else {
-                throw new StoreException.ReadException(
-                        "Invalid Object Type " + loader.getType() + " for id " + revision);
-            }
-        } catch (final IOException e) {
-            throw new StoreException.ReadException(e);
+    public boolean cleanWorkingDirectory() {
+        return workspaceProvider.cleanWorkingDirectory();
+    }
+
+    /**
+     * Enables committing changes in groups. Changes submitted within the window after a first
+     * change are applied as a chain of commits and pushed once, instead of pulling and pushing
+     * for each change while holding the lock of the working directory.
+     *
+     * @param windowMillis time to wait for more changes before committing, 0 to disable
+     */
+    public void setGroupCommitWindowMillis(final long windowMillis) {
+        Preconditions.checkArgument(windowMillis >= 0, "window should not be negative");
+        final GitGroupCommitter previous = groupCommitter;
+        groupCommitter =
+                (windowMillis > 0)
+                        ? new GitGroupCommitter(windowMillis, this::doInWorkingDirectory)
+                        : null;
+        if (previous != null) {
+            previous.close();
         }
     }
 
-    private <C> C getFileContents(final Class<C> c, final ObjectId blobId) throws IOException {
-        final ObjectLoader loader = git.getRepository().open(blobId);
-        final ObjectMapper mapper = Serializers.lenient();
-        return mapper.readValue(loader.getBytes(), c);
+    @Export(
+            name = "group-commit-batches",
+            doc = "Number of batches of changes committed and pushed together")
+    public long getGroupCommitBatchCount() {
+        final GitGroupCommitter committer = groupCommitter;
+        return (committer == null) ? 0 : committer.getBatchCount();
     }
 
-    public boolean cleanWorkingDirectory() {
-        return workspaceProvider.cleanWorkingDirectory();
+    @Export(name = "group-commit-changes", doc = "Number of changes committed in batches")
+    public long getGroupCommitChangeCount() {
+        final GitGroupCommitter committer = groupCommitter;
+        return (committer == null) ? 0 : committer.getChangeCount();
     }
 
     /**
@@ -444,6 +417,11 @@ public class GitProctorCore implements FileBasedPersisterCore {
             final String previousVersion,
             final FileBasedProctorStore.ProctorUpdater updater)
             throws StoreException.TestUpdateException {
+        final GitGroupCommitter committer = groupCommitter;
+        if (committer != null) {
+            committer.commit(changeMetadata, updater);
+            return;
+        }
         final UsernamePasswordCredentialsProvider user =
                 new UsernamePasswordCredentialsProvider(username, password);
         final File workingDir = workspaceProvider.getRootDirectory();
@@ -453,112 +431,221 @@ public class GitProctorCore implements FileBasedPersisterCore {
                     @Override
                     public Void call() throws StoreException.TestUpdateException {
                         try {
-                            git = Git.open(workingDir);
-                            final PullResult pullResult =
-                                    git.pull()
-                                            .setProgressMonitor(PROGRESS_MONITOR)
-                                            .setRebase(true)
-                                            .setCredentialsProvider(user)
-                                            .setTimeout(pullPushTimeoutSeconds)
-                                            .call();
-                            if (!pullResult.isSuccessful()) {
-                                LOGGER.info(
-                                        "Failed to pull from the remote repository. Running undo local changes");
-                                undoLocalChanges();
+                            pullBeforeUpdate(user, workingDir);
+                            if (applyAndCommit(changeMetadata, updater, workingDir)) {
+                                push(user);
                             }
-                            final FileBasedProctorStore.RcsClient rcsClient =
-                                    new GitRcsClient(git, testDefinitionsDirectory);
-                            final boolean thingsChanged;
-                            thingsChanged = updater.doInWorkingDirectory(rcsClient, workingDir);
-                            if (thingsChanged) {
-                                final Set<String> stagedTests = parseStagedTestNames();
-                                if (LOGGER.isDebugEnabled()) {
-                                    LOGGER.debug(
-                                            "Staged tests are " + String.join(",", stagedTests));
-                                }
-                                if (stagedTests != null && stagedTests.size() >= 2) {
-                                    LOGGER.error(
-                                            "Multiple tests are going to be modified at the one commit : "
-                                                    + String.join(",", stagedTests));
-                                    throw new IllegalStateException(
-                                            "Another test are staged unintentionally due to invalid local git state");
-                                } else if (stagedTests != null && stagedTests.isEmpty()) {
-                                    LOGGER.warn(
-                                            "Failed to parse staged test names or no test files aren't staged");
-                                }
+                        } catch (final Exception e) {
+                            undoLocalChanges();
+                            throw toTestUpdateException(e);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Applies a batch of changes queued by the group committer with a single pull and push. Each
+     * change gets its own commit on top of the previous one. A change failing to apply is reset
+     * and fails alone, while a failure to pull or push fails all changes committed in the batch.
+     * If the working directory can't be reset after a failed change, the changes committed so far
+     * are still pushed, and the remaining changes fail without being applied.
+     */
+    private void doInWorkingDirectory(final List<GitGroupCommitter.PendingChange> changes)
+            throws StoreException.TestUpdateException {
+        final UsernamePasswordCredentialsProvider user =
+                new UsernamePasswordCredentialsProvider(username, password);
+        final File workingDir = workspaceProvider.getRootDirectory();
 
-                                git.commit()
-                                        .setCommitter(
-                                                new PersonIdent(
-                                                        username,
-                                                        username,
-                                                        Date.from(changeMetadata.getTimestamp()),
-                                                        TimeZone.getTimeZone("UTC")))
-                                        .setAuthor(
-                                                new PersonIdent(
-                                                        changeMetadata.getAuthor(),
-                                                        changeMetadata.getAuthor(),
-                                                        Date.from(changeMetadata.getTimestamp()),
-                                                        TimeZone.getTimeZone("UTC")))
-                                        .setMessage(changeMetadata.getComment())
-                                        .call();
-
-                                final Iterable<PushResult> pushResults =
-                                        git.push()
-                                                .setProgressMonitor(PROGRESS_MONITOR)
-                                                .setCredentialsProvider(user)
-                                                .setTimeout(pullPushTimeoutSeconds)
-                                                .call();
-                                // jgit doesn't throw an exception for certain kinds of push
-                                // failures - explicitly check the result
-                                for (final PushResult pushResult : pushResults) {
-                                    for (final RemoteRefUpdate remoteRefUpdate :
-                                            pushResult.getRemoteUpdates()) {
-                                        switch (remoteRefUpdate.getStatus()) {
-                                            case OK:
-                                                continue;
-                                            case REJECTED_NONFASTFORWARD:
-                                                throw new IllegalStateException(
-                                                        "Non-fast-forward push - there have likely been other commits made since starting. Confirm the latest state and try again.");
-                                            default:
-                                                final String message;
-                                                if (StringUtils.isNotEmpty(
-                                                        remoteRefUpdate.getMessage())) {
-                                                    message = remoteRefUpdate.getMessage();
-                                                } else {
-                                                    message =
-                                                            "Non-success push status: "
-                                                                    + remoteRefUpdate
-                                                                            .getStatus()
-                                                                            .toString();
-                                                }
-                                                throw new IllegalStateException(message);
-                                        }
+        workspaceProvider.synchronizedUpdateOperation(
+                new GitProctorCallable<Void>() {
+                    @Override
+                    public Void call() throws StoreException.TestUpdateException {
+                        final List<GitGroupCommitter.PendingChange> committed =
+                                Lists.newArrayList();
+                        boolean resetFailed = false;
+                        try {
+                            pullBeforeUpdate(user, workingDir);
+                            ObjectId committedHead = git.getRepository().resolve(Constants.HEAD);
+                            for (final GitGroupCommitter.PendingChange change : changes) {
+                                if (resetFailed) {
+                                    change.fail(
+                                            new StoreException.TestUpdateException(
+                                                    "Core: Unable to perform operation: working"
+                                                            + " directory could not be reset after"
+                                                            + " a failed change"));
+                                    continue;
+                                }
+                                try {
+                                    if (applyAndCommit(
+                                            change.getChangeMetadata(),
+                                            change.getUpdater(),
+                                            workingDir)) {
+                                        committed.add(change);
+                                        committedHead =
+                                                git.getRepository().resolve(Constants.HEAD);
+                                    } else {
+                                        change.succeed();
                                     }
+                                } catch (final Exception e) {
+                                    change.fail(toTestUpdateException(e));
+                                    resetFailed = !resetAfterFailedChange(committedHead);
+                                }
+                            }
+                            if (!committed.isEmpty()) {
+                                if (resetFailed) {
+                                    // HEAD may not be the last commit of the batch
+                                    push(user, committedHead);
+                                } else {
+                                    push(user);
                                 }
                             }
-                        } catch (final GitAPIException e) {
-                            undoLocalChanges();
-                            throw gitAPIExceptionWrapper.wrapException(
-                                    new StoreException.TestUpdateException(
-                                            "Core: Unable to commit/push changes: "
-                                                    + e.getMessage(),
-                                            e));
-                        } catch (final IllegalStateException e) {
-                            undoLocalChanges();
-                            throw gitAPIExceptionWrapper.wrapException(
-                                    new StoreException.TestUpdateException(
-                                            "Core: Unable to push changes: " + e.getMessage(), e));
                         } catch (final Exception e) {
                             undoLocalChanges();
-                            throw new StoreException.TestUpdateException(
-                                    "Core: Unable to perform operation: " + e.getMessage(), e);
+                            final StoreException.TestUpdateException exception =
+                                    toTestUpdateException(e);
+                            for (final GitGroupCommitter.PendingChange change : changes) {
+                                if (!change.isDone()) {
+                                    change.fail(exception);
+                                }
+                            }
+                            return null;
+                        }
+                        if (resetFailed) {
+                            // resets to the remote branch, which includes the pushed commits
+                            undoLocalChanges();
                         }
+                        committed.forEach(GitGroupCommitter.PendingChange::succeed);
                         return null;
                     }
                 });
     }
 
+    /**
+     * Discards changes of a failed change of a batch, keeping commits of previous changes
+     *
+     * @return false if the working directory could not be reset
+     */
+    private boolean resetAfterFailedChange(final ObjectId committedHead) {
+        LOGGER.info("Failed to apply a change of a batch, resetting to " + committedHead.getName());
+        try {
+            git.reset().setMode(ResetType.HARD).setRef(committedHead.getName()).call();
+            git.clean().setCleanDirectories(true).call();
+            return true;
+        } catch (final Exception e) {
+            LOGGER.error("Unable to reset to " + committedHead.getName(), e);
+            return false;
+        }
+    }
+
+    private void pullBeforeUpdate(
+            final UsernamePasswordCredentialsProvider user, final File workingDir)
+            throws GitAPIException, IOException {
+        git = Git.open(workingDir);
+        final PullResult pullResult =
+                git.pull()
+                        .setProgressMonitor(PROGRESS_MONITOR)
+                        .setRebase(true)
+                        .setCredentialsProvider(user)
+                        .setTimeout(pullPushTimeoutSeconds)
+                        .call();
+        if (!pullResult.isSuccessful()) {
+            LOGGER.info("Failed to pull from the remote repository. Running undo local changes");
+            undoLocalChanges();
+        }
+    }
+
+    /**
+     * Runs the updater in the working directory and commits staged changes
+     *
+     * @return true if anything changed and was committed
+     */
+    private boolean applyAndCommit(
+            final ChangeMetadata changeMetadata,
+            final FileBasedProctorStore.ProctorUpdater updater,
+            final File workingDir)
+            throws Exception {
+        final FileBasedProctorStore.RcsClient rcsClient =
+                new GitRcsClient(git, testDefinitionsDirectory);
+        final boolean thingsChanged = updater.doInWorkingDirectory(rcsClient, workingDir);
+        if (!thingsChanged) {
+            return false;
+        }
+        final Set<String> stagedTests = parseStagedTestNames();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Staged tests are " + String.join(",", stagedTests));
+        }
+        if (stagedTests != null && stagedTests.size() >= 2) {
+            LOGGER.error(
+                    "Multiple tests are going to be modified at the one commit : "
+                            + String.join(",", stagedTests));
+            throw new IllegalStateException(
+                    "Another test are staged unintentionally due to invalid local git state");
+        } else if (stagedTests != null && stagedTests.isEmpty()) {
+            LOGGER.warn("Failed to parse staged test names or no test files aren't staged");
+        }
+
+        git.commit()
+                .setCommitter(
+                        new PersonIdent(
+                                username,
+                                username,
+                                Date.from(changeMetadata.getTimestamp()),
+                                TimeZone.getTimeZone("UTC")))
+                .setAuthor(
+                        new PersonIdent(
+                                changeMetadata.getAuthor(),
+                                changeMetadata.getAuthor(),
+                                Date.from(changeMetadata.getTimestamp()),
+                                TimeZone.getTimeZone("UTC")))
+                .setMessage(changeMetadata.getComment())
+                .call();
+        return true;
+    }
+
+    private void push(final UsernamePasswordCredentialsProvider user) throws GitAPIException {
+        final Iterable<PushResult> pushResults =
+                git.push()
+                        .setProgressMonitor(PROGRESS_MONITOR)
+                        .setCredentialsProvider(user)
+                        .setTimeout(pullPushTimeoutSeconds)
+                        .call();
+        checkPushResults(pushResults);
+    }
+
+    /** pushes the commit to the current branch of the remote repository */
+    private void push(final UsernamePasswordCredentialsProvider user, final ObjectId commit)
+            throws GitAPIException, IOException {
+        final Iterable<PushResult> pushResults =
+                git.push()
+                        .setProgressMonitor(PROGRESS_MONITOR)
+                        .setCredentialsProvider(user)
+                        .setTimeout(pullPushTimeoutSeconds)
+                        .setRefSpecs(
+                                new RefSpec(
+                                        commit.getName()
+                                                + ":"
+                                                + Constants.R_HEADS
+                                                + git.getRepository().getBranch()))
+                        .call();
+        checkPushResults(pushResults);
+    }
+
+    private StoreException.TestUpdateException toTestUpdateException(final Exception e) {
+        if (e instanceof GitAPIException) {
+            return gitAPIExceptionWrapper.wrapException(
+                    new StoreException.TestUpdateException(
+                            "Core: Unable to commit/push changes: " + e.getMessage(), e));
+        } else if (e instanceof IllegalStateException) {
+            return gitAPIExceptionWrapper.wrapException(
+                    new StoreException.TestUpdateException(
+                            "Core: Unable to push changes: " + e.getMessage(), e));
+        } else {
+            return new StoreException.TestUpdateException(
+                    "Core: Unable to perform operation: " + e.getMessage(), e);
+        }
+    }
+
     @Nullable
     @VisibleForTesting
     static String parseTestName(final String testDefinitionsDirectory, final String filePath) {
@@ -591,6 +678,7 @@ public class GitProctorCore implements FileBasedPersisterCore {
     }
 
     /** Performs git reset --hard and git clean -fd to undo local changes. */
+    @Override
     void undoLocalChanges() {
 
         workspaceProvider.synchronizedOperation(
@@ -627,53 +715,6 @@ public class GitProctorCore implements FileBasedPersisterCore {
     }
 
     @Override
-    public TestVersionResult determineVersions(final String fetchRevision)
-            throws StoreException.ReadException {
-        try {
-            final RevWalk walk = new RevWalk(git.getRepository());
-            final ObjectId commitId = ObjectId.fromString(fetchRevision);
-            final RevCommit headTree = walk.parseCommit(commitId);
-            final RevTree tree = headTree.getTree();
-
-            // now use a TreeWalk to iterate over all files in the Tree recursively
-            // you can set Filters to narrow down the results if needed
-            final TreeWalk treeWalk = new TreeWalk(git.getRepository());
-            treeWalk.addTree(tree);
-            treeWalk.setFilter(
-                    AndTreeFilter.create(
-                            PathFilter.create(testDefinitionsDirectory),
-                            PathSuffixFilter.create("definition.json")));
-            treeWalk.setRecursive(true);
-
-            final List<TestVersionResult.Test> tests = Lists.newArrayList();
-            while (treeWalk.next()) {
-                final ObjectId id = treeWalk.getObjectId(0);
-                // final RevTree revTree = walk.lookupTree(id);
-
-                final String path = treeWalk.getPathString();
-                final String[] pieces = path.split("/");
-                final String testname = pieces[pieces.length - 2]; // tree / parent directory name
-
-                // testname, blobid pair
-                // note this is the blobid hash - not a commit hash
-                // RevTree.id and RevBlob.id
-                tests.add(new TestVersionResult.Test(testname, id.name()));
-            }
-
-            walk.dispose();
-            return new TestVersionResult(
-                    tests,
-                    new Date(
-                            Long.valueOf(headTree.getCommitTime())
-                                    * 1000 /* convert seconds to milliseconds */),
-                    determineAuthorId(headTree),
-                    headTree.toObjectId().getName(),
-                    headTree.getFullMessage());
-        } catch (final IOException e) {
-            throw new StoreException.ReadException(e);
-        }
-    }
-
     public void checkoutBranch(final String branchName) {
         Preconditions.checkArgument(
                 StringUtils.isEmpty(this.branchName) || this.branchName.equals(branchName),
@@ -702,29 +743,25 @@ public class GitProctorCore implements FileBasedPersisterCore {
                 });
     }
 
+    @Override
     Git getGit() {
         return git;
     }
 
-    String getRefName() {
-        return refName;
-    }
-
     String getGitUrl() {
         return gitUrl;
     }
 
     @Override
     public void close() throws IOException {
+        final GitGroupCommitter committer = groupCommitter;
+        if (committer != null) {
+            committer.close();
+        }
         // Is this ThreadSafe ?
         git.getRepository().close();
     }
 
-    @Override
-    public String getAddTestRevision() {
-        return ObjectId.zeroId().name();
-    }
-
     public class GitGcTask implements Runnable {
 
         @Override
@@ -748,6 +785,7 @@ public class GitProctorCore implements FileBasedPersisterCore {
         }
     }
 
+    @Override
     public void refresh() {
         workspaceProvider.synchronizedOperation(
                 new Callable<Void>() {
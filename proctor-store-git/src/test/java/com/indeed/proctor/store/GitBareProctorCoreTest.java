@@ -0,0 +1,206 @@
+package com.indeed.proctor.store;
+
+import com.google.common.collect.ImmutableList;
+import com.indeed.proctor.common.model.Allocation;
+import com.indeed.proctor.common.model.Range;
+import com.indeed.proctor.common.model.TestBucket;
+import com.indeed.proctor.common.model.TestDefinition;
+import com.indeed.proctor.common.model.TestType;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.assertj.core.groups.Tuple;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GitBareProctorCoreTest {
+    @Rule public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private Git remoteGit;
+    private Git seedGit;
+    private File repositoryDirectory;
+    private GitProctor gitProctor;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        final File remoteDirectory = testFolder.newFolder("remote.git");
+        remoteGit = Git.init().setBare(true).setDirectory(remoteDirectory).call();
+        final String gitUrl = remoteDirectory.toURI().toString();
+
+        // initial commit is required to initialize the store
+        final File seedDirectory = testFolder.newFolder("seed");
+        seedGit = Git.cloneRepository().setURI(gitUrl).setDirectory(seedDirectory).call();
+        commitAndPush("README", "initial commit");
+
+        repositoryDirectory = new File(testFolder.getRoot(), "bare");
+        gitProctor =
+                new GitProctor(
+                        new GitBareProctorCore(
+                                gitUrl,
+                                "",
+                                "",
+                                FileBasedProctorStore.DEFAULT_TEST_DEFINITIONS_DIRECTORY,
+                                repositoryDirectory),
+                        FileBasedProctorStore.DEFAULT_TEST_DEFINITIONS_DIRECTORY,
+                        null,
+                        1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        gitProctor.close();
+        seedGit.close();
+        remoteGit.close();
+    }
+
+    @Test
+    public void testAddUpdateDeleteTestDefinitions() throws Exception {
+        addTestDefinition("proc_tst", "author", "add a new test", DEFINITION_A);
+        addTestDefinition("proc_another_tst", "author", "add another", DEFINITION_B);
+        gitProctor.updateTestDefinition(
+                ChangeMetadata.builder().setAuthor("editor").setComment("edit a test").build(),
+                "",
+                "proc_tst",
+                DEFINITION_B,
+                Collections.emptyMap());
+        gitProctor.deleteTestDefinition(
+                ChangeMetadata.builder().setAuthor("editor").setComment("delete a test").build(),
+                "",
+                "proc_another_tst",
+                DEFINITION_B);
+
+        assertThat(gitProctor.getCurrentTestMatrix().getTestMatrixDefinition().getTests())
+                .hasSize(1)
+                .containsEntry("proc_tst", DEFINITION_B);
+        assertThat(gitProctor.getHistory("proc_tst", 0, 3))
+                .extracting(Revision::getAuthor, Revision::getMessage)
+                .containsExactly(
+                        Tuple.tuple("editor", "edit a test"),
+                        Tuple.tuple("author", "add a new test"));
+
+        // pushed to the remote repository
+        final RevCommit remoteHead = remoteGit.log().call().iterator().next();
+        assertThat(remoteHead.getFullMessage()).isEqualTo("delete a test");
+        assertThat(remoteHead.getName()).isEqualTo(gitProctor.getLatestVersion());
+
+        // no files are checked out in the local repository
+        try (final Git localGit = Git.open(repositoryDirectory)) {
+            assertThat(localGit.getRepository().isBare()).isTrue();
+        }
+        assertThat(
+                        new File(
+                                repositoryDirectory,
+                                FileBasedProctorStore.DEFAULT_TEST_DEFINITIONS_DIRECTORY))
+                .doesNotExist();
+    }
+
+    @Test
+    public void testCommitOnTopOfRemoteChanges() throws Exception {
+        final String remoteRevision = commitAndPush("README", "changed by someone else");
+
+        addTestDefinition("proc_tst", "author", "add a new test", DEFINITION_A);
+
+        final RevCommit remoteHead = remoteGit.log().call().iterator().next();
+        assertThat(remoteHead.getFullMessage()).isEqualTo("add a new test");
+        assertThat(remoteHead.getParent(0).getName()).isEqualTo(remoteRevision);
+        try (final TreeWalk treeWalk =
+                TreeWalk.forPath(remoteGit.getRepository(), "README", remoteHead.getTree())) {
+            assertThat(treeWalk).isNotNull();
+        }
+    }
+
+    @Test
+    public void testFailedUpdateIsNotCommitted() throws Exception {
+        final String latestVersion = gitProctor.getLatestVersion();
+
+        assertThatThrownBy(
+                        () ->
+                                gitProctor.updateTestDefinition(
+                                        ChangeMetadata.builder()
+                                                .setAuthor("author")
+                                                .setComment("edit a missing test")
+                                                .build(),
+                                        "",
+                                        "proc_missing_tst",
+                                        DEFINITION_A,
+                                        Collections.emptyMap()))
+                .isInstanceOf(StoreException.TestUpdateException.class);
+
+        assertThat(gitProctor.getLatestVersion()).isEqualTo(latestVersion);
+        assertThat(remoteGit.getRepository().resolve(Constants.HEAD).getName())
+                .isEqualTo(latestVersion);
+    }
+
+    @Test
+    public void testFailedCloneThrows() {
+        final File missingRemote = new File(testFolder.getRoot(), "missing.git");
+        assertThatThrownBy(
+                        () ->
+                                new GitBareProctorCore(
+                                        missingRemote.toURI().toString(),
+                                        "",
+                                        "",
+                                        FileBasedProctorStore.DEFAULT_TEST_DEFINITIONS_DIRECTORY,
+                                        new File(testFolder.getRoot(), "another")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(missingRemote.toURI().toString());
+    }
+
+    private void addTestDefinition(
+            final String testName,
+            final String author,
+            final String message,
+            final TestDefinition definition)
+            throws StoreException {
+        gitProctor.addTestDefinition(
+                ChangeMetadata.builder().setAuthor(author).setComment(message).build(),
+                testName,
+                definition,
+                Collections.emptyMap());
+    }
+
+    private String commitAndPush(final String fileName, final String message)
+            throws IOException, GitAPIException {
+        Files.write(
+                new File(seedGit.getRepository().getWorkTree(), fileName).toPath(),
+                message.getBytes(StandardCharsets.UTF_8));
+        seedGit.add().addFilepattern(fileName).call();
+        final String revision = seedGit.commit().setMessage(message).call().getName();
+        seedGit.push().call();
+        return revision;
+    }
+
+    private static final TestDefinition DEFINITION_A = createRandomTestDefinition();
+    private static final TestDefinition DEFINITION_B = createRandomTestDefinition();
+
+    private static TestDefinition createRandomTestDefinition() {
+        return new TestDefinition(
+                "-1",
+                null,
+                TestType.ANONYMOUS_USER,
+                "&" + RandomStringUtils.randomAlphabetic(8).toLowerCase(Locale.ENGLISH),
+                ImmutableList.of(new TestBucket("inactive", -1, "")),
+                ImmutableList.of(new Allocation(null, ImmutableList.of(new Range(-1, 1.0)), "#A1")),
+                false,
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                RandomStringUtils.randomAlphabetic(8),
+                ImmutableList.of(RandomStringUtils.randomAlphabetic(8).toLowerCase()));
+    }
+}
@@ -1,5 +1,7 @@
 package com.indeed.proctor.store;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.indeed.proctor.common.model.Allocation;
@@ -27,9 +29,14 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -122,6 +129,27 @@ public class GitProctorTest {
                 .containsExactly("delete tests", revision3);
     }
 
+    @Test
+    public void testGetDefinitionOfSameBlobIsParsedOnce() throws StoreException {
+        final String revision1 =
+                addTestDefinition("proc_tst", "author", "add a new test", DEFINITION_A);
+        final String revision2 =
+                addTestDefinition("proc_another_tst", "author", "add a another", DEFINITION_B);
+        final GitProctorCore core = getGitCore();
+
+        final TestDefinition definition = gitProctor.getTestDefinition("proc_tst", revision1);
+        assertThat(definition).isEqualTo(DEFINITION_A);
+        final long misses = core.getFileContentsCacheMisses();
+        final long hits = core.getFileContentsCacheHits();
+
+        // proc_tst is unchanged in revision2
+        assertThat(gitProctor.getTestDefinition("proc_tst", revision2)).isSameAs(definition);
+        assertThat(gitProctor.getTestMatrix(revision2).getTestMatrixDefinition().getTests())
+                .containsEntry("proc_tst", definition);
+        assertThat(core.getFileContentsCacheMisses()).isEqualTo(misses + 1);
+        assertThat(core.getFileContentsCacheHits()).isEqualTo(hits + 2);
+    }
+
     @Test
     public void testHistories() throws StoreException {
         final String revision1 =
@@ -178,6 +206,79 @@ public class GitProctorTest {
                                         .containsExactly(revision2));
     }
 
+    @Test
+    public void testAllHistoriesAreIndexedIncrementally() throws StoreException, IOException {
+        final String revision1 =
+                addTestDefinition("proc_a_tst", "author1", "add a new test a", DEFINITION_A);
+        assertThat(gitProctor.getAllHistories())
+                .containsOnlyKeys("proc_a_tst")
+                .hasEntrySatisfying(
+                        "proc_a_tst",
+                        l ->
+                                assertThat(l)
+                                        .extracting(Revision::getRevision)
+                                        .containsExactly(revision1));
+
+        final File indexFile =
+                new File(
+                        getGitCore().getGit().getRepository().getDirectory(),
+                        GitHistoryIndex.INDEX_FILENAME);
+        assertThat(indexFile).isFile();
+
+        final String revision2 =
+                addTestDefinition("proc_b_tst", "author2", "add a new test b", DEFINITION_B);
+        final String revision3 =
+                updateTestDefinition("proc_a_tst", "author3", "edit a test a", DEFINITION_B);
+        assertThat(gitProctor.getAllHistories())
+                .containsOnlyKeys("proc_a_tst", "proc_b_tst")
+                .hasEntrySatisfying(
+                        "proc_a_tst",
+                        l ->
+                                assertThat(l)
+                                        .extracting(Revision::getRevision)
+                                        .containsExactly(revision3, revision1))
+                .hasEntrySatisfying(
+                        "proc_b_tst",
+                        l ->
+                                assertThat(l)
+                                        .extracting(Revision::getRevision)
+                                        .containsExactly(revision2));
+
+        // a test only in the persisted index, returned only if the index is read instead of
+        // parsing the whole history again
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final ObjectNode index = (ObjectNode) objectMapper.readTree(indexFile);
+        final ObjectNode histories = (ObjectNode) index.get("histories");
+        histories.set("proc_indexed_only_tst", histories.get("proc_b_tst"));
+        objectMapper.writeValue(indexFile, index);
+
+        final GitProctor anotherGitProctor =
+                new GitProctor(
+                        getGitCore(),
+                        FileBasedProctorStore.DEFAULT_TEST_DEFINITIONS_DIRECTORY);
+        assertThat(anotherGitProctor.getAllHistories())
+                .containsOnlyKeys("proc_a_tst", "proc_b_tst", "proc_indexed_only_tst")
+                .containsAllEntriesOf(gitProctor.getAllHistories());
+
+        // only new commits are parsed and merged into the persisted index
+        final String revision4 =
+                updateTestDefinition("proc_b_tst", "author4", "edit a test b", DEFINITION_A);
+        assertThat(anotherGitProctor.getAllHistories())
+                .containsOnlyKeys("proc_a_tst", "proc_b_tst", "proc_indexed_only_tst")
+                .hasEntrySatisfying(
+                        "proc_b_tst",
+                        l ->
+                                assertThat(l)
+                                        .extracting(Revision::getRevision)
+                                        .containsExactly(revision4, revision2))
+                .hasEntrySatisfying(
+                        "proc_indexed_only_tst",
+                        l ->
+                                assertThat(l)
+                                        .extracting(Revision::getRevision)
+                                        .containsExactly(revision2));
+    }
+
     @Test
     public void testRevisionDetails() throws StoreException, IOException, GitAPIException {
         final String revision1 =
@@ -251,6 +352,120 @@ public class GitProctorTest {
                                 comment));
     }
 
+    @Test
+    public void testConcurrentChangesWithGroupCommit() throws Exception {
+        getGitCore().setGroupCommitWindowMillis(100);
+        addTestDefinition("proc_existing_tst", "author", "add a test", DEFINITION_A);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                final String testName = "proc_tst" + i;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    gitProctor.addTestDefinition(
+                                            "",
+                                            "",
+                                            "author" + testName,
+                                            testName,
+                                            DEFINITION_A,
+                                            Collections.emptyMap(),
+                                            "add " + testName);
+                                    return null;
+                                }));
+            }
+            final Future<?> duplicate =
+                    executor.submit(
+                            () -> {
+                                gitProctor.addTestDefinition(
+                                        "",
+                                        "",
+                                        "author",
+                                        "proc_existing_tst",
+                                        DEFINITION_B,
+                                        Collections.emptyMap(),
+                                        "add an existing test");
+                                return null;
+                            });
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            assertThatThrownBy(duplicate::get)
+                    .hasCauseInstanceOf(StoreException.TestUpdateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        gitProctor.refresh();
+        assertThat(gitProctor.getCurrentTestMatrix().getTestMatrixDefinition().getTests())
+                .hasSize(4)
+                .containsEntry("proc_existing_tst", DEFINITION_A);
+        for (int i = 0; i < 3; i++) {
+            final String testName = "proc_tst" + i;
+            assertThat(gitProctor.getHistory(testName, 0, 2))
+                    .extracting(Revision::getAuthor, Revision::getMessage)
+                    .containsExactly(Tuple.tuple("author" + testName, "add " + testName));
+        }
+        assertThat(getGitCore().getGroupCommitChangeCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testFailedChangeInTheMiddleOfGroupCommit() throws Exception {
+        getGitCore().setGroupCommitWindowMillis(1000);
+        addTestDefinition("proc_existing_tst", "author", "add a test", DEFINITION_A);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // submitted one after another, so they are applied in this order in one batch
+            final Future<?> first =
+                    executor.submit(
+                            () -> {
+                                addTestDefinition(
+                                        "proc_first_tst", "author", "add first", DEFINITION_A);
+                                return null;
+                            });
+            Thread.sleep(100);
+            final Future<?> failing =
+                    executor.submit(
+                            () -> {
+                                updateTestDefinition(
+                                        "proc_missing_tst", "author", "edit missing", DEFINITION_B);
+                                return null;
+                            });
+            Thread.sleep(100);
+            final Future<?> last =
+                    executor.submit(
+                            () -> {
+                                addTestDefinition(
+                                        "proc_last_tst", "author", "add last", DEFINITION_B);
+                                return null;
+                            });
+
+            first.get();
+            last.get();
+            assertThatThrownBy(failing::get)
+                    .hasCauseInstanceOf(StoreException.TestUpdateException.class)
+                    .hasMessageContaining("proc_missing_tst");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(getGitCore().getGroupCommitBatchCount()).isEqualTo(2);
+        // pushed to the remote repository
+        final List<String> remoteMessages = new ArrayList<>();
+        git.log().call().forEach(commit -> remoteMessages.add(commit.getFullMessage()));
+        assertThat(remoteMessages).startsWith("add last", "add first", "add a test");
+        gitProctor.refresh();
+        assertThat(gitProctor.getCurrentTestMatrix().getTestMatrixDefinition().getTests())
+                .containsOnlyKeys("proc_existing_tst", "proc_first_tst", "proc_last_tst");
+    }
+
+    private GitProctorCore getGitCore() {
+        return (GitProctorCore) gitProctor.getCore();
+    }
+
     private String addTestDefinition(
             final String testName,
             final String author,
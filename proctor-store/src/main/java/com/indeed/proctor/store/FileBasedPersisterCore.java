@@ -50,7 +50,30 @@ public interface FileBasedPersisterCore extends Closeable {
             FileBasedProctorStore.ProctorUpdater updater)
             throws StoreException.TestUpdateException;
 
+    /**
+     * Same as {@link #doInWorkingDirectory(ChangeMetadata, String,
+     * FileBasedProctorStore.ProctorUpdater)} for an updater only touching files of one test, so
+     * that a core may prepare the directory of that test only.
+     */
+    default void doInWorkingDirectory(
+            final ChangeMetadata changeMetadata,
+            final String previousVersion,
+            final String testName,
+            final FileBasedProctorStore.ProctorUpdater updater)
+            throws StoreException.TestUpdateException {
+        doInWorkingDirectory(changeMetadata, previousVersion, updater);
+    }
+
     TestVersionResult determineVersions(String fetchRevision) throws StoreException.ReadException;
 
+    /**
+     * @return true if revisions of tests returned by {@link #determineVersions(String)} identify
+     *     the contents of their files, e.g. blob ids in git, so that a test loaded before with the
+     *     same revision does not need to be read again
+     */
+    default boolean hasContentAddressedRevisions() {
+        return false;
+    }
+
     String getAddTestRevision();
 }
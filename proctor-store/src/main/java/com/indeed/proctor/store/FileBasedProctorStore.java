@@ -2,7 +2,10 @@ package com.indeed.proctor.store;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.indeed.proctor.common.Serializers;
 import com.indeed.proctor.common.model.TestDefinition;
 import com.indeed.proctor.common.model.TestMatrixDefinition;
@@ -11,10 +14,18 @@ import com.indeed.util.varexport.Export;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author ketan
@@ -32,10 +43,42 @@ public abstract class FileBasedProctorStore implements ProctorStore {
 
     protected final FileBasedPersisterCore core;
 
+    /** executor to load test definitions of a test matrix in parallel, null to load serially */
+    @Nullable private final ExecutorService loadingExecutor;
+
+    /**
+     * test definitions of the last loaded test matrix by test name. If the core has content
+     * addressed revisions, e.g. blob ids for git, they are reused without parsing again when a
+     * test matrix has the same revision of a test.
+     */
+    private volatile Map<String, LoadedTestDefinition> lastLoadedDefinitions =
+            Collections.emptyMap();
+
     protected FileBasedProctorStore(
             final FileBasedPersisterCore core, final String testDefinitionsDirectory) {
+        this(core, testDefinitionsDirectory, 1);
+    }
+
+    /**
+     * @param loadingThreads number of threads to load test definitions of a test matrix, loaded
+     *     serially in the calling thread if 1
+     */
+    protected FileBasedProctorStore(
+            final FileBasedPersisterCore core,
+            final String testDefinitionsDirectory,
+            final int loadingThreads) {
+        Preconditions.checkArgument(loadingThreads > 0, "loadingThreads should be positive");
         this.core = core;
         this.testDefinitionsDirectory = testDefinitionsDirectory;
+        this.loadingExecutor =
+                (loadingThreads == 1)
+                        ? null
+                        : Executors.newFixedThreadPool(
+                                loadingThreads,
+                                new ThreadFactoryBuilder()
+                                        .setNameFormat("proctor-test-definition-loader-%d")
+                                        .setDaemon(true)
+                                        .build());
     }
 
     protected FileBasedProctorStore(final FileBasedPersisterCore core) {
@@ -119,30 +162,10 @@ public abstract class FileBasedProctorStore implements ProctorStore {
         }
         final TestMatrixVersion tmv = new TestMatrixVersion();
 
-        final Map<String, TestDefinition> testDefinitions = Maps.newLinkedHashMap();
         start = System.currentTimeMillis();
-        for (final TestVersionResult.Test testDefFile : result.getTests()) {
-            final long startForTest = System.currentTimeMillis();
-            final TestDefinition testDefinition =
-                    getTestDefinition(testDefFile.getTestName(), testDefFile.getRevision());
-            if (LOGGER.isTraceEnabled()) {
-                final long elapsed = System.currentTimeMillis() - startForTest;
-                LOGGER.trace(
-                        String.format(
-                                "Took %d ms to load %s (r%s) %s",
-                                elapsed,
-                                testDefFile.getTestName(),
-                                testDefFile.getRevision(),
-                                testDefinition == null ? "unsuccessfully" : "successfully"));
-            }
-            if (testDefinition == null) {
-                LOGGER.info(
-                        "Returning null TestMatrix because "
-                                + testDefFile.getTestName()
-                                + " returned null test-definition.");
-                return null;
-            }
-            testDefinitions.put(testDefFile.getTestName(), testDefinition);
+        final Map<String, TestDefinition> testDefinitions = loadTestDefinitions(result.getTests());
+        if (testDefinitions == null) {
+            return null;
         }
         if (LOGGER.isDebugEnabled()) {
             final long elapsed = System.currentTimeMillis() - start;
@@ -164,6 +187,100 @@ public abstract class FileBasedProctorStore implements ProctorStore {
         return tmv;
     }
 
+    /**
+     * @return test definitions by test name in the order of tests, or null if any test definition
+     *     is not found
+     */
+    @CheckForNull
+    private Map<String, TestDefinition> loadTestDefinitions(
+            final List<TestVersionResult.Test> tests) throws StoreException {
+        final Map<String, LoadedTestDefinition> previousDefinitions = lastLoadedDefinitions;
+        final Map<String, LoadedTestDefinition> loadedDefinitions =
+                Maps.newLinkedHashMapWithExpectedSize(tests.size());
+        final Map<TestVersionResult.Test, Future<TestDefinition>> futures = new HashMap<>();
+        for (final TestVersionResult.Test testDefFile : tests) {
+            final LoadedTestDefinition previous =
+                    previousDefinitions.get(testDefFile.getTestName());
+            if ((previous != null) && previous.revision.equals(testDefFile.getRevision())) {
+                loadedDefinitions.put(testDefFile.getTestName(), previous);
+            } else if (loadingExecutor != null) {
+                futures.put(
+                        testDefFile, loadingExecutor.submit(() -> loadTestDefinition(testDefFile)));
+            }
+        }
+
+        final Map<String, TestDefinition> testDefinitions = Maps.newLinkedHashMap();
+        try {
+            for (final TestVersionResult.Test testDefFile : tests) {
+                final LoadedTestDefinition reused =
+                        loadedDefinitions.get(testDefFile.getTestName());
+                final TestDefinition testDefinition;
+                if (reused != null) {
+                    testDefinition = reused.testDefinition;
+                } else {
+                    final Future<TestDefinition> future = futures.get(testDefFile);
+                    testDefinition =
+                            (future == null) ? loadTestDefinition(testDefFile) : getLoaded(future);
+                }
+                if (testDefinition == null) {
+                    LOGGER.info(
+                            "Returning null TestMatrix because "
+                                    + testDefFile.getTestName()
+                                    + " returned null test-definition.");
+                    return null;
+                }
+                testDefinitions.put(testDefFile.getTestName(), testDefinition);
+                if (reused == null) {
+                    loadedDefinitions.put(
+                            testDefFile.getTestName(),
+                            new LoadedTestDefinition(testDefFile.getRevision(), testDefinition));
+                }
+            }
+        } finally {
+            for (final Future<TestDefinition> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+        // other revisions, e.g. of a local directory, do not change with the files of a test
+        if (core.hasContentAddressedRevisions()) {
+            lastLoadedDefinitions = loadedDefinitions;
+        }
+        return testDefinitions;
+    }
+
+    @CheckForNull
+    private TestDefinition loadTestDefinition(final TestVersionResult.Test testDefFile)
+            throws StoreException {
+        final long startForTest = System.currentTimeMillis();
+        final TestDefinition testDefinition =
+                getTestDefinition(testDefFile.getTestName(), testDefFile.getRevision());
+        if (LOGGER.isTraceEnabled()) {
+            final long elapsed = System.currentTimeMillis() - startForTest;
+            LOGGER.trace(
+                    String.format(
+                            "Took %d ms to load %s (r%s) %s",
+                            elapsed,
+                            testDefFile.getTestName(),
+                            testDefFile.getRevision(),
+                            testDefinition == null ? "unsuccessfully" : "successfully"));
+        }
+        return testDefinition;
+    }
+
+    @CheckForNull
+    private static TestDefinition getLoaded(final Future<TestDefinition> future)
+            throws StoreException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Loading test definitions was interrupted", e);
+        } catch (final ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), StoreException.class);
+            throw new StoreException("Failed to load test definition", e.getCause());
+        }
+    }
+
     @Override
     public TestDefinition getCurrentTestDefinition(final String testName) throws StoreException {
         // Get the first test history
@@ -205,6 +322,9 @@ public abstract class FileBasedProctorStore implements ProctorStore {
 
     @Override
     public void close() throws IOException {
+        if (loadingExecutor != null) {
+            loadingExecutor.shutdownNow();
+        }
         core.close();
     }
 
@@ -219,7 +339,7 @@ public abstract class FileBasedProctorStore implements ProctorStore {
             throws Exception {
         final boolean thingExisted = file.exists();
         final boolean thingChanged = FileBasedProctorStore.writeIfChanged(file, thing);
-        if (!thingExisted || rcsClient.getRevisionControlType().equals("git")) {
+        if (!thingExisted || "git".equals(rcsClient.getRevisionControlType())) {
             rcsClient.add(file);
         }
         return thingChanged;
@@ -243,6 +363,7 @@ public abstract class FileBasedProctorStore implements ProctorStore {
         core.doInWorkingDirectory(
                 changeMetadata,
                 previousVersion,
+                testName,
                 new ProctorUpdater() {
                     @Override
                     public boolean doInWorkingDirectory(
@@ -293,6 +414,7 @@ public abstract class FileBasedProctorStore implements ProctorStore {
         core.doInWorkingDirectory(
                 changeMetadata,
                 core.getAddTestRevision(),
+                testName,
                 new ProctorUpdater() {
                     @Override
                     public boolean doInWorkingDirectory(
@@ -342,6 +464,7 @@ public abstract class FileBasedProctorStore implements ProctorStore {
         core.doInWorkingDirectory(
                 changeMetadata,
                 previousVersion,
+                testName,
                 new ProctorUpdater() {
                     @Override
                     public boolean doInWorkingDirectory(
@@ -360,6 +483,16 @@ public abstract class FileBasedProctorStore implements ProctorStore {
                 });
     }
 
+    private static class LoadedTestDefinition {
+        private final String revision;
+        private final TestDefinition testDefinition;
+
+        private LoadedTestDefinition(final String revision, final TestDefinition testDefinition) {
+            this.revision = revision;
+            this.testDefinition = testDefinition;
+        }
+    }
+
     public interface ProctorUpdater {
         boolean doInWorkingDirectory(FileBasedProctorStore.RcsClient rcsClient, File workingDir)
                 throws Exception;
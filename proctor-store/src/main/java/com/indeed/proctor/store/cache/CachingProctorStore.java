@@ -15,6 +15,7 @@ import com.indeed.proctor.store.RevisionDetails;
 import com.indeed.proctor.store.StoreException;
 import com.indeed.proctor.store.TestEdit;
 import com.indeed.proctor.store.utils.HistoryUtil;
+import com.indeed.util.varexport.Export;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -22,16 +23,17 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A decorator class for ProctorStore. This class caches result of read methods and invalidates
@@ -42,8 +44,6 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class CachingProctorStore implements ProctorStore {
     private static final Logger LOGGER = LogManager.getLogger(CachingProctorStore.class);
     private static final long REFRESH_RATE_IN_SECOND = 15;
-    private static final long READ_TIMEOUT_IN_SECOND = 30;
-    private static final long WRITE_TIMEOUT_IN_SECOND = 180;
 
     /** ProctorStore delegate. We assume all the methods of delegate is thread-safe. */
     private final ProctorStore delegate;
@@ -239,6 +239,32 @@ public class CachingProctorStore implements ProctorStore {
         return delegate.getName();
     }
 
+    @Export(
+            name = "refresh-duration-histogram",
+            doc =
+                    "Number of cache refreshes by duration, keyed by the upper bound of each"
+                            + " bucket in milliseconds")
+    public Map<String, Long> getRefreshDurationHistogram() {
+        return cacheHolder.refreshStats.getDurationHistogram();
+    }
+
+    @Export(name = "refresh-last-duration-millis", doc = "Duration of the last cache refresh")
+    public long getRefreshLastDurationMillis() {
+        return cacheHolder.refreshStats.lastDurationMillis;
+    }
+
+    @Export(name = "refresh-failures", doc = "Number of failed cache refreshes")
+    public long getRefreshFailures() {
+        return cacheHolder.refreshStats.failureCount.get();
+    }
+
+    @Export(
+            name = "staleness-millis",
+            doc = "Milliseconds since the cache was last confirmed to be up to date with the store")
+    public long getStalenessMillis() {
+        return System.currentTimeMillis() - cacheHolder.refreshStats.lastSuccessMillis;
+    }
+
     @VisibleForTesting
     ScheduledFuture<?> getRefreshTaskFuture() {
         return cacheHolder.scheduledFuture;
@@ -261,14 +287,13 @@ public class CachingProctorStore implements ProctorStore {
      * This class provides thread-safe read/write operations to the cached data including the latest
      * version, revision histories of all ProTest, maximum 3 versions of test Matrix and maximum
      * 5000 versions of test definitions.
+     *
+     * <p>The latest test matrix and histories are kept in an immutable {@link Snapshot}. A refresh
+     * builds a new snapshot from the delegate and publishes it at once, so reads never wait for a
+     * refresh and never see a partially refreshed cache.
      */
     class CacheHolder {
-        private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-        private final Lock readLock = readWriteLock.readLock();
-        private final Lock writeLock = readWriteLock.writeLock();
-
-        private TestMatrixVersion cachedLatestTestMatrixVersion;
-        private Map<String, List<Revision>> historyCache;
+        @CheckForNull private volatile Snapshot snapshot;
 
         /* version information won't change so we don't expire */
         private final Cache<String, TestMatrixVersion> revisionTestMatrixCache =
@@ -280,7 +305,9 @@ public class CachingProctorStore implements ProctorStore {
 
         private final ScheduledExecutorService scheduledExecutorService =
                 Executors.newScheduledThreadPool(1);
-        private ScheduledFuture<?> scheduledFuture;
+        private volatile ScheduledFuture<?> scheduledFuture;
+
+        private final RefreshStats refreshStats = new RefreshStats();
 
         /** background task to refresh cache */
         final Runnable refreshCacheTask =
@@ -295,78 +322,54 @@ public class CachingProctorStore implements ProctorStore {
                     }
                 };
 
+        @Nonnull
+        private Snapshot getSnapshot() throws StoreException {
+            final Snapshot current = snapshot;
+            if (current == null) {
+                throw new StoreException("Cache is not initialized");
+            }
+            return current;
+        }
+
         @Nonnull
         public Map<String, List<Revision>> getCachedHistory() throws StoreException {
-            return synchronizedCacheRead(
-                    new Callable<Map<String, List<Revision>>>() {
-                        @Override
-                        public Map<String, List<Revision>> call() {
-                            return historyCache;
-                        }
-                    });
+            return getSnapshot().histories;
         }
 
         @Nonnull
         public String getCachedLatestVersion() throws StoreException {
-            return synchronizedCacheRead(
-                    new Callable<String>() {
-                        @Override
-                        public String call() {
-                            return cachedLatestTestMatrixVersion.getVersion();
-                        }
-                    });
+            return getSnapshot().testMatrixVersion.getVersion();
         }
 
         public TestMatrixVersion getCachedTestMatrix(final String fetchRevision)
                 throws StoreException {
-            return synchronizedCacheRead(
-                    new Callable<TestMatrixVersion>() {
-                        @Override
-                        public TestMatrixVersion call() throws StoreException {
-                            TestMatrixVersion testMatrix =
-                                    revisionTestMatrixCache.getIfPresent(fetchRevision);
-                            if (testMatrix == null) {
-                                LOGGER.debug("Cache miss for fetch revision: " + fetchRevision);
-                                testMatrix = delegate.getTestMatrix(fetchRevision);
-                                revisionTestMatrixCache.put(fetchRevision, testMatrix);
-                            }
-                            return testMatrix;
-                        }
-                    });
+            TestMatrixVersion testMatrix = revisionTestMatrixCache.getIfPresent(fetchRevision);
+            if (testMatrix == null) {
+                LOGGER.debug("Cache miss for fetch revision: " + fetchRevision);
+                testMatrix = delegate.getTestMatrix(fetchRevision);
+                revisionTestMatrixCache.put(fetchRevision, testMatrix);
+            }
+            return testMatrix;
         }
 
         public TestMatrixVersion getCachedCurrentTestMatrix() throws StoreException {
-            return synchronizedCacheRead(
-                    new Callable<TestMatrixVersion>() {
-                        @Override
-                        public TestMatrixVersion call() throws StoreException {
-                            return cachedLatestTestMatrixVersion;
-                        }
-                    });
+            return getSnapshot().testMatrixVersion;
         }
 
         public TestDefinition getCachedTestDefinition(
                 final String testName, final String fetchRevision) throws StoreException {
-            return synchronizedCacheRead(
-                    new Callable<TestDefinition>() {
-                        @Override
-                        public TestDefinition call() throws Exception {
-                            final TDKey key = new TDKey(testName, fetchRevision);
-                            TestDefinition testDefinition =
-                                    revisionTestDefinitionCache.getIfPresent(key);
-                            if (testDefinition == null) {
-                                LOGGER.debug(
-                                        "Cache miss for test definition : name="
-                                                + testName
-                                                + " revision="
-                                                + fetchRevision);
-                                testDefinition =
-                                        delegate.getTestDefinition(testName, fetchRevision);
-                                revisionTestDefinitionCache.put(key, testDefinition);
-                            }
-                            return testDefinition;
-                        }
-                    });
+            final TDKey key = new TDKey(testName, fetchRevision);
+            TestDefinition testDefinition = revisionTestDefinitionCache.getIfPresent(key);
+            if (testDefinition == null) {
+                LOGGER.debug(
+                        "Cache miss for test definition : name="
+                                + testName
+                                + " revision="
+                                + fetchRevision);
+                testDefinition = delegate.getTestDefinition(testName, fetchRevision);
+                revisionTestDefinitionCache.put(key, testDefinition);
+            }
+            return testDefinition;
         }
 
         private boolean hasNewVersion() throws StoreException {
@@ -380,39 +383,38 @@ public class CachingProctorStore implements ProctorStore {
          * @throws StoreException
          */
         public void refreshAll() throws StoreException {
-            delegate.refresh();
-            if (hasNewVersion()) {
-                lockAndRefreshCache();
-            } else {
-                LOGGER.debug(
-                        String.format(
-                                "[%s] Latest version is not changed. Do not refresh cache",
-                                delegate.getName()));
+            final long start = System.currentTimeMillis();
+            boolean success = false;
+            try {
+                delegate.refresh();
+                if (hasNewVersion()) {
+                    refreshCache();
+                } else {
+                    LOGGER.debug(
+                            String.format(
+                                    "[%s] Latest version is not changed. Do not refresh cache",
+                                    delegate.getName()));
+                }
+                success = true;
+            } finally {
+                refreshStats.record(start, success);
             }
         }
 
         /**
-         * This method refreshes cache data. Other read/write operations are blocked
+         * This method builds a new snapshot of cache data and publishes it. Read operations are not
+         * blocked and keep reading the previous snapshot until it is published. Refreshes are done
+         * one at a time, so that an older snapshot never replaces a newer one.
          *
          * @throws StoreException
          */
-        private void lockAndRefreshCache() throws StoreException {
+        private synchronized void refreshCache() throws StoreException {
             LOGGER.debug(String.format("[%s] Refreshing cache data started", delegate.getName()));
-            synchronizedCacheWrite(
-                    new Callable<Void>() {
-                        @Override
-                        public Void call() throws StoreException {
-                            final TestMatrixVersion currentTestMatrix =
-                                    delegate.getCurrentTestMatrix();
-                            final Revision revision = delegate.getMatrixHistory(0, 1).get(0);
-                            final Map<String, List<Revision>> allHistories =
-                                    delegate.getAllHistories();
-                            revisionTestMatrixCache.put(revision.getRevision(), currentTestMatrix);
-                            cachedLatestTestMatrixVersion = currentTestMatrix;
-                            historyCache = allHistories;
-                            return null;
-                        }
-                    });
+            final TestMatrixVersion currentTestMatrix = delegate.getCurrentTestMatrix();
+            final Revision revision = delegate.getMatrixHistory(0, 1).get(0);
+            final Map<String, List<Revision>> allHistories = delegate.getAllHistories();
+            revisionTestMatrixCache.put(revision.getRevision(), currentTestMatrix);
+            snapshot = new Snapshot(currentTestMatrix, allHistories);
             LOGGER.debug(String.format("[%s] Refreshing cache data finished", delegate.getName()));
         }
 
@@ -425,7 +427,14 @@ public class CachingProctorStore implements ProctorStore {
         public void start() throws StoreException {
             LOGGER.info(
                     String.format("[%s] Starting Caching for ProctorStore ", delegate.getName()));
-            lockAndRefreshCache();
+            final long start = System.currentTimeMillis();
+            boolean success = false;
+            try {
+                refreshCache();
+                success = true;
+            } finally {
+                refreshStats.record(start, success);
+            }
             scheduledFuture =
                     scheduledExecutorService.scheduleWithFixedDelay(
                             refreshCacheTask,
@@ -435,10 +444,10 @@ public class CachingProctorStore implements ProctorStore {
         }
 
         /**
-         * This method refreshes cache at once. Cache is invalidated until the method completes.
-         * Read operations are blocked in this method.
+         * This method refreshes cache at once. Read operations are not blocked in this method and
+         * return the previous data until the method completes.
          */
-        public void startRefreshCacheTask() {
+        public synchronized void startRefreshCacheTask() {
             LOGGER.info(
                     String.format(
                             "[%s] Rescheduling UpdateCacheTask due to new updates.",
@@ -447,10 +456,15 @@ public class CachingProctorStore implements ProctorStore {
              * cancel scheduled task, executing task is allowed to finish;
              */
             scheduledFuture.cancel(false);
+            final long start = System.currentTimeMillis();
+            boolean success = false;
             try {
-                lockAndRefreshCache();
+                refreshCache();
+                success = true;
             } catch (final StoreException e) {
-                LOGGER.error("failed to update the cache");
+                LOGGER.error("failed to update the cache", e);
+            } finally {
+                refreshStats.record(start, success);
             }
 
             scheduledFuture =
@@ -461,66 +475,6 @@ public class CachingProctorStore implements ProctorStore {
                             TimeUnit.SECONDS);
         }
 
-        /**
-         * This method provides an interface to perform thread-safe <b>read</b> operation. It only
-         * blocks other write operations.
-         *
-         * @param callable
-         * @param <T>
-         * @return
-         * @throws StoreException
-         */
-        private <T> T synchronizedCacheRead(final Callable<T> callable) throws StoreException {
-            try {
-                if (readLock.tryLock(READ_TIMEOUT_IN_SECOND, TimeUnit.SECONDS)) {
-                    try {
-                        return callable.call();
-                    } catch (final Exception e) {
-                        throw new StoreException("Failed to perform read operation to cache. ", e);
-                    } finally {
-                        readLock.unlock();
-                    }
-                } else {
-                    throw new StoreException(
-                            "Failed to acquire the lock. Timeout after " + READ_TIMEOUT_IN_SECOND);
-                }
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new StoreException("Read operation to cache was interrupted", e);
-            }
-        }
-
-        /**
-         * This method provides an interface to perform thread-safe <b>write</b> operation. It
-         * blocks other read/write operations.
-         *
-         * @param callable
-         * @param <T>
-         * @return
-         * @throws StoreException
-         */
-        private <T> T synchronizedCacheWrite(final Callable<T> callable) throws StoreException {
-            try {
-                if (writeLock.tryLock(WRITE_TIMEOUT_IN_SECOND, TimeUnit.SECONDS)) {
-                    try {
-                        return callable.call();
-                    } catch (final Exception e) {
-                        throw new StoreException.TestUpdateException(
-                                "Failed to perform write operation to cache. ", e);
-                    } finally {
-                        writeLock.unlock();
-                    }
-                } else {
-                    throw new StoreException.TestUpdateException(
-                            "Failed to acquire the lock. Timeout after " + WRITE_TIMEOUT_IN_SECOND);
-                }
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new StoreException.TestUpdateException(
-                        "Write operation to cache was interrupted", e);
-            }
-        }
-
         private class TDKey {
             private final String test;
             private final String fetchRevision;
@@ -549,4 +503,59 @@ public class CachingProctorStore implements ProctorStore {
             }
         }
     }
+
+    /** immutable cache data of the latest version */
+    private static class Snapshot {
+        private final TestMatrixVersion testMatrixVersion;
+        private final Map<String, List<Revision>> histories;
+
+        private Snapshot(
+                final TestMatrixVersion testMatrixVersion,
+                final Map<String, List<Revision>> histories) {
+            this.testMatrixVersion = testMatrixVersion;
+            this.histories = Collections.unmodifiableMap(histories);
+        }
+    }
+
+    /** durations and results of cache refreshes */
+    private static class RefreshStats {
+        /** upper bounds of buckets of the refresh duration histogram */
+        private static final long[] DURATION_BUCKET_MILLIS = {
+            100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+        };
+
+        /** counts of refreshes by bucket, the last one for refreshes longer than all bounds */
+        private final AtomicLongArray durationCounts =
+                new AtomicLongArray(DURATION_BUCKET_MILLIS.length + 1);
+
+        private final AtomicLong failureCount = new AtomicLong();
+        private volatile long lastDurationMillis;
+        private volatile long lastSuccessMillis = System.currentTimeMillis();
+
+        private void record(final long startMillis, final boolean success) {
+            final long now = System.currentTimeMillis();
+            final long duration = now - startMillis;
+            int bucket = 0;
+            while ((bucket < DURATION_BUCKET_MILLIS.length)
+                    && (duration > DURATION_BUCKET_MILLIS[bucket])) {
+                bucket++;
+            }
+            durationCounts.incrementAndGet(bucket);
+            lastDurationMillis = duration;
+            if (success) {
+                lastSuccessMillis = now;
+            } else {
+                failureCount.incrementAndGet();
+            }
+        }
+
+        private Map<String, Long> getDurationHistogram() {
+            final Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < DURATION_BUCKET_MILLIS.length; i++) {
+                histogram.put("le" + DURATION_BUCKET_MILLIS[i] + "ms", durationCounts.get(i));
+            }
+            histogram.put("inf", durationCounts.get(DURATION_BUCKET_MILLIS.length));
+            return histogram;
+        }
+    }
 }
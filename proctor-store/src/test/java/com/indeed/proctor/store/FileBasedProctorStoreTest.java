@@ -18,17 +18,22 @@ import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -79,6 +84,105 @@ public class FileBasedProctorStoreTest {
         assertEquals(versionStub.getPublished(), result.getPublished());
     }
 
+    @Test
+    public void getTestMatrixReusesUnchangedTestDefinitions() throws Exception {
+        final FileBasedProctorStore parallelStore =
+                new TestFileBasedProctorStore(
+                        new DelegatingCore(coreMock, temporaryFolder.getRoot(), gitClient), 4);
+        final TestDefinition definitionA = testDefinition("a");
+        final TestDefinition definitionB = testDefinition("b");
+        final TestDefinition definitionC = testDefinition("c");
+        final TestDefinition definitionB2 = testDefinition("b2");
+
+        expect(coreMock.determineVersions("r1"))
+                .andReturn(
+                        versionResult(
+                                "r1",
+                                new TestVersionResult.Test("a", "blobA"),
+                                new TestVersionResult.Test("b", "blobB"),
+                                new TestVersionResult.Test("c", "blobC")))
+                .once();
+        expect(coreMock.determineVersions("r2"))
+                .andReturn(
+                        versionResult(
+                                "r2",
+                                new TestVersionResult.Test("a", "blobA"),
+                                new TestVersionResult.Test("b", "blobB2")))
+                .once();
+        expectTestDefinition("a", "blobA", definitionA);
+        expectTestDefinition("b", "blobB", definitionB);
+        expectTestDefinition("c", "blobC", definitionC);
+        expectTestDefinition("b", "blobB2", definitionB2);
+        replay(coreMock);
+
+        final Map<String, TestDefinition> tests1 =
+                parallelStore.getTestMatrix("r1").getTestMatrixDefinition().getTests();
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(tests1.keySet()));
+        assertSame(definitionA, tests1.get("a"));
+        assertSame(definitionB, tests1.get("b"));
+        assertSame(definitionC, tests1.get("c"));
+
+        // only the definition of the changed blob is read again
+        final Map<String, TestDefinition> tests2 =
+                parallelStore.getTestMatrix("r2").getTestMatrixDefinition().getTests();
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(tests2.keySet()));
+        assertSame(definitionA, tests2.get("a"));
+        assertSame(definitionB2, tests2.get("b"));
+        EasyMock.verify(coreMock);
+        parallelStore.close();
+    }
+
+    @Test
+    public void getTestMatrixMissingTestDefinition() throws Exception {
+        final FileBasedProctorStore parallelStore =
+                new TestFileBasedProctorStore(
+                        new DelegatingCore(coreMock, temporaryFolder.getRoot(), gitClient), 4);
+        expect(coreMock.determineVersions("r1"))
+                .andReturn(
+                        versionResult(
+                                "r1",
+                                new TestVersionResult.Test("a", "blobA"),
+                                new TestVersionResult.Test("b", "blobB")))
+                .once();
+        expectTestDefinition("a", "blobA", testDefinition("a"));
+        expectTestDefinition("b", "blobB", null);
+        replay(coreMock);
+
+        assertNull(parallelStore.getTestMatrix("r1"));
+        parallelStore.close();
+    }
+
+    private void expectTestDefinition(
+            final String testName, final String revision, final TestDefinition definition)
+            throws Exception {
+        expect(
+                        coreMock.getFileContents(
+                                eq(TestDefinition.class),
+                                aryEq(
+                                        new String[] {
+                                            FileBasedProctorStore
+                                                    .DEFAULT_TEST_DEFINITIONS_DIRECTORY,
+                                            testName,
+                                            FileBasedProctorStore.TEST_DEFINITION_FILENAME
+                                        }),
+                                EasyMock.<TestDefinition>isNull(),
+                                eq(revision)))
+                .andReturn(definition)
+                .once();
+    }
+
+    private static TestVersionResult versionResult(
+            final String version, final TestVersionResult.Test... tests) {
+        return new TestVersionResult(
+                Arrays.asList(tests), new Date(), "fooAuthor", version, "fooDescription");
+    }
+
+    private static TestDefinition testDefinition(final String description) {
+        final TestDefinition definition = new TestDefinition();
+        definition.setDescription(description);
+        return definition;
+    }
+
     @Test
     public void updateTestDefinitionTestDoesNotExist() throws Exception {
         final TestDefinition definition = new TestDefinition();
@@ -156,6 +260,11 @@ public class FileBasedProctorStoreTest {
             super(core);
         }
 
+        protected TestFileBasedProctorStore(
+                final FileBasedPersisterCore core, final int loadingThreads) {
+            super(core, DEFAULT_TEST_DEFINITIONS_DIRECTORY, loadingThreads);
+        }
+
         @Override
         public String getName() {
             return null;
@@ -281,6 +390,12 @@ public class FileBasedProctorStoreTest {
             return delegate.getAddTestRevision();
         }
 
+        /** revisions returned by the mocked core stand for blob ids */
+        @Override
+        public boolean hasContentAddressedRevisions() {
+            return true;
+        }
+
         @Override
         public void close() throws IOException {
             delegate.close();
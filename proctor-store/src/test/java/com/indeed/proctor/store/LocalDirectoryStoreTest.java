@@ -0,0 +1,58 @@
+package com.indeed.proctor.store;
+
+import com.indeed.proctor.common.model.TestDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LocalDirectoryStoreTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private LocalDirectoryStore store;
+
+    @Before
+    public void setUp() {
+        store = new LocalDirectoryStore(temporaryFolder.getRoot());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void getCurrentTestMatrixReadsUpdatedTestDefinitions() throws Exception {
+        final ChangeMetadata changeMetadata =
+                ChangeMetadata.builder().setAuthor("author").setComment("comment").build();
+        store.addTestDefinition(
+                changeMetadata, "tst", testDefinition("before"), Collections.emptyMap());
+        assertEquals(
+                "before",
+                store.getCurrentTestMatrix()
+                        .getTestMatrixDefinition()
+                        .getTests()
+                        .get("tst")
+                        .getDescription());
+
+        store.updateTestDefinition(
+                changeMetadata, "", "tst", testDefinition("after"), Collections.emptyMap());
+        final Map<String, TestDefinition> tests =
+                store.getCurrentTestMatrix().getTestMatrixDefinition().getTests();
+        assertEquals(1, tests.size());
+        assertEquals("after", tests.get("tst").getDescription());
+    }
+
+    private static TestDefinition testDefinition(final String description) {
+        final TestDefinition definition = new TestDefinition();
+        definition.setDescription(description);
+        return definition;
+    }
+}
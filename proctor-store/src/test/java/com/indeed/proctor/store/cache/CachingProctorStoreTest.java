@@ -3,14 +3,20 @@ package com.indeed.proctor.store.cache;
 import com.indeed.proctor.common.model.TestDefinition;
 import com.indeed.proctor.store.ChangeMetadata;
 import com.indeed.proctor.store.ProctorStore;
+import com.indeed.proctor.store.Revision;
 import com.indeed.proctor.store.StoreException;
 import com.indeed.proctor.store.StoreException.TestUpdateException;
 import com.indeed.proctor.store.utils.test.InMemoryProctorStore;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.indeed.proctor.store.utils.test.InMemoryProctorStoreTest.createDummyTestDefinition;
 import static java.util.Collections.emptyMap;
@@ -297,6 +303,76 @@ public class CachingProctorStoreTest {
         assertNotNull(testee.getTestDefinition("tst1", initialRevision));
     }
 
+    @Test
+    public void testReadsDuringRefresh() throws Exception {
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch refreshReleased = new CountDownLatch(1);
+        final AtomicBoolean blockRefresh = new AtomicBoolean();
+        final InMemoryProctorStore blockingDelegate =
+                new InMemoryProctorStore() {
+                    @Override
+                    public Map<String, List<Revision>> getAllHistories() {
+                        if (blockRefresh.get()) {
+                            refreshStarted.countDown();
+                            try {
+                                refreshReleased.await();
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return super.getAllHistories();
+                    }
+                };
+        blockingDelegate.addTestDefinition(
+                ChangeMetadata.builder()
+                        .setUsernameAndAuthor("Mike")
+                        .setPassword("pwd")
+                        .setComment("commit tst1")
+                        .build(),
+                "tst1",
+                createDummyTestDefinition("1", "tst1"),
+                emptyMap());
+        final CachingProctorStore store = new CachingProctorStore(blockingDelegate);
+        store.getRefreshTaskFuture().cancel(false);
+        final String initialRevision = store.getLatestVersion();
+
+        blockingDelegate.addTestDefinition(
+                ChangeMetadata.builder()
+                        .setUsernameAndAuthor("Mike")
+                        .setPassword("pwd")
+                        .setComment("commit tst2")
+                        .build(),
+                "tst2",
+                createDummyTestDefinition("2", "tst2"),
+                emptyMap());
+        blockRefresh.set(true);
+        final FutureTask<Void> refresh =
+                new FutureTask<>(
+                        () -> {
+                            store.refresh();
+                            return null;
+                        });
+        new Thread(refresh).start();
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+
+        // reads are not blocked and return the previous snapshot during the refresh
+        assertEquals(initialRevision, store.getLatestVersion());
+        assertEquals(1, store.getAllHistories().size());
+        assertNull(store.getCurrentTestDefinition("tst2"));
+
+        refreshReleased.countDown();
+        refresh.get(10, TimeUnit.SECONDS);
+        assertEquals(blockingDelegate.getLatestVersion(), store.getLatestVersion());
+        assertEquals(2, store.getAllHistories().size());
+        assertNotNull(store.getCurrentTestDefinition("tst2"));
+        assertEquals(0, store.getRefreshFailures());
+        assertEquals(
+                2,
+                store.getRefreshDurationHistogram().values().stream()
+                        .mapToLong(Long::longValue)
+                        .sum());
+    }
+
     /*
      * Note this is not a useful way to test multithreading, and in this class it
      * is also used single-threaded for no good reason.
@@ -0,0 +1,148 @@
+package com.indeed.proctor.webapp;
+
+import com.google.common.collect.ImmutableSet;
+import com.indeed.proctor.common.ProctorSpecification;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.webapp.model.AppVersion;
+import com.indeed.proctor.webapp.model.ProctorSpecifications;
+import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Index of app versions by names of tests they resolve, either required by a specification or
+ * resolved by a dynamic filter, built from the specifications of an environment and a test matrix.
+ *
+ * <p>Dynamic filters are matched against test definitions of the test matrix used to build the
+ * index. For a test whose definition has another version, e.g. because it was changed since
+ * building the index, dynamic filters are matched again against the given definition.
+ */
+class ActiveClientsIndex {
+    /** results the index is built from */
+    private final Map<AppVersion, RemoteSpecificationResult> results;
+
+    /** audit version of the test matrix the index is built from, null for no test matrix */
+    @Nullable private final String matrixVersion;
+
+    /** app versions by names of tests required by any of their specifications */
+    private final Map<String, Set<AppVersion>> requiringClients;
+
+    /** versions of test definitions that dynamic filters are matched against */
+    private final Map<String, String> definitionVersions;
+
+    /** app versions by names of tests resolved by dynamic filters of any of their specifications */
+    private final Map<String, Set<AppVersion>> dynamicClients;
+
+    private final Set<String> activeTests;
+
+    private ActiveClientsIndex(
+            final Map<AppVersion, RemoteSpecificationResult> results,
+            @Nullable final String matrixVersion,
+            final Map<String, Set<AppVersion>> requiringClients,
+            final Map<String, String> definitionVersions,
+            final Map<String, Set<AppVersion>> dynamicClients) {
+        this.results = results;
+        this.matrixVersion = matrixVersion;
+        this.requiringClients = requiringClients;
+        this.definitionVersions = definitionVersions;
+        this.dynamicClients = dynamicClients;
+        final Set<String> tests = new HashSet<>(requiringClients.keySet());
+        tests.addAll(dynamicClients.keySet());
+        this.activeTests = Collections.unmodifiableSet(tests);
+    }
+
+    /**
+     * @param matrixVersion audit version of the test matrix
+     * @param definedTests test definitions of the test matrix, empty if not available
+     */
+    static ActiveClientsIndex build(
+            final Map<AppVersion, RemoteSpecificationResult> results,
+            @Nullable final String matrixVersion,
+            final Map<String, ConsumableTestDefinition> definedTests) {
+        final Map<String, Set<AppVersion>> requiringClients = new HashMap<>();
+        final Map<String, Set<AppVersion>> dynamicClients = new HashMap<>();
+        for (final Map.Entry<AppVersion, RemoteSpecificationResult> entry : results.entrySet()) {
+            final ProctorSpecifications specifications = entry.getValue().getSpecifications();
+            if (specifications == null) {
+                continue;
+            }
+            final AppVersion appVersion = entry.getKey();
+            for (final String testName : specifications.getRequiredTests().keySet()) {
+                requiringClients.computeIfAbsent(testName, t -> new HashSet<>()).add(appVersion);
+            }
+            for (final String testName : specifications.getDynamicTests(definedTests)) {
+                dynamicClients.computeIfAbsent(testName, t -> new HashSet<>()).add(appVersion);
+            }
+        }
+
+        final Map<String, String> definitionVersions = new HashMap<>();
+        for (final Map.Entry<String, ConsumableTestDefinition> entry : definedTests.entrySet()) {
+            if ((entry.getValue() != null) && (entry.getValue().getVersion() != null)) {
+                definitionVersions.put(entry.getKey(), entry.getValue().getVersion());
+            }
+        }
+        return new ActiveClientsIndex(
+                results, matrixVersion, requiringClients, definitionVersions, dynamicClients);
+    }
+
+    /** @return true if the index is built from the results and the test matrix of the version */
+    boolean isBuiltFrom(
+            final Map<AppVersion, RemoteSpecificationResult> results,
+            @Nullable final String matrixVersion) {
+        return (this.results == results) && Objects.equals(this.matrixVersion, matrixVersion);
+    }
+
+    boolean isBuiltFrom(final Map<AppVersion, RemoteSpecificationResult> results) {
+        return this.results == results;
+    }
+
+    /** @return names of tests resolved by any app version, same as union of resolved tests */
+    Set<String> getActiveTests() {
+        return activeTests;
+    }
+
+    /**
+     * @param testDefinition current definition of the test
+     * @return app versions resolving the test with the definition
+     */
+    Set<AppVersion> getActiveClients(
+            final String testName, final ConsumableTestDefinition testDefinition) {
+        final ImmutableSet.Builder<AppVersion> clients = ImmutableSet.builder();
+        clients.addAll(requiringClients.getOrDefault(testName, Collections.emptySet()));
+
+        final String indexedVersion = definitionVersions.get(testName);
+        if ((indexedVersion != null) && indexedVersion.equals(testDefinition.getVersion())) {
+            clients.addAll(dynamicClients.getOrDefault(testName, Collections.emptySet()));
+        } else {
+            for (final Map.Entry<AppVersion, RemoteSpecificationResult> entry :
+                    results.entrySet()) {
+                if (matchesDynamicFilters(
+                        entry.getValue().getSpecifications(), testName, testDefinition)) {
+                    clients.add(entry.getKey());
+                }
+            }
+        }
+        return clients.build();
+    }
+
+    private static boolean matchesDynamicFilters(
+            @Nullable final ProctorSpecifications specifications,
+            final String testName,
+            final ConsumableTestDefinition testDefinition) {
+        if (specifications == null) {
+            return false;
+        }
+        for (final ProctorSpecification specification : specifications.asSet()) {
+            if (specification.getDynamicFilters().matches(testName, testDefinition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
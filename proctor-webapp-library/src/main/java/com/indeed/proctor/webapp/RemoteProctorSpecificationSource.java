@@ -5,9 +5,11 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.indeed.proctor.common.ProctorSpecification;
 import com.indeed.proctor.common.ProctorUtils;
@@ -23,24 +25,35 @@ import com.indeed.proctor.webapp.model.AppVersion;
 import com.indeed.proctor.webapp.model.ProctorClientApplication;
 import com.indeed.proctor.webapp.model.ProctorSpecifications;
 import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+import com.indeed.proctor.webapp.util.ThreadPoolExecutorVarExports;
 import com.indeed.proctor.webapp.util.VarExportedVariablesDeserializer;
 import com.indeed.proctor.webapp.util.threads.LogOnUncaughtExceptionHandler;
 import com.indeed.util.core.DataLoadingTimerTask;
-import org.apache.commons.io.IOUtils;
+import com.indeed.util.varexport.Export;
+import com.indeed.util.varexport.VarExporter;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -49,14 +62,38 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
-/** Regularly reloads specifications from applications where proctor client is deployed. */
+/**
+ * Regularly reloads specifications from applications where proctor client is deployed.
+ *
+ * <p>All environments are refreshed concurrently. Specifications of an app version are requested
+ * from one instance at a time, and another instance is tried when an instance fails or does not
+ * respond within the hedge delay after the request started, so that a single slow instance does
+ * not delay the refresh. The number of concurrent http requests is limited by the number of
+ * executor threads, and requests still queued are skipped once specifications are fetched.
+ *
+ * <p>Specifications are requested conditionally on the previous response of each url, and the
+ * previously parsed specifications are reused when the content did not change.
+ */
 public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
         implements ProctorSpecificationSource {
     private static final Logger LOGGER =
@@ -64,14 +101,44 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
 
     private static final ObjectMapper OBJECT_MAPPER = Serializers.strict();
 
+    private static final HashFunction CONTENT_HASH = Hashing.murmur3_128();
+
+    /** default delay before requesting specifications from another instance of an app version */
+    private static final int DEFAULT_HEDGE_DELAY_MILLIS = 200;
+
+    /**
+     * max number of requests added by the hedge delay for an app version, so that a saturated
+     * http executor does not end up requesting every instance
+     */
+    private static final int MAX_HEDGED_REQUESTS = 1;
+
     @Autowired(required = false)
-    private final ProctorClientSource clientSource = new DefaultClientSource();
+    private ProctorClientSource clientSource = new DefaultClientSource();
 
     private final ExecutorService httpExecutor;
 
+    /** refreshes environments concurrently, waiting for http requests run by httpExecutor */
+    private final ExecutorService refreshExecutor;
+
+    /** starts hedged requests */
+    private final ScheduledExecutorService hedgeScheduler;
+
+    private final int hedgeDelayMillis;
+
+    private final FetchStats fetchStats = new FetchStats();
+
+    /** last responses by url, to skip parsing unchanged specifications */
+    private final Map<String, CachedResponse> responseCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong refreshCount = new AtomicLong();
+
     private final Map<Environment, ImmutableMap<AppVersion, RemoteSpecificationResult>>
             applicationMapByEnvironment = Maps.newConcurrentMap();
 
+    /** built on refresh, and rebuilt when the test matrix changed */
+    private final Map<Environment, ActiveClientsIndex> activeClientsIndexByEnvironment =
+            Maps.newConcurrentMap();
+
     private final Map<Environment, ProctorReader> proctorReaderMap;
 
     private final HttpClient httpClient;
@@ -82,8 +149,32 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
             final ProctorReader trunk,
             final ProctorReader qa,
             final ProctorReader production) {
+        this(
+                httpTimeoutMillis,
+                executorThreads,
+                DEFAULT_HEDGE_DELAY_MILLIS,
+                trunk,
+                qa,
+                production);
+    }
+
+    /**
+     * @param executorThreads maximum number of concurrent http requests
+     * @param hedgeDelayMillis delay before requesting specifications of an app version from
+     *     another instance while the request to an instance is not completed
+     */
+    public RemoteProctorSpecificationSource(
+            final int httpTimeoutMillis,
+            final int executorThreads,
+            final int hedgeDelayMillis,
+            final ProctorReader trunk,
+            final ProctorReader qa,
+            final ProctorReader production) {
         super(RemoteProctorSpecificationSource.class.getSimpleName());
         Preconditions.checkArgument(httpTimeoutMillis > 0, "httpTimeoutMillis > 0");
+        Preconditions.checkArgument(executorThreads > 0, "executorThreads > 0");
+        Preconditions.checkArgument(hedgeDelayMillis > 0, "hedgeDelayMillis > 0");
+        this.hedgeDelayMillis = hedgeDelayMillis;
 
         this.httpClient =
                 HttpClientBuilder.create()
@@ -92,6 +183,9 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
                                         .setConnectTimeout(httpTimeoutMillis)
                                         .setSocketTimeout(httpTimeoutMillis)
                                         .build())
+                        // the default pool allows only 20 connections, 2 per host
+                        .setMaxConnTotal(executorThreads)
+                        .setMaxConnPerRoute(executorThreads)
                         .disableCookieManagement() // to make it stateless
                         .build();
 
@@ -100,12 +194,40 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
                         .setNameFormat("proctor-specification-source-Thread-%d")
                         .setUncaughtExceptionHandler(new LogOnUncaughtExceptionHandler())
                         .build();
-        this.httpExecutor = Executors.newFixedThreadPool(executorThreads, threadFactory);
+        final ThreadPoolExecutor httpThreadPool =
+                new ThreadPoolExecutor(
+                        executorThreads,
+                        executorThreads,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(),
+                        threadFactory);
+        this.httpExecutor = httpThreadPool;
+        this.refreshExecutor =
+                Executors.newFixedThreadPool(Environment.values().length, threadFactory);
+        this.hedgeScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
         this.proctorReaderMap =
                 ImmutableMap.of(
                         Environment.WORKING, trunk,
                         Environment.QA, qa,
                         Environment.PRODUCTION, production);
+
+        final VarExporter exporter = VarExporter.forNamespace(getClass().getSimpleName());
+        exporter.export(new ThreadPoolExecutorVarExports(httpThreadPool), "pool-");
+        exporter.export(fetchStats, "");
+    }
+
+    @VisibleForTesting
+    RemoteProctorSpecificationSource(
+            final int httpTimeoutMillis,
+            final int executorThreads,
+            final int hedgeDelayMillis,
+            final ProctorClientSource clientSource,
+            final ProctorReader trunk,
+            final ProctorReader qa,
+            final ProctorReader production) {
+        this(httpTimeoutMillis, executorThreads, hedgeDelayMillis, trunk, qa, production);
+        this.clientSource = clientSource;
     }
 
     @Override
@@ -158,19 +280,13 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
             return Collections.emptySet();
         }
 
-        final Map<String, ConsumableTestDefinition> singleTestMatrix =
-                ImmutableMap.of(testName, testDefinition);
-
-        return applicationsMap.entrySet().stream()
-                .filter(e -> e.getValue().getSpecifications() != null)
-                .filter(
-                        e ->
-                                e.getValue()
-                                        .getSpecifications()
-                                        .getResolvedTests(singleTestMatrix)
-                                        .contains(testName))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
+        ActiveClientsIndex index = activeClientsIndexByEnvironment.get(environment);
+        if ((index == null) || !index.isBuiltFrom(applicationsMap)) {
+            // dynamic filters are matched against the definition of the test
+            index = ActiveClientsIndex.build(applicationsMap, null, Collections.emptyMap());
+            activeClientsIndexByEnvironment.put(environment, index);
+        }
+        return index.getActiveClients(testName, testDefinition);
     }
 
     @Override
@@ -185,13 +301,16 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
         Preconditions.checkNotNull(
                 testMatrixArtifact,
                 "Failed to get the current test matrix artifact from Envirronment " + environment);
-        final Map<String, ConsumableTestDefinition> definedTests = testMatrixArtifact.getTests();
 
-        return applicationsMap.values().stream()
-                .map(RemoteSpecificationResult::getSpecifications)
-                .filter(Objects::nonNull)
-                .flatMap(s -> s.getResolvedTests(definedTests).stream())
-                .collect(Collectors.toSet());
+        final String matrixVersion = testMatrixArtifact.getAudit().getVersion();
+        ActiveClientsIndex index = activeClientsIndexByEnvironment.get(environment);
+        if ((index == null) || !index.isBuiltFrom(applicationsMap, matrixVersion)) {
+            index =
+                    ActiveClientsIndex.build(
+                            applicationsMap, matrixVersion, testMatrixArtifact.getTests());
+            activeClientsIndexByEnvironment.put(environment, index);
+        }
+        return index.getActiveTests();
     }
 
     @Override
@@ -204,11 +323,32 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
     }
 
     private boolean refreshInternalCache() {
-        // TODO (parker) 9/6/12 - run all of these in parallel instead of in series
-        final boolean devSuccess = refreshInternalCache(Environment.WORKING);
-        final boolean qaSuccess = refreshInternalCache(Environment.QA);
-        final boolean productionSuccess = refreshInternalCache(Environment.PRODUCTION);
-        return devSuccess && qaSuccess && productionSuccess;
+        final long startNanos = System.nanoTime();
+        final long refreshId = refreshCount.incrementAndGet();
+        final Map<Environment, Future<Boolean>> futures = new EnumMap<>(Environment.class);
+        for (final Environment environment : Environment.values()) {
+            futures.put(
+                    environment, refreshExecutor.submit(() -> refreshInternalCache(environment)));
+        }
+        boolean success = true;
+        for (final Map.Entry<Environment, Future<Boolean>> entry : futures.entrySet()) {
+            try {
+                success &= entry.getValue().get();
+            } catch (final InterruptedException e) {
+                LOGGER.error("Interrupted refreshing " + entry.getKey(), e);
+                Thread.currentThread().interrupt();
+                futures.values().forEach(future -> future.cancel(true));
+                return false;
+            } catch (final ExecutionException e) {
+                LOGGER.error("Unable to refresh " + entry.getKey(), e.getCause());
+                success = false;
+            }
+        }
+        // forget responses of instances that are gone
+        responseCache.values().removeIf(response -> response.refreshId < refreshId);
+        fetchStats.lastRefreshMillis =
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return success;
     }
 
     private boolean refreshInternalCache(final Environment environment) {
@@ -238,27 +378,33 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
             appVersionsToCheck.add(appVersion);
             final List<ProctorClientApplication> callableClients = apps.get(appVersion);
             assert !callableClients.isEmpty();
-            futures.put(
-                    appVersion,
-                    httpExecutor.submit(() -> internalGet(appVersion, callableClients)));
+            futures.put(appVersion, new HedgedFetch(appVersion, callableClients).start());
+        }
+        for (final Map.Entry<AppVersion, Future<RemoteSpecificationResult>> entry :
+                futures.entrySet()) {
+            final AppVersion version = entry.getKey();
+            try {
+                final RemoteSpecificationResult result = entry.getValue().get();
+                allResults.put(version, result);
+                if (result.isSuccess()) {
+                    appVersionsToCheck.remove(result.getVersion());
+                }
+            } catch (final InterruptedException e) {
+                // keeps results of the previous refresh instead of partial results
+                LOGGER.error("Interrupted getting " + version, e);
+                Thread.currentThread().interrupt();
+                futures.values().forEach(future -> future.cancel(true));
+                return false;
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                LOGGER.error("Unable to fetch " + version, cause);
+            }
         }
-        futures.forEach(
-                (version, future) -> {
-                    try {
-                        final RemoteSpecificationResult result = future.get();
-                        allResults.put(version, result);
-                        if (result.isSuccess()) {
-                            appVersionsToCheck.remove(result.getVersion());
-                        }
-                    } catch (final InterruptedException e) {
-                        LOGGER.error("Interrupted getting " + version, e);
-                    } catch (final ExecutionException e) {
-                        final Throwable cause = e.getCause();
-                        LOGGER.error("Unable to fetch " + version, cause);
-                    }
-                });
 
-        applicationMapByEnvironment.put(environment, allResults.build());
+        final ImmutableMap<AppVersion, RemoteSpecificationResult> results = allResults.build();
+        applicationMapByEnvironment.put(environment, results);
+        activeClientsIndexByEnvironment.put(
+                environment, buildActiveClientsIndex(environment, results));
 
         // TODO (parker) 9/6/12 - Fail if we do not have 1 specification for each
         // <Application>.<Version>
@@ -273,33 +419,128 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
         return appVersionsToCheck.isEmpty();
     }
 
+    private ActiveClientsIndex buildActiveClientsIndex(
+            final Environment environment,
+            final Map<AppVersion, RemoteSpecificationResult> results) {
+        final TestMatrixArtifact testMatrixArtifact = getCurrentTestMatrixArtifact(environment);
+        if (testMatrixArtifact == null) {
+            return ActiveClientsIndex.build(results, null, Collections.emptyMap());
+        }
+        return ActiveClientsIndex.build(
+                results, testMatrixArtifact.getAudit().getVersion(), testMatrixArtifact.getTests());
+    }
+
     public void shutdown() {
+        refreshExecutor.shutdownNow();
+        hedgeScheduler.shutdownNow();
         httpExecutor.shutdownNow();
     }
 
     /**
      * Fetch a specification from a list of instances (for a single application and version) It
-     * iterates instances until it success to read specification or find it doesn't expose endpoint
-     * for spec.
+     * requests instances one by one until it success to read specification or find it doesn't
+     * expose endpoint for spec. The next instance is also requested when an instance does not
+     * respond within the hedge delay after its request started running, at most {@link
+     * #MAX_HEDGED_REQUESTS} times, and the first specification fetched is used.
      */
-    private RemoteSpecificationResult internalGet(
-            final AppVersion version, final List<ProctorClientApplication> clients) {
+    private class HedgedFetch {
+        private final AppVersion version;
+        private final List<ProctorClientApplication> clients;
+        private final CompletableFuture<RemoteSpecificationResult> result =
+                new CompletableFuture<>();
+
+        // guarded by this
         // ImmutableMap does not handle duplicate keys - use a HashMap for building instead
-        final Map<ProctorClientApplication, Throwable> failures = new HashMap<>();
-        for (final ProctorClientApplication client : clients) {
-            try {
-                final ProctorSpecifications specifications = fetchSpecification(client);
-                return RemoteSpecificationResult.success(version, client, specifications);
-            } catch (final IOException e) {
-                failures.put(client, e);
+        private final Map<ProctorClientApplication, Throwable> failures = new HashMap<>();
+        private int numRequested;
+        private int numHedged;
+
+        HedgedFetch(final AppVersion version, final List<ProctorClientApplication> clients) {
+            this.version = version;
+            this.clients = clients;
+        }
+
+        CompletableFuture<RemoteSpecificationResult> start() {
+            requestNextClient(false);
+            return result;
+        }
+
+        private void requestNextClient(final boolean hedged) {
+            final ProctorClientApplication client;
+            final boolean isFirstClient;
+            synchronized (this) {
+                if (result.isDone() || (numRequested >= clients.size())) {
+                    return;
+                }
+                if (hedged) {
+                    if (numHedged >= MAX_HEDGED_REQUESTS) {
+                        return;
+                    }
+                    numHedged++;
+                }
+                client = clients.get(numRequested);
+                isFirstClient = numRequested == 0;
+                numRequested++;
+            }
+            if (!isFirstClient) {
+                fetchStats.hedgedRequests.incrementAndGet();
+            }
+            final AtomicBoolean started = new AtomicBoolean();
+            fetchSpecification(client, () -> beginRequest(started))
+                    .whenComplete(
+                            (specifications, error) -> {
+                                if (error == null) {
+                                    result.complete(
+                                            RemoteSpecificationResult.success(
+                                                    version, client, specifications));
+                                } else {
+                                    onFailure(client, unwrap(error));
+                                }
+                            });
+        }
+
+        /**
+         * called by http requests of a client when they start running, and schedules the hedged
+         * request of the next client on the first call
+         *
+         * @return false if specifications are already fetched and the request should be skipped
+         */
+        private boolean beginRequest(final AtomicBoolean started) {
+            if (result.isDone()) {
+                fetchStats.skippedRequests.incrementAndGet();
+                return false;
             }
+            if (started.compareAndSet(false, true)) {
+                synchronized (this) {
+                    if ((numHedged >= MAX_HEDGED_REQUESTS) || (numRequested >= clients.size())) {
+                        return true;
+                    }
+                }
+                try {
+                    hedgeScheduler.schedule(
+                            () -> requestNextClient(true),
+                            hedgeDelayMillis,
+                            TimeUnit.MILLISECONDS);
+                } catch (final RejectedExecutionException e) {
+                    // shut down, the next client is still requested on failure
+                }
+            }
+            return true;
         }
-        if (!failures.isEmpty()) {
-            LOGGER.info(
-                    "Failed to get specifications from " + version,
-                    Iterables.getFirst(failures.values(), null));
+
+        private void onFailure(final ProctorClientApplication client, final Throwable error) {
+            final Map<ProctorClientApplication, Throwable> allFailures;
+            synchronized (this) {
+                failures.put(client, error);
+                allFailures = (failures.size() < clients.size()) ? null : new HashMap<>(failures);
+            }
+            if (allFailures == null) {
+                requestNextClient(false);
+            } else {
+                LOGGER.info("Failed to get specifications from " + version, error);
+                result.complete(RemoteSpecificationResult.failures(version, allFailures));
+            }
         }
-        return RemoteSpecificationResult.failures(version, failures);
     }
 
     /**
@@ -316,44 +557,153 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
      * com.indeed.util.varexport.servlet.ViewExportedVariablesServlet The variable is exposed in
      * com.indeed.proctor.common.JsonProctorLoaderFactory
      */
-    private ProctorSpecifications fetchSpecification(final ProctorClientApplication client)
-            throws IOException {
+    private CompletableFuture<ProctorSpecifications> fetchSpecification(
+            final ProctorClientApplication client, final BooleanSupplier beginRequest) {
         // This URL is where we expose variables by ViewExportedVariablesServlet
         final String varExportUrl =
                 client.getBaseApplicationUrl() + "/private/v?ns=JsonProctorLoaderFactory";
+        // This URL is where we expose specification by ViewProctorSpecificationServlet
+        final String viewSpecUrl =
+                client.getBaseApplicationUrl() + "/private/proctor/specification";
 
-        final ProctorSpecifications specFromVarExport =
-                parseExportedVariables(fetchContentFromUrl(varExportUrl), client);
+        // request both endpoints at once instead of waiting for the first response
+        final CompletableFuture<ProctorSpecifications> specFromVarExport =
+                fetchSpecificationFromUrl(
+                        varExportUrl,
+                        content ->
+                                parseExportedVariables(
+                                        new String(content, StandardCharsets.UTF_8), client),
+                        beginRequest);
+        final CompletableFuture<ProctorSpecifications> specFromServlet =
+                fetchSpecificationFromUrl(
+                        viewSpecUrl,
+                        content -> parseSpecificationFromServlet(content, client),
+                        beginRequest);
+
+        return specFromVarExport.thenCompose(
+                varExportSpec -> {
+                    // Use this spec if the var export contains multiple specifications
+                    // because the other legacy endpoint contains only single.
+                    //
+                    // Otherwise, check the legacy endpoint first where a client choose
+                    // what specification to expose.
+                    if (varExportSpec.asSet().size() > 1) {
+                        return CompletableFuture.completedFuture(varExportSpec);
+                    }
+                    // Fallback to the first version.
+                    return specFromServlet.handle(
+                            (servletSpec, error) -> (error == null) ? servletSpec : varExportSpec);
+                });
+    }
 
-        // Use this spec if the var export contains multiple specifications
-        // because the other legacy endpoint contains only single.
-        //
-        // Otherwise, check the legacy endpoint first where a client choose
-        // what specification to expose.
-        if (specFromVarExport.asSet().size() > 1) {
-            return specFromVarExport;
+    /**
+     * fetches specifications with httpExecutor, and records the latency of the host
+     *
+     * @param beginRequest called when the request starts running, skips it when returning false
+     */
+    private CompletableFuture<ProctorSpecifications> fetchSpecificationFromUrl(
+            final String urlString,
+            final SpecificationParser parser,
+            final BooleanSupplier beginRequest) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    if (!beginRequest.getAsBoolean()) {
+                        throw new CancellationException("Specifications are already fetched");
+                    }
+                    final long startNanos = System.nanoTime();
+                    boolean success = false;
+                    try {
+                        final ProctorSpecifications specifications =
+                                fetchSpecification(urlString, parser);
+                        success = true;
+                        return specifications;
+                    } catch (final IOException e) {
+                        throw new CompletionException(e);
+                    } finally {
+                        fetchStats.recordLatency(
+                                getHost(urlString), System.nanoTime() - startNanos, success);
+                    }
+                },
+                httpExecutor);
+    }
+
+    /**
+     * Requests the url conditionally on the previous response, and only parses the content when
+     * it changed since the previous response. Specifications only change on deploys, so most
+     * responses are not modified.
+     */
+    private ProctorSpecifications fetchSpecification(
+            final String urlString, final SpecificationParser parser) throws IOException {
+        final long refreshId = refreshCount.get();
+        final CachedResponse cached = responseCache.get(urlString);
+        final HttpGet httpGet = new HttpGet(urlString);
+        if (cached != null) {
+            if (cached.etag != null) {
+                httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+            }
+            if (cached.lastModified != null) {
+                httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+            }
         }
+        final CachedResponse response =
+                this.httpClient.execute(
+                        httpGet,
+                        r -> {
+                            if ((cached != null)
+                                    && (r.getStatusLine().getStatusCode()
+                                            == HttpStatus.SC_NOT_MODIFIED)) {
+                                EntityUtils.consume(r.getEntity());
+                                fetchStats.notModifiedResponses.incrementAndGet();
+                                return cached.reuse(refreshId);
+                            }
+                            final byte[] content =
+                                    (r.getEntity() == null)
+                                            ? new byte[0]
+                                            : EntityUtils.toByteArray(r.getEntity());
+                            final HashCode contentHash = CONTENT_HASH.hashBytes(content);
+                            final String etag = getHeaderValue(r, HttpHeaders.ETAG);
+                            final String lastModified =
+                                    getHeaderValue(r, HttpHeaders.LAST_MODIFIED);
+                            if ((cached != null) && cached.contentHash.equals(contentHash)) {
+                                fetchStats.unchangedResponses.incrementAndGet();
+                                return new CachedResponse(
+                                        etag,
+                                        lastModified,
+                                        contentHash,
+                                        cached.specifications,
+                                        refreshId);
+                            }
+                            return new CachedResponse(
+                                    etag,
+                                    lastModified,
+                                    contentHash,
+                                    parser.parse(content),
+                                    refreshId);
+                        });
+        responseCache.put(urlString, response);
+        return response.specifications;
+    }
 
-        // This URL is where we expose specification by ViewProctorSpecificationServlet
-        final String viewSpecUrl =
-                client.getBaseApplicationUrl() + "/private/proctor/specification";
+    @CheckForNull
+    private static String getHeaderValue(final HttpResponse response, final String name) {
+        final Header header = response.getFirstHeader(name);
+        return (header == null) ? null : header.getValue();
+    }
+
+    private static String getHost(final String urlString) {
         try {
-            return parseSpecificationFromServlet(fetchContentFromUrl(viewSpecUrl), client);
-        } catch (final IOException e) {
-            // Fallback to the first version.
-            return specFromVarExport;
+            final URI uri = new URI(urlString);
+            return (uri.getPort() < 0) ? uri.getHost() : (uri.getHost() + ":" + uri.getPort());
+        } catch (final URISyntaxException e) {
+            return urlString;
         }
     }
 
-    private String fetchContentFromUrl(final String urlString) throws IOException {
-        final HttpGet httpGet = new HttpGet(urlString);
-        return this.httpClient.execute(
-                httpGet,
-                r -> {
-                    try (InputStream inputStream = r.getEntity().getContent()) {
-                        return IOUtils.toString(inputStream, "UTF-8");
-                    }
-                });
+    private static Throwable unwrap(final Throwable error) {
+        if ((error instanceof CompletionException) && (error.getCause() != null)) {
+            return error.getCause();
+        }
+        return error;
     }
 
     @Nullable
@@ -390,6 +740,126 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
         return null;
     }
 
+    @FunctionalInterface
+    private interface SpecificationParser {
+        ProctorSpecifications parse(byte[] content) throws IOException;
+    }
+
+    /** the last response of a url and the specifications parsed from it */
+    private static class CachedResponse {
+        @Nullable private final String etag;
+        @Nullable private final String lastModified;
+        private final HashCode contentHash;
+        private final ProctorSpecifications specifications;
+        /** the last refresh requesting the url */
+        private final long refreshId;
+
+        CachedResponse(
+                @Nullable final String etag,
+                @Nullable final String lastModified,
+                final HashCode contentHash,
+                final ProctorSpecifications specifications,
+                final long refreshId) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.specifications = specifications;
+            this.refreshId = refreshId;
+        }
+
+        CachedResponse reuse(final long refreshId) {
+            return new CachedResponse(etag, lastModified, contentHash, specifications, refreshId);
+        }
+    }
+
+    /** Specification fetch metrics, exported by VarExporter */
+    private static class FetchStats {
+        private final Map<String, HostLatency> hostLatencies = new ConcurrentHashMap<>();
+        private final AtomicLong hedgedRequests = new AtomicLong();
+        private final AtomicLong skippedRequests = new AtomicLong();
+        private final AtomicLong notModifiedResponses = new AtomicLong();
+        private final AtomicLong unchangedResponses = new AtomicLong();
+        private volatile long lastRefreshMillis = -1;
+
+        void recordLatency(final String host, final long nanos, final boolean success) {
+            hostLatencies.computeIfAbsent(host, h -> new HostLatency()).record(nanos, success);
+        }
+
+        @Export(
+                name = "host-latencies",
+                doc = "requests, failures, mean and max latency in millis of requests per host")
+        public Map<String, String> getHostLatencies() {
+            final Map<String, String> result = new TreeMap<>();
+            hostLatencies.forEach((host, latency) -> result.put(host, latency.toString()));
+            return result;
+        }
+
+        @Export(
+                name = "hedged-requests",
+                doc = "requests to another instance of an app version after a failure or delay")
+        public long getHedgedRequests() {
+            return hedgedRequests.get();
+        }
+
+        @Export(
+                name = "skipped-requests",
+                doc = "queued requests skipped because specifications were already fetched")
+        public long getSkippedRequests() {
+            return skippedRequests.get();
+        }
+
+        @Export(
+                name = "not-modified-responses",
+                doc = "responses to conditional requests without content")
+        public long getNotModifiedResponses() {
+            return notModifiedResponses.get();
+        }
+
+        @Export(
+                name = "unchanged-responses",
+                doc = "responses with the same content as the previous response, not parsed")
+        public long getUnchangedResponses() {
+            return unchangedResponses.get();
+        }
+
+        @Export(
+                name = "last-refresh-millis",
+                doc = "duration of the last refresh of all environments")
+        public long getLastRefreshMillis() {
+            return lastRefreshMillis;
+        }
+    }
+
+    private static class HostLatency {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(final long nanos, final boolean success) {
+            requests.incrementAndGet();
+            if (!success) {
+                failures.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            final long numRequests = requests.get();
+            final long meanNanos = (numRequests == 0) ? 0 : (totalNanos.get() / numRequests);
+            return "requests="
+                    + numRequests
+                    + " failures="
+                    + failures.get()
+                    + " mean="
+                    + TimeUnit.NANOSECONDS.toMillis(meanNanos)
+                    + " max="
+                    + TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
+
     /**
      * Parse generated string from com.indeed.util.varexport.servlet.ViewExportedVariablesServlet
      * for variables in the namespace of JsonProctorLoaderFactory
@@ -432,10 +902,9 @@ public class RemoteProctorSpecificationSource extends DataLoadingTimerTask
     }
 
     private static ProctorSpecifications parseSpecificationFromServlet(
-            final String jsonString, final ProctorClientApplication client) throws IOException {
+            final byte[] json, final ProctorClientApplication client) throws IOException {
         final com.indeed.proctor.common.SpecificationResult specificationResult =
-                OBJECT_MAPPER.readValue(
-                        jsonString, com.indeed.proctor.common.SpecificationResult.class);
+                OBJECT_MAPPER.readValue(json, com.indeed.proctor.common.SpecificationResult.class);
 
         if (specificationResult.getSpecification() == null) {
             throw new IOException(
@@ -2,7 +2,9 @@ package com.indeed.proctor.webapp.db;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
+import com.indeed.proctor.store.AbstractGitProctorCore;
 import com.indeed.proctor.store.FileBasedProctorStore;
+import com.indeed.proctor.store.GitBareProctorCore;
 import com.indeed.proctor.store.GitProctor;
 import com.indeed.proctor.store.GitProctorCore;
 import com.indeed.proctor.store.GitWorkspaceProviderImpl;
@@ -22,6 +24,7 @@ import java.util.concurrent.ScheduledExecutorService;
 
 public class GitProctorStoreFactory implements TrunkQaProdStoresFactory {
     private static final Logger LOGGER = LogManager.getLogger(GitProctorStoreFactory.class);
+    private static final int DEFAULT_TEST_DEFINITION_LOADING_THREADS = 4;
 
     private String gitUrl;
     private String gitUsername;
@@ -41,6 +44,15 @@ public class GitProctorStoreFactory implements TrunkQaProdStoresFactory {
 
     @Nullable private final GlobalCacheStore globalCacheStore;
 
+    /** number of threads for each store to load test definitions of a test matrix */
+    private int testDefinitionLoadingThreads = DEFAULT_TEST_DEFINITION_LOADING_THREADS;
+
+    /** window to group concurrent changes of each store into one push, 0 to push each change */
+    private long groupCommitWindowMillis;
+
+    /** keep a bare repository without working directory and commit without checking out files */
+    private boolean bareRepository;
+
     /**
      * @deprecated executor and gitRefreshSecond are no longer required. Use other constructors
      *     instead.
@@ -126,6 +138,18 @@ public class GitProctorStoreFactory implements TrunkQaProdStoresFactory {
         this.globalCacheStore = globalCacheStore;
     }
 
+    public void setTestDefinitionLoadingThreads(final int testDefinitionLoadingThreads) {
+        this.testDefinitionLoadingThreads = testDefinitionLoadingThreads;
+    }
+
+    public void setGroupCommitWindowMillis(final long groupCommitWindowMillis) {
+        this.groupCommitWindowMillis = groupCommitWindowMillis;
+    }
+
+    public void setBareRepository(final boolean bareRepository) {
+        this.bareRepository = bareRepository;
+    }
+
     // Build ProctorStore which does initial proctor data downloading synchronously in constructor
     public ProctorStore getTrunkStore() {
         return createStore("proctor/git/trunk");
@@ -142,31 +166,55 @@ public class GitProctorStoreFactory implements TrunkQaProdStoresFactory {
     }
 
     public ProctorStore createStore(final String relativePath) {
-        final File tempDirectory = createTempDirectoryForPath(relativePath);
-
         Preconditions.checkArgument(
                 StringUtils.isNotBlank(gitUrl), "scm.path property cannot be empty");
 
-        final GitWorkspaceProviderImpl provider =
-                new GitWorkspaceProviderImpl(tempDirectory, gitDirectoryLockTimeoutSeconds);
-        final GitProctorCore gitCore =
-                new GitProctorCore(
-                        gitUrl,
-                        gitUsername,
-                        gitPassword,
-                        testDefinitionsDirectory,
-                        provider,
-                        gitPullPushTimeoutSeconds,
-                        gitCloneTimeoutSeconds,
-                        gitCleanInitialization);
+        final AbstractGitProctorCore gitCore;
+        if (bareRepository) {
+            gitCore =
+                    new GitBareProctorCore(
+                            gitUrl,
+                            gitUsername,
+                            gitPassword,
+                            testDefinitionsDirectory,
+                            // next to the working directory of the same path
+                            createTempDirectoryForPath(relativePath + ".git"),
+                            gitPullPushTimeoutSeconds,
+                            gitCloneTimeoutSeconds,
+                            null);
+        } else {
+            final File tempDirectory = createTempDirectoryForPath(relativePath);
+            final GitWorkspaceProviderImpl provider =
+                    new GitWorkspaceProviderImpl(tempDirectory, gitDirectoryLockTimeoutSeconds);
+            final GitProctorCore workingDirectoryCore =
+                    new GitProctorCore(
+                            gitUrl,
+                            gitUsername,
+                            gitPassword,
+                            testDefinitionsDirectory,
+                            provider,
+                            gitPullPushTimeoutSeconds,
+                            gitCloneTimeoutSeconds,
+                            gitCleanInitialization);
+            workingDirectoryCore.setGroupCommitWindowMillis(groupCommitWindowMillis);
+            gitCore = workingDirectoryCore;
+        }
 
         final String branchName = relativePath.substring(relativePath.lastIndexOf("/") + 1);
-        final GitProctor store = new GitProctor(gitCore, testDefinitionsDirectory, branchName);
+        final GitProctor store =
+                new GitProctor(
+                        gitCore,
+                        testDefinitionsDirectory,
+                        branchName,
+                        testDefinitionLoadingThreads);
         final String prefix = relativePath.replace('/', '-');
         final VarExporter exporter =
                 VarExporter.forNamespace(GitProctor.class.getSimpleName()).includeInGlobal();
         exporter.export(store, prefix + "-");
-        return createStoreWithGlobalCache(branchName, new CachingProctorStore(store));
+        exporter.export(gitCore, prefix + "-core-");
+        final CachingProctorStore cachingStore = new CachingProctorStore(store);
+        exporter.export(cachingStore, prefix + "-cache-");
+        return createStoreWithGlobalCache(branchName, cachingStore);
     }
 
     ProctorStore createStoreWithGlobalCache(final String branchName, final ProctorStore store) {
@@ -36,6 +36,9 @@ public class RevisionControlStoreFactory implements FactoryBean<StoreFactory> {
     private int gitPullPushTimeoutSeconds;
     private int gitCloneTimeoutSeconds;
     private boolean gitCleanInitialization;
+    private int gitTestDefinitionLoadingThreads;
+    private long gitGroupCommitWindowMillis;
+    private boolean gitBareRepository;
 
     private GlobalCacheStore globalCacheStore;
 
@@ -61,17 +64,22 @@ public class RevisionControlStoreFactory implements FactoryBean<StoreFactory> {
                     scmPassword,
                     testDefinitionsDirectory);
         } else {
-            return new GitProctorStoreFactory(
-                    scmPath,
-                    scmUsername,
-                    scmPassword,
-                    testDefinitionsDirectory,
-                    tempRootDirectory,
-                    gitDirectoryLockTimeoutSeconds,
-                    gitPullPushTimeoutSeconds,
-                    gitCloneTimeoutSeconds,
-                    gitCleanInitialization,
-                    globalCacheStore);
+            final GitProctorStoreFactory factory =
+                    new GitProctorStoreFactory(
+                            scmPath,
+                            scmUsername,
+                            scmPassword,
+                            testDefinitionsDirectory,
+                            tempRootDirectory,
+                            gitDirectoryLockTimeoutSeconds,
+                            gitPullPushTimeoutSeconds,
+                            gitCloneTimeoutSeconds,
+                            gitCleanInitialization,
+                            globalCacheStore);
+            factory.setTestDefinitionLoadingThreads(gitTestDefinitionLoadingThreads);
+            factory.setGroupCommitWindowMillis(gitGroupCommitWindowMillis);
+            factory.setBareRepository(gitBareRepository);
+            return factory;
         }
     }
 
@@ -172,6 +180,21 @@ public class RevisionControlStoreFactory implements FactoryBean<StoreFactory> {
         gitCleanInitialization = cleanInitialization;
     }
 
+    @Value("${git.test.definition.loading.threads:4}")
+    public void setGitTestDefinitionLoadingThreads(final int threads) {
+        gitTestDefinitionLoadingThreads = threads;
+    }
+
+    @Value("${git.group.commit.window.millis:0}")
+    public void setGitGroupCommitWindowMillis(final long millis) {
+        gitGroupCommitWindowMillis = millis;
+    }
+
+    @Value("${git.bare.repository:false}")
+    public void setGitBareRepository(final boolean bareRepository) {
+        gitBareRepository = bareRepository;
+    }
+
     @Autowired(required = false)
     public void setGlobalCacheStore(final GlobalCacheStore globalCacheStore) {
         this.globalCacheStore = globalCacheStore;
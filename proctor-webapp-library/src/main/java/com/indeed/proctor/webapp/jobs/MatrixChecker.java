@@ -1,14 +1,19 @@
 package com.indeed.proctor.webapp.jobs;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.indeed.proctor.common.IncompatibleTestMatrixException;
 import com.indeed.proctor.common.ProctorLoadResult;
 import com.indeed.proctor.common.ProctorSpecification;
 import com.indeed.proctor.common.ProctorUtils;
+import com.indeed.proctor.common.ProvidedContext;
 import com.indeed.proctor.common.RuleEvaluator;
 import com.indeed.proctor.common.TestSpecification;
+import com.indeed.proctor.common.VerificationCache;
 import com.indeed.proctor.common.el.LibraryFunctionMapper;
 import com.indeed.proctor.common.model.TestDefinition;
 import com.indeed.proctor.common.model.TestMatrixArtifact;
@@ -19,18 +24,26 @@ import com.indeed.proctor.webapp.db.Environment;
 import com.indeed.proctor.webapp.model.AppVersion;
 import com.indeed.proctor.webapp.model.ProctorSpecifications;
 import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+import com.indeed.proctor.webapp.util.threads.LogOnUncaughtExceptionHandler;
+import com.indeed.util.varexport.VarExporter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Component
 public class MatrixChecker {
@@ -38,11 +51,49 @@ public class MatrixChecker {
     private static final LibraryFunctionMapper FUNCTION_MAPPER =
             RuleEvaluator.defaultFunctionMapperBuilder().build();
 
+    /** default number of threads verifying specifications of clients */
+    private static final int VERIFIER_THREADS = 4;
+
+    /** bound of distinct provided contexts of specifications kept for verification */
+    private static final int PROVIDED_CONTEXT_CACHE_SIZE = 1_000;
+
     private final ProctorSpecificationSource specificationSource;
 
+    private final ExecutorService verifierExecutor;
+
+    /**
+     * results of verifying tests against specifications of clients, reused when checking the same
+     * definition again e.g. on edit then on promotion
+     */
+    private final VerificationCache verificationCache = new VerificationCache();
+
+    /**
+     * provided contexts by the provided context of specifications, to identify equal contexts by
+     * the same instance in the verification cache
+     */
+    private final Cache<Map<String, String>, ProvidedContext> providedContexts =
+            CacheBuilder.newBuilder().maximumSize(PROVIDED_CONTEXT_CACHE_SIZE).build();
+
     @Autowired
     public MatrixChecker(final ProctorSpecificationSource specificationSource) {
+        this(
+                specificationSource,
+                Executors.newFixedThreadPool(
+                        VERIFIER_THREADS,
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("matrix-checker-Thread-%d")
+                                .setDaemon(true)
+                                .setUncaughtExceptionHandler(new LogOnUncaughtExceptionHandler())
+                                .build()));
+    }
+
+    /** @param verifierExecutor verifies specifications of clients concurrently */
+    public MatrixChecker(
+            final ProctorSpecificationSource specificationSource,
+            final ExecutorService verifierExecutor) {
         this.specificationSource = specificationSource;
+        this.verifierExecutor = verifierExecutor;
+        VarExporter.forNamespace(getClass().getSimpleName()).export(verificationCache, "");
     }
 
     /**
@@ -77,30 +128,29 @@ public class MatrixChecker {
         final TestMatrixArtifact artifact = ProctorUtils.convertToConsumableArtifact(tmv);
 
         // Verify
-        final ImmutableList.Builder<String> errorsBuilder = ImmutableList.builder();
         final Set<AppVersion> clients =
                 specificationSource.activeClients(targetEnvironment, targetTestName);
+        final Map<AppVersion, Future<List<String>>> futures = new LinkedHashMap<>();
         for (final AppVersion client : clients) {
-            LOGGER.info("Verifying artifact against : cached " + client + " for " + targetTestName);
-            final RemoteSpecificationResult result =
-                    specificationSource.getRemoteResult(targetEnvironment, client);
-            final ProctorSpecifications specifications = result.getSpecifications();
-
-            if (specifications == null) {
-                LOGGER.error(
-                        "Unexpectedly "
-                                + client
-                                + " returned null specifications"
-                                + ". Skipping validation.");
-                continue;
-            }
+            futures.put(
+                    client,
+                    verifierExecutor.submit(
+                            () ->
+                                    verifyClient(
+                                            targetEnvironment, client, artifact, targetTestName)));
+        }
 
-            for (final ProctorSpecification specification : specifications.asSet()) {
-                final String error =
-                        verifyAndReturnError(specification, artifact, targetTestName, client);
-                if (error != null) {
-                    errorsBuilder.add(error);
-                }
+        final ImmutableList.Builder<String> errorsBuilder = ImmutableList.builder();
+        for (final Map.Entry<AppVersion, Future<List<String>>> entry : futures.entrySet()) {
+            try {
+                errorsBuilder.addAll(entry.getValue().get());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Interrupted verifying " + entry.getKey(), e);
+            } catch (final ExecutionException e) {
+                LOGGER.error("Unable to verify " + entry.getKey(), e.getCause());
+                errorsBuilder.add(entry.getKey() + " failed. " + e.getCause().getMessage());
             }
         }
 
@@ -110,6 +160,37 @@ public class MatrixChecker {
         return new CheckMatrixResult(greatSuccess, errors);
     }
 
+    /** @return errors of specifications of the client */
+    private List<String> verifyClient(
+            final Environment targetEnvironment,
+            final AppVersion client,
+            final TestMatrixArtifact artifact,
+            final String targetTestName) {
+        LOGGER.info("Verifying artifact against : cached " + client + " for " + targetTestName);
+        final RemoteSpecificationResult result =
+                specificationSource.getRemoteResult(targetEnvironment, client);
+        final ProctorSpecifications specifications = result.getSpecifications();
+
+        if (specifications == null) {
+            LOGGER.error(
+                    "Unexpectedly "
+                            + client
+                            + " returned null specifications"
+                            + ". Skipping validation.");
+            return Collections.emptyList();
+        }
+
+        final List<String> errors = new ArrayList<>();
+        for (final ProctorSpecification specification : specifications.asSet()) {
+            final String error =
+                    verifyAndReturnError(specification, artifact, targetTestName, client);
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+        return errors;
+    }
+
     @Nullable
     private String verifyAndReturnError(
             final ProctorSpecification specification,
@@ -173,7 +254,8 @@ public class MatrixChecker {
             final ProctorSpecification spec,
             final TestMatrixArtifact testMatrix,
             final String testName,
-            final String matrixSource) {
+            final String matrixSource)
+            throws ExecutionException {
         final Map<String, TestSpecification> requiredTests =
                 Optional.ofNullable(spec.getTests())
                         .map(map -> map.get(testName))
@@ -185,6 +267,19 @@ public class MatrixChecker {
                 matrixSource,
                 requiredTests,
                 FUNCTION_MAPPER,
-                ProctorUtils.convertContextToTestableMap(spec.getProvidedContext()));
+                getProvidedContext(spec),
+                Collections.emptySet(),
+                Collections.emptySet(),
+                verificationCache);
+    }
+
+    private ProvidedContext getProvidedContext(final ProctorSpecification spec)
+            throws ExecutionException {
+        final Map<String, String> providedContext = spec.getProvidedContext();
+        if (providedContext == null) {
+            return ProvidedContext.nonEvaluableContext();
+        }
+        return providedContexts.get(
+                providedContext, () -> ProctorUtils.convertContextToTestableMap(providedContext));
     }
 }
@@ -2,12 +2,17 @@ package com.indeed.proctor.webapp.util;
 
 import com.google.common.base.Strings;
 import com.indeed.proctor.common.model.Allocation;
+import com.indeed.proctor.common.model.TestBucket;
 import com.indeed.proctor.common.model.TestDefinition;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+
 public class TestSearchUtil {
     public static boolean matchTestName(final String testName, final String lowerQuery) {
         return testName.toLowerCase().contains(lowerQuery);
@@ -73,6 +78,41 @@ public class TestSearchUtil {
                         .anyMatch(name -> name.contains(lowerQuery));
     }
 
+    /** @return rules of the test and its allocations, the values searched by matchRule */
+    public static List<String> getRules(final TestDefinition definition) {
+        final List<String> rules = new ArrayList<>();
+        rules.add(Strings.nullToEmpty(definition.getRule()));
+        definition.getAllocations().forEach(a -> rules.add(Strings.nullToEmpty(a.getRule())));
+        return rules;
+    }
+
+    /** @return the values searched by matchBucket */
+    public static List<String> getBucketNames(final TestDefinition definition) {
+        return definition.getBuckets().stream().map(TestBucket::getName).collect(toList());
+    }
+
+    /** @return the values searched by matchBucketDescription */
+    public static List<String> getBucketDescriptions(final TestDefinition definition) {
+        return definition.getBuckets().stream()
+                .map(testBucket -> Strings.nullToEmpty(testBucket.getDescription()))
+                .collect(toList());
+    }
+
+    /** @return the values searched by matchAll */
+    public static List<String> getAllValues(
+            final String testName, final TestDefinition definition) {
+        final List<String> values = new ArrayList<>();
+        values.add(testName);
+        values.add(Strings.nullToEmpty(definition.getDescription()));
+        values.addAll(getRules(definition));
+        values.addAll(getBucketNames(definition));
+        values.addAll(getBucketDescriptions(definition));
+        values.add(Objects.toString(definition.getTestType(), ""));
+        values.addAll(definition.getMetaTags());
+        values.add(Strings.nullToEmpty(definition.getSalt()));
+        return values;
+    }
+
     /**
      * @param testNames test names to sort at first
      * @return a comparator of an entry of map
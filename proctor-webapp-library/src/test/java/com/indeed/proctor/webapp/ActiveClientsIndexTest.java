@@ -0,0 +1,124 @@
+package com.indeed.proctor.webapp;
+
+import com.google.common.collect.ImmutableMap;
+import com.indeed.proctor.common.ProctorSpecification;
+import com.indeed.proctor.common.TestSpecification;
+import com.indeed.proctor.common.dynamic.DynamicFilters;
+import com.indeed.proctor.common.dynamic.MetaTagsFilter;
+import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.webapp.model.AppVersion;
+import com.indeed.proctor.webapp.model.ProctorClientApplication;
+import com.indeed.proctor.webapp.model.ProctorSpecifications;
+import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActiveClientsIndexTest {
+    private static final AppVersion REQUIRING_APP = new AppVersion("requiring", "v1");
+    private static final AppVersion DYNAMIC_APP = new AppVersion("dynamic", "v1");
+    private static final AppVersion FAILED_APP = new AppVersion("failed", "v1");
+
+    private static final Map<AppVersion, RemoteSpecificationResult> RESULTS =
+            ImmutableMap.of(
+                    REQUIRING_APP,
+                    success(
+                            REQUIRING_APP,
+                            new ProctorSpecification(
+                                    Collections.emptyMap(),
+                                    ImmutableMap.of(
+                                            "required_tst",
+                                            new TestSpecification(),
+                                            "undefined_tst",
+                                            new TestSpecification()),
+                                    new DynamicFilters())),
+                    DYNAMIC_APP,
+                    success(
+                            DYNAMIC_APP,
+                            new ProctorSpecification(
+                                    Collections.emptyMap(),
+                                    ImmutableMap.of("required_tst", new TestSpecification()),
+                                    new DynamicFilters(
+                                            Collections.singletonList(
+                                                    new MetaTagsFilter(
+                                                            Collections.singleton("dynamic")))))),
+                    FAILED_APP,
+                    RemoteSpecificationResult.failures(FAILED_APP, Collections.emptyMap()));
+
+    @Test
+    public void testActiveTests() {
+        final ActiveClientsIndex index =
+                ActiveClientsIndex.build(
+                        RESULTS,
+                        "1",
+                        ImmutableMap.of(
+                                "required_tst", definition("1"),
+                                "dynamic_tst", dynamicDefinition("1"),
+                                "other_tst", definition("1")));
+
+        assertThat(index.getActiveTests())
+                .containsExactlyInAnyOrder("required_tst", "undefined_tst", "dynamic_tst");
+        assertThat(index.isBuiltFrom(RESULTS, "1")).isTrue();
+        assertThat(index.isBuiltFrom(RESULTS, "2")).isFalse();
+        assertThat(index.isBuiltFrom(ImmutableMap.copyOf(RESULTS), "1")).isFalse();
+    }
+
+    @Test
+    public void testActiveClients() {
+        final ActiveClientsIndex index =
+                ActiveClientsIndex.build(
+                        RESULTS,
+                        "1",
+                        ImmutableMap.of(
+                                "required_tst", definition("1"),
+                                "dynamic_tst", dynamicDefinition("1")));
+
+        assertThat(index.getActiveClients("required_tst", definition("1")))
+                .containsExactlyInAnyOrder(REQUIRING_APP, DYNAMIC_APP);
+        assertThat(index.getActiveClients("dynamic_tst", dynamicDefinition("1")))
+                .containsExactly(DYNAMIC_APP);
+        assertThat(index.getActiveClients("other_tst", definition("1"))).isEmpty();
+    }
+
+    @Test
+    public void testActiveClientsOfTestsChangedSinceBuilding() {
+        final ActiveClientsIndex index =
+                ActiveClientsIndex.build(RESULTS, null, Collections.emptyMap());
+
+        // dynamic filters are matched against the given definitions
+        assertThat(index.getActiveClients("dynamic_tst", dynamicDefinition("2")))
+                .containsExactly(DYNAMIC_APP);
+        assertThat(index.getActiveClients("required_tst", definition("2")))
+                .containsExactlyInAnyOrder(REQUIRING_APP, DYNAMIC_APP);
+        assertThat(index.getActiveClients("other_tst", definition("2"))).isEmpty();
+    }
+
+    private static RemoteSpecificationResult success(
+            final AppVersion version, final ProctorSpecification specification) {
+        return RemoteSpecificationResult.success(
+                version,
+                new ProctorClientApplication(
+                        version.getApp(),
+                        "http://example.com",
+                        "http://example.com",
+                        new Date(),
+                        version.getVersion()),
+                new ProctorSpecifications(Collections.singleton(specification)));
+    }
+
+    private static ConsumableTestDefinition definition(final String version) {
+        final ConsumableTestDefinition definition = new ConsumableTestDefinition();
+        definition.setVersion(version);
+        return definition;
+    }
+
+    private static ConsumableTestDefinition dynamicDefinition(final String version) {
+        final ConsumableTestDefinition definition = definition(version);
+        definition.setMetaTags(Collections.singletonList("dynamic"));
+        return definition;
+    }
+}
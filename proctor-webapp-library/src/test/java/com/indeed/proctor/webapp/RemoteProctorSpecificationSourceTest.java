@@ -1,17 +1,283 @@
 package com.indeed.proctor.webapp;
 
+import com.indeed.proctor.store.ProctorReader;
+import com.indeed.proctor.webapp.db.Environment;
+import com.indeed.proctor.webapp.model.AppVersion;
 import com.indeed.proctor.webapp.model.ProctorClientApplication;
 import com.indeed.proctor.webapp.model.ProctorSpecifications;
+import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+import com.sun.net.httpserver.HttpServer;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /** @author yiqing */
 public class RemoteProctorSpecificationSourceTest {
+    private static final AppVersion APP_VERSION = new AppVersion("testapp", "version");
+
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final AtomicInteger slowRequests = new AtomicInteger();
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        final byte[] exportedVariables;
+        try (final InputStream inputStream =
+                RemoteProctorSpecificationSourceTest.class.getResourceAsStream(
+                        "exportedVariables.txt")) {
+            exportedVariables = IOUtils.toByteArray(inputStream);
+        }
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(
+                "/fast/private/v",
+                exchange -> {
+                    exchange.sendResponseHeaders(200, exportedVariables.length);
+                    try (final OutputStream body = exchange.getResponseBody()) {
+                        body.write(exportedVariables);
+                    }
+                });
+        server.createContext(
+                "/etag/private/v",
+                exchange -> {
+                    if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModifiedResponses.incrementAndGet();
+                        exchange.sendResponseHeaders(304, -1);
+                        exchange.close();
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    exchange.sendResponseHeaders(200, exportedVariables.length);
+                    try (final OutputStream body = exchange.getResponseBody()) {
+                        body.write(exportedVariables);
+                    }
+                });
+        server.createContext(
+                "/slow/private/v",
+                exchange -> {
+                    slowRequests.incrementAndGet();
+                    try {
+                        Thread.sleep(3000);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.sendResponseHeaders(200, exportedVariables.length);
+                    try (final OutputStream body = exchange.getResponseBody()) {
+                        body.write(exportedVariables);
+                    }
+                });
+        server.createContext(
+                "/",
+                exchange -> {
+                    final byte[] body = "not found".getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(404, body.length);
+                    try (final OutputStream output = exchange.getResponseBody()) {
+                        output.write(body);
+                    }
+                });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLoadFromAllEnvironments() {
+        final ProctorClientApplication client = createClient("fast");
+        final RemoteProctorSpecificationSource source =
+                createSource(Collections.singletonList(client), 1000);
+        try {
+            assertThat(source.load()).isTrue();
+            for (final Environment environment : Environment.values()) {
+                final RemoteSpecificationResult result =
+                        source.getRemoteResult(environment, APP_VERSION);
+                assertThat(result.isSuccess()).isTrue();
+                assertThat(result.getClientApplication()).isEqualTo(client);
+                assertThat(result.getSpecifications().asSet()).hasSize(1);
+            }
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoadFromNextInstanceOnFailure() throws IOException {
+        final ProctorClientApplication unavailableClient = createUnavailableClient();
+        final ProctorClientApplication missingClient = createClient("missing");
+        final ProctorClientApplication client = createClient("fast");
+        final RemoteProctorSpecificationSource source =
+                createSource(Arrays.asList(unavailableClient, missingClient, client), 10000);
+        try {
+            assertThat(source.load()).isTrue();
+            final RemoteSpecificationResult result =
+                    source.getRemoteResult(Environment.QA, APP_VERSION);
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getClientApplication()).isEqualTo(client);
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoadFromNextInstanceOnDelay() {
+        final ProctorClientApplication slowClient = createClient("slow");
+        final ProctorClientApplication client = createClient("fast");
+        final RemoteProctorSpecificationSource source =
+                createSource(Arrays.asList(slowClient, client), 50);
+        try {
+            final long start = System.currentTimeMillis();
+            assertThat(source.load()).isTrue();
+            assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+            final RemoteSpecificationResult result =
+                    source.getRemoteResult(Environment.PRODUCTION, APP_VERSION);
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getClientApplication()).isEqualTo(client);
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    public void testLimitHedgedRequests() {
+        final List<ProctorClientApplication> clients =
+                Arrays.asList(
+                        createClient("slow"),
+                        createClient("slow"),
+                        createClient("slow"),
+                        createClient("slow"));
+        final RemoteProctorSpecificationSource source =
+                createSource(Environment.QA, clients, 50);
+        try {
+            assertThat(source.load()).isTrue();
+            assertThat(source.getRemoteResult(Environment.QA, APP_VERSION).isSuccess()).isTrue();
+            assertThat(slowRequests.get()).isEqualTo(2);
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoadFailures() throws IOException {
+        final ProctorClientApplication unavailableClient = createUnavailableClient();
+        final ProctorClientApplication missingClient = createClient("missing");
+        final RemoteProctorSpecificationSource source =
+                createSource(Arrays.asList(unavailableClient, missingClient), 10000);
+        try {
+            assertThat(source.load()).isFalse();
+            final RemoteSpecificationResult result =
+                    source.getRemoteResult(Environment.WORKING, APP_VERSION);
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(result.getFailures()).containsOnlyKeys(unavailableClient, missingClient);
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    public void testReuseUnchangedSpecifications() {
+        final ProctorClientApplication client = createClient("fast");
+        final RemoteProctorSpecificationSource source =
+                createSource(Environment.QA, Collections.singletonList(client), 1000);
+        try {
+            assertThat(source.load()).isTrue();
+            final ProctorSpecifications specifications =
+                    source.getRemoteResult(Environment.QA, APP_VERSION).getSpecifications();
+            assertThat(source.load()).isTrue();
+            assertThat(source.getRemoteResult(Environment.QA, APP_VERSION).getSpecifications())
+                    .isSameAs(specifications);
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    public void testConditionalRequests() {
+        final ProctorClientApplication client = createClient("etag");
+        final RemoteProctorSpecificationSource source =
+                createSource(Environment.WORKING, Collections.singletonList(client), 1000);
+        try {
+            assertThat(source.load()).isTrue();
+            assertThat(notModifiedResponses.get()).isZero();
+            final ProctorSpecifications specifications =
+                    source.getRemoteResult(Environment.WORKING, APP_VERSION).getSpecifications();
+            assertThat(source.load()).isTrue();
+            assertThat(notModifiedResponses.get()).isEqualTo(1);
+            assertThat(source.getRemoteResult(Environment.WORKING, APP_VERSION).getSpecifications())
+                    .isSameAs(specifications);
+        } finally {
+            source.shutdown();
+        }
+    }
+
+    private RemoteProctorSpecificationSource createSource(
+            final List<ProctorClientApplication> clients, final int hedgeDelayMillis) {
+        final ProctorClientSource clientSource = mock(ProctorClientSource.class);
+        for (final Environment environment : Environment.values()) {
+            when(clientSource.loadClients(environment)).thenReturn(clients);
+        }
+        return createSource(clientSource, hedgeDelayMillis);
+    }
+
+    /** clients only in a single environment, so that each client is requested once per load */
+    private RemoteProctorSpecificationSource createSource(
+            final Environment clientEnvironment,
+            final List<ProctorClientApplication> clients,
+            final int hedgeDelayMillis) {
+        final ProctorClientSource clientSource = mock(ProctorClientSource.class);
+        for (final Environment environment : Environment.values()) {
+            when(clientSource.loadClients(environment))
+                    .thenReturn(
+                            (environment == clientEnvironment) ? clients : Collections.emptyList());
+        }
+        return createSource(clientSource, hedgeDelayMillis);
+    }
+
+    private static RemoteProctorSpecificationSource createSource(
+            final ProctorClientSource clientSource, final int hedgeDelayMillis) {
+        return new RemoteProctorSpecificationSource(
+                5000,
+                4,
+                hedgeDelayMillis,
+                clientSource,
+                mock(ProctorReader.class),
+                mock(ProctorReader.class),
+                mock(ProctorReader.class));
+    }
+
+    private ProctorClientApplication createClient(final String path) {
+        final String url = "http://localhost:" + server.getAddress().getPort() + "/" + path;
+        return new ProctorClientApplication("testapp", url, url, new Date(), "version");
+    }
+
+    private static ProctorClientApplication createUnavailableClient() throws IOException {
+        final int port;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final String url = "http://localhost:" + port;
+        return new ProctorClientApplication("testapp", url, url, new Date(), "version");
+    }
+
     @Test
     public void testExportedVariableParser() throws Exception {
         try (final InputStream exportedVariables =
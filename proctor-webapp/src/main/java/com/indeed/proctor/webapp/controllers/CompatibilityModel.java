@@ -0,0 +1,645 @@
+package com.indeed.proctor.webapp.controllers;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.indeed.proctor.common.ProctorUtils;
+import com.indeed.proctor.common.TestSpecification;
+import com.indeed.proctor.common.VerificationCache;
+import com.indeed.proctor.common.model.TestMatrixArtifact;
+import com.indeed.proctor.common.model.TestMatrixVersion;
+import com.indeed.proctor.store.ProctorStore;
+import com.indeed.proctor.store.StoreException;
+import com.indeed.proctor.webapp.ProctorSpecificationSource;
+import com.indeed.proctor.webapp.controllers.ProctorController.CompatibilityRow;
+import com.indeed.proctor.webapp.controllers.ProctorController.CompatibleSpecificationResult;
+import com.indeed.proctor.webapp.db.Environment;
+import com.indeed.proctor.webapp.model.AppVersion;
+import com.indeed.proctor.webapp.model.ProctorClientApplication;
+import com.indeed.proctor.webapp.model.ProctorSpecifications;
+import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+import com.indeed.proctor.webapp.util.threads.LogOnUncaughtExceptionHandler;
+import com.indeed.util.varexport.Export;
+import com.indeed.util.varexport.VarExporter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Compatibility of the test matrices of all environments with specifications of clients of all
+ * environments, and usage of tests by clients of each environment, for the views of {@link
+ * ProctorController}.
+ *
+ * <p>The model is refreshed in background, and by views when the latest version of a store or the
+ * specifications of an environment changed since the last snapshot. A refresh does nothing unless
+ * one of them changed, and results of a client are reused as long as both the test matrix and the
+ * specifications of the client are unchanged.
+ */
+@Component
+public class CompatibilityModel implements InitializingBean, DisposableBean {
+    private static final Logger LOGGER = LogManager.getLogger(CompatibilityModel.class);
+
+    /** delay between background refreshes */
+    private static final long REFRESH_DELAY_SECONDS = 30;
+
+    private final Map<Environment, ProctorStore> stores;
+    private final ProctorSpecificationSource specificationSource;
+
+    /**
+     * results of verifying tests against specifications of clients, so that a changed test matrix
+     * only verifies tests changed since the last snapshot
+     */
+    private final VerificationCache verificationCache;
+
+    @CheckForNull private volatile Snapshot snapshot;
+
+    private final RefreshStats refreshStats = new RefreshStats();
+
+    /** refreshes in background, from start to destroy */
+    @CheckForNull private ScheduledExecutorService refreshExecutor;
+
+    @Autowired
+    public CompatibilityModel(
+            @Qualifier("trunk") final ProctorStore trunkStore,
+            @Qualifier("qa") final ProctorStore qaStore,
+            @Qualifier("production") final ProctorStore productionStore,
+            final ProctorSpecificationSource specificationSource,
+            @Qualifier("compatibilityVerificationCache")
+                    final VerificationCache verificationCache) {
+        this(
+                storesByEnvironment(trunkStore, qaStore, productionStore),
+                specificationSource,
+                verificationCache);
+    }
+
+    CompatibilityModel(
+            final Map<Environment, ProctorStore> stores,
+            final ProctorSpecificationSource specificationSource,
+            final VerificationCache verificationCache) {
+        this.stores = stores;
+        this.specificationSource = specificationSource;
+        this.verificationCache = verificationCache;
+    }
+
+    private static Map<Environment, ProctorStore> storesByEnvironment(
+            final ProctorStore trunkStore,
+            final ProctorStore qaStore,
+            final ProctorStore productionStore) {
+        final Map<Environment, ProctorStore> stores = new EnumMap<>(Environment.class);
+        stores.put(Environment.WORKING, trunkStore);
+        stores.put(Environment.QA, qaStore);
+        stores.put(Environment.PRODUCTION, productionStore);
+        return stores;
+    }
+
+    /** starts refreshing the model in background, and exports its stats and those of its cache */
+    @Override
+    public void afterPropertiesSet() {
+        refreshExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("proctor-compatibility-Thread-%d")
+                                .setDaemon(true)
+                                .setUncaughtExceptionHandler(new LogOnUncaughtExceptionHandler())
+                                .build());
+        refreshExecutor.scheduleWithFixedDelay(
+                this::refreshQuietly, 0, REFRESH_DELAY_SECONDS, TimeUnit.SECONDS);
+        final VarExporter exporter = VarExporter.forNamespace(getClass().getSimpleName());
+        exporter.includeInGlobal();
+        exporter.export(this, "");
+        exporter.export(verificationCache, "");
+    }
+
+    /** stops refreshing the model in background */
+    @Override
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the last snapshot if it is built from the latest versions of the stores and the
+     *     current specifications, else a snapshot refreshed first, so that views show edits
+     *     without waiting for the background refresh
+     */
+    Snapshot getSnapshot() {
+        final Snapshot current = snapshot;
+        if ((current != null) && isUpToDate(current)) {
+            return current;
+        }
+        return refresh();
+    }
+
+    /** compares versions only, without loading test matrices */
+    private boolean isUpToDate(final Snapshot current) {
+        for (final Environment environment : Environment.values()) {
+            if (current.clients.get(environment)
+                    != specificationSource.loadAllSpecifications(environment)) {
+                return false;
+            }
+            try {
+                if (!current.matrices
+                        .get(environment)
+                        .isVersion(stores.get(environment).getLatestVersion())) {
+                    return false;
+                }
+            } catch (final StoreException e) {
+                // a refresh would keep the previous test matrix
+                LOGGER.error("Failed to get the latest version of " + environment, e);
+            }
+        }
+        return true;
+    }
+
+    /** @return the latest snapshot, the last one if nothing changed since */
+    synchronized Snapshot refresh() {
+        final long startNanos = System.nanoTime();
+        final Snapshot previous = snapshot;
+
+        final Map<Environment, MatrixState> matrices = new EnumMap<>(Environment.class);
+        final Map<Environment, Map<AppVersion, RemoteSpecificationResult>> clients =
+                new EnumMap<>(Environment.class);
+        for (final Environment environment : Environment.values()) {
+            matrices.put(
+                    environment,
+                    loadMatrix(
+                            environment,
+                            (previous == null) ? null : previous.matrices.get(environment)));
+            clients.put(environment, specificationSource.loadAllSpecifications(environment));
+        }
+        if ((previous != null) && previous.isBuiltFrom(matrices, clients)) {
+            refreshStats.record(startNanos, 0, 0);
+            return previous;
+        }
+
+        final Builder builder = new Builder(previous, matrices, clients, verificationCache);
+        final Snapshot updated = builder.build();
+        snapshot = updated;
+        refreshStats.record(startNanos, builder.reusedResults, builder.verifiedResults);
+        return updated;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (final RuntimeException e) {
+            refreshStats.failures.incrementAndGet();
+            LOGGER.error("Failed to refresh compatibility of test matrices", e);
+        }
+    }
+
+    /** @return the matrix of the latest version of the store, or the previous one if unchanged */
+    private MatrixState loadMatrix(
+            final Environment environment, @Nullable final MatrixState previous) {
+        final ProctorStore store = stores.get(environment);
+        try {
+            final String latestVersion = store.getLatestVersion();
+            if ((previous != null) && previous.isVersion(latestVersion)) {
+                return previous;
+            }
+            final TestMatrixVersion matrix = store.getCurrentTestMatrix();
+            return new MatrixState(
+                    latestVersion,
+                    matrix,
+                    (matrix == null) ? null : ProctorUtils.convertToConsumableArtifact(matrix));
+        } catch (final StoreException e) {
+            LOGGER.error("Failed to get the current test matrix of " + environment, e);
+            return (previous == null) ? new MatrixState(null, null, null) : previous;
+        }
+    }
+
+    @Export(name = "refreshes", doc = "Number of refreshes of the compatibility model")
+    public long getRefreshes() {
+        return refreshStats.refreshes;
+    }
+
+    @Export(name = "refresh-failures", doc = "Number of failed refreshes in background")
+    public long getRefreshFailures() {
+        return refreshStats.failures.get();
+    }
+
+    @Export(name = "last-refresh-millis", doc = "Duration of the last refresh in milliseconds")
+    public long getLastRefreshMillis() {
+        return refreshStats.lastDurationMillis;
+    }
+
+    @Export(
+            name = "last-reused-results",
+            doc = "Number of results of clients reused from the previous snapshot on last update")
+    public long getLastReusedResults() {
+        return refreshStats.lastReusedResults;
+    }
+
+    @Export(
+            name = "last-verified-results",
+            doc = "Number of results of clients verified again on last update")
+    public long getLastVerifiedResults() {
+        return refreshStats.lastVerifiedResults;
+    }
+
+    @Export(
+            name = "staleness-millis",
+            doc = "Milliseconds since the snapshot was last known up to date, -1 if never")
+    public long getStalenessMillis() {
+        final long lastRefreshMillis = refreshStats.lastRefreshMillis;
+        return (lastRefreshMillis < 0) ? -1 : (System.currentTimeMillis() - lastRefreshMillis);
+    }
+
+    @Export(
+            name = "incompatible-clients",
+            doc = "Number of app versions incompatible with the test matrix of each environment")
+    public Map<Environment, Integer> getIncompatibleClients() {
+        final Snapshot current = snapshot;
+        if (current == null) {
+            return Collections.emptyMap();
+        }
+        final Map<Environment, Integer> incompatibleClients = new EnumMap<>(Environment.class);
+        current.compatibilityResults.forEach(
+                (matrixEnvironment, resultsByEnvironment) -> {
+                    int count = 0;
+                    for (final Map<AppVersion, CompatibilityResult> results :
+                            resultsByEnvironment.values()) {
+                        for (final CompatibilityResult result : results.values()) {
+                            if (!result.value.isCompatible()) {
+                                count++;
+                            }
+                        }
+                    }
+                    incompatibleClients.put(matrixEnvironment, count);
+                });
+        return incompatibleClients;
+    }
+
+    /** immutable state of the model, read by views */
+    static class Snapshot {
+        private final Map<Environment, MatrixState> matrices;
+        private final Map<Environment, Map<AppVersion, RemoteSpecificationResult>> clients;
+
+        /** results of clients of each environment by environment of the test matrix */
+        private final Map<Environment, Map<Environment, Map<AppVersion, CompatibilityResult>>>
+                compatibilityResults;
+        /** results of tests used by clients of each environment against its test matrix */
+        private final Map<Environment, Map<AppVersion, UsageResult>> usageResults;
+
+        private final Map<Environment, CompatibilityRow> compatibility;
+        private final Map<String, CompatibilityRow> usage;
+
+        private Snapshot(
+                final Map<Environment, MatrixState> matrices,
+                final Map<Environment, Map<AppVersion, RemoteSpecificationResult>> clients,
+                final Map<Environment, Map<Environment, Map<AppVersion, CompatibilityResult>>>
+                        compatibilityResults,
+                final Map<Environment, Map<AppVersion, UsageResult>> usageResults,
+                final Map<Environment, CompatibilityRow> compatibility,
+                final Map<String, CompatibilityRow> usage) {
+            this.matrices = matrices;
+            this.clients = clients;
+            this.compatibilityResults = compatibilityResults;
+            this.usageResults = usageResults;
+            this.compatibility = Collections.unmodifiableMap(compatibility);
+            this.usage = Collections.unmodifiableMap(usage);
+        }
+
+        private boolean isBuiltFrom(
+                final Map<Environment, MatrixState> matrices,
+                final Map<Environment, Map<AppVersion, RemoteSpecificationResult>> clients) {
+            for (final Environment environment : Environment.values()) {
+                if ((this.matrices.get(environment) != matrices.get(environment))
+                        || (this.clients.get(environment) != clients.get(environment))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** @return the test matrix of the environment, or null if not available */
+        @CheckForNull
+        TestMatrixVersion getMatrix(final Environment environment) {
+            return matrices.get(environment).matrix;
+        }
+
+        /** @return rows of compatibility by environment of the test matrix */
+        Map<Environment, CompatibilityRow> getCompatibility() {
+            return compatibility;
+        }
+
+        /** @return rows of usage by test name, sorted by test name */
+        Map<String, CompatibilityRow> getUsage() {
+            return usage;
+        }
+    }
+
+    /** builds a snapshot, reusing results of the previous snapshot if possible */
+    private static class Builder {
+        @Nullable private final Snapshot previous;
+        private final Map<Environment, MatrixState> matrices;
+        private final Map<Environment, Map<AppVersion, RemoteSpecificationResult>> clients;
+        private final VerificationCache verificationCache;
+        private int reusedResults;
+        private int verifiedResults;
+
+        private Builder(
+                @Nullable final Snapshot previous,
+                final Map<Environment, MatrixState> matrices,
+                final Map<Environment, Map<AppVersion, RemoteSpecificationResult>> clients,
+                final VerificationCache verificationCache) {
+            this.previous = previous;
+            this.matrices = matrices;
+            this.clients = clients;
+            this.verificationCache = verificationCache;
+        }
+
+        private Snapshot build() {
+            final Map<Environment, Map<Environment, Map<AppVersion, CompatibilityResult>>>
+                    compatibilityResults = new EnumMap<>(Environment.class);
+            final Map<Environment, CompatibilityRow> compatibility =
+                    new EnumMap<>(Environment.class);
+            for (final Environment matrixEnvironment : Environment.values()) {
+                final CompatibilityRow row = new CompatibilityRow();
+                final Map<Environment, Map<AppVersion, CompatibilityResult>> resultsByEnvironment =
+                        new EnumMap<>(Environment.class);
+                for (final Environment webappEnvironment : Environment.values()) {
+                    final Map<AppVersion, CompatibilityResult> results =
+                            buildCompatibility(matrixEnvironment, webappEnvironment);
+                    results.values()
+                            .forEach(result -> row.addVersion(webappEnvironment, result.value));
+                    resultsByEnvironment.put(webappEnvironment, results);
+                }
+                compatibilityResults.put(matrixEnvironment, resultsByEnvironment);
+                compatibility.put(matrixEnvironment, row);
+            }
+
+            final Map<Environment, Map<AppVersion, UsageResult>> usageResults =
+                    new EnumMap<>(Environment.class);
+            // treemap for sorted iteration by test name
+            final Map<String, CompatibilityRow> usage = Maps.newTreeMap();
+            for (final Environment environment : Environment.values()) {
+                final Map<AppVersion, UsageResult> results = buildUsage(environment);
+                for (final UsageResult result : results.values()) {
+                    for (final TestUsage test : result.value) {
+                        usage.computeIfAbsent(test.testName, k -> new CompatibilityRow())
+                                .addVersion(environment, test.result);
+                    }
+                }
+                usageResults.put(environment, results);
+
+                // for each of the tests in the matrix, make sure there is an entry in the usage
+                final TestMatrixArtifact artifact = matrices.get(environment).artifact;
+                if (artifact != null) {
+                    for (final String testName : artifact.getTests().keySet()) {
+                        usage.computeIfAbsent(testName, k -> new CompatibilityRow());
+                    }
+                }
+            }
+            return new Snapshot(
+                    matrices, clients, compatibilityResults, usageResults, compatibility, usage);
+        }
+
+        /** @return results of clients sorted by app version */
+        private Map<AppVersion, CompatibilityResult> buildCompatibility(
+                final Environment matrixEnvironment, final Environment webappEnvironment) {
+            final TestMatrixArtifact artifact = matrices.get(matrixEnvironment).artifact;
+            if (artifact == null) {
+                return Collections.emptyMap();
+            }
+            final Map<AppVersion, CompatibilityResult> previousResults =
+                    isMatrixUnchanged(matrixEnvironment)
+                            ? previous.compatibilityResults
+                                    .get(matrixEnvironment)
+                                    .get(webappEnvironment)
+                            : Collections.emptyMap();
+
+            final Map<AppVersion, RemoteSpecificationResult> remoteResults =
+                    clients.get(webappEnvironment);
+            final Map<AppVersion, CompatibilityResult> results = Maps.newLinkedHashMap();
+            for (final AppVersion version : sorted(remoteResults.keySet())) {
+                final RemoteSpecificationResult remoteResult = remoteResults.get(version);
+                final ProctorSpecifications specifications = remoteResult.getSpecifications();
+                final CompatibilityResult previousResult = previousResults.get(version);
+                if ((previousResult != null) && previousResult.isFor(specifications)) {
+                    reusedResults++;
+                    results.put(version, previousResult);
+                    continue;
+                }
+                verifiedResults++;
+
+                final CompatibleSpecificationResult result;
+                if (specifications != null) {
+                    result =
+                            CompatibleSpecificationResult.fromProctorSpecifications(
+                                    matrixEnvironment,
+                                    version,
+                                    artifact,
+                                    specifications,
+                                    verificationCache);
+                } else {
+                    final String error =
+                            "Failed to load a proctor specification from "
+                                    + remoteResult.getFailures().keySet().stream()
+                                            .map(ProctorClientApplication::toString)
+                                            .collect(joining(", "));
+                    result =
+                            new CompatibleSpecificationResult(
+                                    version, false, error, Collections.emptySet());
+                }
+                results.put(version, new CompatibilityResult(specifications, result));
+            }
+            return results;
+        }
+
+        /** @return tests used by clients sorted by app version */
+        private Map<AppVersion, UsageResult> buildUsage(final Environment environment) {
+            final TestMatrixArtifact artifact = matrices.get(environment).artifact;
+            if (artifact == null) {
+                return Collections.emptyMap();
+            }
+            final Map<AppVersion, UsageResult> previousResults =
+                    isMatrixUnchanged(environment)
+                            ? previous.usageResults.get(environment)
+                            : Collections.emptyMap();
+
+            final Map<AppVersion, RemoteSpecificationResult> remoteResults =
+                    clients.get(environment);
+            final Map<AppVersion, UsageResult> results = Maps.newLinkedHashMap();
+            for (final AppVersion version : sorted(remoteResults.keySet())) {
+                final ProctorSpecifications specifications =
+                        remoteResults.get(version).getSpecifications();
+                if (specifications == null) {
+                    continue;
+                }
+                final UsageResult previousResult = previousResults.get(version);
+                if ((previousResult != null) && previousResult.isFor(specifications)) {
+                    reusedResults++;
+                    results.put(version, previousResult);
+                    continue;
+                }
+                verifiedResults++;
+                results.put(
+                        version,
+                        new UsageResult(
+                                specifications,
+                                buildTestUsages(environment, version, artifact, specifications)));
+            }
+            return results;
+        }
+
+        private List<TestUsage> buildTestUsages(
+                final Environment environment,
+                final AppVersion version,
+                final TestMatrixArtifact artifact,
+                final ProctorSpecifications specifications) {
+            final Map<String, Collection<TestSpecification>> requiredTests =
+                    specifications.getRequiredTests();
+            final Set<String> dynamicTests = specifications.getDynamicTests(artifact.getTests());
+
+            final List<TestUsage> tests = new ArrayList<>();
+            for (final Map.Entry<String, Collection<TestSpecification>> testEntry :
+                    requiredTests.entrySet()) {
+                tests.add(
+                        new TestUsage(
+                                testEntry.getKey(),
+                                CompatibleSpecificationResult.fromRequiredTest(
+                                        environment,
+                                        version,
+                                        artifact,
+                                        testEntry.getKey(),
+                                        testEntry.getValue(),
+                                        verificationCache)));
+            }
+            for (final String testName : dynamicTests) {
+                if (requiredTests.containsKey(testName)) {
+                    // to avoid duplicate specification result.
+                    // Prefer required tests because it contains spec
+                    continue;
+                }
+                tests.add(
+                        new TestUsage(
+                                testName,
+                                CompatibleSpecificationResult.fromDynamicTest(
+                                        environment,
+                                        version,
+                                        artifact,
+                                        testName,
+                                        verificationCache)));
+            }
+            return tests;
+        }
+
+        private boolean isMatrixUnchanged(final Environment environment) {
+            return (previous != null)
+                    && (previous.matrices.get(environment) == matrices.get(environment));
+        }
+
+        private static SortedSet<AppVersion> sorted(final Set<AppVersion> versions) {
+            return Sets.newTreeSet(versions);
+        }
+    }
+
+    /** the test matrix of a version of a store */
+    private static class MatrixState {
+        @Nullable private final String version;
+        @Nullable private final TestMatrixVersion matrix;
+        @Nullable private final TestMatrixArtifact artifact;
+
+        private MatrixState(
+                @Nullable final String version,
+                @Nullable final TestMatrixVersion matrix,
+                @Nullable final TestMatrixArtifact artifact) {
+            this.version = version;
+            this.matrix = matrix;
+            this.artifact = artifact;
+        }
+
+        /** a null version is never up to date, e.g. for a store without any commits */
+        private boolean isVersion(@Nullable final String latestVersion) {
+            return (version != null) && version.equals(latestVersion);
+        }
+    }
+
+    /** a result of a client, valid as long as the specifications and the matrix are unchanged */
+    private static class ClientResult<T> {
+        /** null if specifications failed to load, never reused */
+        @Nullable private final ProctorSpecifications specifications;
+
+        final T value;
+
+        private ClientResult(@Nullable final ProctorSpecifications specifications, final T value) {
+            this.specifications = specifications;
+            this.value = value;
+        }
+
+        /** unchanged specifications are the same instance as parsed responses are reused */
+        boolean isFor(@Nullable final ProctorSpecifications specifications) {
+            return (this.specifications != null) && (this.specifications == specifications);
+        }
+    }
+
+    /** compatibility of a client with a test matrix */
+    private static class CompatibilityResult extends ClientResult<CompatibleSpecificationResult> {
+        private CompatibilityResult(
+                @Nullable final ProctorSpecifications specifications,
+                final CompatibleSpecificationResult result) {
+            super(specifications, result);
+        }
+    }
+
+    /** compatibility of each test used by a client with a test matrix */
+    private static class UsageResult extends ClientResult<List<TestUsage>> {
+        private UsageResult(
+                final ProctorSpecifications specifications, final List<TestUsage> tests) {
+            super(specifications, tests);
+        }
+    }
+
+    private static class TestUsage {
+        private final String testName;
+        private final CompatibleSpecificationResult result;
+
+        private TestUsage(final String testName, final CompatibleSpecificationResult result) {
+            this.testName = testName;
+            this.result = result;
+        }
+    }
+
+    private static class RefreshStats {
+        private volatile long refreshes;
+        private final AtomicLong failures = new AtomicLong();
+        private volatile long lastDurationMillis = -1;
+        private volatile long lastRefreshMillis = -1;
+        private volatile long lastReusedResults;
+        private volatile long lastVerifiedResults;
+
+        /** called by the synchronized refresh only */
+        private void record(final long startNanos, final int reused, final int verified) {
+            refreshes++;
+            lastDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            lastRefreshMillis = System.currentTimeMillis();
+            if ((reused > 0) || (verified > 0)) {
+                lastReusedResults = reused;
+                lastVerifiedResults = verified;
+            }
+        }
+    }
+}
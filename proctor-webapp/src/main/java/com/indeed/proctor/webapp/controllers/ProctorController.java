@@ -5,13 +5,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
 import com.indeed.proctor.common.ProctorLoadResult;
 import com.indeed.proctor.common.ProctorUtils;
+import com.indeed.proctor.common.ProvidedContext;
+import com.indeed.proctor.common.RuleEvaluator;
 import com.indeed.proctor.common.Serializers;
 import com.indeed.proctor.common.TestSpecification;
-import com.indeed.proctor.common.model.ConsumableTestDefinition;
+import com.indeed.proctor.common.VerificationCache;
 import com.indeed.proctor.common.model.TestBucket;
 import com.indeed.proctor.common.model.TestDefinition;
 import com.indeed.proctor.common.model.TestMatrixArtifact;
@@ -23,7 +24,6 @@ import com.indeed.proctor.store.StoreException;
 import com.indeed.proctor.webapp.ProctorSpecificationSource;
 import com.indeed.proctor.webapp.db.Environment;
 import com.indeed.proctor.webapp.model.AppVersion;
-import com.indeed.proctor.webapp.model.ProctorClientApplication;
 import com.indeed.proctor.webapp.model.ProctorSpecifications;
 import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
 import com.indeed.proctor.webapp.model.SessionViewModel;
@@ -53,11 +53,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.function.BiFunction;
 
-import static java.util.stream.Collectors.joining;
-
 @Controller
 @RequestMapping({"/", "/proctor"})
 public class ProctorController extends AbstractController {
@@ -69,15 +66,19 @@ public class ProctorController extends AbstractController {
 
     private final ProctorSpecificationSource specificationSource;
 
+    private final CompatibilityModel compatibilityModel;
+
     @Autowired
     public ProctorController(
             final WebappConfiguration configuration,
             @Qualifier("trunk") final ProctorStore trunkStore,
             @Qualifier("qa") final ProctorStore qaStore,
             @Qualifier("production") final ProctorStore productionStore,
-            final ProctorSpecificationSource specificationSource) {
+            final ProctorSpecificationSource specificationSource,
+            final CompatibilityModel compatibilityModel) {
         super(configuration, trunkStore, qaStore, productionStore);
         this.specificationSource = specificationSource;
+        this.compatibilityModel = compatibilityModel;
     }
 
     /** TODO: this should be the default screen at / */
@@ -112,23 +113,12 @@ public class ProctorController extends AbstractController {
     // not a @ApiOperation because it produces HTML
     @RequestMapping(value = "/usage", method = RequestMethod.GET)
     public String viewMatrixUsage(final Model model) {
-        // treemap for sorted iteration by test name
-        final Map<String, CompatibilityRow> tests = Maps.newTreeMap();
-
-        final TestMatrixVersion devMatrix = getCurrentMatrix(Environment.WORKING);
-        populateTestUsageViewModel(Environment.WORKING, devMatrix, tests, Environment.WORKING);
-
-        final TestMatrixVersion qaMatrix = getCurrentMatrix(Environment.QA);
-        populateTestUsageViewModel(Environment.QA, qaMatrix, tests, Environment.QA);
+        final CompatibilityModel.Snapshot snapshot = compatibilityModel.getSnapshot();
 
-        final TestMatrixVersion productionMatrix = getCurrentMatrix(Environment.PRODUCTION);
-        populateTestUsageViewModel(
-                Environment.PRODUCTION, productionMatrix, tests, Environment.PRODUCTION);
-
-        model.addAttribute("tests", tests);
-        model.addAttribute("devMatrix", devMatrix);
-        model.addAttribute("qaMatrix", qaMatrix);
-        model.addAttribute("productionMatrix", productionMatrix);
+        model.addAttribute("tests", snapshot.getUsage());
+        model.addAttribute("devMatrix", snapshot.getMatrix(Environment.WORKING));
+        model.addAttribute("qaMatrix", snapshot.getMatrix(Environment.QA));
+        model.addAttribute("productionMatrix", snapshot.getMatrix(Environment.PRODUCTION));
         model.addAttribute(
                 "session",
                 SessionViewModel.builder()
@@ -152,71 +142,11 @@ public class ProctorController extends AbstractController {
         return new JsonView(spec);
     }
 
-    private void populateTestUsageViewModel(
-            final Environment matrixEnvironment,
-            final TestMatrixVersion matrix,
-            final Map<String, CompatibilityRow> tests,
-            final Environment environment) {
-        final TestMatrixArtifact artifact = ProctorUtils.convertToConsumableArtifact(matrix);
-        final Map<String, ConsumableTestDefinition> definedTests = artifact.getTests();
-
-        final Map<AppVersion, ProctorSpecifications> clients =
-                specificationSource.loadAllSuccessfulSpecifications(environment);
-        // sort the apps (probably should sort the Map.Entry, but this is good enough for now
-        final SortedSet<AppVersion> versions = Sets.newTreeSet(clients.keySet());
-
-        for (final AppVersion version : versions) {
-            final ProctorSpecifications specifications = clients.get(version);
-            final Map<String, Collection<TestSpecification>> requiredTests =
-                    specifications.getRequiredTests();
-            final Set<String> dynamicTests = specifications.getDynamicTests(definedTests);
-
-            for (final Entry<String, Collection<TestSpecification>> testEntry :
-                    requiredTests.entrySet()) {
-                final String testName = testEntry.getKey();
-                final Collection<TestSpecification> testSpecifications = testEntry.getValue();
-
-                tests.computeIfAbsent(testName, k -> new CompatibilityRow())
-                        .addVersion(
-                                environment,
-                                CompatibleSpecificationResult.fromRequiredTest(
-                                        matrixEnvironment,
-                                        version,
-                                        artifact,
-                                        testName,
-                                        testSpecifications));
-            }
-
-            for (final String testName : dynamicTests) {
-                if (requiredTests.containsKey(testName)) {
-                    // to avoid duplicate specification result.
-                    // Prefer required tests because it contains spec
-                    continue;
-                }
-                tests.computeIfAbsent(testName, k -> new CompatibilityRow())
-                        .addVersion(
-                                environment,
-                                CompatibleSpecificationResult.fromDynamicTest(
-                                        matrixEnvironment, version, artifact, testName));
-            }
-        }
-
-        // for each of the tests in the matrix, make sure there is an entry in the usageViewModel
-        for (final String testName : definedTests.keySet()) {
-            tests.computeIfAbsent(testName, k -> new CompatibilityRow());
-        }
-    }
-
     // not a @ApiOperation because it produces HTML
     @RequestMapping(value = "/compatibility", method = RequestMethod.GET)
     public String viewMatrixCompatibility(final Model model) {
-        final Map<Environment, CompatibilityRow> compatibilityMap = Maps.newLinkedHashMap();
-
-        populateCompatibilityRow(compatibilityMap, Environment.WORKING);
-        populateCompatibilityRow(compatibilityMap, Environment.QA);
-        populateCompatibilityRow(compatibilityMap, Environment.PRODUCTION);
-
-        model.addAttribute("compatibilityMap", compatibilityMap);
+        model.addAttribute(
+                "compatibilityMap", compatibilityModel.getSnapshot().getCompatibility());
         model.addAttribute(
                 "session",
                 SessionViewModel.builder()
@@ -227,68 +157,6 @@ public class ProctorController extends AbstractController {
         return ProctorView.MATRIX_COMPATIBILITY.getName();
     }
 
-    private void populateCompatibilityRow(
-            final Map<Environment, CompatibilityRow> rows, final Environment rowEnv) {
-        final CompatibilityRow row = new CompatibilityRow();
-        rows.put(rowEnv, row);
-        final TestMatrixVersion matrix = getCurrentMatrix(rowEnv);
-        final TestMatrixArtifact artifact = ProctorUtils.convertToConsumableArtifact(matrix);
-        populateSingleCompabilityColumn(rowEnv, artifact, row, Environment.WORKING);
-        populateSingleCompabilityColumn(rowEnv, artifact, row, Environment.QA);
-        populateSingleCompabilityColumn(rowEnv, artifact, row, Environment.PRODUCTION);
-    }
-
-    /**
-     * We want a compatibility matrix of
-     *
-     * <p>TRUNK-MATRIX: [DEV-WEBAPPS]: (web-app-1): compatible? [QA-WEBAPPS]: (web-app-1):
-     * compatible? [PRODUCTION-WEBAPPS]: (web-app-1): compatible?
-     *
-     * <p>QA-MATRIX: [DEV-WEBAPPS]: (web-app-1): compatible? [QA-WEBAPPS]: (web-app-1): compatible?
-     * [PRODUCTION-WEBAPPS]: (web-app-1): compatible?
-     *
-     * <p>PRODUCTION-MATRIX: [DEV-WEBAPPS]: (web-app-1): compatible? [QA-WEBAPPS]: (web-app-1):
-     * compatible? [PRODUCTION-WEBAPPS]: (web-app-1): compatible?
-     *
-     * @param artifact
-     * @param row
-     * @param webappEnvironment
-     */
-    private void populateSingleCompabilityColumn(
-            final Environment artifactEnvironment,
-            final TestMatrixArtifact artifact,
-            final CompatibilityRow row,
-            final Environment webappEnvironment) {
-        final Map<AppVersion, RemoteSpecificationResult> clients =
-                specificationSource.loadAllSpecifications(webappEnvironment);
-        // sort the apps (probably should sort the Map.Entry, but this is good enough for now
-        final SortedSet<AppVersion> versions = Sets.newTreeSet(clients.keySet());
-        for (final AppVersion version : versions) {
-            final RemoteSpecificationResult remoteResult = clients.get(version);
-
-            final CompatibleSpecificationResult result;
-            if (remoteResult.getSpecifications() != null) {
-                result =
-                        CompatibleSpecificationResult.fromProctorSpecifications(
-                                artifactEnvironment,
-                                version,
-                                artifact,
-                                remoteResult.getSpecifications());
-            } else {
-                final String error =
-                        "Failed to load a proctor specification from "
-                                + remoteResult.getFailures().keySet().stream()
-                                        .map(ProctorClientApplication::toString)
-                                        .collect(joining(", "));
-                result =
-                        new CompatibleSpecificationResult(
-                                version, false, error, Collections.emptySet());
-            }
-
-            row.addVersion(webappEnvironment, result);
-        }
-    }
-
     /**
      * represents a row in a compatibility matrix. Contains the list of web-apps + compatibility for
      * each environment
@@ -499,7 +367,8 @@ public class ProctorController extends AbstractController {
                 final AppVersion version,
                 final TestMatrixArtifact artifact,
                 final String testName,
-                final Collection<TestSpecification> specifications) {
+                final Collection<TestSpecification> specifications,
+                @Nullable final VerificationCache verificationCache) {
             final Map<String, Collection<TestSpecification>> requiredTests =
                     Collections.singletonMap(testName, specifications);
             final Set<String> dynamicTests = Collections.emptySet();
@@ -509,6 +378,7 @@ public class ProctorController extends AbstractController {
                     artifact,
                     requiredTests,
                     dynamicTests,
+                    verificationCache,
                     (matrixSource, plr) ->
                             "test "
                                     + testName
@@ -521,7 +391,8 @@ public class ProctorController extends AbstractController {
                 final Environment matrixEnvironment,
                 final AppVersion version,
                 final TestMatrixArtifact artifact,
-                final String testName) {
+                final String testName,
+                @Nullable final VerificationCache verificationCache) {
             final Map<String, Collection<TestSpecification>> requiredTests = Collections.emptyMap();
             final Set<String> dynamicTests = Collections.singleton(testName);
             return fromTests(
@@ -530,6 +401,7 @@ public class ProctorController extends AbstractController {
                     artifact,
                     requiredTests,
                     dynamicTests,
+                    verificationCache,
                     (matrixSource, plr) ->
                             "test "
                                     + testName
@@ -542,13 +414,15 @@ public class ProctorController extends AbstractController {
                 final Environment artifactEnvironment,
                 final AppVersion version,
                 final TestMatrixArtifact artifact,
-                final ProctorSpecifications specifications) {
+                final ProctorSpecifications specifications,
+                @Nullable final VerificationCache verificationCache) {
             return fromTests(
                     artifactEnvironment,
                     version,
                     artifact,
                     specifications.getRequiredTests(),
                     specifications.getDynamicTests(artifact.getTests()),
+                    verificationCache,
                     (matrixSource, plr) ->
                             String.format(
                                     "Incompatible: Tests Missing: %s Invalid Tests: %s for %s",
@@ -561,6 +435,7 @@ public class ProctorController extends AbstractController {
                 final TestMatrixArtifact artifact,
                 final Map<String, Collection<TestSpecification>> requiredTests,
                 final Set<String> dynamicTests,
+                @Nullable final VerificationCache verificationCache,
                 final BiFunction<String, ProctorLoadResult, String> errorMessageFunction) {
             final String matrixSource =
                     environment.getName() + " r" + artifact.getAudit().getVersion();
@@ -573,7 +448,15 @@ public class ProctorController extends AbstractController {
                             // incompatible
                             IterableUtils::first);
             final ProctorLoadResult plr =
-                    ProctorUtils.verify(artifact, matrixSource, specMap, dynamicTests);
+                    ProctorUtils.verify(
+                            artifact,
+                            matrixSource,
+                            specMap,
+                            RuleEvaluator.FUNCTION_MAPPER,
+                            ProvidedContext.nonEvaluableContext(),
+                            dynamicTests,
+                            Collections.emptySet(),
+                            verificationCache);
             final boolean compatible = !plr.hasInvalidTests();
             final String error = (compatible ? "" : errorMessageFunction.apply(matrixSource, plr));
             return new CompatibleSpecificationResult(version, compatible, error, dynamicTests);
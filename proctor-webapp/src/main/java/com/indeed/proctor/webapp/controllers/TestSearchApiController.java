@@ -2,14 +2,10 @@ package com.indeed.proctor.webapp.controllers;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
-import com.indeed.proctor.common.model.Allocation;
 import com.indeed.proctor.common.model.TestDefinition;
-import com.indeed.proctor.common.model.TestMatrixDefinition;
 import com.indeed.proctor.store.ProctorStore;
-import com.indeed.proctor.store.Revision;
 import com.indeed.proctor.store.StoreException;
 import com.indeed.proctor.webapp.db.Environment;
 import com.indeed.proctor.webapp.model.WebappConfiguration;
@@ -27,6 +23,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +33,9 @@ import static java.util.stream.Collectors.toList;
 @Controller
 @RequestMapping(value = {"/proctor/matrix/tests", "/matrix/tests"})
 public class TestSearchApiController extends AbstractController {
+    private final Map<Environment, TestSearchIndex> searchIndexes =
+            new EnumMap<>(Environment.class);
+
     @Autowired
     public TestSearchApiController(
             final WebappConfiguration configuration,
@@ -43,42 +43,56 @@ public class TestSearchApiController extends AbstractController {
             @Qualifier("qa") final ProctorStore qaStore,
             @Qualifier("production") final ProctorStore productionStore) {
         super(configuration, trunkStore, qaStore, productionStore);
+        for (final Environment environment : Environment.values()) {
+            searchIndexes.put(
+                    environment,
+                    new TestSearchIndex(determineStoreFromEnvironment(environment)));
+        }
     }
 
     @VisibleForTesting
     enum FilterType {
-        ALL(TestSearchUtil::matchAll),
-        TESTNAME((testName, definition, query) -> TestSearchUtil.matchTestName(testName, query)),
+        ALL(TestSearchUtil::getAllValues),
+        TESTNAME((testName, definition) -> Collections.singletonList(testName)),
         DESCRIPTION(
-                ((testName, definition, query) ->
-                        TestSearchUtil.matchDescription(definition, query))),
-        RULE((testName, definition, query) -> TestSearchUtil.matchRule(definition, query)),
-        BUCKET((testName, definition, query) -> TestSearchUtil.matchBucket(definition, query)),
+                (testName, definition) ->
+                        Collections.singletonList(
+                                Strings.nullToEmpty(definition.getDescription()))),
+        RULE((testName, definition) -> TestSearchUtil.getRules(definition)),
+        BUCKET((testName, definition) -> TestSearchUtil.getBucketNames(definition)),
         BUCKETDESCRIPTION(
-                (testName, definition, query) ->
-                        TestSearchUtil.matchBucketDescription(definition, query)),
+                (testName, definition) -> TestSearchUtil.getBucketDescriptions(definition)),
         ;
 
-        private final TestFilter testFilter;
+        private final ValuesExtractor valuesExtractor;
 
-        FilterType(final TestFilter testFilter) {
-            this.testFilter = testFilter;
+        FilterType(final ValuesExtractor valuesExtractor) {
+            this.valuesExtractor = valuesExtractor;
         }
 
-        private interface TestFilter {
-            boolean matches(String testName, TestDefinition definition, String query);
+        private interface ValuesExtractor {
+            List<String> getValues(String testName, TestDefinition definition);
         }
 
+        /** matches the same values as {@link TestSearchIndex} without an index */
         private boolean matchesIgnoreCase(
                 final String testName, final TestDefinition definition, final String query) {
             if (query.isEmpty()) {
                 return true;
             }
-            return this.testFilter.matches(testName, definition, query.toLowerCase());
+            final String lowerQuery = query.toLowerCase();
+            return getValues(testName, definition).stream()
+                    .anyMatch(value -> value.toLowerCase().contains(lowerQuery));
+        }
+
+        /** @return values searched by this filter, for {@link TestSearchIndex} */
+        List<String> getValues(final String testName, final TestDefinition definition) {
+            return valuesExtractor.getValues(testName, definition);
         }
     }
 
-    private enum FilterActive {
+    @VisibleForTesting
+    enum FilterActive {
         ALL,
         ACTIVE,
         INACTIVE,
@@ -153,14 +167,14 @@ public class TestSearchApiController extends AbstractController {
     }
 
     private static boolean matchesFilterActive(
-            final List<Allocation> allocations, final FilterActive filterActive) {
+            final boolean hasActiveAllocation, final FilterActive filterActive) {
         switch (filterActive) {
             case ALL:
                 return true;
             case ACTIVE:
-                return TestSearchUtil.matchActiveAllocation(allocations);
+                return hasActiveAllocation;
             case INACTIVE:
-                return !TestSearchUtil.matchActiveAllocation(allocations);
+                return !hasActiveAllocation;
             default:
                 throw new IllegalArgumentException("unknown filter type: " + filterActive);
         }
@@ -186,23 +200,6 @@ public class TestSearchApiController extends AbstractController {
         }
     }
 
-    private static List<ProctorTest> toProctorTests(
-            final Map<String, TestDefinition> matrix, final ProctorStore store)
-            throws StoreException {
-        final List<ProctorTest> proctorTests = Lists.newArrayListWithExpectedSize(matrix.size());
-        for (final Map.Entry<String, TestDefinition> e : matrix.entrySet()) {
-            final List<Revision> revisions = store.getHistory(e.getKey(), 0, 1);
-            final long updatedTime;
-            if (revisions.isEmpty()) {
-                updatedTime = 0;
-            } else {
-                updatedTime = revisions.get(0).getDate().getTime();
-            }
-            proctorTests.add(new ProctorTest(e.getKey(), e.getValue(), updatedTime));
-        }
-        return proctorTests;
-    }
-
     /**
      * API for proctor tests with filtering functionality
      *
@@ -230,32 +227,19 @@ public class TestSearchApiController extends AbstractController {
                 Sets.newHashSet(Splitter.on(",").split(favoriteTestsRaw));
 
         final Environment environment = determineEnvironmentFromParameter(branch);
-        final TestMatrixDefinition testMatrixDefinition =
-                getCurrentMatrix(environment).getTestMatrixDefinition();
-        final Map<String, TestDefinition> allTestMatrix =
-                testMatrixDefinition != null
-                        ? testMatrixDefinition.getTests()
-                        : Collections.emptyMap();
+        final TestSearchIndex.Snapshot searchIndex = searchIndexes.get(environment).getSnapshot();
 
         final List<String> queries = Arrays.asList(q.split("\\s+"));
-        final Map<String, TestDefinition> matchingTestMatrix =
-                Maps.filterEntries(
-                        allTestMatrix,
-                        e ->
-                                e != null
-                                        && matchesAllIgnoreCase(
-                                                e.getKey(), e.getValue(), filterType, queries)
-                                        && matchesFilterActive(
-                                                e.getValue().getAllocations(), filterActive));
-
         final List<ProctorTest> searchResult =
-                toProctorTests(matchingTestMatrix, determineStoreFromEnvironment(environment))
-                        .stream()
+                searchIndex.search(filterType, queries).stream()
+                        .filter(t -> matchesFilterActive(t.hasActiveAllocation(), filterActive))
+                        .map(TestSearchIndex.IndexedTest::getTest)
                         .sorted(getComparator(sort, favoriteTestNames))
                         .limit(limit)
                         .collect(toList());
 
         return new JsonView(
-                new TestsResponse(searchResult, allTestMatrix.size(), searchResult.size()));
+                new TestsResponse(
+                        searchResult, searchIndex.getTestCount(), searchResult.size()));
     }
 }
@@ -0,0 +1,257 @@
+package com.indeed.proctor.webapp.controllers;
+
+import com.google.common.primitives.Ints;
+import com.indeed.proctor.common.model.TestDefinition;
+import com.indeed.proctor.common.model.TestMatrixDefinition;
+import com.indeed.proctor.common.model.TestMatrixVersion;
+import com.indeed.proctor.store.ProctorStore;
+import com.indeed.proctor.store.Revision;
+import com.indeed.proctor.store.StoreException;
+import com.indeed.proctor.webapp.controllers.TestSearchApiController.FilterType;
+import com.indeed.proctor.webapp.controllers.TestSearchApiController.ProctorTest;
+import com.indeed.proctor.webapp.util.TestSearchUtil;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of the current tests of a store for {@link TestSearchApiController}, updated when
+ * the latest version of the store changes.
+ *
+ * <p>Searchable values of each test are kept lowercased, and an index of trigrams of the values
+ * narrows down tests containing a query, so that a search does not need to scan all tests. The
+ * last updated time of each test is kept as well, and only read again from the store for tests
+ * whose definition changed.
+ */
+class TestSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Separates values in searchable texts. Queries are split by whitespaces, so a query never
+     * matches across values.
+     */
+    private static final String VALUE_SEPARATOR = "\n";
+
+    private final ProctorStore store;
+
+    @CheckForNull private volatile Snapshot snapshot;
+
+    TestSearchIndex(final ProctorStore store) {
+        this.store = store;
+    }
+
+    /** @return the index of the current test matrix of the store */
+    Snapshot getSnapshot() throws StoreException {
+        final String latestVersion = store.getLatestVersion();
+        final Snapshot current = snapshot;
+        if ((current != null) && current.isVersion(latestVersion)) {
+            return current;
+        }
+        synchronized (this) {
+            final Snapshot previous = snapshot;
+            if ((previous != null) && previous.isVersion(latestVersion)) {
+                return previous;
+            }
+            final Snapshot updated = build(latestVersion, previous);
+            snapshot = updated;
+            return updated;
+        }
+    }
+
+    private Snapshot build(@Nullable final String version, @Nullable final Snapshot previous)
+            throws StoreException {
+        final TestMatrixVersion testMatrix = store.getCurrentTestMatrix();
+        final TestMatrixDefinition testMatrixDefinition =
+                (testMatrix == null) ? null : testMatrix.getTestMatrixDefinition();
+        final Map<String, TestDefinition> definitions =
+                ((testMatrixDefinition == null) || (testMatrixDefinition.getTests() == null))
+                        ? Collections.emptyMap()
+                        : testMatrixDefinition.getTests();
+
+        // read all histories at once instead of for each test when building the first index
+        final Map<String, List<Revision>> histories =
+                (previous == null) ? store.getAllHistories() : null;
+
+        final List<IndexedTest> tests = new ArrayList<>(definitions.size());
+        for (final Map.Entry<String, TestDefinition> entry : definitions.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            final IndexedTest indexedTest =
+                    (previous == null) ? null : previous.testsByName.get(entry.getKey());
+            if ((indexedTest != null)
+                    && indexedTest.test.getDefinition().equals(entry.getValue())) {
+                tests.add(indexedTest);
+            } else {
+                final List<Revision> revisions =
+                        (histories == null)
+                                ? store.getHistory(entry.getKey(), 0, 1)
+                                : histories.getOrDefault(entry.getKey(), Collections.emptyList());
+                final long lastUpdated =
+                        revisions.isEmpty() ? 0 : revisions.get(0).getDate().getTime();
+                tests.add(new IndexedTest(entry.getKey(), entry.getValue(), lastUpdated));
+            }
+        }
+        return new Snapshot(version, definitions.size(), tests);
+    }
+
+    /** immutable index of a version of the test matrix */
+    static class Snapshot {
+        @Nullable private final String version;
+        private final int testCount;
+        private final List<IndexedTest> tests;
+        private final Map<String, IndexedTest> testsByName;
+        /** trigram of searchable values to sorted indices of tests containing it */
+        private final Map<String, int[]> postings;
+
+        private Snapshot(
+                @Nullable final String version,
+                final int testCount,
+                final List<IndexedTest> tests) {
+            this.version = version;
+            this.testCount = testCount;
+            this.tests = tests;
+            this.testsByName = new HashMap<>(2 * tests.size());
+            final Map<String, List<Integer>> postingLists = new HashMap<>();
+            for (int i = 0; i < tests.size(); i++) {
+                final IndexedTest test = tests.get(i);
+                testsByName.put(test.test.getName(), test);
+                for (final String gram : grams(test.getText(FilterType.ALL))) {
+                    postingLists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+                }
+            }
+            this.postings = new HashMap<>(2 * postingLists.size());
+            postingLists.forEach((gram, indices) -> postings.put(gram, Ints.toArray(indices)));
+        }
+
+        /** a null version is never up to date, e.g. for a store without any commits */
+        private boolean isVersion(@Nullable final String latestVersion) {
+            return (version != null) && version.equals(latestVersion);
+        }
+
+        /** @return number of tests in the test matrix */
+        int getTestCount() {
+            return testCount;
+        }
+
+        /**
+         * @return tests of which values of the filter type contain all queries ignoring case, in
+         *     the order of the test matrix
+         */
+        List<IndexedTest> search(final FilterType filterType, final List<String> queries) {
+            final List<String> lowerQueries = new ArrayList<>(queries.size());
+            for (final String query : queries) {
+                if (!query.isEmpty()) {
+                    lowerQueries.add(query.toLowerCase());
+                }
+            }
+
+            int[] candidates = null;
+            for (final String query : lowerQueries) {
+                for (final String gram : grams(query)) {
+                    final int[] posting = postings.get(gram);
+                    if (posting == null) {
+                        return Collections.emptyList();
+                    }
+                    candidates = (candidates == null) ? posting : intersect(candidates, posting);
+                }
+            }
+
+            final List<IndexedTest> result = new ArrayList<>();
+            if (candidates == null) {
+                // no query is long enough for trigrams
+                for (final IndexedTest test : tests) {
+                    if (test.matches(filterType, lowerQueries)) {
+                        result.add(test);
+                    }
+                }
+            } else {
+                for (final int candidate : candidates) {
+                    final IndexedTest test = tests.get(candidate);
+                    if (test.matches(filterType, lowerQueries)) {
+                        result.add(test);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /** a test with lowercased searchable values of each filter type */
+    static class IndexedTest {
+        private final ProctorTest test;
+        private final boolean hasActiveAllocation;
+        private final Map<FilterType, String> texts = new EnumMap<>(FilterType.class);
+
+        private IndexedTest(
+                final String testName, final TestDefinition definition, final long lastUpdated) {
+            this.test = new ProctorTest(testName, definition, lastUpdated);
+            this.hasActiveAllocation =
+                    TestSearchUtil.matchActiveAllocation(definition.getAllocations());
+            for (final FilterType filterType : FilterType.values()) {
+                texts.put(
+                        filterType,
+                        String.join(VALUE_SEPARATOR, filterType.getValues(testName, definition))
+                                .toLowerCase());
+            }
+        }
+
+        ProctorTest getTest() {
+            return test;
+        }
+
+        boolean hasActiveAllocation() {
+            return hasActiveAllocation;
+        }
+
+        private String getText(final FilterType filterType) {
+            return texts.get(filterType);
+        }
+
+        private boolean matches(final FilterType filterType, final List<String> lowerQueries) {
+            final String text = getText(filterType);
+            for (final String query : lowerQueries) {
+                if (!text.contains(query)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static Set<String> grams(final String text) {
+        final Set<String> grams = new HashSet<>();
+        for (int i = 0; (i + GRAM_LENGTH) <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static int[] intersect(final int[] first, final int[] second) {
+        final int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while ((i < first.length) && (j < second.length)) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return (size == result.length) ? result : Arrays.copyOf(result, size);
+    }
+}
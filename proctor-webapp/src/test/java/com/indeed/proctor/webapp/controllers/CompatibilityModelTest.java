@@ -0,0 +1,207 @@
+package com.indeed.proctor.webapp.controllers;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.indeed.proctor.common.ProctorSpecification;
+import com.indeed.proctor.common.TestSpecification;
+import com.indeed.proctor.common.VerificationCache;
+import com.indeed.proctor.common.dynamic.DynamicFilters;
+import com.indeed.proctor.common.model.Allocation;
+import com.indeed.proctor.common.model.Range;
+import com.indeed.proctor.common.model.TestBucket;
+import com.indeed.proctor.common.model.TestDefinition;
+import com.indeed.proctor.common.model.TestMatrixDefinition;
+import com.indeed.proctor.common.model.TestMatrixVersion;
+import com.indeed.proctor.common.model.TestType;
+import com.indeed.proctor.store.ProctorStore;
+import com.indeed.proctor.store.StoreException;
+import com.indeed.proctor.webapp.ProctorSpecificationSource;
+import com.indeed.proctor.webapp.controllers.ProctorController.CompatibleSpecificationResult;
+import com.indeed.proctor.webapp.db.Environment;
+import com.indeed.proctor.webapp.model.AppVersion;
+import com.indeed.proctor.webapp.model.ProctorClientApplication;
+import com.indeed.proctor.webapp.model.ProctorSpecifications;
+import com.indeed.proctor.webapp.model.RemoteSpecificationResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CompatibilityModelTest {
+    private static final String TEST_NAME = "example_tst";
+    private static final AppVersion APP_A = new AppVersion("a", "v1");
+    private static final AppVersion APP_B = new AppVersion("b", "v1");
+
+    private final Map<Environment, ProctorStore> stores = new EnumMap<>(Environment.class);
+    private final ProctorSpecificationSource specificationSource =
+            mock(ProctorSpecificationSource.class);
+    private final VerificationCache verificationCache = new VerificationCache();
+
+    @Before
+    public void setUp() throws StoreException {
+        for (final Environment environment : Environment.values()) {
+            final ProctorStore store = mock(ProctorStore.class);
+            when(store.getLatestVersion()).thenReturn("1");
+            when(store.getCurrentTestMatrix()).thenReturn(matrix("1"));
+            stores.put(environment, store);
+            when(specificationSource.loadAllSpecifications(environment))
+                    .thenReturn(Collections.emptyMap());
+        }
+        when(specificationSource.loadAllSpecifications(Environment.WORKING))
+                .thenReturn(
+                        ImmutableMap.of(
+                                APP_A, success(APP_A, specifications(0)),
+                                APP_B, success(APP_B, specifications(1))));
+    }
+
+    @Test
+    public void testRefresh() throws StoreException {
+        final CompatibilityModel model = createModel();
+
+        final CompatibilityModel.Snapshot snapshot = model.getSnapshot();
+        assertThat(model.getLastVerifiedResults()).isEqualTo(8);
+        assertThat(snapshot.getMatrix(Environment.QA).getVersion()).isEqualTo("1");
+        assertThat(snapshot.getCompatibility()).containsOnlyKeys(Environment.values());
+        for (final Environment environment : Environment.values()) {
+            final ProctorController.CompatibilityRow row =
+                    snapshot.getCompatibility().get(environment);
+            // app b requires an unknown bucket
+            assertThat(compatibilities(row.getDev())).containsExactly(true, false);
+            assertThat(row.getQa()).isEmpty();
+            assertThat(row.getProduction()).isEmpty();
+        }
+        assertThat(snapshot.getUsage()).containsOnlyKeys(TEST_NAME);
+        assertThat(compatibilities(snapshot.getUsage().get(TEST_NAME).getDev()))
+                .containsExactly(true, false);
+        assertThat(model.getIncompatibleClients())
+                .containsEntry(Environment.WORKING, 1)
+                .containsEntry(Environment.PRODUCTION, 1);
+
+        // unchanged
+        assertThat(model.refresh()).isSameAs(snapshot);
+        assertThat(model.getSnapshot()).isSameAs(snapshot);
+        verify(stores.get(Environment.QA), times(1)).getCurrentTestMatrix();
+        // the same test is compatible with the same specification in each environment
+        assertThat(verificationCache.getHits()).isPositive();
+    }
+
+    @Test
+    public void testRefreshChangedSpecifications() {
+        final CompatibilityModel model = createModel();
+        final CompatibilityModel.Snapshot snapshot = model.getSnapshot();
+
+        // only app b has new specifications
+        final RemoteSpecificationResult resultOfA =
+                specificationSource.loadAllSpecifications(Environment.WORKING).get(APP_A);
+        when(specificationSource.loadAllSpecifications(Environment.WORKING))
+                .thenReturn(
+                        ImmutableMap.of(
+                                APP_A, resultOfA, APP_B, success(APP_B, specifications(0))));
+        final CompatibilityModel.Snapshot updated = model.refresh();
+        assertThat(updated).isNotSameAs(snapshot);
+        assertThat(model.getLastReusedResults()).isEqualTo(4);
+        assertThat(model.getLastVerifiedResults()).isEqualTo(4);
+        assertThat(compatibilities(updated.getCompatibility().get(Environment.QA).getDev()))
+                .containsExactly(true, true);
+        assertThat(model.getIncompatibleClients()).containsEntry(Environment.WORKING, 0);
+    }
+
+    @Test
+    public void testRefreshChangedMatrix() throws StoreException {
+        final CompatibilityModel model = createModel();
+        final CompatibilityModel.Snapshot snapshot = model.getSnapshot();
+
+        when(stores.get(Environment.QA).getLatestVersion()).thenReturn("2");
+        when(stores.get(Environment.QA).getCurrentTestMatrix()).thenReturn(matrix("2"));
+        final CompatibilityModel.Snapshot updated = model.refresh();
+        assertThat(updated).isNotSameAs(snapshot);
+        assertThat(updated.getMatrix(Environment.QA).getVersion()).isEqualTo("2");
+        assertThat(updated.getMatrix(Environment.WORKING))
+                .isSameAs(snapshot.getMatrix(Environment.WORKING));
+        assertThat(model.getLastReusedResults()).isEqualTo(6);
+        assertThat(model.getLastVerifiedResults()).isEqualTo(2);
+        verify(stores.get(Environment.QA), times(2)).getCurrentTestMatrix();
+        verify(stores.get(Environment.WORKING), times(1)).getCurrentTestMatrix();
+    }
+
+    @Test
+    public void testGetSnapshotRefreshesChangedMatrix() throws StoreException {
+        final CompatibilityModel model = createModel();
+        final CompatibilityModel.Snapshot snapshot = model.getSnapshot();
+        assertThat(model.getSnapshot()).isSameAs(snapshot);
+
+        // edited without a background refresh since
+        when(stores.get(Environment.WORKING).getLatestVersion()).thenReturn("2");
+        when(stores.get(Environment.WORKING).getCurrentTestMatrix()).thenReturn(matrix("2"));
+        final CompatibilityModel.Snapshot updated = model.getSnapshot();
+        assertThat(updated).isNotSameAs(snapshot);
+        assertThat(updated.getMatrix(Environment.WORKING).getVersion()).isEqualTo("2");
+        assertThat(model.getSnapshot()).isSameAs(updated);
+        verify(stores.get(Environment.WORKING), times(2)).getCurrentTestMatrix();
+    }
+
+    private CompatibilityModel createModel() {
+        return new CompatibilityModel(stores, specificationSource, verificationCache);
+    }
+
+    private static List<Boolean> compatibilities(
+            final List<CompatibleSpecificationResult> results) {
+        return results.stream()
+                .map(CompatibleSpecificationResult::isCompatible)
+                .collect(Collectors.toList());
+    }
+
+    private static TestMatrixVersion matrix(final String version) {
+        final TestDefinition definition = new TestDefinition();
+        definition.setVersion(version);
+        definition.setTestType(TestType.ANONYMOUS_USER);
+        definition.setSalt("&" + TEST_NAME);
+        definition.setBuckets(ImmutableList.of(new TestBucket("control", 0, "control")));
+        definition.setAllocations(
+                ImmutableList.of(new Allocation(null, ImmutableList.of(new Range(0, 1.0)))));
+
+        final TestMatrixVersion testMatrixVersion = new TestMatrixVersion();
+        testMatrixVersion.setVersion(version);
+        testMatrixVersion.setAuthor("author");
+        testMatrixVersion.setPublished(new Date(0));
+        testMatrixVersion.setTestMatrixDefinition(
+                new TestMatrixDefinition(ImmutableMap.of(TEST_NAME, definition)));
+        return testMatrixVersion;
+    }
+
+    /** @return specifications requiring the test with a bucket of the value */
+    private static ProctorSpecifications specifications(final int bucketValue) {
+        final TestSpecification testSpecification = new TestSpecification();
+        testSpecification.setBuckets(ImmutableMap.of("bucket" + bucketValue, bucketValue));
+        return new ProctorSpecifications(
+                Collections.singleton(
+                        new ProctorSpecification(
+                                Collections.emptyMap(),
+                                ImmutableMap.of(TEST_NAME, testSpecification),
+                                new DynamicFilters())));
+    }
+
+    private static RemoteSpecificationResult success(
+            final AppVersion version, final ProctorSpecifications specifications) {
+        return RemoteSpecificationResult.success(
+                version,
+                new ProctorClientApplication(
+                        version.getApp(),
+                        "http://example.com",
+                        "http://example.com",
+                        new Date(),
+                        version.getVersion()),
+                specifications);
+    }
+}
@@ -5,6 +5,7 @@ import com.google.common.collect.Lists;
 import com.indeed.proctor.common.PayloadSpecification;
 import com.indeed.proctor.common.ProctorUtils;
 import com.indeed.proctor.common.TestSpecification;
+import com.indeed.proctor.common.VerificationCache;
 import com.indeed.proctor.common.model.Allocation;
 import com.indeed.proctor.common.model.Audit;
 import com.indeed.proctor.common.model.ConsumableTestDefinition;
@@ -85,7 +86,8 @@ public class TestProctorController {
                         appVersion,
                         constructArtifact(),
                         TEST_NAME,
-                        Collections.singleton(testSpecification));
+                        Collections.singleton(testSpecification),
+                        new VerificationCache());
         assertTrue(result.isCompatible());
         assertFalse(result.isDynamicTest(TEST_NAME));
         assertTrue(StringUtils.isEmpty(result.getError()));
@@ -97,7 +99,11 @@ public class TestProctorController {
         final AppVersion appVersion = new AppVersion("sample application", "v1");
         final ProctorController.CompatibleSpecificationResult result =
                 ProctorController.CompatibleSpecificationResult.fromDynamicTest(
-                        Environment.PRODUCTION, appVersion, constructArtifact(), TEST_NAME);
+                        Environment.PRODUCTION,
+                        appVersion,
+                        constructArtifact(),
+                        TEST_NAME,
+                        new VerificationCache());
         assertTrue(result.isCompatible());
         assertTrue(result.isDynamicTest(TEST_NAME));
         assertTrue(StringUtils.isEmpty(result.getError()));
@@ -0,0 +1,203 @@
+package com.indeed.proctor.webapp.controllers;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.indeed.proctor.common.model.Allocation;
+import com.indeed.proctor.common.model.Range;
+import com.indeed.proctor.common.model.TestBucket;
+import com.indeed.proctor.common.model.TestDefinition;
+import com.indeed.proctor.common.model.TestMatrixDefinition;
+import com.indeed.proctor.common.model.TestMatrixVersion;
+import com.indeed.proctor.common.model.TestType;
+import com.indeed.proctor.store.ProctorStore;
+import com.indeed.proctor.store.Revision;
+import com.indeed.proctor.store.StoreException;
+import com.indeed.proctor.webapp.controllers.TestSearchApiController.FilterType;
+import com.indeed.proctor.webapp.controllers.TestSearchApiController.ProctorTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.indeed.proctor.webapp.controllers.TestSearchApiController.matchesAllIgnoreCase;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestSearchIndexTest {
+    private static final Map<String, TestDefinition> DEFINITIONS =
+            ImmutableMap.of(
+                    "traveltotokyotst",
+                    definition("Travel to Tokyo", "${country == 'JP'}", "control", "&tokyo"),
+                    "travel_to_kyoto_tst",
+                    definition("KEY-1: kyoto", "${lang == 'ja'}", "active", "&kyoto"),
+                    "checkout_button_tst",
+                    definition("New checkout BUTTON", null, "blue_button", "&button"));
+
+    @Test
+    public void testSearchMatchesLikeFilters() throws StoreException {
+        final TestSearchIndex.Snapshot snapshot =
+                new TestSearchIndex(mockStore("1", DEFINITIONS)).getSnapshot();
+        assertThat(snapshot.getTestCount()).isEqualTo(3);
+
+        final List<List<String>> queries =
+                Arrays.asList(
+                        Collections.singletonList(""),
+                        Collections.singletonList("t"),
+                        Collections.singletonList("TO"),
+                        Collections.singletonList("tokyo"),
+                        Arrays.asList("travel", "Kyoto"),
+                        Arrays.asList("Travel", "Tokyo", "User"),
+                        Collections.singletonList("button"),
+                        Collections.singletonList("country"),
+                        Collections.singletonList("key-1"),
+                        Collections.singletonList("unknown"));
+        for (final FilterType filterType : FilterType.values()) {
+            for (final List<String> query : queries) {
+                assertThat(testNames(snapshot.search(filterType, query)))
+                        .as("%s %s", filterType, query)
+                        .containsExactlyElementsOf(filteredTestNames(filterType, query));
+            }
+        }
+    }
+
+    @Test
+    public void testSearchByFilterType() throws StoreException {
+        final TestSearchIndex.Snapshot snapshot =
+                new TestSearchIndex(mockStore("1", DEFINITIONS)).getSnapshot();
+
+        assertThat(search(snapshot, FilterType.ALL, "tokyo")).containsExactly("traveltotokyotst");
+        assertThat(search(snapshot, FilterType.ALL, "anonymous_user"))
+                .containsExactlyInAnyOrderElementsOf(DEFINITIONS.keySet());
+        assertThat(search(snapshot, FilterType.TESTNAME, "KYO"))
+                .containsExactlyInAnyOrder("traveltotokyotst", "travel_to_kyoto_tst");
+        assertThat(search(snapshot, FilterType.DESCRIPTION, "button"))
+                .containsExactly("checkout_button_tst");
+        assertThat(search(snapshot, FilterType.RULE, "lang"))
+                .containsExactly("travel_to_kyoto_tst");
+        assertThat(search(snapshot, FilterType.RULE, "tokyo")).isEmpty();
+        assertThat(search(snapshot, FilterType.BUCKET, "blue"))
+                .containsExactly("checkout_button_tst");
+        assertThat(search(snapshot, FilterType.BUCKETDESCRIPTION, "active bucket"))
+                .containsExactly("travel_to_kyoto_tst");
+    }
+
+    @Test
+    public void testUpdateOnNewVersion() throws StoreException {
+        final ProctorStore store = mockStore("1", DEFINITIONS);
+        final TestSearchIndex index = new TestSearchIndex(store);
+
+        final TestSearchIndex.Snapshot snapshot = index.getSnapshot();
+        assertThat(index.getSnapshot()).isSameAs(snapshot);
+        assertThat(lastUpdated(snapshot, "traveltotokyotst")).isEqualTo(1000);
+        verify(store, times(1)).getAllHistories();
+        verify(store, never()).getHistory(anyString(), anyInt(), anyInt());
+
+        final TestDefinition changedDefinition =
+                definition("Travel to Tokyo", "${country == 'JP'}", "control", "&tokyo2");
+        final Map<String, TestDefinition> changedDefinitions =
+                ImmutableMap.of(
+                        "traveltotokyotst",
+                        changedDefinition,
+                        "travel_to_kyoto_tst",
+                        DEFINITIONS.get("travel_to_kyoto_tst"));
+        when(store.getLatestVersion()).thenReturn("2");
+        when(store.getCurrentTestMatrix()).thenReturn(matrix(changedDefinitions));
+        when(store.getHistory("traveltotokyotst", 0, 1))
+                .thenReturn(Collections.singletonList(revision("2", 2000)));
+
+        final TestSearchIndex.Snapshot updated = index.getSnapshot();
+        assertThat(updated).isNotSameAs(snapshot);
+        assertThat(updated.getTestCount()).isEqualTo(2);
+        assertThat(lastUpdated(updated, "traveltotokyotst")).isEqualTo(2000);
+        assertThat(lastUpdated(updated, "travel_to_kyoto_tst")).isEqualTo(1000);
+        assertThat(testNames(updated.search(FilterType.ALL, Collections.singletonList("tokyo2"))))
+                .containsExactly("traveltotokyotst");
+        assertThat(updated.search(FilterType.ALL, Collections.singletonList("button"))).isEmpty();
+        verify(store, times(1)).getAllHistories();
+        verify(store, times(1)).getHistory(anyString(), anyInt(), anyInt());
+    }
+
+    /** @return names of tests matched by the filter without index */
+    private static List<String> filteredTestNames(
+            final FilterType filterType, final List<String> queries) {
+        return DEFINITIONS.entrySet().stream()
+                .filter(e -> matchesAllIgnoreCase(e.getKey(), e.getValue(), filterType, queries))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static ProctorStore mockStore(
+            final String version, final Map<String, TestDefinition> definitions)
+            throws StoreException {
+        final ProctorStore store = mock(ProctorStore.class);
+        when(store.getLatestVersion()).thenReturn(version);
+        when(store.getCurrentTestMatrix()).thenReturn(matrix(definitions));
+        final Map<String, List<Revision>> histories =
+                definitions.keySet().stream()
+                        .collect(
+                                Collectors.toMap(
+                                        testName -> testName,
+                                        testName ->
+                                                Collections.singletonList(revision("1", 1000))));
+        when(store.getAllHistories()).thenReturn(histories);
+        return store;
+    }
+
+    private static TestMatrixVersion matrix(final Map<String, TestDefinition> definitions) {
+        final TestMatrixVersion testMatrixVersion = new TestMatrixVersion();
+        testMatrixVersion.setTestMatrixDefinition(new TestMatrixDefinition(definitions));
+        return testMatrixVersion;
+    }
+
+    private static Revision revision(final String revision, final long time) {
+        return new Revision(revision, "author", new Date(time), "message");
+    }
+
+    private static TestDefinition definition(
+            final String description,
+            final String rule,
+            final String bucketName,
+            final String salt) {
+        final TestDefinition definition = new TestDefinition();
+        definition.setTestType(TestType.ANONYMOUS_USER);
+        definition.setDescription(description);
+        definition.setSalt(salt);
+        definition.setBuckets(
+                ImmutableList.of(new TestBucket(bucketName, 0, bucketName + " bucket")));
+        definition.setAllocations(
+                ImmutableList.of(new Allocation(rule, ImmutableList.of(new Range(0, 1.0)))));
+        return definition;
+    }
+
+    private static List<String> search(
+            final TestSearchIndex.Snapshot snapshot, final FilterType filterType, final String q) {
+        return testNames(snapshot.search(filterType, Collections.singletonList(q)));
+    }
+
+    private static List<String> testNames(final List<TestSearchIndex.IndexedTest> tests) {
+        return tests.stream()
+                .map(TestSearchIndex.IndexedTest::getTest)
+                .map(ProctorTest::getName)
+                .collect(Collectors.toList());
+    }
+
+    private static long lastUpdated(
+            final TestSearchIndex.Snapshot snapshot, final String testName) {
+        return snapshot.search(FilterType.TESTNAME, Collections.singletonList(testName)).stream()
+                .map(TestSearchIndex.IndexedTest::getTest)
+                .filter(test -> test.getName().equals(testName))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new)
+                .getLastUpdated();
+    }
+}